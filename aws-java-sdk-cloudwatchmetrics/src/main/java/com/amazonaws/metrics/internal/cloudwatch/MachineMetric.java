@@ -27,6 +27,7 @@ enum MachineMetric implements MetricType {
     FreeMemory(Dim.Memory, MetricName.JvmMetric),
     UsedMemory(Dim.Memory, MetricName.JvmMetric),
     SpareMemory(Dim.Memory, MetricName.JvmMetric),
+    AllocationRate(Dim.Memory, MetricName.JvmMetric),
 
     ThreadCount(Dim.Threads, MetricName.JvmMetric),
     DeadLockThreadCount(Dim.Threads, MetricName.JvmMetric, _.EXCLUDES_ZERO_VALUES),  // exclude zero value datum
@@ -34,6 +35,9 @@ enum MachineMetric implements MetricType {
     PeakThreadCount(Dim.Threads, MetricName.JvmMetric),
     TotalStartedThreadCount(Dim.Threads, MetricName.JvmMetric),
 
+    GarbageCollectionCount(Dim.GarbageCollection, MetricName.JvmMetric),
+    GarbageCollectionTime(Dim.GarbageCollection, MetricName.JvmMetric),
+
     // OS Metrics
     OpenFileDescriptorCount(Dim.FileDescriptors, MetricName.OSMetric),
     SpareFileDescriptorCount(Dim.FileDescriptors, MetricName.OSMetric),
@@ -74,6 +78,7 @@ enum MachineMetric implements MetricType {
     private static enum Dim {
         Memory,
         Threads,
+        GarbageCollection,
         FileDescriptors,
         ;
     }
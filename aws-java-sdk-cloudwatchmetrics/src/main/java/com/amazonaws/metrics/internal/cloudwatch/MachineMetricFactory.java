@@ -14,9 +14,12 @@
  */
 package com.amazonaws.metrics.internal.cloudwatch;
 
+import static com.amazonaws.metrics.internal.cloudwatch.MachineMetric.AllocationRate;
 import static com.amazonaws.metrics.internal.cloudwatch.MachineMetric.DaemonThreadCount;
 import static com.amazonaws.metrics.internal.cloudwatch.MachineMetric.DeadLockThreadCount;
 import static com.amazonaws.metrics.internal.cloudwatch.MachineMetric.FreeMemory;
+import static com.amazonaws.metrics.internal.cloudwatch.MachineMetric.GarbageCollectionCount;
+import static com.amazonaws.metrics.internal.cloudwatch.MachineMetric.GarbageCollectionTime;
 import static com.amazonaws.metrics.internal.cloudwatch.MachineMetric.OpenFileDescriptorCount;
 import static com.amazonaws.metrics.internal.cloudwatch.MachineMetric.PeakThreadCount;
 import static com.amazonaws.metrics.internal.cloudwatch.MachineMetric.SpareFileDescriptorCount;
@@ -27,237 +30,238 @@ import static com.amazonaws.metrics.internal.cloudwatch.MachineMetric.TotalStart
 import static com.amazonaws.metrics.internal.cloudwatch.MachineMetric.UsedMemory;
 
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collections;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.logging.LogFactory;
 
 import com.amazonaws.jmx.spi.JmxInfoProvider;
+import com.amazonaws.jmx.spi.MemoryInfoProvider;
 import com.amazonaws.metrics.AwsSdkMetrics;
 import com.amazonaws.metrics.MetricType;
 import com.amazonaws.services.cloudwatch.model.Dimension;
 import com.amazonaws.services.cloudwatch.model.MetricDatum;
 import com.amazonaws.services.cloudwatch.model.StandardUnit;
 
+/**
+ * Samples the machine metrics into preallocated gauges, one per
+ * {@link MachineMetric}, so that the always-on collection of machine metrics
+ * does not allocate new lists and metric datum on every upload cycle.
+ * <p>
+ * This class is not thread-safe; it is only ever accessed by the single
+ * metric uploader thread. Note the metric datum returned by
+ * {@link #generateMetrics()} are reused across calls, and must therefore be
+ * consumed (e.g. summarized) before the next call.
+ */
 class MachineMetricFactory {
-    private static final List<MachineMetric> memoryMetrics = Arrays.asList(
-            TotalMemory, FreeMemory, UsedMemory, SpareMemory);
-    private static final List<MachineMetric> threadMetrics = Arrays.asList(
-            ThreadCount, DeadLockThreadCount, DaemonThreadCount,
-            PeakThreadCount, TotalStartedThreadCount);
-    private static final List<MachineMetric> fdMetrics = Arrays.asList(
-            OpenFileDescriptorCount, SpareFileDescriptorCount);
+    /** Cached to avoid the array cloning of {@link MachineMetric#values()}. */
+    private static final MachineMetric[] machineMetrics = MachineMetric.values();
     private final JmxInfoProvider jmxInfoProvider = JmxInfoProvider.Factory.getJmxInfoProvider();
-
     /**
-     * Add the given list of metrics and corresponding values specified in
-     * "metricValues" to the given list of metric datum.
-     * 
-     * @param list
-     *            list of metric data
-     * @param metricValues
-     *            list of metrics and their corresponding values
+     * The JMX information provider if it supports garbage collection and heap
+     * allocation information; or null otherwise.
      */
-    private void addMetrics(List<MetricDatum> list,
-            MetricValues metricValues,
-            StandardUnit unit) {
-        List<MachineMetric> machineMetrics = metricValues.getMetrics();
-        List<Long> values = metricValues.getValues();
-        for (int i=0; i < machineMetrics.size(); i++) {
-            MachineMetric metric = machineMetrics.get(i);
-            long val = values.get(i).longValue();
-            // skip zero values in some cases
-            if (val != 0 || metric.includeZeroValue()) {
-                MetricDatum datum = new MetricDatum()
-                    .withMetricName(metric.getMetricName())
-                    .withDimensions(
-                        new Dimension()
-                        .withName(metric.getDimensionName())
-                        .withValue(metric.name()))
-                    .withUnit(unit)
-                    .withValue((double) val)
-                    ;
-                list.add(datum);
-            }
+    private final MemoryInfoProvider memoryInfoProvider =
+        jmxInfoProvider instanceof MemoryInfoProvider
+            ? (MemoryInfoProvider) jmxInfoProvider : null;
+
+    /** Preallocated metric datum indexed by the ordinal of machine metric. */
+    private final MetricDatum[] gauges = new MetricDatum[machineMetrics.length];
+    /** Latest sampled values indexed by the ordinal of machine metric. */
+    private final long[] values = new long[machineMetrics.length];
+    /** Whether a value has been sampled in the current cycle. */
+    private final boolean[] sampled = new boolean[machineMetrics.length];
+    /** Whether a metric is included per the SDK metrics registry. */
+    private final boolean[] included = new boolean[machineMetrics.length];
+    /** Reused list of metric datum returned to the caller. */
+    private final List<MetricDatum> targetList =
+            new ArrayList<MetricDatum>(machineMetrics.length);
+
+    // Baselines for the metrics computed as a delta between two samples.
+    private long lastSampleNano = -1;
+    private long lastGcCount = -1;
+    private long lastGcTime = -1;
+    private long lastAllocatedBytes = -1;
+
+    MachineMetricFactory() {
+        for (MachineMetric metric: machineMetrics) {
+            gauges[metric.ordinal()] = new MetricDatum()
+                .withMetricName(metric.getMetricName())
+                .withDimensions(
+                    new Dimension()
+                    .withName(metric.getDimensionName())
+                    .withValue(metric.name()))
+                .withUnit(unitOf(metric))
+                ;
         }
     }
 
     /**
-     * Returns the set of custom machine metrics specified in the SDK metrics
-     * registry; or an empty set if there is none. Note any machine metrics
-     * found in the registry must have been custom specified, as the default
-     * behavior is to include all machine metrics when enabled.
-     * 
-     * @return a non-null set of machine metrics. An empty set means no custom
-     *         machine metrics have been specified.
+     * Returns the unit of the given machine metric.
      */
-    private Set<MachineMetric> customMachineMetrics() {
-        Set<MachineMetric> customized = new HashSet<MachineMetric>();
-        for (MetricType m: AwsSdkMetrics.getPredefinedMetrics()) {
-            if (m instanceof MachineMetric)
-                customized.add((MachineMetric)m);
+    private static StandardUnit unitOf(MachineMetric metric) {
+        switch(metric) {
+            case TotalMemory:
+            case FreeMemory:
+            case UsedMemory:
+            case SpareMemory:
+                return StandardUnit.Bytes;
+            case AllocationRate:
+                return StandardUnit.BytesSecond;
+            case GarbageCollectionTime:
+                return StandardUnit.Milliseconds;
+            default:
+                return StandardUnit.Count;
         }
-        return customized;
     }
 
     /**
-     * Returns a subset of the given list of metrics in "defaults" and the
-     * corresponding value of each returned metric in the subset. Note if the
-     * custom set is empty, the full set of default machine metrics and values
-     * will be returned. (In particular, as in set theory, a set is a subset of
-     * itself.)
-     * 
-     * @param customSet
-     *            custom machine metrics specified in the SDK metrics registry
-     * @param defaults
-     *            the given default list of metrics
-     * @param values
-     *            corresponding values of each metric in "defaults"
+     * Marks the set of machine metrics to be included as specified in the SDK
+     * metrics registry. Note any machine metrics found in the registry must
+     * have been custom specified, as the default behavior is to include all
+     * machine metrics when enabled.
      */
-    private MetricValues metricValues(Set<MachineMetric> customSet,
-            List<MachineMetric> defaults, List<Long> values) {
-        List<MachineMetric> actualMetrics = defaults;
-        List<Long> actualValues = values;
-        if (customSet.size() > 0) {
-            // custom set of machine metrics specified
-            actualMetrics = new ArrayList<MachineMetric>();
-            actualValues = new ArrayList<Long>();
-            for (int i=0; i < defaults.size(); i++) {
-                MachineMetric mm = defaults.get(i);
-                if (customSet.contains(mm)) {
-                    actualMetrics.add(mm);
-                    actualValues.add(values.get(i));
+    private void markIncludedMetrics() {
+        boolean customized = false;
+        for (MetricType m: AwsSdkMetrics.getPredefinedMetrics()) {
+            if (m instanceof MachineMetric) {
+                if (!customized) {
+                    // custom set of machine metrics specified
+                    customized = true;
+                    for (int i=0; i < included.length; i++)
+                        included[i] = false;
                 }
+                included[((MachineMetric)m).ordinal()] = true;
             }
         }
-        return new MetricValues(actualMetrics, actualValues);
+        if (!customized) {
+            for (int i=0; i < included.length; i++)
+                included[i] = true;
+        }
+    }
+
+    /**
+     * Records the sampled value of the given metric.
+     */
+    private void sample(MachineMetric metric, long value) {
+        values[metric.ordinal()] = value;
+        sampled[metric.ordinal()] = true;
     }
 
     List<MetricDatum> generateMetrics() {
         if (AwsSdkMetrics.isMachineMetricExcluded())
             return Collections.emptyList();
-        Set<MachineMetric> customSet = customMachineMetrics();
-        List<MetricDatum> targetList = new ArrayList<MetricDatum>(
-                MachineMetric.values().length);
+        markIncludedMetrics();
+        for (int i=0; i < sampled.length; i++)
+            sampled[i] = false;
+        final long nowNano = System.nanoTime();
         // Memory usage
-        addMemoryMetrics(targetList, customSet);
+        sampleMemoryMetrics(nowNano);
         // Thread related counts
         try {
-            addThreadMetrics(targetList, customSet);
+            sampleThreadMetrics();
         } catch (Throwable t) {
             LogFactory.getLog(getClass()).debug("Ignoring thread metrics", t);
         }
+        // Garbage collection
+        try {
+            sampleGarbageCollectionMetrics();
+        } catch (Throwable t) {
+            LogFactory.getLog(getClass()).debug("Ignoring garbage collection metrics", t);
+        }
         // File descriptor usage
         try {
-            addFileDescriptorMetrics(targetList, customSet);
+            sampleFileDescriptorMetrics();
         } catch (Throwable t) {
             LogFactory.getLog(getClass()).debug("Ignoring file descriptor metrics", t);
         }
+        lastSampleNano = nowNano;
+        targetList.clear();
+        for (MachineMetric metric: machineMetrics) {
+            final int i = metric.ordinal();
+            if (!sampled[i] || !included[i])
+                continue;
+            long val = values[i];
+            // skip zero values in some cases
+            if (val != 0 || metric.includeZeroValue()) {
+                MetricDatum datum = gauges[i];
+                datum.setValue((double) val);
+                targetList.add(datum);
+            }
+        }
         return targetList;
     }
 
-    private void addMemoryMetrics(List<MetricDatum> targetList,
-            Set<MachineMetric> customSet) {
+    private void sampleMemoryMetrics(long nowNano) {
         Runtime rt = Runtime.getRuntime();
         long totalMem = rt.totalMemory();
         long freeMem = rt.freeMemory();
         long usedMem = totalMem - freeMem;
         long spareMem = rt.maxMemory() - usedMem;
-        List<Long> values = Arrays.asList(totalMem, freeMem, usedMem, spareMem);
-        MetricValues metricValues = memoryMetricValues(customSet, values);
-        addMetrics(targetList, metricValues, StandardUnit.Bytes);
+        sample(TotalMemory, totalMem);
+        sample(FreeMemory, freeMem);
+        sample(UsedMemory, usedMem);
+        sample(SpareMemory, spareMem);
+        if (included[AllocationRate.ordinal()] && memoryInfoProvider != null) {
+            long allocatedBytes = memoryInfoProvider.getThreadAllocatedBytes();
+            if (allocatedBytes >= 0) {
+                if (lastAllocatedBytes >= 0 && lastSampleNano >= 0) {
+                    long elapsedNano = nowNano - lastSampleNano;
+                    // Threads that have terminated since the last sampling
+                    // are no longer accounted for, so the delta can go
+                    // negative in which case the sample is skipped
+                    long delta = allocatedBytes - lastAllocatedBytes;
+                    if (elapsedNano > 0 && delta >= 0) {
+                        sample(AllocationRate,
+                            delta * TimeUnit.SECONDS.toNanos(1) / elapsedNano);
+                    }
+                }
+                lastAllocatedBytes = allocatedBytes;
+            }
+        }
     }
 
-    private void addFileDescriptorMetrics(List<MetricDatum> targetList,
-            Set<MachineMetric> customSet) {
-        JmxInfoProvider provider = JmxInfoProvider.Factory.getJmxInfoProvider();
-        long[] fdInfo = provider.getFileDecriptorInfo();
+    private void sampleFileDescriptorMetrics() {
+        long[] fdInfo = jmxInfoProvider.getFileDecriptorInfo();
 
         if (fdInfo != null) {
             long openFdCount = fdInfo[0];
             long maxFdCount = fdInfo[1];
-            List<Long> values = Arrays.asList(openFdCount, maxFdCount - openFdCount);
-            MetricValues metricValues = fdMetricValues(customSet, values); 
-            addMetrics(targetList, metricValues, StandardUnit.Count);
+            sample(OpenFileDescriptorCount, openFdCount);
+            sample(SpareFileDescriptorCount, maxFdCount - openFdCount);
         }
     }
 
-    private void addThreadMetrics(List<MetricDatum> targetList,
-            Set<MachineMetric> customSet) {
-        long threadCount = jmxInfoProvider.getThreadCount();
-        long[] ids = jmxInfoProvider.findDeadlockedThreads();
-        long deadLockThreadCount = ids == null ? 0 : ids.length;
-        long daemonThreadCount = jmxInfoProvider.getDaemonThreadCount();
-        long peakThreadCount = jmxInfoProvider.getPeakThreadCount();
-        long totalStartedThreadCount = jmxInfoProvider.getTotalStartedThreadCount();
-        List<Long> values = Arrays.asList(threadCount,
-            deadLockThreadCount,
-            daemonThreadCount,
-            peakThreadCount,
-            totalStartedThreadCount);
-        MetricValues metricValues = threadMetricValues(customSet, values); 
-        addMetrics(targetList, metricValues, StandardUnit.Count);
-    }
-
-    /**
-     * Returns the set of memory metrics and the corresponding values based on
-     * the default and the customized set of metrics, if any.
-     * 
-     * @param customSet
-     *            a non-null customized set of metrics
-     * @param values
-     *            a non-null list of values corresponding to the list of default
-     *            memory metrics
-     */
-    private MetricValues memoryMetricValues(Set<MachineMetric> customSet,
-            List<Long> values) {
-        return metricValues(customSet, MachineMetricFactory.memoryMetrics,
-                values);
-    }
-
-    /**
-     * Returns the set of file-descriptor metrics and the corresponding values based on
-     * the default and the customized set of metrics, if any.
-     * 
-     * @param customSet
-     *            a non-null customized set of metrics
-     * @param values
-     *            a non-null list of values corresponding to the list of default
-     *            file-descriptor metrics
-     */
-    private MetricValues fdMetricValues(Set<MachineMetric> customSet,
-            List<Long> values) {
-        return metricValues(customSet, MachineMetricFactory.fdMetrics, values);
+    private void sampleThreadMetrics() {
+        sample(ThreadCount, jmxInfoProvider.getThreadCount());
+        if (included[DeadLockThreadCount.ordinal()]) {
+            long[] ids = jmxInfoProvider.findDeadlockedThreads();
+            sample(DeadLockThreadCount, ids == null ? 0 : ids.length);
+        }
+        sample(DaemonThreadCount, jmxInfoProvider.getDaemonThreadCount());
+        sample(PeakThreadCount, jmxInfoProvider.getPeakThreadCount());
+        sample(TotalStartedThreadCount, jmxInfoProvider.getTotalStartedThreadCount());
     }
 
     /**
-     * Returns the set of thread metrics and the corresponding values based on
-     * the default and the customized set of metrics, if any.
-     * 
-     * @param customSet
-     *            a non-null customized set of metrics
-     * @param values
-     *            a non-null list of values corresponding to the list of default
-     *            thread metrics
+     * Samples the number of garbage collections and the elapsed time spent in
+     * garbage collection since the last sampling.
      */
-    private MetricValues threadMetricValues(Set<MachineMetric> customSet,
-            List<Long> values) {
-        return metricValues(customSet, MachineMetricFactory.threadMetrics,
-                values);
-    }
-
-    // Used to get around the limitation of Java returning at most a single value
-    private static class MetricValues {
-        private final List<MachineMetric> metrics;
-        private final List<Long> values;
-        MetricValues(List<MachineMetric> metrics, List<Long> values) {
-            this.metrics = metrics;
-            this.values = values;
+    private void sampleGarbageCollectionMetrics() {
+        if (memoryInfoProvider == null)
+            return;
+        long gcCount = memoryInfoProvider.getGarbageCollectionCount();
+        long gcTime = memoryInfoProvider.getGarbageCollectionTime();
+        if (gcCount >= 0) {
+            if (lastGcCount >= 0)
+                sample(GarbageCollectionCount, gcCount - lastGcCount);
+            lastGcCount = gcCount;
+        }
+        if (gcTime >= 0) {
+            if (lastGcTime >= 0)
+                sample(GarbageCollectionTime, gcTime - lastGcTime);
+            lastGcTime = gcTime;
         }
-        List<MachineMetric> getMetrics() { return metrics; }
-        List<Long> getValues() { return values; }
     }
 }
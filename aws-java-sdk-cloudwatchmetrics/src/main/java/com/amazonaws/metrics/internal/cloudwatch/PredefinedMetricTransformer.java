@@ -87,6 +87,12 @@ public class PredefinedMetricTransformer {
                     return latencyMetricOf(predefined, request, response, INCLUDE_REQUEST_TYPE);
                 case Exception:
                 case ThrottleException:
+                case HedgedRequestCount:
+                case HedgedRequestWinCount:
+                case CircuitBreakerRejectedCount:
+                case CircuitBreakerOpenCount:
+                case CoalescedRequestCount:
+                case ResponseCacheHitCount:
                     return counterMetricOf(predefined, request, response, INCLUDE_REQUEST_TYPE);
                 default:
                     break;
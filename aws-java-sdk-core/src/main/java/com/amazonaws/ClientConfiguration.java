@@ -20,6 +20,8 @@ import org.apache.http.annotation.NotThreadSafe;
 
 import com.amazonaws.http.IdleConnectionReaper;
 import com.amazonaws.retry.PredefinedRetryPolicies;
+import com.amazonaws.retry.CircuitBreakerPolicy;
+import com.amazonaws.retry.HedgingPolicy;
 import com.amazonaws.retry.RetryPolicy;
 import com.amazonaws.util.VersionInfoUtils;
 /**
@@ -93,6 +95,30 @@ public class ClientConfiguration {
     /** The retry policy upon failed requests. **/
     private RetryPolicy retryPolicy = DEFAULT_RETRY_POLICY;
 
+    /**
+     * The optional hedging policy for idempotent read requests; or null if
+     * hedging is disabled, which is the default.
+     */
+    private HedgingPolicy hedgingPolicy;
+
+    /**
+     * The optional per-endpoint circuit breaker policy; or null if the circuit
+     * breaker is disabled, which is the default.
+     */
+    private CircuitBreakerPolicy circuitBreakerPolicy;
+
+    /**
+     * The optional policy for coalescing concurrent identical requests; or
+     * null if request coalescing is disabled, which is the default.
+     */
+    private RequestCoalescingPolicy requestCoalescingPolicy;
+
+    /**
+     * The optional policy for caching the responses of idempotent requests;
+     * or null if response caching is disabled, which is the default.
+     */
+    private ResponseCachePolicy responseCachePolicy;
+
     /** Optionally specifies the local address to bind to */
     private InetAddress localAddress;
 
@@ -210,6 +236,10 @@ public class ClientConfiguration {
         this.maxConnections              = other.maxConnections;
         this.maxErrorRetry               = other.maxErrorRetry;
         this.retryPolicy                 = other.retryPolicy;
+        this.hedgingPolicy               = other.hedgingPolicy;
+        this.circuitBreakerPolicy        = other.circuitBreakerPolicy;
+        this.requestCoalescingPolicy     = other.requestCoalescingPolicy;
+        this.responseCachePolicy         = other.responseCachePolicy;
         this.localAddress                = other.localAddress;
         this.protocol                    = other.protocol;
         this.proxyDomain                 = other.proxyDomain;
@@ -639,6 +669,158 @@ public class ClientConfiguration {
         return this;
     }
 
+    /**
+     * Returns the hedging policy for idempotent read requests, or null if
+     * hedging is disabled.
+     *
+     * @return The hedging policy for idempotent read requests, or null if
+     *         hedging is disabled.
+     */
+    public HedgingPolicy getHedgingPolicy() {
+        return hedgingPolicy;
+    }
+
+    /**
+     * Sets the hedging policy for idempotent read requests. Hedging is
+     * disabled by default.
+     *
+     * @param hedgingPolicy
+     *            The hedging policy for idempotent read requests; or null to
+     *            disable hedging.
+     */
+    public void setHedgingPolicy(HedgingPolicy hedgingPolicy) {
+        this.hedgingPolicy = hedgingPolicy;
+    }
+
+    /**
+     * Sets the hedging policy for idempotent read requests, and returns the
+     * updated ClientConfiguration object.
+     *
+     * @param hedgingPolicy
+     *            The hedging policy for idempotent read requests; or null to
+     *            disable hedging.
+     *
+     * @return The updated ClientConfiguration object.
+     */
+    public ClientConfiguration withHedgingPolicy(HedgingPolicy hedgingPolicy) {
+        setHedgingPolicy(hedgingPolicy);
+        return this;
+    }
+
+    /**
+     * Returns the per-endpoint circuit breaker policy, or null if the circuit
+     * breaker is disabled.
+     *
+     * @return The per-endpoint circuit breaker policy, or null if the circuit
+     *         breaker is disabled.
+     */
+    public CircuitBreakerPolicy getCircuitBreakerPolicy() {
+        return circuitBreakerPolicy;
+    }
+
+    /**
+     * Sets the per-endpoint circuit breaker policy. The circuit breaker is
+     * disabled by default.
+     *
+     * @param circuitBreakerPolicy
+     *            The per-endpoint circuit breaker policy; or null to disable
+     *            the circuit breaker.
+     */
+    public void setCircuitBreakerPolicy(CircuitBreakerPolicy circuitBreakerPolicy) {
+        this.circuitBreakerPolicy = circuitBreakerPolicy;
+    }
+
+    /**
+     * Sets the per-endpoint circuit breaker policy, and returns the updated
+     * ClientConfiguration object.
+     *
+     * @param circuitBreakerPolicy
+     *            The per-endpoint circuit breaker policy; or null to disable
+     *            the circuit breaker.
+     *
+     * @return The updated ClientConfiguration object.
+     */
+    public ClientConfiguration withCircuitBreakerPolicy(CircuitBreakerPolicy circuitBreakerPolicy) {
+        setCircuitBreakerPolicy(circuitBreakerPolicy);
+        return this;
+    }
+
+    /**
+     * Returns the policy for coalescing concurrent identical requests, or null
+     * if request coalescing is disabled.
+     *
+     * @return The policy for coalescing concurrent identical requests, or null
+     *         if request coalescing is disabled.
+     */
+    public RequestCoalescingPolicy getRequestCoalescingPolicy() {
+        return requestCoalescingPolicy;
+    }
+
+    /**
+     * Sets the policy for coalescing concurrent identical requests. Request
+     * coalescing is disabled by default.
+     *
+     * @param requestCoalescingPolicy
+     *            The policy for coalescing concurrent identical requests; or
+     *            null to disable request coalescing.
+     */
+    public void setRequestCoalescingPolicy(RequestCoalescingPolicy requestCoalescingPolicy) {
+        this.requestCoalescingPolicy = requestCoalescingPolicy;
+    }
+
+    /**
+     * Sets the policy for coalescing concurrent identical requests, and
+     * returns the updated ClientConfiguration object.
+     *
+     * @param requestCoalescingPolicy
+     *            The policy for coalescing concurrent identical requests; or
+     *            null to disable request coalescing.
+     *
+     * @return The updated ClientConfiguration object.
+     */
+    public ClientConfiguration withRequestCoalescingPolicy(RequestCoalescingPolicy requestCoalescingPolicy) {
+        setRequestCoalescingPolicy(requestCoalescingPolicy);
+        return this;
+    }
+
+    /**
+     * Returns the policy for caching the responses of idempotent requests, or
+     * null if response caching is disabled.
+     *
+     * @return The policy for caching the responses of idempotent requests, or
+     *         null if response caching is disabled.
+     */
+    public ResponseCachePolicy getResponseCachePolicy() {
+        return responseCachePolicy;
+    }
+
+    /**
+     * Sets the policy for caching the responses of idempotent requests.
+     * Response caching is disabled by default.
+     *
+     * @param responseCachePolicy
+     *            The policy for caching the responses of idempotent requests;
+     *            or null to disable response caching.
+     */
+    public void setResponseCachePolicy(ResponseCachePolicy responseCachePolicy) {
+        this.responseCachePolicy = responseCachePolicy;
+    }
+
+    /**
+     * Sets the policy for caching the responses of idempotent requests, and
+     * returns the updated ClientConfiguration object.
+     *
+     * @param responseCachePolicy
+     *            The policy for caching the responses of idempotent requests;
+     *            or null to disable response caching.
+     *
+     * @return The updated ClientConfiguration object.
+     */
+    public ClientConfiguration withResponseCachePolicy(ResponseCachePolicy responseCachePolicy) {
+        setResponseCachePolicy(responseCachePolicy);
+        return this;
+    }
+
     /**
      * Returns the maximum number of retry attempts for failed retryable
      * requests (ex: 5xx error responses from a service). This method returns -1
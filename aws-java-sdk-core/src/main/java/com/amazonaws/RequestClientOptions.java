@@ -32,6 +32,11 @@ public final class RequestClientOptions {
      * BufferedInputStream.
      */
     public static final int DEFAULT_STREAM_BUFFER_SIZE = (1 << 17)+1;
+    /**
+     * Default number of bytes read from the request or response content
+     * between the byte transfer notifications to the progress listener: 8K.
+     */
+    public static final int DEFAULT_PROGRESS_NOTIFICATION_THRESHOLD = 8 * 1024;
     public static enum Marker {
         /** 
          * Used to specify the http user_agent value.
@@ -46,6 +51,15 @@ public final class RequestClientOptions {
      * Used for mark-and-reset purposes during retry.
      */
     private int readLimit = DEFAULT_STREAM_BUFFER_SIZE;
+    /**
+     * Number of bytes read between byte transfer notifications.
+     */
+    private int progressNotificationThreshold = DEFAULT_PROGRESS_NOTIFICATION_THRESHOLD;
+    /**
+     * Time in milliseconds after which the bytes read so far are notified
+     * regardless of the threshold; or zero if notified by threshold only.
+     */
+    private long progressNotificationIntervalMillis;
     
     /**
      * @deprecated by {@link #getClientMarker(Marker)}.
@@ -125,12 +139,67 @@ public final class RequestClientOptions {
         this.readLimit = readLimit;
     }
 
+    /**
+     * Returns the number of bytes read from the request or response content
+     * between the byte transfer notifications to the progress listener;
+     * defaults to {@value #DEFAULT_PROGRESS_NOTIFICATION_THRESHOLD}.
+     */
+    public final int getProgressNotificationThreshold() {
+        return progressNotificationThreshold;
+    }
+
+    /**
+     * Sets the number of bytes read from the request or response content
+     * between the byte transfer notifications to the progress listener. The
+     * bytes read are accumulated in a counter without any allocation, and
+     * a progress event is only created and published upon notification, so a
+     * larger threshold reduces the overhead of progress tracking of large
+     * transfers.
+     * 
+     * @param progressNotificationThreshold
+     *            must be positive
+     */
+    public final void setProgressNotificationThreshold(int progressNotificationThreshold) {
+        if (progressNotificationThreshold <= 0)
+            throw new IllegalArgumentException("progressNotificationThreshold must be positive");
+        this.progressNotificationThreshold = progressNotificationThreshold;
+    }
+
+    /**
+     * Returns the time in milliseconds after which the bytes read so far are
+     * notified to the progress listener regardless of the notification
+     * threshold; or zero (the default) if notified by threshold only.
+     */
+    public final long getProgressNotificationIntervalMillis() {
+        return progressNotificationIntervalMillis;
+    }
+
+    /**
+     * Sets the time in milliseconds after which the bytes read so far are
+     * notified to the progress listener regardless of the notification
+     * threshold. Combined with a large
+     * {@link #setProgressNotificationThreshold(int) threshold}, progress is
+     * reported at a steady rate independent of the transfer speed. The
+     * elapsed time is only checked by the reading thread upon each read.
+     * 
+     * @param progressNotificationIntervalMillis
+     *            the notification interval; or zero to notify by threshold
+     *            only.
+     */
+    public final void setProgressNotificationIntervalMillis(long progressNotificationIntervalMillis) {
+        if (progressNotificationIntervalMillis < 0)
+            throw new IllegalArgumentException("progressNotificationIntervalMillis must be non-negative");
+        this.progressNotificationIntervalMillis = progressNotificationIntervalMillis;
+    }
+
     /**
      * Copy the internal states of this <code>RequestClientOptions</code> to the
      * target <code>RequestClientOptions</code>.
      */
     void copyTo(RequestClientOptions target) {
         target.setReadLimit(getReadLimit());
+        target.setProgressNotificationThreshold(getProgressNotificationThreshold());
+        target.setProgressNotificationIntervalMillis(getProgressNotificationIntervalMillis());
         for (Marker marker: Marker.values())
             target.putClientMarker(marker, getClientMarker(marker));
     }
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2010-2014 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.apache.http.annotation.Immutable;
+
+/**
+ * Request coalescing policy that can be configured on a specific service
+ * client using {@link ClientConfiguration}. Concurrent requests that are found
+ * to be identical per the {@link CoalescingKeyProvider} are coalesced into a
+ * single service call, the outcome of which is returned to every caller.
+ * <p>
+ * Coalescing should only be enabled for read-only operations, such as
+ * DynamoDB DescribeTable, SQS GetQueueUrl or EC2 DescribeInstances. Note the
+ * same result object is returned to all the coalesced callers, and should
+ * therefore be treated as read-only. Requests whose responses are streamed
+ * back to the caller, such as S3 GetObject, are never coalesced.
+ * <p>
+ * This class is immutable, therefore safe to be shared by multiple clients.
+ *
+ * @see ClientConfiguration#setRequestCoalescingPolicy(RequestCoalescingPolicy)
+ */
+@Immutable
+public final class RequestCoalescingPolicy {
+    /**
+     * Provides the coalescing key of a request. This field should not be null.
+     */
+    private final CoalescingKeyProvider keyProvider;
+
+    /**
+     * Constructs a new request coalescing policy.
+     *
+     * @param keyProvider
+     *            Provides the key by which concurrent requests are determined
+     *            to be identical. Must not be null.
+     */
+    public RequestCoalescingPolicy(CoalescingKeyProvider keyProvider) {
+        if (keyProvider == null) {
+            throw new IllegalArgumentException("keyProvider must not be null");
+        }
+        this.keyProvider = keyProvider;
+    }
+
+    /**
+     * Returns the coalescing key provider included in this policy.
+     */
+    public CoalescingKeyProvider getCoalescingKeyProvider() {
+        return keyProvider;
+    }
+
+    /**
+     * The hook for providing the key by which concurrent requests are
+     * determined to be identical.
+     */
+    public static interface CoalescingKeyProvider {
+        /**
+         * Returns the coalescing key of the given request; or null if the
+         * request should not be coalesced. Two concurrent requests of the same
+         * type to the same endpoint, sent with the same credentials, are
+         * coalesced if their keys are equal.
+         *
+         * @param originalRequest
+         *            The original request object being executed. For
+         *            performance reason, this object is not a defensive copy,
+         *            and caller should not attempt to modify its data.
+         */
+        public Object getCoalescingKey(AmazonWebServiceRequest originalRequest);
+    }
+
+    /**
+     * A coalescing key provider that selects requests by their types, such as
+     * {@code DescribeTableRequest.class} or {@code GetQueueUrlRequest.class},
+     * and uses the request object itself as the key, relying on the
+     * <code>equals</code> and <code>hashCode</code> methods of the request
+     * classes. Request types that do not override these methods, such as
+     * the S3 {@code GetObjectMetadataRequest}, are never coalesced by this
+     * provider.
+     */
+    public static class RequestTypeKeyProvider implements CoalescingKeyProvider {
+        private final Set<Class<? extends AmazonWebServiceRequest>> requestTypes;
+
+        public RequestTypeKeyProvider(
+                Collection<Class<? extends AmazonWebServiceRequest>> requestTypes) {
+            this.requestTypes = Collections.unmodifiableSet(
+                new HashSet<Class<? extends AmazonWebServiceRequest>>(requestTypes));
+        }
+
+        @Override
+        public Object getCoalescingKey(AmazonWebServiceRequest originalRequest) {
+            return originalRequest != null
+                && requestTypes.contains(originalRequest.getClass())
+                ? originalRequest : null;
+        }
+    }
+}
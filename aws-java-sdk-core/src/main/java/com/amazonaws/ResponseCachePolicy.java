@@ -0,0 +1,170 @@
+/*
+ * Copyright 2010-2014 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.http.annotation.Immutable;
+
+/**
+ * Response cache policy that can be configured on a specific service client
+ * using {@link ClientConfiguration}. The responses of the request types
+ * specified by the {@link CacheRule}s are cached for the configured time to
+ * live, so that identical requests sent with the same credentials to the same
+ * endpoint are served from the cache without calling the service.
+ * <p>
+ * Caching should only be enabled for idempotent describe and list operations,
+ * such as DynamoDB DescribeTable, SQS GetQueueUrl, EC2 DescribeRegions or SNS
+ * ListTopics. Note the same result object is returned to all callers served
+ * from the cache, and should therefore be treated as read-only. Requests whose
+ * responses are streamed back to the caller, such as S3 GetObject, are never
+ * cached.
+ * <p>
+ * The cached responses of a request type are invalidated whenever a request of
+ * any of its mutating types, as specified in its cache rule, is executed. For
+ * example, all the cached DescribeTable responses can be invalidated by any
+ * UpdateTable or DeleteTable request.
+ * <p>
+ * This class is immutable, therefore safe to be shared by multiple clients.
+ *
+ * @see ClientConfiguration#setResponseCachePolicy(ResponseCachePolicy)
+ */
+@Immutable
+public final class ResponseCachePolicy {
+    /** The default maximum number of cached responses per client. */
+    public static final int DEFAULT_MAX_ENTRIES = 1000;
+
+    /** The maximum number of cached responses per client. */
+    private final int maxEntries;
+
+    /** The cache rules, at most one per cached request type. */
+    private final List<CacheRule> cacheRules;
+
+    /**
+     * Constructs a new response cache policy with the default maximum number
+     * of cached responses.
+     *
+     * @param cacheRules
+     *            The cache rules, at most one per cached request type.
+     */
+    public ResponseCachePolicy(CacheRule... cacheRules) {
+        this(DEFAULT_MAX_ENTRIES, Arrays.asList(cacheRules));
+    }
+
+    /**
+     * Constructs a new response cache policy.
+     *
+     * @param maxEntries
+     *            The maximum number of cached responses per client, beyond
+     *            which the least recently used responses are evicted.
+     * @param cacheRules
+     *            The cache rules, at most one per cached request type.
+     */
+    public ResponseCachePolicy(int maxEntries, Collection<CacheRule> cacheRules) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("maxEntries must be at least one");
+        }
+        Set<Class<?>> requestTypes = new HashSet<Class<?>>();
+        for (CacheRule rule : cacheRules) {
+            if (!requestTypes.add(rule.getRequestType())) {
+                throw new IllegalArgumentException(
+                    "Duplicate cache rule for " + rule.getRequestType());
+            }
+        }
+        this.maxEntries = maxEntries;
+        this.cacheRules = Collections.unmodifiableList(
+            new ArrayList<CacheRule>(cacheRules));
+    }
+
+    /**
+     * Returns the maximum number of cached responses per client.
+     */
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    /**
+     * Returns the cache rules included in this policy.
+     */
+    public List<CacheRule> getCacheRules() {
+        return cacheRules;
+    }
+
+    /**
+     * The caching rule of a specific type of request.
+     */
+    @Immutable
+    public static final class CacheRule {
+        private final Class<? extends AmazonWebServiceRequest> requestType;
+        private final long ttlMillis;
+        private final Set<Class<? extends AmazonWebServiceRequest>> invalidatedBy;
+
+        /**
+         * @param requestType
+         *            The type of request the responses of which are cached,
+         *            such as {@code DescribeTableRequest.class}.
+         * @param ttlMillis
+         *            The time to live in milliseconds of a cached response.
+         * @param invalidatedBy
+         *            The types of mutating request, such as
+         *            {@code UpdateTableRequest.class}, that invalidate all the
+         *            cached responses of the request type when executed; or
+         *            an empty collection if none.
+         */
+        public CacheRule(Class<? extends AmazonWebServiceRequest> requestType,
+                long ttlMillis,
+                Collection<Class<? extends AmazonWebServiceRequest>> invalidatedBy) {
+            if (requestType == null) {
+                throw new IllegalArgumentException("requestType must not be null");
+            }
+            if (ttlMillis <= 0) {
+                throw new IllegalArgumentException("ttlMillis must be positive");
+            }
+            this.requestType = requestType;
+            this.ttlMillis = ttlMillis;
+            this.invalidatedBy = Collections.unmodifiableSet(
+                new HashSet<Class<? extends AmazonWebServiceRequest>>(
+                    invalidatedBy));
+        }
+
+        /**
+         * Returns the type of request the responses of which are cached.
+         */
+        public Class<? extends AmazonWebServiceRequest> getRequestType() {
+            return requestType;
+        }
+
+        /**
+         * Returns the time to live in milliseconds of a cached response.
+         */
+        public long getTtlMillis() {
+            return ttlMillis;
+        }
+
+        /**
+         * Returns the types of mutating request that invalidate the cached
+         * responses of the request type.
+         */
+        public Set<Class<? extends AmazonWebServiceRequest>> getInvalidatedBy() {
+            return invalidatedBy;
+        }
+    }
+}
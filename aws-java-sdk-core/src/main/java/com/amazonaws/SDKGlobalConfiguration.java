@@ -115,6 +115,27 @@ public class SDKGlobalConfiguration {
     public static final String ENFORCE_S3_SIGV4_SYSTEM_PROPERTY =
         "com.amazonaws.services.s3.enforceV4";
 
+    /**
+     * System property for the number of threads used to deliver progress
+     * events to listeners that are not safe to be called synchronously. The
+     * events of a specific listener are always delivered in order by the same
+     * thread. If not set, a single thread is used for all listeners.
+     */
+    public static final String PROGRESS_PUBLISHER_THREADS_SYSTEM_PROPERTY =
+        "com.amazonaws.sdk.progressPublisherThreads";
+
+    /**
+     * System property for the maximum number of undelivered progress events
+     * queued for each progress delivery thread. Once the limit is reached,
+     * publishing a progress event blocks until a queued event has been
+     * delivered. The limit is shared by all the listeners delivered by the
+     * same thread, so a slow listener blocks the publishing threads, such as
+     * the I/O threads, of every transfer whose listeners share its thread.
+     * If not set, the default value of 10000 will be used.
+     */
+    public static final String PROGRESS_PUBLISHER_QUEUE_SIZE_SYSTEM_PROPERTY =
+        "com.amazonaws.sdk.progressPublisherQueueSize";
+
     /**
      * @deprecated with {@link AmazonWebServiceRequest#getRequestClientOptions()}
      * and {@link RequestClientOptions#setReadLimit(int)}.
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2014-2014 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.event;
+
+import static com.amazonaws.event.SDKProgressPublisher.publishProgress;
+import static com.amazonaws.event.SDKProgressPublisher.publishRequestBytesTransferred;
+import static com.amazonaws.event.SDKProgressPublisher.publishResponseBytesTransferred;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.http.annotation.ThreadSafe;
+
+/**
+ * A progress listener that coalesces the byte transfer events to the
+ * underlying listener. The number of bytes transferred is accumulated in
+ * counters without any locking, and is delivered to the underlying listener as
+ * a single event at most once per the given interval. Any other event is
+ * delivered as is, after first delivering the bytes accumulated so far.
+ * <p>
+ * Since this listener never blocks, it is always safe to be called
+ * synchronously. Events are delivered to the underlying listener via
+ * {@link SDKProgressPublisher}, and therefore asynchronously unless the
+ * underlying listener is safe to be called synchronously.
+ */
+@ThreadSafe
+public class CoalescingProgressListener implements ProgressListener, DeliveryMode {
+    private final ProgressListener listener;
+    private final long intervalNanos;
+    private final AtomicLong requestBytes = new AtomicLong();
+    private final AtomicLong responseBytes = new AtomicLong();
+    private final AtomicLong lastDeliveryNanos = new AtomicLong(System.nanoTime());
+
+    /**
+     * @param listener
+     *            the underlying listener; must not be null
+     * @param intervalMillis
+     *            the minimum interval in milliseconds between the deliveries
+     *            of byte transfer events to the underlying listener
+     */
+    public CoalescingProgressListener(ProgressListener listener, long intervalMillis) {
+        if (listener == null)
+            throw new IllegalArgumentException("listener must not be null");
+        if (intervalMillis < 0)
+            throw new IllegalArgumentException("intervalMillis must be non-negative");
+        this.listener = listener;
+        this.intervalNanos = TimeUnit.MILLISECONDS.toNanos(intervalMillis);
+    }
+
+    @Override
+    public void progressChanged(ProgressEvent progressEvent) {
+        switch (progressEvent.getEventType()) {
+            case REQUEST_BYTE_TRANSFER_EVENT:
+                requestBytes.addAndGet(progressEvent.getBytes());
+                break;
+            case RESPONSE_BYTE_TRANSFER_EVENT:
+                responseBytes.addAndGet(progressEvent.getBytes());
+                break;
+            default:
+                flush();
+                publishProgress(listener, progressEvent);
+                return;
+        }
+        long last = lastDeliveryNanos.get();
+        long now = System.nanoTime();
+        if (now - last >= intervalNanos
+        &&  lastDeliveryNanos.compareAndSet(last, now)) {
+            deliverBytes();
+        }
+    }
+
+    /**
+     * Delivers the bytes transferred accumulated so far, if any, to the
+     * underlying listener.
+     */
+    public void flush() {
+        lastDeliveryNanos.set(System.nanoTime());
+        deliverBytes();
+    }
+
+    private void deliverBytes() {
+        long bytes = requestBytes.getAndSet(0);
+        if (bytes > 0)
+            publishRequestBytesTransferred(listener, bytes);
+        bytes = responseBytes.getAndSet(0);
+        if (bytes > 0)
+            publishResponseBytesTransferred(listener, bytes);
+    }
+
+    /**
+     * Returns the underlying listener.
+     */
+    public ProgressListener getListener() {
+        return listener;
+    }
+
+    @Override
+    public boolean isSyncCallSafe() {
+        return true;
+    }
+}
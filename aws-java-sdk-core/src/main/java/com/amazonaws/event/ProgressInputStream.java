@@ -16,10 +16,12 @@ package com.amazonaws.event;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.http.annotation.NotThreadSafe;
 
 import com.amazonaws.AmazonWebServiceRequest;
+import com.amazonaws.RequestClientOptions;
 import com.amazonaws.internal.SdkFilterInputStream;
 
 /**
@@ -33,12 +35,17 @@ public abstract class ProgressInputStream extends SdkFilterInputStream {
      * return the given input stream as is.
      * 
      * @param is the request content input stream
+     * @see RequestClientOptions#setProgressNotificationThreshold(int)
+     * @see RequestClientOptions#setProgressNotificationIntervalMillis(long)
      */
     public static InputStream inputStreamForRequest(InputStream is,
             AmazonWebServiceRequest req) {
-        return req == null
-             ? is
-             : new RequestProgressInputStream(is, req.getGeneralProgressListener());
+        if (req == null)
+            return is;
+        RequestClientOptions options = req.getRequestClientOptions();
+        return new RequestProgressInputStream(is, req.getGeneralProgressListener(),
+                options.getProgressNotificationThreshold(),
+                options.getProgressNotificationIntervalMillis());
     }
 
     /**
@@ -47,19 +54,32 @@ public abstract class ProgressInputStream extends SdkFilterInputStream {
      * return the given input stream as is.
      * 
      * @param is the response content input stream
+     * @see RequestClientOptions#setProgressNotificationThreshold(int)
+     * @see RequestClientOptions#setProgressNotificationIntervalMillis(long)
      */
     public static InputStream inputStreamForResponse(InputStream is,
             AmazonWebServiceRequest req) {
-        return req == null
-             ? is
-             : new ResponseProgressInputStream(is, req.getGeneralProgressListener());
+        if (req == null)
+            return is;
+        RequestClientOptions options = req.getRequestClientOptions();
+        return new ResponseProgressInputStream(is, req.getGeneralProgressListener(),
+                options.getProgressNotificationThreshold(),
+                options.getProgressNotificationIntervalMillis());
     }
 
     /** The threshold of bytes between notifications. */
-    private static final int DEFAULT_NOTIFICATION_THRESHOLD = 8 * 1024;
+    private static final int DEFAULT_NOTIFICATION_THRESHOLD =
+        RequestClientOptions.DEFAULT_PROGRESS_NOTIFICATION_THRESHOLD;
 
     private final ProgressListener listener;
     private final int notifyThresHold;
+    /**
+     * The time in nanoseconds after which the unnotified bytes are notified
+     * regardless of the threshold; or zero if notified by threshold only.
+     */
+    private final long notifyIntervalNanos;
+    /** The time in nanoseconds of the last notification or first read. */
+    private long lastNotifiedNanos;
     /** The number of bytes read that the listener hasn't been notified about yet. */
     private int unnotifiedByteCount;
     private boolean hasBeenRead;
@@ -71,10 +91,23 @@ public abstract class ProgressInputStream extends SdkFilterInputStream {
     }
 
     public ProgressInputStream(InputStream is, ProgressListener listener, int notifyThresHold) {
+        this(is, listener, notifyThresHold, 0);
+    }
+
+    /**
+     * @param notifyThresHold
+     *            the number of bytes read between notifications
+     * @param notifyIntervalMillis
+     *            if positive, the time in milliseconds after which the bytes
+     *            read so far are notified regardless of the threshold
+     */
+    public ProgressInputStream(InputStream is, ProgressListener listener,
+            int notifyThresHold, long notifyIntervalMillis) {
         super(is);
         if (is == null || listener == null)
             throw new IllegalArgumentException();
         this.notifyThresHold = notifyThresHold;
+        this.notifyIntervalNanos = TimeUnit.MILLISECONDS.toNanos(notifyIntervalMillis);
         this.listener = listener;
     }
 
@@ -109,22 +142,34 @@ public abstract class ProgressInputStream extends SdkFilterInputStream {
      * Upon reading the given number of bytes.
      * The default behavior is to accumulate the byte count and only fire off
      * a notification by invoking {@link #onNotifyBytesRead()} if the count
-     * has exceeded the threshold.
+     * has exceeded the threshold, or if the notification interval (if any)
+     * has elapsed.
      */
     private void onBytesRead(int bytesRead) {
         unnotifiedByteCount += bytesRead;
         if (unnotifiedByteCount >= notifyThresHold) {
-            onNotifyBytesRead();
-            notifiedByteCount += unnotifiedByteCount;
-            unnotifiedByteCount = 0;
+            notifyBytesRead();
+        } else if (notifyIntervalNanos > 0) {
+            long now = System.nanoTime();
+            if (now - lastNotifiedNanos >= notifyIntervalNanos)
+                notifyBytesRead();
         }
     }
 
+    private void notifyBytesRead() {
+        onNotifyBytesRead();
+        notifiedByteCount += unnotifiedByteCount;
+        unnotifiedByteCount = 0;
+        if (notifyIntervalNanos > 0)
+            lastNotifiedNanos = System.nanoTime();
+    }
+
     @Override
     public int read() throws IOException {
         if (!hasBeenRead) {
             onFirstRead();
             hasBeenRead = true;
+            lastNotifiedNanos = System.nanoTime();
         }
         int ch = super.read();
         if (ch == -1)
@@ -147,6 +192,7 @@ public abstract class ProgressInputStream extends SdkFilterInputStream {
         if (!hasBeenRead) {
             onFirstRead();
             hasBeenRead = true;
+            lastNotifiedNanos = System.nanoTime();
         }
         int bytesRead = super.read(b, off, len);
         if (bytesRead == -1)
@@ -28,6 +28,11 @@ class RequestProgressInputStream extends ProgressInputStream {
         super(is, listener);
     }
 
+    RequestProgressInputStream(InputStream is, ProgressListener listener,
+            int notifyThresHold, long notifyIntervalMillis) {
+        super(is, listener, notifyThresHold, notifyIntervalMillis);
+    }
+
     @Override
     protected void onReset() {
         publishRequestReset(getListener(), getNotifiedByteCount());
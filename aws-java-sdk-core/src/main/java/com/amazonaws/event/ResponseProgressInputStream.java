@@ -26,6 +26,11 @@ class ResponseProgressInputStream extends ProgressInputStream {
         super(is, listener);
     }
 
+    ResponseProgressInputStream(InputStream is, ProgressListener listener,
+            int notifyThresHold, long notifyIntervalMillis) {
+        super(is, listener, notifyThresHold, notifyIntervalMillis);
+    }
+
     @Override
     protected void onReset() {
         publishResponseReset(getListener(), getNotifiedByteCount());
@@ -21,18 +21,42 @@ import static com.amazonaws.event.ProgressEventType.REQUEST_CONTENT_LENGTH_EVENT
 import static com.amazonaws.event.ProgressEventType.RESPONSE_BYTE_TRANSFER_EVENT;
 import static com.amazonaws.event.ProgressEventType.RESPONSE_CONTENT_LENGTH_EVENT;
 
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.logging.LogFactory;
 
+import com.amazonaws.SDKGlobalConfiguration;
+
 /**
  * This class is responsible for executing the callback method of
- * ProgressListener; listener callbacks are executed sequentially in a separate
- * single thread.
+ * ProgressListener; listener callbacks that are not safe to be made
+ * synchronously are executed in separate delivery threads. The callbacks of a
+ * specific listener are always executed sequentially by the same thread.
+ * <p>
+ * By default, a single delivery thread is used. The number of delivery threads
+ * and the bound of the queue of each thread can be configured via the system
+ * properties
+ * {@value SDKGlobalConfiguration#PROGRESS_PUBLISHER_THREADS_SYSTEM_PROPERTY}
+ * and
+ * {@value SDKGlobalConfiguration#PROGRESS_PUBLISHER_QUEUE_SIZE_SYSTEM_PROPERTY}
+ * respectively.
+ * <p>
+ * Note the bound of a queue is shared by all the listeners delivered by its
+ * thread, which by default means all the asynchronous listeners of the JVM.
+ * Once a queue is full, every thread publishing to it, including the I/O
+ * threads of unrelated transfers, blocks until a queued event has been
+ * delivered. A single slow listener can therefore slow down every transfer
+ * whose listeners share its delivery thread. Listeners that may be slow
+ * should either be made synchronous and hand off their own work, or be
+ * spread over more delivery threads.
  */
 public class SDKProgressPublisher {
     protected static final boolean SYNC = false;  // for testing purposes only
@@ -59,6 +83,22 @@ public class SDKProgressPublisher {
         return deliverEvent(listener, new ProgressEvent(type));
     }
 
+    /**
+     * Used to deliver the given progress event to the given listener.
+     * 
+     * @return the future of a submitted task; or null if the delivery is
+     * synchronous with no future task involved.
+     */
+    public static Future<?> publishProgress(
+            final ProgressListener listener,
+            final ProgressEvent event) {
+        if (listener == ProgressListener.NOOP || listener == null
+        ||  event == null) {
+            return null;
+        }
+        return deliverEvent(listener, event);
+    }
+
     private static Future<?> deliverEvent(final ProgressListener listener,
             final ProgressEvent event) {
         if (SYNC) { // forces all callbacks to be made synchronously
@@ -77,7 +117,7 @@ public class SDKProgressPublisher {
         // This is unfortunate as the listener should never block in the first
         // place, but such task submission is necessary to remain backward
         // compatible.
-        return latestFutureTask = LazyHolder.executor.submit(new Runnable() {
+        return latestFutureTask = getExecutorService(listener).submit(new Runnable() {
             @Override
             public void run() {
                 listener.progressChanged(event);
@@ -219,10 +259,25 @@ public class SDKProgressPublisher {
     }
 
     /**
-     * Returns the executor service used for performing the callbacks.
+     * Returns the executor service of the first delivery thread, which is the
+     * only one unless multiple delivery threads have been configured.
+     *
+     * @see #getExecutorService(Object)
      */
     protected static ExecutorService getExecutorService() {
-        return LazyHolder.executor;
+        return LazyHolder.executors[0];
+    }
+
+    /**
+     * Returns the executor service used for performing the callbacks to the
+     * given listener, so that all the callbacks to the same listener are
+     * executed in order.
+     */
+    protected static ExecutorService getExecutorService(Object listener) {
+        ExecutorService[] executors = LazyHolder.executors;
+        return executors.length == 1
+             ? executors[0]
+             : executors[(System.identityHashCode(listener) & Integer.MAX_VALUE) % executors.length];
     }
     
     protected static Future<?> setLatestFutureTask(Future<?> f) {
@@ -243,25 +298,100 @@ public class SDKProgressPublisher {
     }
 
     /**
-     * Used to avoid creating the extra thread until absolutely necessary.
+     * Used to avoid creating the extra threads until absolutely necessary.
      */
     private static final class LazyHolder {
-        /** A single thread pool for executing all ProgressListener callbacks. **/
-        private static final ExecutorService executor = createNewExecutorService();
+        private static final int DEFAULT_QUEUE_SIZE = 10000;
+
+        /**
+         * The executors for performing the ProgressListener callbacks, each
+         * with a single thread and a bounded queue.
+         */
+        private static final ExecutorService[] executors = createNewExecutorServices();
 
         /**
-         * Creates a new single threaded executor service for performing the
+         * Creates the single threaded executor services for performing the
          * callbacks.
          */
-        private static ExecutorService createNewExecutorService() {
-            return Executors.newSingleThreadExecutor(new ThreadFactory() {
-                public Thread newThread(Runnable r) {
-                    Thread t = new Thread(r);
-                    t.setName("java-sdk-progress-listener-callback-thread");
-                    t.setDaemon(true);
-                    return t;
+        private static ExecutorService[] createNewExecutorServices() {
+            int threads = Math.max(1, intProperty(
+                    SDKGlobalConfiguration.PROGRESS_PUBLISHER_THREADS_SYSTEM_PROPERTY, 1));
+            int queueSize = Math.max(1, intProperty(
+                    SDKGlobalConfiguration.PROGRESS_PUBLISHER_QUEUE_SIZE_SYSTEM_PROPERTY,
+                    DEFAULT_QUEUE_SIZE));
+            ExecutorService[] executors = new ExecutorService[threads];
+            for (int i = 0; i < threads; i++) {
+                final String name = threads == 1
+                    ? "java-sdk-progress-listener-callback-thread"
+                    : "java-sdk-progress-listener-callback-thread-" + (i + 1);
+                executors[i] = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<Runnable>(queueSize),
+                    new ThreadFactory() {
+                        public Thread newThread(Runnable r) {
+                            Thread t = new DeliveryThread(r);
+                            t.setName(name);
+                            t.setDaemon(true);
+                            return t;
+                        }
+                    },
+                    new BlockingPolicy());
+            }
+            return executors;
+        }
+
+        private static int intProperty(String name, int defaultValue) {
+            String value = System.getProperty(name);
+            if (value == null)
+                return defaultValue;
+            try {
+                return Integer.parseInt(value.trim());
+            } catch (NumberFormatException e) {
+                LogFactory.getLog(SDKProgressPublisher.class)
+                    .warn("Unable to parse " + name + " from value: " + value);
+                return defaultValue;
+            }
+        }
+    }
+
+    /**
+     * Marks a thread used to deliver progress events.
+     */
+    private static final class DeliveryThread extends Thread {
+        DeliveryThread(Runnable r) {
+            super(r);
+        }
+    }
+
+    /**
+     * Blocks the publishing thread until there is space in the queue, so that
+     * listeners that are slow to consume events exert back pressure rather
+     * than accumulating an unbounded backlog. Callbacks published from a
+     * delivery thread, such as by a listener, are executed directly so as to
+     * avoid deadlock. If the publishing thread is interrupted while blocked,
+     * the callback is queued only if there is space by then, and is otherwise
+     * dropped, as running it on the publishing thread could deliver events to
+     * the listener concurrently and out of order.
+     */
+    private static final class BlockingPolicy implements RejectedExecutionHandler {
+        @Override
+        public void rejectedExecution(Runnable r, ThreadPoolExecutor executor) {
+            if (executor.isShutdown()) {
+                throw new RejectedExecutionException(
+                        "Progress listener callback executor has been shut down");
+            }
+            if (Thread.currentThread() instanceof DeliveryThread) {
+                r.run();
+                return;
+            }
+            try {
+                executor.getQueue().put(r);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                if (!executor.getQueue().offer(r)) {
+                    LogFactory.getLog(SDKProgressPublisher.class)
+                        .debug("Progress event dropped as the publishing thread has been interrupted");
                 }
-            });
+            }
         }
     }
 
@@ -277,9 +407,11 @@ public class SDKProgressPublisher {
      * @param now true if shutdown now; false otherwise.
      */
     public static void shutdown(boolean now) {
-        if (now)
-            LazyHolder.executor.shutdownNow();
-        else
-            LazyHolder.executor.shutdown();
+        for (ExecutorService executor : LazyHolder.executors) {
+            if (now)
+                executor.shutdownNow();
+            else
+                executor.shutdown();
+        }
     }
 }
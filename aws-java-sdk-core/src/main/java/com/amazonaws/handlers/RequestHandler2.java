@@ -16,6 +16,7 @@ package com.amazonaws.handlers;
 
 import com.amazonaws.Request;
 import com.amazonaws.Response;
+import com.amazonaws.retry.CircuitBreakerState;
 import com.amazonaws.util.TimingInfo;
 
 /**
@@ -67,6 +68,22 @@ public abstract class RequestHandler2 {
     public abstract void afterError(Request<?> request, Response<?> response,
             Exception e);
 
+    /**
+     * Notified when the circuit breaker of the endpoint of the specified
+     * request has changed state, if a circuit breaker policy has been
+     * configured. This method does nothing by default.
+     *
+     * @param request
+     *            The request being executed when the state changed.
+     * @param previousState
+     *            The previous state of the circuit breaker.
+     * @param newState
+     *            The new state of the circuit breaker.
+     */
+    public void circuitBreakerStateChanged(Request<?> request,
+            CircuitBreakerState previousState, CircuitBreakerState newState) {
+    }
+
     /**
      * Returns an instance of request handler adapted to the
      * {@link RequestHandler2} interface from the given request handler
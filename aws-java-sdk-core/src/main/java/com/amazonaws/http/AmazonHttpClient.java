@@ -20,7 +20,12 @@ import static com.amazonaws.event.SDKProgressPublisher.publishRequestContentLeng
 import static com.amazonaws.event.SDKProgressPublisher.publishResponseContentLength;
 import static com.amazonaws.util.AWSRequestMetrics.Field.AWSErrorCode;
 import static com.amazonaws.util.AWSRequestMetrics.Field.AWSRequestID;
+import static com.amazonaws.util.AWSRequestMetrics.Field.CircuitBreakerOpenCount;
+import static com.amazonaws.util.AWSRequestMetrics.Field.CircuitBreakerRejectedCount;
+import static com.amazonaws.util.AWSRequestMetrics.Field.CoalescedRequestCount;
 import static com.amazonaws.util.AWSRequestMetrics.Field.Exception;
+import static com.amazonaws.util.AWSRequestMetrics.Field.HedgedRequestCount;
+import static com.amazonaws.util.AWSRequestMetrics.Field.HedgedRequestWinCount;
 import static com.amazonaws.util.AWSRequestMetrics.Field.HttpClientPoolAvailableCount;
 import static com.amazonaws.util.AWSRequestMetrics.Field.HttpClientPoolLeasedCount;
 import static com.amazonaws.util.AWSRequestMetrics.Field.HttpClientPoolPendingCount;
@@ -28,6 +33,7 @@ import static com.amazonaws.util.AWSRequestMetrics.Field.HttpRequestTime;
 import static com.amazonaws.util.AWSRequestMetrics.Field.RedirectLocation;
 import static com.amazonaws.util.AWSRequestMetrics.Field.RequestCount;
 import static com.amazonaws.util.AWSRequestMetrics.Field.RequestSigningTime;
+import static com.amazonaws.util.AWSRequestMetrics.Field.ResponseCacheHitCount;
 import static com.amazonaws.util.AWSRequestMetrics.Field.RetryPauseTime;
 import static com.amazonaws.util.AWSRequestMetrics.Field.ServiceEndpoint;
 import static com.amazonaws.util.AWSRequestMetrics.Field.ServiceName;
@@ -35,6 +41,7 @@ import static com.amazonaws.util.AWSRequestMetrics.Field.StatusCode;
 import static com.amazonaws.util.AWSRequestMetrics.Field.ThrottleException;
 import static com.amazonaws.util.IOUtils.closeQuietly;
 
+import java.io.ByteArrayInputStream;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
@@ -47,6 +54,16 @@ import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.net.ssl.SSLContext;
 
@@ -75,10 +92,13 @@ import com.amazonaws.AmazonServiceException.ErrorType;
 import com.amazonaws.AmazonWebServiceRequest;
 import com.amazonaws.AmazonWebServiceResponse;
 import com.amazonaws.ClientConfiguration;
+import com.amazonaws.DefaultRequest;
 import com.amazonaws.Request;
+import com.amazonaws.RequestCoalescingPolicy;
 import com.amazonaws.RequestClientOptions;
 import com.amazonaws.RequestClientOptions.Marker;
 import com.amazonaws.ResetException;
+import com.amazonaws.ResponseCachePolicy;
 import com.amazonaws.Response;
 import com.amazonaws.ResponseMetadata;
 import com.amazonaws.SDKGlobalConfiguration;
@@ -96,15 +116,21 @@ import com.amazonaws.internal.ResettableInputStream;
 import com.amazonaws.internal.SdkBufferedInputStream;
 import com.amazonaws.metrics.AwsSdkMetrics;
 import com.amazonaws.metrics.RequestMetricCollector;
+import com.amazonaws.retry.CircuitBreakerOpenException;
+import com.amazonaws.retry.CircuitBreakerPolicy;
+import com.amazonaws.retry.CircuitBreakerState;
+import com.amazonaws.retry.HedgingPolicy;
 import com.amazonaws.retry.RetryPolicy;
 import com.amazonaws.retry.RetryUtils;
 import com.amazonaws.retry.internal.AuthErrorRetryStrategy;
 import com.amazonaws.retry.internal.AuthRetryParameters;
+import com.amazonaws.retry.internal.CircuitBreaker;
 import com.amazonaws.util.AWSRequestMetrics;
 import com.amazonaws.util.AWSRequestMetrics.Field;
 import com.amazonaws.util.CountingInputStream;
 import com.amazonaws.util.DateUtils;
 import com.amazonaws.util.FakeIOException;
+import com.amazonaws.util.IOUtils;
 import com.amazonaws.util.ResponseMetadataCache;
 import com.amazonaws.util.TimingInfo;
 import com.amazonaws.util.UnreliableFilterInputStream;
@@ -164,6 +190,51 @@ public class AmazonHttpClient {
     /** The time difference in seconds between this client and AWS. */
     private volatile int timeOffset = SDKGlobalConfiguration.getGlobalTimeOffset();
 
+    /** The hedging policy for idempotent read requests; or null if disabled. */
+    private final HedgingPolicy hedgingPolicy;
+
+    /**
+     * Used to send the hedged attempts of requests; or null if hedging is
+     * disabled.
+     */
+    private final ScheduledExecutorService hedgingExecutor;
+
+    /** The latencies of the hedgeable requests tracked per request type. */
+    private final ConcurrentMap<Class<?>, RequestLatencyTracker> latencyTrackers =
+        new ConcurrentHashMap<Class<?>, RequestLatencyTracker>();
+
+    /** The per-endpoint circuit breaker policy; or null if disabled. */
+    private final CircuitBreakerPolicy circuitBreakerPolicy;
+
+    /** The circuit breakers of the service endpoints. */
+    private final ConcurrentMap<URI, CircuitBreaker> circuitBreakers =
+        new ConcurrentHashMap<URI, CircuitBreaker>();
+
+    /**
+     * The time in milliseconds after which a closed circuit breaker that has
+     * not been used is evicted, and the minimum interval between the sweeps
+     * for such circuit breakers.
+     */
+    private static final long CIRCUIT_BREAKER_IDLE_MILLIS =
+        TimeUnit.MINUTES.toMillis(5);
+
+    /** The earliest time in milliseconds of the next idle breaker sweep. */
+    private final AtomicLong nextCircuitBreakerSweepMillis = new AtomicLong(
+        System.currentTimeMillis() + CIRCUIT_BREAKER_IDLE_MILLIS);
+
+    /**
+     * The policy for coalescing concurrent identical requests; or null if
+     * disabled.
+     */
+    private final RequestCoalescingPolicy requestCoalescingPolicy;
+
+    /** The requests in flight that identical requests can be coalesced into. */
+    private final ConcurrentMap<InFlightRequest.Key, InFlightRequest> inFlightRequests =
+        new ConcurrentHashMap<InFlightRequest.Key, InFlightRequest>();
+
+    /** The cache of responses; or null if response caching is disabled. */
+    private final ResponseCache responseCache;
+
     /**
      * Constructs a new AWS client using the specified client configuration
      * options (ex: max retry attempts, proxy settings, etc).
@@ -204,8 +275,29 @@ public class AmazonHttpClient {
         this.config = config;
         this.httpClient = httpClient;
         this.requestMetricCollector = requestMetricCollector;
+        this.hedgingPolicy = config.getHedgingPolicy();
+        this.hedgingExecutor = hedgingPolicy == null
+            ? null
+            : new ScheduledThreadPoolExecutor(
+                hedgingPolicy.getMaxConcurrentHedges(), hedgingThreadFactory);
+        this.circuitBreakerPolicy = config.getCircuitBreakerPolicy();
+        this.requestCoalescingPolicy = config.getRequestCoalescingPolicy();
+        final ResponseCachePolicy responseCachePolicy = config.getResponseCachePolicy();
+        this.responseCache = responseCachePolicy == null
+            ? null
+            : new ResponseCache(responseCachePolicy);
     }
 
+    private static final ThreadFactory hedgingThreadFactory = new ThreadFactory() {
+        private final AtomicInteger threadCount = new AtomicInteger(0);
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r);
+            thread.setDaemon(true);
+            thread.setName("java-sdk-hedged-request-" + threadCount.incrementAndGet());
+            return thread;
+        }
+    };
+
     /**
      * Returns additional response metadata for an executed request. Response
      * metadata isn't considered part of the standard results returned by an
@@ -283,6 +375,21 @@ public class AmazonHttpClient {
         final AWSRequestMetrics awsRequestMetrics = executionContext.getAwsRequestMetrics();
         Response<T> response = null;
         final InputStream origContent = request.getContent();
+        final InFlightRequest.Key cacheKey = responseCache == null
+                || responseHandler.needsConnectionLeftOpen()
+                || responseHandler instanceof SideEffectingResponseHandler
+            ? null
+            : responseCache.keyOf(request, executionContext.getCredentials());
+        if (cacheKey != null) {
+            response = cachedResponse(request, cacheKey, listener,
+                requestHandler2s, awsRequestMetrics);
+            if (response != null)
+                return response;
+        } else if (responseCache != null) {
+            responseCache.invalidate(awsreq);
+        }
+        final long cacheGeneration = cacheKey == null
+            ? 0 : responseCache.generationOf(cacheKey);
         final InputStream toBeClosed = beforeRequest(request); // for progress tracking
         // make "notCloseable", so reset would work with retries
         final InputStream notCloseable = (toBeClosed == null)
@@ -292,8 +399,17 @@ public class AmazonHttpClient {
         request.setContent(notCloseable);
         try {
             publishProgress(listener, ProgressEventType.CLIENT_REQUEST_STARTED_EVENT);
-            response = executeHelper(request, responseHandler,
-                    errorResponseHandler, executionContext);
+            final InFlightRequest.Key coalescingKey =
+                coalescingKeyOf(request, responseHandler, executionContext);
+            response = coalescingKey == null
+                ? executeOnce(request, origContent, responseHandler,
+                    errorResponseHandler, executionContext)
+                : executeCoalesced(coalescingKey, request, origContent,
+                    responseHandler, errorResponseHandler, executionContext);
+            if (cacheKey != null) {
+                responseCache.put(cacheKey, response,
+                    responseMetadataCache.get(awsreq), cacheGeneration);
+            }
             publishProgress(listener, ProgressEventType.CLIENT_REQUEST_SUCCESS_EVENT);
             TimingInfo timingInfo = awsRequestMetrics.getTimingInfo().endTiming();
             afterResponse(request, requestHandler2s, response, timingInfo);
@@ -306,7 +422,37 @@ public class AmazonHttpClient {
             // Always close so any progress tracking would get the final events propagated.
             closeQuietly(toBeClosed, log);
             request.setContent(origContent); // restore the original content
+            if (responseCache != null && cacheKey == null)
+                responseCache.invalidate(awsreq);
+        }
+    }
+
+    /**
+     * Returns the cached response for the given request, after recording its
+     * response metadata and notifying the progress listener and request
+     * handlers as if the request had been executed; or null if there is no
+     * cached response.
+     */
+    @SuppressWarnings("unchecked")
+    private <T> Response<T> cachedResponse(Request<?> request,
+            InFlightRequest.Key cacheKey, ProgressListener listener,
+            List<RequestHandler2> requestHandler2s,
+            AWSRequestMetrics awsRequestMetrics) {
+        final ResponseCache.Entry entry = responseCache.get(cacheKey);
+        if (entry == null)
+            return null;
+        // The request keys are equal, and so are the response types
+        final Response<T> response = (Response<T>) entry.response;
+        if (entry.responseMetadata != null) {
+            responseMetadataCache.add(request.getOriginalRequest(),
+                entry.responseMetadata);
         }
+        awsRequestMetrics.incrementCounter(ResponseCacheHitCount);
+        publishProgress(listener, ProgressEventType.CLIENT_REQUEST_STARTED_EVENT);
+        publishProgress(listener, ProgressEventType.CLIENT_REQUEST_SUCCESS_EVENT);
+        TimingInfo timingInfo = awsRequestMetrics.getTimingInfo().endTiming();
+        afterResponse(request, requestHandler2s, response, timingInfo);
+        return response;
     }
 
     /**
@@ -400,13 +546,354 @@ public class AmazonHttpClient {
         return requestHandler2s;
     }
 
+    /**
+     * Executes the given request, as a hedged request if applicable.
+     */
+    private <T> Response<T> executeOnce(final Request<?> request,
+            final InputStream origContent,
+            final HttpResponseHandler<AmazonWebServiceResponse<T>> responseHandler,
+            final HttpResponseHandler<AmazonServiceException> errorResponseHandler,
+            final ExecutionContext executionContext) {
+        return isHedgeable(request, origContent, responseHandler)
+            ? executeHedged(request, origContent, responseHandler,
+                errorResponseHandler, executionContext)
+            : executeHelper(request, responseHandler,
+                errorResponseHandler, executionContext, null);
+    }
+
+    /**
+     * Returns the key by which the given request can be coalesced with
+     * concurrent identical requests; or null if the request is not to be
+     * coalesced.
+     */
+    private InFlightRequest.Key coalescingKeyOf(Request<?> request,
+            HttpResponseHandler<?> responseHandler,
+            ExecutionContext executionContext) {
+        if (requestCoalescingPolicy == null)
+            return null;
+        // Streamed responses cannot be shared by multiple callers, and
+        // side effects of handling a response must not be skipped
+        if (responseHandler.needsConnectionLeftOpen()
+                || responseHandler instanceof SideEffectingResponseHandler)
+            return null;
+        final AmazonWebServiceRequest awsreq = request.getOriginalRequest();
+        if (awsreq == null)
+            return null;
+        final Object key = requestCoalescingPolicy.getCoalescingKeyProvider()
+            .getCoalescingKey(awsreq);
+        return key == null
+            ? null
+            : new InFlightRequest.Key(request.getEndpoint(), awsreq,
+                executionContext.getCredentials(), key);
+    }
+
+    /**
+     * Executes the given request unless an identical request is already in
+     * flight, in which case the outcome of the in-flight request is returned
+     * instead.
+     */
+    @SuppressWarnings("unchecked")
+    private <T> Response<T> executeCoalesced(final InFlightRequest.Key key,
+            final Request<?> request,
+            final InputStream origContent,
+            final HttpResponseHandler<AmazonWebServiceResponse<T>> responseHandler,
+            final HttpResponseHandler<AmazonServiceException> errorResponseHandler,
+            final ExecutionContext executionContext) {
+        final InFlightRequest newRequest =
+            new InFlightRequest(request.getOriginalRequest());
+        final InFlightRequest inFlight = inFlightRequests.putIfAbsent(key, newRequest);
+        if (inFlight != null) {
+            executionContext.getAwsRequestMetrics()
+                .incrementCounter(CoalescedRequestCount);
+            // The request keys are equal, and so are the response types
+            Response<T> response = (Response<T>) inFlight.await();
+            responseMetadataCache.add(request.getOriginalRequest(),
+                responseMetadataCache.get(inFlight.getOriginalRequest()));
+            return response;
+        }
+        Response<T> response = null;
+        Throwable failure = null;
+        try {
+            response = executeOnce(request, origContent, responseHandler,
+                errorResponseHandler, executionContext);
+            return response;
+        } catch (RuntimeException e) {
+            failure = e;
+            throw e;
+        } catch (Error e) {
+            failure = e;
+            throw e;
+        } finally {
+            inFlightRequests.remove(key, newRequest);
+            newRequest.complete(response, failure);
+        }
+    }
+
+    /**
+     * Returns true if the given request is to be executed as a hedged request
+     * per the hedging policy; false otherwise. Only requests without content,
+     * or with in-memory content that can be duplicated, are hedged, and only
+     * if their response handler is stateless and has no side effects, as the
+     * same handler handles the responses of concurrent attempts.
+     */
+    private boolean isHedgeable(Request<?> request, InputStream origContent,
+            HttpResponseHandler<?> responseHandler) {
+        if (hedgingPolicy == null)
+            return false;
+        if (!(responseHandler instanceof StatelessResponseHandler)
+                || responseHandler instanceof SideEffectingResponseHandler)
+            return false;
+        if (origContent != null && !(origContent instanceof ByteArrayInputStream))
+            return false;
+        return hedgingPolicy.getHedgeCondition().shouldHedge(
+            request.getOriginalRequest());
+    }
+
+    /**
+     * Executes the given request, and sends a hedged attempt of the same
+     * request if it has not completed after the configured latency percentile
+     * of the same type of requests. The first attempt to complete
+     * successfully wins, and the other attempt is cancelled.
+     *
+     * @param origContent
+     *            the original content of the request, which must either be
+     *            null or a byte array input stream.
+     */
+    private <T> Response<T> executeHedged(final Request<?> request,
+            final InputStream origContent,
+            final HttpResponseHandler<AmazonWebServiceResponse<T>> responseHandler,
+            final HttpResponseHandler<AmazonServiceException> errorResponseHandler,
+            final ExecutionContext executionContext) {
+        final RequestLatencyTracker tracker =
+            latencyTrackerOf(request.getOriginalRequest());
+        final long hedgeDelay = tracker.getPercentile();
+        final long startNano = System.nanoTime();
+        if (hedgeDelay < 0) {
+            // Not enough latency samples to determine when to hedge
+            Response<T> response = executeHelper(request, responseHandler,
+                    errorResponseHandler, executionContext, null);
+            tracker.record(elapsedMillis(startNano));
+            return response;
+        }
+        final HedgedAttempt primary = new HedgedAttempt();
+        final HedgedRequestTask<T> hedge = new HedgedRequestTask<T>(
+            copyForHedge(request, origContent), responseHandler,
+            errorResponseHandler, new HedgedExecutionContext(executionContext),
+            primary);
+        final ScheduledFuture<?> future = hedgingExecutor.schedule(hedge,
+            Math.max(hedgeDelay, hedgingPolicy.getMinDelayMillis()),
+            TimeUnit.MILLISECONDS);
+        final AWSRequestMetrics awsRequestMetrics = executionContext.getAwsRequestMetrics();
+        Response<T> response = null;
+        RuntimeException failure = null;
+        try {
+            response = executeHelper(request, responseHandler,
+                    errorResponseHandler, executionContext, primary);
+        } catch (RuntimeException e) {
+            failure = e;
+        } catch (Error e) {
+            future.cancel(false);
+            hedge.cancel();
+            throw e;
+        }
+        if (response != null && hedge.claimWin(HedgedRequestTask.PRIMARY)) {
+            future.cancel(false);
+            hedge.cancel();
+            if (hedge.isStarted())
+                awsRequestMetrics.incrementCounter(HedgedRequestCount);
+            tracker.record(elapsedMillis(startNano));
+            return response;
+        }
+        if (response == null && !future.cancel(false)) {
+            // The primary attempt has either failed or been cancelled, but the
+            // hedged attempt has already been started.
+            hedge.awaitCompletion();
+        }
+        if (hedge.isStarted())
+            awsRequestMetrics.incrementCounter(HedgedRequestCount);
+        if (hedge.hasWon()) {
+            if (response != null) {
+                // Release the connection of the losing primary attempt
+                primary.cancel();
+            }
+            awsRequestMetrics.incrementCounter(HedgedRequestWinCount);
+            tracker.record(hedge.getLatencyMillis());
+            return hedge.getResponse();
+        }
+        throw failure;
+    }
+
+    /**
+     * Returns the latency tracker for the type of the given request.
+     */
+    private RequestLatencyTracker latencyTrackerOf(AmazonWebServiceRequest awsreq) {
+        Class<?> type = awsreq == null ? AmazonWebServiceRequest.class : awsreq.getClass();
+        RequestLatencyTracker tracker = latencyTrackers.get(type);
+        if (tracker == null) {
+            RequestLatencyTracker newTracker =
+                new RequestLatencyTracker(hedgingPolicy.getPercentile());
+            tracker = latencyTrackers.putIfAbsent(type, newTracker);
+            if (tracker == null)
+                tracker = newTracker;
+        }
+        return tracker;
+    }
+
+    /**
+     * Returns the progress listener of the given request; or a no-op listener
+     * if executing the hedged attempt of the request, so that the listener is
+     * only notified of the progress of the primary attempt.
+     */
+    private static ProgressListener progressListenerOf(
+            AmazonWebServiceRequest awsreq, ExecutionContext executionContext) {
+        return executionContext instanceof HedgedExecutionContext
+            ? ProgressListener.NOOP
+            : awsreq.getGeneralProgressListener();
+    }
+
+    private static long elapsedMillis(long startNano) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNano);
+    }
+
+    /**
+     * Returns a copy of the given request, with its own copy of the content
+     * if any, to be used for the hedged attempt.
+     */
+    private Request<?> copyForHedge(Request<?> request, InputStream origContent) {
+        DefaultRequest<Object> copy = new DefaultRequest<Object>(
+            request.getOriginalRequest(), request.getServiceName());
+        copy.setHttpMethod(request.getHttpMethod());
+        copy.setEndpoint(request.getEndpoint());
+        copy.setResourcePath(request.getResourcePath());
+        copy.setParameters(new LinkedHashMap<String, String>(request.getParameters()));
+        copy.setHeaders(new HashMap<String, String>(request.getHeaders()));
+        copy.setTimeOffset(request.getTimeOffset());
+        if (origContent != null) {
+            // ByteArrayInputStream ignores the read limit
+            origContent.mark(0);
+            try {
+                copy.setContent(new ByteArrayInputStream(
+                    IOUtils.toByteArray(origContent)));
+                origContent.reset();
+            } catch (IOException e) {
+                // never happens with a byte array input stream
+                throw new AmazonClientException(
+                    "Unable to copy the request content for hedging", e);
+            }
+        }
+        return copy;
+    }
+
+    /**
+     * Used to execute the hedged attempt of a request, which competes with the
+     * primary attempt executed by the caller thread.
+     */
+    private class HedgedRequestTask<T> implements Runnable {
+        static final int PRIMARY = 1;
+        static final int HEDGE = 2;
+
+        private final Request<?> request;
+        private final HttpResponseHandler<AmazonWebServiceResponse<T>> responseHandler;
+        private final HttpResponseHandler<AmazonServiceException> errorResponseHandler;
+        private final ExecutionContext executionContext;
+        private final HedgedAttempt primary;
+        private final HedgedAttempt attempt = new HedgedAttempt();
+        private final AtomicInteger winner = new AtomicInteger();
+        private final CountDownLatch completed = new CountDownLatch(1);
+        private volatile boolean started;
+        private volatile Response<T> response;
+        private volatile long latencyMillis;
+
+        HedgedRequestTask(Request<?> request,
+                HttpResponseHandler<AmazonWebServiceResponse<T>> responseHandler,
+                HttpResponseHandler<AmazonServiceException> errorResponseHandler,
+                ExecutionContext executionContext,
+                HedgedAttempt primary) {
+            this.request = request;
+            this.responseHandler = responseHandler;
+            this.errorResponseHandler = errorResponseHandler;
+            this.executionContext = executionContext;
+            this.primary = primary;
+        }
+
+        @Override
+        public void run() {
+            try {
+                if (winner.get() != 0 || attempt.isCancelled())
+                    return;
+                started = true;
+                final long startNano = System.nanoTime();
+                request.setAWSRequestMetrics(executionContext.getAwsRequestMetrics());
+                response = executeHelper(request, responseHandler,
+                    errorResponseHandler, executionContext, attempt);
+                latencyMillis = elapsedMillis(startNano);
+                // Note the response is assigned before claiming the win so it
+                // is visible to the caller thread once the win is observed
+                if (claimWin(HEDGE)) {
+                    primary.cancel();
+                } else {
+                    // Release the connection of the losing hedged attempt
+                    attempt.cancel();
+                }
+            } catch (Throwable t) {
+                if (log.isDebugEnabled())
+                    log.debug("Hedged attempt failed: " + t.getMessage(), t);
+            } finally {
+                completed.countDown();
+            }
+        }
+
+        /**
+         * Returns true if the given attempt is the first to claim the win;
+         * false otherwise.
+         */
+        boolean claimWin(int who) {
+            return winner.compareAndSet(0, who);
+        }
+
+        boolean hasWon() {
+            return winner.get() == HEDGE;
+        }
+
+        boolean isStarted() {
+            return started;
+        }
+
+        void cancel() {
+            attempt.cancel();
+        }
+
+        void awaitCompletion() {
+            try {
+                completed.await();
+            } catch (InterruptedException e) {
+                attempt.cancel();
+                Thread.currentThread().interrupt();
+                throw new AmazonClientException(e.getMessage(), e);
+            }
+        }
+
+        Response<T> getResponse() {
+            return response;
+        }
+
+        long getLatencyMillis() {
+            return latencyMillis;
+        }
+    }
+
     /**
      * Internal method to execute the HTTP method given.
+     *
+     * @param attempt
+     *            the handle used to cancel this execution if it is one of the
+     *            attempts of a hedged request; or null otherwise.
      */
     private <T> Response<T> executeHelper(final Request<?> request,
             HttpResponseHandler<AmazonWebServiceResponse<T>> responseHandler,
             HttpResponseHandler<AmazonServiceException> errorResponseHandler,
-            final ExecutionContext executionContext) {
+            final ExecutionContext executionContext,
+            final HedgedAttempt attempt) {
         /*
          * add the service endpoint to the logs. You can infer service name from
          * service endpoint
@@ -433,7 +920,12 @@ public class AmazonHttpClient {
             originalContent.mark(readLimit);
         }
         final ExecOneRequestParams p = new ExecOneRequestParams();
+        p.attempt = attempt;
         while (true) {
+            if (p.isCancelled()) {
+                throw lastReset(new AmazonClientException(
+                    "Request attempt cancelled"), request);
+            }
             p.initPerRetry();
             if (p.redirectedURI != null) {
                 /*
@@ -456,13 +948,23 @@ public class AmazonHttpClient {
                 request.setHeaders(originalHeaders);
                 request.setContent(originalContent);
             }
+            acquireCircuitBreaker(request, executionContext, awsRequestMetrics, p);
             try {
                 Response<T> response = executeOneRequest(request, responseHandler,
                     errorResponseHandler, executionContext, awsRequestMetrics,
                     p);
+                // A null response with no retried exception is a redirect
+                releaseCircuitBreaker(request, p.retriedException,
+                    executionContext, awsRequestMetrics, p);
                 if (response != null)
                     return response;
             } catch (IOException ioe) {
+                if (p.isCancelled()) {
+                    p.ignoreCircuitBreaker();
+                    throw lastReset(new AmazonClientException(
+                        "Request attempt cancelled: " + ioe.getMessage(), ioe),
+                        request);
+                }
                 if (log.isInfoEnabled()) {
                     log.info("Unable to execute HTTP request: " + ioe.getMessage(), ioe);
                 }
@@ -471,6 +973,8 @@ public class AmazonHttpClient {
                 AmazonClientException ace = new AmazonClientException(
                         "Unable to execute HTTP request: " + ioe.getMessage(),
                         ioe);
+                releaseCircuitBreaker(request, ace, executionContext,
+                    awsRequestMetrics, p);
                 if (!shouldRetry(request.getOriginalRequest(),
                                 p.apacheRequest,
                                 ace,
@@ -481,10 +985,19 @@ public class AmazonHttpClient {
                 // Cache the retryable exception
                 p.retriedException = ace;
             } catch(RuntimeException e) {
+                if (!p.isCancelled() && e instanceof AmazonServiceException) {
+                    releaseCircuitBreaker(request, (AmazonServiceException) e,
+                        executionContext, awsRequestMetrics, p);
+                }
+                // Failures that never reached the endpoint are not counted
+                p.ignoreCircuitBreaker();
+                if (p.isCancelled())
+                    throw lastReset(e, request);
                 throw lastReset(
                         captureExceptionMetrics(e, awsRequestMetrics),
                         request);
             } catch(Error e) {
+                p.ignoreCircuitBreaker();
                 throw lastReset(
                         captureExceptionMetrics(e, awsRequestMetrics),
                         request);
@@ -512,6 +1025,134 @@ public class AmazonHttpClient {
         } /* end while (true) */
     }
 
+    /**
+     * Returns the circuit breaker of the given endpoint; or null if the circuit
+     * breaker is disabled.
+     */
+    private CircuitBreaker getCircuitBreaker(URI endpoint) {
+        if (circuitBreakerPolicy == null || endpoint == null)
+            return null;
+        CircuitBreaker breaker = circuitBreakers.get(endpoint);
+        if (breaker == null) {
+            CircuitBreaker newBreaker = new CircuitBreaker(circuitBreakerPolicy);
+            breaker = circuitBreakers.putIfAbsent(endpoint, newBreaker);
+            if (breaker == null) {
+                breaker = newBreaker;
+                evictIdleCircuitBreakers();
+            }
+        }
+        return breaker;
+    }
+
+    /**
+     * Removes the circuit breakers that have been closed and unused for a
+     * while, such as those of the per-bucket endpoints of S3 virtual hosted
+     * style addressing, so that a long-lived client does not accumulate a
+     * circuit breaker for every endpoint it has ever used. Runs at most once
+     * per idle period.
+     */
+    private void evictIdleCircuitBreakers() {
+        final long now = System.currentTimeMillis();
+        final long next = nextCircuitBreakerSweepMillis.get();
+        if (now < next || !nextCircuitBreakerSweepMillis.compareAndSet(
+                next, now + CIRCUIT_BREAKER_IDLE_MILLIS))
+            return;
+        for (Map.Entry<URI, CircuitBreaker> e : circuitBreakers.entrySet()) {
+            if (e.getValue().isIdle(now, CIRCUIT_BREAKER_IDLE_MILLIS))
+                circuitBreakers.remove(e.getKey(), e.getValue());
+        }
+    }
+
+    /**
+     * Acquires a permit from the circuit breaker of the current endpoint of
+     * the given request, if enabled, before an attempt is sent.
+     *
+     * @throws CircuitBreakerOpenException
+     *             if the attempt is rejected by an open circuit
+     */
+    private void acquireCircuitBreaker(Request<?> request,
+            ExecutionContext executionContext,
+            AWSRequestMetrics awsRequestMetrics, ExecOneRequestParams p) {
+        final URI endpoint = request.getEndpoint();
+        final CircuitBreaker breaker = getCircuitBreaker(endpoint);
+        if (breaker == null)
+            return;
+        final int permit = breaker.tryAcquire();
+        if (permit == CircuitBreaker.REJECTED) {
+            awsRequestMetrics.incrementCounter(CircuitBreakerRejectedCount);
+            throw lastReset(captureExceptionMetrics(
+                new CircuitBreakerOpenException(
+                    "Circuit breaker is open for endpoint " + endpoint,
+                    p.retriedException),
+                awsRequestMetrics), request);
+        }
+        if (permit == CircuitBreaker.FIRST_PROBE) {
+            publishCircuitBreakerStateChange(request,
+                CircuitBreakerState.OPEN, CircuitBreakerState.HALF_OPEN,
+                executionContext, awsRequestMetrics);
+        }
+        p.circuitBreaker = breaker;
+        p.circuitBreakerPermit = permit;
+    }
+
+    /**
+     * Reports the outcome of the current attempt, if any, to the circuit
+     * breaker, and publishes any resultant state transition.
+     *
+     * @param failure
+     *            the failure of the attempt that reached the endpoint, or of
+     *            the underlying I/O; or null if the attempt has succeeded.
+     */
+    private void releaseCircuitBreaker(Request<?> request,
+            AmazonClientException failure, ExecutionContext executionContext,
+            AWSRequestMetrics awsRequestMetrics, ExecOneRequestParams p) {
+        final CircuitBreaker breaker = p.circuitBreaker;
+        if (breaker == null)
+            return;
+        p.circuitBreaker = null;
+        final int permit = p.circuitBreakerPermit;
+        final CircuitBreaker.Transition transition;
+        if (failure == null) {
+            transition = breaker.onSuccess(permit);
+        } else if (breaker.getPolicy().getFailureCondition().isFailure(
+                request.getOriginalRequest(), failure)) {
+            transition = breaker.onFailure(permit);
+        } else if (failure instanceof AmazonServiceException) {
+            // the endpoint is responsive
+            transition = breaker.onSuccess(permit);
+        } else {
+            breaker.onIgnored(permit);
+            transition = null;
+        }
+        if (transition != null) {
+            publishCircuitBreakerStateChange(request,
+                transition.getPreviousState(), transition.getNewState(),
+                executionContext, awsRequestMetrics);
+        }
+    }
+
+    private void publishCircuitBreakerStateChange(Request<?> request,
+            CircuitBreakerState previousState, CircuitBreakerState newState,
+            ExecutionContext executionContext,
+            AWSRequestMetrics awsRequestMetrics) {
+        if (log.isDebugEnabled()) {
+            log.debug("Circuit breaker for endpoint " + request.getEndpoint()
+                + " changed from " + previousState + " to " + newState);
+        }
+        if (newState == CircuitBreakerState.OPEN)
+            awsRequestMetrics.incrementCounter(CircuitBreakerOpenCount);
+        List<RequestHandler2> requestHandlers = executionContext.getRequestHandler2s();
+        if (requestHandlers == null)
+            return;
+        for (RequestHandler2 handler : requestHandlers) {
+            try {
+                handler.circuitBreakerStateChanged(request, previousState, newState);
+            } catch (RuntimeException e) {
+                log.warn("Request handler failed to handle circuit breaker state change", e);
+            }
+        }
+    }
+
     /**
      * Used to perform a last reset on the content input stream (if
      * mark-supported); this is so that, for backward compatibility reason, any
@@ -554,6 +1195,11 @@ public class AmazonHttpClient {
         URI redirectedURI;
 
         AuthRetryParameters authRetryParam;
+        /**
+         * The handle used to cancel this execution if it is one of the
+         * attempts of a hedged request; or null otherwise.
+         */
+        HedgedAttempt attempt;
         /*
          * Depending on which response handler we end up choosing to handle the
          * HTTP response, it might require us to leave the underlying HTTP
@@ -563,6 +1209,30 @@ public class AmazonHttpClient {
          */
         boolean leaveHttpConnectionOpen;
 
+        /**
+         * The circuit breaker of the endpoint of the current attempt, if the
+         * attempt has been permitted but its outcome not yet reported; or null
+         * otherwise.
+         */
+        CircuitBreaker circuitBreaker;
+        /** The permit returned by the circuit breaker for the current attempt. */
+        int circuitBreakerPermit;
+
+        boolean isCancelled() {
+            return attempt != null && attempt.isCancelled();
+        }
+
+        /**
+         * Reports the current attempt, if any, as having no outcome to the
+         * circuit breaker.
+         */
+        void ignoreCircuitBreaker() {
+            if (circuitBreaker != null) {
+                circuitBreaker.onIgnored(circuitBreakerPermit);
+                circuitBreaker = null;
+            }
+        }
+
         boolean isRetry() {
             return requestCount > 1 ||
                    redirectedURI != null ||
@@ -605,6 +1275,8 @@ public class AmazonHttpClient {
             apacheRequest = httpRequestFactory.createHttpRequest(request, config, execContext);
             if (redirectedURI != null)
                 apacheRequest.setURI(redirectedURI);
+            if (attempt != null)
+                attempt.setApacheRequest(apacheRequest);
             return apacheRequest;
         }
 
@@ -655,7 +1327,7 @@ public class AmazonHttpClient {
             }
         }
         p.newApacheRequest(httpRequestFactory, request, config, execContext);
-        final ProgressListener listener = awsreq.getGeneralProgressListener();
+        final ProgressListener listener = progressListenerOf(awsreq, execContext);
 
         if (p.isRetry()) {
             publishProgress(listener, ProgressEventType.CLIENT_REQUEST_RETRY_EVENT);
@@ -667,7 +1339,7 @@ public class AmazonHttpClient {
                 if (p.retriedException != null) {
                     pauseBeforeNextRetry(request.getOriginalRequest(),
                         p.retriedException, p.requestCount,
-                        config.getRetryPolicy());
+                        config.getRetryPolicy(), p.attempt);
                 }
             } finally {
                 awsRequestMetrics.endEvent(RetryPauseTime);
@@ -838,6 +1510,8 @@ public class AmazonHttpClient {
      * Once a client has been shutdown, it cannot be used to make more requests.
      */
     public void shutdown() {
+        if (hedgingExecutor != null)
+            hedgingExecutor.shutdownNow();
         IdleConnectionReaper.removeConnectionManager(httpClient.getConnectionManager());
         httpClient.getConnectionManager().shutdown();
     }
@@ -940,7 +1614,7 @@ public class AmazonHttpClient {
             ExecutionContext executionContext) throws IOException
     {
         AmazonWebServiceRequest awsreq = request.getOriginalRequest();
-        ProgressListener listener = awsreq.getGeneralProgressListener();
+        ProgressListener listener = progressListenerOf(awsreq, executionContext);
         try {
             /*
              * Apply the byte counting stream wrapper if the legacy runtime profiling is enabled.
@@ -952,8 +1626,10 @@ public class AmazonHttpClient {
                     is = countingInputStream = new CountingInputStream(is);
                     httpResponse.setContent(is);
                 }
-                httpResponse.setContent(
-                    ProgressInputStream.inputStreamForResponse(is, awsreq));
+                if (!(executionContext instanceof HedgedExecutionContext)) {
+                    httpResponse.setContent(
+                        ProgressInputStream.inputStreamForResponse(is, awsreq));
+                }
             }
             Map<String,String> headers = httpResponse.getHeaders();
             String s = headers.get("Content-Length");
@@ -1122,11 +1798,16 @@ public class AmazonHttpClient {
      *            current request count (including the next attempt after the delay)
      * @param retryPolicy
      *            The retry policy configured in this http client.
+     * @param attempt
+     *            the handle used to cut short the pause if the current
+     *            execution is a cancelled attempt of a hedged request; or null
+     *            if not applicable.
      */
     private void pauseBeforeNextRetry(AmazonWebServiceRequest originalRequest,
                                     AmazonClientException previousException,
                                     int requestCount,
-                                    RetryPolicy retryPolicy) {
+                                    RetryPolicy retryPolicy,
+                                    HedgedAttempt attempt) {
         final int retries = requestCount // including next attempt
                             - 1          // number of attempted requests
                             - 1;         // number of attempted retries
@@ -1140,7 +1821,10 @@ public class AmazonHttpClient {
         }
 
         try {
-            Thread.sleep(delay);
+            if (attempt == null)
+                Thread.sleep(delay);
+            else
+                attempt.pause(delay);
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
             throw new AmazonClientException(e.getMessage(), e);
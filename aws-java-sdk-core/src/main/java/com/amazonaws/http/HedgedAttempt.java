@@ -0,0 +1,68 @@
+/*
+ * Copyright 2010-2014 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.http;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.annotation.ThreadSafe;
+import org.apache.http.client.methods.HttpRequestBase;
+
+/**
+ * A handle used to cancel one of the two competing attempts of a hedged
+ * request, including the in-flight http request and any pause before the next
+ * retry.
+ */
+@ThreadSafe
+class HedgedAttempt {
+    private final CountDownLatch cancelled = new CountDownLatch(1);
+    private volatile HttpRequestBase apacheRequest;
+
+    /**
+     * Returns true if this attempt has been cancelled.
+     */
+    boolean isCancelled() {
+        return cancelled.getCount() == 0;
+    }
+
+    /**
+     * Registers the http request currently being executed by this attempt,
+     * which is aborted immediately if the attempt has already been cancelled.
+     */
+    void setApacheRequest(HttpRequestBase apacheRequest) {
+        this.apacheRequest = apacheRequest;
+        if (isCancelled())
+            apacheRequest.abort();
+    }
+
+    /**
+     * Cancels this attempt by aborting the current http request, which also
+     * releases the underlying connection if a response has been received.
+     */
+    void cancel() {
+        cancelled.countDown();
+        HttpRequestBase req = apacheRequest;
+        if (req != null)
+            req.abort();
+    }
+
+    /**
+     * Pauses for the given number of milliseconds, or until this attempt is
+     * cancelled, whichever comes first.
+     */
+    void pause(long delayMillis) throws InterruptedException {
+        cancelled.await(delayMillis, TimeUnit.MILLISECONDS);
+    }
+}
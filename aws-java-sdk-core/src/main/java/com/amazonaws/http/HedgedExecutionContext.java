@@ -0,0 +1,47 @@
+/*
+ * Copyright 2010-2014 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.http;
+
+import java.net.URI;
+
+import com.amazonaws.auth.Signer;
+
+/**
+ * The execution context of the hedged attempt of a request. It shares the
+ * credentials and signers of the execution context of the original attempt,
+ * but has its own (disabled) request metrics, so that the two attempts never
+ * update the same non thread-safe state concurrently. No progress event is
+ * published for the attempt executed with this context.
+ */
+class HedgedExecutionContext extends ExecutionContext {
+    private final ExecutionContext original;
+
+    HedgedExecutionContext(ExecutionContext original) {
+        super(original.getRequestHandler2s(), false, original.getAwsClient());
+        this.original = original;
+        setCredentials(original.getCredentials());
+        setAuthErrorRetryStrategy(original.getAuthErrorRetryStrategy());
+        setContextUserAgent(original.getContextUserAgent());
+    }
+
+    /**
+     * Returns the signer of the original execution context, which may be
+     * specific to the service client (e.g. S3).
+     */
+    @Override
+    public Signer getSignerByURI(URI uri) {
+        return original.getSignerByURI(uri);
+    }
+}
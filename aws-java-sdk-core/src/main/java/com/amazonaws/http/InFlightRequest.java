@@ -0,0 +1,139 @@
+/*
+ * Copyright 2010-2014 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.http;
+
+import java.net.URI;
+import java.util.concurrent.CountDownLatch;
+
+import org.apache.http.annotation.Immutable;
+import org.apache.http.annotation.ThreadSafe;
+
+import com.amazonaws.AbortedException;
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.AmazonWebServiceRequest;
+import com.amazonaws.Response;
+import com.amazonaws.auth.AWSCredentials;
+import com.amazonaws.auth.AWSSessionCredentials;
+
+/**
+ * A request in flight that concurrent identical requests are coalesced into.
+ * The outcome of the request is made available to every coalesced caller upon
+ * completion.
+ */
+@ThreadSafe
+class InFlightRequest {
+    private final CountDownLatch done = new CountDownLatch(1);
+    /** The original request of the caller that sends the request. */
+    private final AmazonWebServiceRequest originalRequest;
+    private volatile Response<?> response;
+    private volatile Throwable failure;
+
+    InFlightRequest(AmazonWebServiceRequest originalRequest) {
+        this.originalRequest = originalRequest;
+    }
+
+    AmazonWebServiceRequest getOriginalRequest() {
+        return originalRequest;
+    }
+
+    /**
+     * Completes this request with either the given response or failure.
+     */
+    void complete(Response<?> response, Throwable failure) {
+        this.response = response;
+        this.failure = failure;
+        done.countDown();
+    }
+
+    /**
+     * Blocks until this request has completed, and returns the response.
+     *
+     * @throws RuntimeException
+     *             the same runtime exception that the request has failed with
+     */
+    Response<?> await() {
+        try {
+            done.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AbortedException(
+                "Interrupted while waiting for a coalesced request", e);
+        }
+        Throwable t = failure;
+        if (t == null)
+            return response;
+        if (t instanceof RuntimeException)
+            throw (RuntimeException) t;
+        throw new AmazonClientException(
+            "Coalesced request failed: " + t.getMessage(), t);
+    }
+
+    /**
+     * The key of a coalesced or cached request, which is composed of the
+     * endpoint, the request type, the identity of the credentials, and a
+     * request specific key.
+     */
+    @Immutable
+    static final class Key {
+        private final URI endpoint;
+        private final Class<?> requestType;
+        private final String accessKeyId;
+        private final String sessionToken;
+        private final Object key;
+
+        Key(URI endpoint, AmazonWebServiceRequest originalRequest,
+                AWSCredentials credentials, Object key) {
+            this.endpoint = endpoint;
+            this.requestType = originalRequest.getClass();
+            this.accessKeyId = credentials == null
+                ? null : credentials.getAWSAccessKeyId();
+            this.sessionToken = credentials instanceof AWSSessionCredentials
+                ? ((AWSSessionCredentials) credentials).getSessionToken()
+                : null;
+            this.key = key;
+        }
+
+        Class<?> getRequestType() {
+            return requestType;
+        }
+
+        @Override
+        public int hashCode() {
+            int hashCode = key.hashCode();
+            hashCode = 31 * hashCode + requestType.hashCode();
+            hashCode = 31 * hashCode + (endpoint == null ? 0 : endpoint.hashCode());
+            hashCode = 31 * hashCode + (accessKeyId == null ? 0 : accessKeyId.hashCode());
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj)
+                return true;
+            if (!(obj instanceof Key))
+                return false;
+            Key that = (Key) obj;
+            return key.equals(that.key)
+                && requestType == that.requestType
+                && equal(endpoint, that.endpoint)
+                && equal(accessKeyId, that.accessKeyId)
+                && equal(sessionToken, that.sessionToken);
+        }
+
+        private static boolean equal(Object a, Object b) {
+            return a == null ? b == null : a.equals(b);
+        }
+    }
+}
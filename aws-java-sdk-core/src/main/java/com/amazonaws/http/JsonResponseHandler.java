@@ -39,7 +39,8 @@ import com.amazonaws.util.CRC32ChecksumCalculatingInputStream;
  * @param <T>
  *            Indicates the type being unmarshalled by this response handler.
  */
-public class JsonResponseHandler<T> implements HttpResponseHandler<AmazonWebServiceResponse<T>> {
+public class JsonResponseHandler<T> implements HttpResponseHandler<AmazonWebServiceResponse<T>>,
+        StatelessResponseHandler {
 
     /** The JSON unmarshaller to use when handling the response */
     private Unmarshaller<T, JsonUnmarshallerContext> responseUnmarshaller;
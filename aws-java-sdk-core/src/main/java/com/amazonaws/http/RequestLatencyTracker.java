@@ -0,0 +1,77 @@
+/*
+ * Copyright 2010-2014 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.http;
+
+import java.util.Arrays;
+
+import org.apache.http.annotation.ThreadSafe;
+
+/**
+ * Tracks the latencies of the most recent requests of a specific type in a
+ * fixed size ring buffer, so that a latency percentile can be estimated
+ * without any per-request allocation.
+ */
+@ThreadSafe
+class RequestLatencyTracker {
+    /** Number of most recent samples retained. */
+    private static final int CAPACITY = 512;
+    /** Minimum number of samples before a percentile is made available. */
+    private static final int MIN_SAMPLES = 20;
+    /** Number of new samples after which the percentile is recomputed. */
+    private static final int RECOMPUTE_INTERVAL = 64;
+
+    private final double percentile;
+    private final long[] samples = new long[CAPACITY];
+    /** Scratch space used for sorting, so as to avoid allocation. */
+    private final long[] sorted = new long[CAPACITY];
+    private int next;
+    private int count;
+    private int sinceLastCompute;
+    private volatile long cachedPercentile = -1;
+
+    /**
+     * @param percentile
+     *            the percentile, in the range of (0, 100), to be tracked
+     */
+    RequestLatencyTracker(double percentile) {
+        this.percentile = percentile;
+    }
+
+    /**
+     * Records the latency of a successfully completed request.
+     */
+    synchronized void record(long latencyMillis) {
+        samples[next] = latencyMillis;
+        next = (next + 1) % CAPACITY;
+        if (count < CAPACITY)
+            count++;
+        if (++sinceLastCompute >= RECOMPUTE_INTERVAL
+        ||  (count == MIN_SAMPLES && cachedPercentile < 0)) {
+            sinceLastCompute = 0;
+            System.arraycopy(samples, 0, sorted, 0, count);
+            Arrays.sort(sorted, 0, count);
+            int index = (int) Math.ceil(percentile / 100.0 * count) - 1;
+            cachedPercentile = sorted[Math.max(0, Math.min(index, count - 1))];
+        }
+    }
+
+    /**
+     * Returns the estimated latency percentile in milliseconds; or -1 if there
+     * are not yet enough samples.
+     */
+    long getPercentile() {
+        return cachedPercentile;
+    }
+}
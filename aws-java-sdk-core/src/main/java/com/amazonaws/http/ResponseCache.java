@@ -0,0 +1,263 @@
+/*
+ * Copyright 2010-2014 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.http;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.http.annotation.GuardedBy;
+import org.apache.http.annotation.Immutable;
+import org.apache.http.annotation.ThreadSafe;
+
+import com.amazonaws.AmazonWebServiceRequest;
+import com.amazonaws.Request;
+import com.amazonaws.Response;
+import com.amazonaws.ResponseCachePolicy;
+import com.amazonaws.ResponseMetadata;
+import com.amazonaws.ResponseCachePolicy.CacheRule;
+import com.amazonaws.auth.AWSCredentials;
+
+/**
+ * A size bounded cache of responses with per request type time to live, as
+ * specified by a {@link ResponseCachePolicy}.
+ * <p>
+ * A response is cached under a snapshot of the marshalled request rather than
+ * the original request object, since the latter is mutable and may be reused
+ * by the caller after the call.
+ */
+@ThreadSafe
+class ResponseCache {
+    /** The cache rules indexed by the cached request type. */
+    private final Map<Class<?>, CacheRule> rules = new HashMap<Class<?>, CacheRule>();
+    /** The cached request types indexed by the mutating request type. */
+    private final Map<Class<?>, List<Class<?>>> invalidations =
+        new HashMap<Class<?>, List<Class<?>>>();
+    /**
+     * The invalidation generations indexed by the cached request type, used
+     * to prevent a response that may have been affected by a concurrent
+     * mutating request from being cached.
+     */
+    private final Map<Class<?>, AtomicLong> generations =
+        new HashMap<Class<?>, AtomicLong>();
+
+    @GuardedBy("this")
+    private final Map<InFlightRequest.Key, Entry> entries;
+
+    ResponseCache(ResponseCachePolicy policy) {
+        for (CacheRule rule : policy.getCacheRules()) {
+            Class<?> cachedType = rule.getRequestType();
+            rules.put(cachedType, rule);
+            generations.put(cachedType, new AtomicLong());
+            for (Class<?> mutatingType : rule.getInvalidatedBy()) {
+                List<Class<?>> cachedTypes = invalidations.get(mutatingType);
+                if (cachedTypes == null) {
+                    cachedTypes = new ArrayList<Class<?>>();
+                    invalidations.put(mutatingType, cachedTypes);
+                }
+                cachedTypes.add(cachedType);
+            }
+        }
+        final int maxEntries = policy.getMaxEntries();
+        this.entries = new LinkedHashMap<InFlightRequest.Key, Entry>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+            @Override
+            protected boolean removeEldestEntry(
+                    Map.Entry<InFlightRequest.Key, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Returns the key under which the response of the given request is
+     * cached; or null if the request is not cacheable.
+     */
+    InFlightRequest.Key keyOf(Request<?> request, AWSCredentials credentials) {
+        final AmazonWebServiceRequest awsreq = request.getOriginalRequest();
+        if (awsreq == null || !rules.containsKey(awsreq.getClass()))
+            return null;
+        final InputStream content = request.getContent();
+        final byte[] bytes;
+        if (content == null) {
+            bytes = null;
+        } else if (content instanceof ByteArrayInputStream) {
+            bytes = snapshot((ByteArrayInputStream) content);
+        } else {
+            return null;
+        }
+        return new InFlightRequest.Key(request.getEndpoint(), awsreq,
+            credentials, new RequestSnapshot(request, bytes));
+    }
+
+    /**
+     * Returns the remaining bytes of the given stream without consuming them.
+     */
+    private static byte[] snapshot(ByteArrayInputStream content) {
+        content.mark(0);
+        byte[] bytes = new byte[content.available()];
+        int offset = 0;
+        while (offset < bytes.length) {
+            int n = content.read(bytes, offset, bytes.length - offset);
+            if (n < 0)
+                break;
+            offset += n;
+        }
+        content.reset();
+        return bytes;
+    }
+
+    /**
+     * Returns the current invalidation generation of the type of request of
+     * the given key, which must be passed to the subsequent
+     * {@link #put(InFlightRequest.Key, Response, long)}.
+     */
+    long generationOf(InFlightRequest.Key key) {
+        return generations.get(key.getRequestType()).get();
+    }
+
+    /**
+     * Returns the cache entry for the given key; or null if there is none or
+     * if it has expired.
+     */
+    synchronized Entry get(InFlightRequest.Key key) {
+        Entry entry = entries.get(key);
+        if (entry == null)
+            return null;
+        if (System.nanoTime() - entry.expiresAtNano >= 0) {
+            entries.remove(key);
+            return null;
+        }
+        return entry;
+    }
+
+    /**
+     * Caches the given response along with its response metadata, unless the
+     * cached responses of the same type of request have since been
+     * invalidated.
+     *
+     * @param responseMetadata
+     *            the response metadata of the response; or null if none
+     * @param generation
+     *            the invalidation generation returned by
+     *            {@link #generationOf(InFlightRequest.Key)} before the request
+     *            was executed
+     */
+    synchronized void put(InFlightRequest.Key key, Response<?> response,
+            ResponseMetadata responseMetadata, long generation) {
+        if (generations.get(key.getRequestType()).get() != generation)
+            return;
+        long ttlNano = TimeUnit.MILLISECONDS.toNanos(
+            rules.get(key.getRequestType()).getTtlMillis());
+        entries.put(key, new Entry(response, responseMetadata,
+            System.nanoTime() + ttlNano));
+    }
+
+    /**
+     * Invalidates all the cached responses that are affected by the given
+     * request, if it is of a mutating type. This is done both before and after
+     * the execution of a mutating request.
+     */
+    void invalidate(AmazonWebServiceRequest awsreq) {
+        if (awsreq == null)
+            return;
+        List<Class<?>> cachedTypes = invalidations.get(awsreq.getClass());
+        if (cachedTypes == null)
+            return;
+        synchronized(this) {
+            for (Class<?> cachedType : cachedTypes)
+                generations.get(cachedType).incrementAndGet();
+            Iterator<InFlightRequest.Key> iter = entries.keySet().iterator();
+            while (iter.hasNext()) {
+                if (cachedTypes.contains(iter.next().getRequestType()))
+                    iter.remove();
+            }
+        }
+    }
+
+    /**
+     * A cached response along with its response metadata.
+     */
+    static final class Entry {
+        final Response<?> response;
+        /** The response metadata of the response; or null if none. */
+        final ResponseMetadata responseMetadata;
+        final long expiresAtNano;
+
+        Entry(Response<?> response, ResponseMetadata responseMetadata,
+                long expiresAtNano) {
+            this.response = response;
+            this.responseMetadata = responseMetadata;
+            this.expiresAtNano = expiresAtNano;
+        }
+    }
+
+    /**
+     * An immutable snapshot of a marshalled request.
+     */
+    @Immutable
+    private static final class RequestSnapshot {
+        private final HttpMethodName httpMethod;
+        private final String resourcePath;
+        private final Map<String, String> parameters;
+        private final Map<String, String> headers;
+        private final byte[] content;
+        private final int hashCode;
+
+        RequestSnapshot(Request<?> request, byte[] content) {
+            this.httpMethod = request.getHttpMethod();
+            this.resourcePath = request.getResourcePath();
+            this.parameters = new HashMap<String, String>(request.getParameters());
+            this.headers = new HashMap<String, String>(request.getHeaders());
+            this.content = content;
+            int h = httpMethod == null ? 0 : httpMethod.hashCode();
+            h = 31 * h + (resourcePath == null ? 0 : resourcePath.hashCode());
+            h = 31 * h + parameters.hashCode();
+            h = 31 * h + headers.hashCode();
+            h = 31 * h + Arrays.hashCode(content);
+            this.hashCode = h;
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj)
+                return true;
+            if (!(obj instanceof RequestSnapshot))
+                return false;
+            RequestSnapshot that = (RequestSnapshot) obj;
+            return hashCode == that.hashCode
+                && httpMethod == that.httpMethod
+                && (resourcePath == null
+                    ? that.resourcePath == null
+                    : resourcePath.equals(that.resourcePath))
+                && parameters.equals(that.parameters)
+                && headers.equals(that.headers)
+                && Arrays.equals(content, that.content);
+        }
+    }
+}
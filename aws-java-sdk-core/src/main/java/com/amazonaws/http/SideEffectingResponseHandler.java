@@ -0,0 +1,30 @@
+/*
+ * Copyright 2010-2014 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.http;
+
+/**
+ * Marks an {@link HttpResponseHandler} whose handling of a response has side
+ * effects beyond returning the result, such as delivering parts of the
+ * response to a caller supplied callback as they are parsed.
+ * <p>
+ * A request with such a response handler is always executed on its own: it
+ * is never coalesced with identical requests, served from or stored into the
+ * response cache, or hedged. Any of these would either skip the side effects,
+ * or repeat them concurrently. The response may still be handled more than
+ * once if the request is retried after a failure part way through the
+ * response.
+ */
+public interface SideEffectingResponseHandler {
+}
@@ -0,0 +1,29 @@
+/*
+ * Copyright 2010-2014 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.http;
+
+/**
+ * Marks an {@link HttpResponseHandler} that keeps no state across the
+ * responses it handles, and can therefore handle multiple responses
+ * concurrently.
+ * <p>
+ * Only requests with such a response handler may be hedged, as the primary
+ * and the hedged attempts of a request handle their responses with the same
+ * response handler, possibly at the same time. A subclass of a stateless
+ * response handler that records anything about the responses it handles, such
+ * as their headers, must not be used for hedged requests.
+ */
+public interface StatelessResponseHandler {
+}
@@ -39,7 +39,8 @@ import com.amazonaws.transform.VoidStaxUnmarshaller;
  * @param <T>
  *            Indicates the type being unmarshalled by this response handler.
  */
-public class StaxResponseHandler<T> implements HttpResponseHandler<AmazonWebServiceResponse<T>> {
+public class StaxResponseHandler<T> implements HttpResponseHandler<AmazonWebServiceResponse<T>>,
+        StatelessResponseHandler {
 
     /** The StAX unmarshaller to use when handling the response */
     private Unmarshaller<T, StaxUnmarshallerContext> responseUnmarshaller;
@@ -0,0 +1,185 @@
+/*
+ * Copyright 2010-2014 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.internal;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.annotation.NotThreadSafe;
+
+import com.amazonaws.AbortedException;
+
+/**
+ * Iterates over the pages of a paginated listing, fetching up to a given
+ * number of pages ahead of the caller in a background thread. The first page
+ * is always fetched by the calling thread.
+ * <p>
+ * If the caller stops consuming pages for a while, such as when the iteration
+ * is abandoned, the background thread gives up and terminates; the iteration
+ * then resumes with the next page fetched by the calling thread, after which
+ * reading ahead restarts.
+ * <p>
+ * For internal use only.
+ *
+ * @param <P>
+ *            the page type
+ */
+@NotThreadSafe
+public abstract class ReadAheadPageIterator<P> implements Iterator<P> {
+    /** Time after which the background thread gives up on the caller. */
+    private static final long ABANDON_TIMEOUT_SECONDS = 60;
+    /** Interval at which the caller checks if the background thread is alive. */
+    private static final long POLL_MILLIS = 100;
+    /** Marks the end of the listing in the queue. */
+    private static final Object END = new Object();
+
+    private final int readAheadPages;
+    /** The last page returned to the caller; or null if none. */
+    private P last;
+    private P next;
+    private boolean done;
+    private Fetcher fetcher;
+
+    /**
+     * @param readAheadPages
+     *            the maximum number of pages fetched ahead of the caller,
+     *            which must be at least one
+     */
+    protected ReadAheadPageIterator(int readAheadPages) {
+        if (readAheadPages < 1)
+            throw new IllegalArgumentException("readAheadPages must be at least one");
+        this.readAheadPages = readAheadPages;
+    }
+
+    /**
+     * Fetches the first page; or returns null if there is none.
+     */
+    protected abstract P firstPage();
+
+    /**
+     * Fetches the page following the given one; or returns null if there is
+     * none. Called by the background thread when reading ahead, so must not
+     * have any side effects visible to the caller other than via the
+     * returned page.
+     */
+    protected abstract P nextPage(P page);
+
+    @Override
+    public boolean hasNext() {
+        if (next != null)
+            return true;
+        if (done)
+            return false;
+        if (last == null) {
+            next = firstPage();
+        } else if (fetcher == null) {
+            next = nextPage(last);
+        } else {
+            next = fetcher.take();
+        }
+        if (next == null) {
+            done = true;
+            return false;
+        }
+        if (fetcher == null)
+            fetcher = new Fetcher(next);
+        return true;
+    }
+
+    @Override
+    public P next() {
+        if (!hasNext())
+            throw new NoSuchElementException();
+        last = next;
+        next = null;
+        return last;
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Fetches pages ahead of the caller in a background thread.
+     */
+    private final class Fetcher implements Runnable {
+        private final BlockingQueue<Object> queue =
+                new LinkedBlockingQueue<Object>(readAheadPages);
+        private final P from;
+        private volatile boolean stopped;
+
+        Fetcher(P from) {
+            this.from = from;
+            Thread thread = new Thread(this, "aws-read-ahead");
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        @Override
+        public void run() {
+            Object item;
+            P page = from;
+            try {
+                do {
+                    try {
+                        page = nextPage(page);
+                        item = page == null ? END : page;
+                    } catch (RuntimeException e) {
+                        item = e;
+                    }
+                    if (!queue.offer(item, ABANDON_TIMEOUT_SECONDS, TimeUnit.SECONDS))
+                        break;
+                } while (item != END && !(item instanceof RuntimeException));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                stopped = true;
+            }
+        }
+
+        /**
+         * Returns the next page fetched ahead; or the next page fetched by the
+         * calling thread if the background thread has stopped.
+         */
+        @SuppressWarnings("unchecked")
+        P take() {
+            Object item;
+            try {
+                while ((item = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS)) == null) {
+                    if (stopped && (item = queue.poll()) == null) {
+                        // Nothing more will be fetched ahead
+                        fetcher = null;
+                        return nextPage(last);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new AbortedException(e);
+            }
+            if (item == END)
+                return null;
+            if (item instanceof RuntimeException) {
+                // A subsequent call would retry from the calling thread
+                fetcher = null;
+                throw (RuntimeException) item;
+            }
+            return (P) item;
+        }
+    }
+}
@@ -14,8 +14,10 @@
  */
 package com.amazonaws.jmx;
 
+import java.lang.management.GarbageCollectorMXBean;
 import java.lang.management.ManagementFactory;
 import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
 import java.util.List;
 
 import javax.management.Attribute;
@@ -25,9 +27,33 @@ import javax.management.ObjectName;
 
 import org.apache.commons.logging.LogFactory;
 
-import com.amazonaws.jmx.spi.JmxInfoProvider;
+import com.amazonaws.jmx.spi.MemoryInfoProvider;
+
+public class JmxInfoProviderSupport implements MemoryInfoProvider {
+    /**
+     * The HotSpot specific extension for measuring per-thread heap
+     * allocation; or null if not available in the current JVM.
+     */
+    private static final Method threadAllocatedBytesMethod;
+    static {
+        Method m = null;
+        try {
+            Class<?> c = Class.forName("com.sun.management.ThreadMXBean");
+            if (c.isInstance(ManagementFactory.getThreadMXBean()))
+                m = c.getMethod("getThreadAllocatedBytes", long[].class);
+        } catch (Exception e) {
+            LogFactory.getLog(JmxInfoProviderSupport.class).debug(
+                    "Thread memory allocation measurement is not supported", e);
+        }
+        threadAllocatedBytesMethod = m;
+    }
+    /**
+     * The garbage collectors are fixed for the lifetime of a JVM, so they are
+     * looked up once rather than on every sampling.
+     */
+    private final List<GarbageCollectorMXBean> gcMXBeans =
+            ManagementFactory.getGarbageCollectorMXBeans();
 
-public class JmxInfoProviderSupport implements JmxInfoProvider {
     @Override
     public long[] getFileDecriptorInfo() {
         MBeanServer mbsc = MBeans.getMBeanServer();
@@ -78,6 +104,49 @@ public class JmxInfoProviderSupport implements JmxInfoProvider {
         return threadMXBean.findDeadlockedThreads();
     }
 
+    @Override
+    public long getGarbageCollectionCount() {
+        long total = 0;
+        for (int i=0; i < gcMXBeans.size(); i++) {
+            long count = gcMXBeans.get(i).getCollectionCount();
+            if (count > 0)
+                total += count;
+        }
+        return total;
+    }
+
+    @Override
+    public long getGarbageCollectionTime() {
+        long total = 0;
+        for (int i=0; i < gcMXBeans.size(); i++) {
+            long time = gcMXBeans.get(i).getCollectionTime();
+            if (time > 0)
+                total += time;
+        }
+        return total;
+    }
+
+    @Override
+    public long getThreadAllocatedBytes() {
+        if (threadAllocatedBytesMethod == null)
+            return -1;
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        try {
+            long[] bytes = (long[]) threadAllocatedBytesMethod.invoke(
+                    threadMXBean, threadMXBean.getAllThreadIds());
+            long total = 0;
+            for (long b: bytes) {
+                if (b > 0)
+                    total += b;
+            }
+            return total;
+        } catch (Exception e) {
+            LogFactory.getLog(JmxInfoProviderSupport.class).debug(
+                    "Failed to retrieve thread allocated bytes", e);
+        }
+        return -1;
+    }
+
     @Override
     public boolean isEnabled() {
         return true;
@@ -0,0 +1,40 @@
+/*
+ * Copyright 2011-2014 Amazon Technologies, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ *    http://aws.amazon.com/apache2.0
+ *
+ * This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amazonaws.jmx.spi;
+
+/**
+ * Optional extension of {@link JmxInfoProvider} used to retrieve garbage
+ * collection and heap allocation information. Callers should check whether
+ * the provider returned by {@link JmxInfoProvider.Factory} implements this
+ * interface before using it.
+ */
+public interface MemoryInfoProvider extends JmxInfoProvider {
+    /**
+     * Returns the total number of garbage collections that have occurred
+     * across all collectors, or -1 if undefined.
+     */
+    public long getGarbageCollectionCount();
+    /**
+     * Returns the approximate accumulated garbage collection elapsed time in
+     * milliseconds across all collectors, or -1 if undefined.
+     */
+    public long getGarbageCollectionTime();
+    /**
+     * Returns the approximate total number of bytes allocated in heap memory
+     * by all live threads, or -1 if the JVM does not support thread memory
+     * allocation measurement.
+     */
+    public long getThreadAllocatedBytes();
+}
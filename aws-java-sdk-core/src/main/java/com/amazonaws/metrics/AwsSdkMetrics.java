@@ -769,6 +769,12 @@ public enum AwsSdkMetrics {
             metricTypes.add(Field.Exception);
             metricTypes.add(Field.ThrottleException);
             metricTypes.add(Field.HttpClientRetryCount);
+            metricTypes.add(Field.HedgedRequestCount);
+            metricTypes.add(Field.HedgedRequestWinCount);
+            metricTypes.add(Field.CircuitBreakerRejectedCount);
+            metricTypes.add(Field.CircuitBreakerOpenCount);
+            metricTypes.add(Field.CoalescedRequestCount);
+            metricTypes.add(Field.ResponseCacheHitCount);
             metricTypes.add(Field.HttpRequestTime);
             metricTypes.add(Field.RequestCount);
 //            metricTypes.add(Field.RequestSigningTime);
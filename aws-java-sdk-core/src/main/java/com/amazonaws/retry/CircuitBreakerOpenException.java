@@ -0,0 +1,35 @@
+/*
+ * Copyright 2010-2014 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.retry;
+
+import com.amazonaws.AmazonClientException;
+
+/**
+ * Thrown when a request fails fast without being sent because the circuit
+ * breaker of the service endpoint is open.
+ *
+ * @see CircuitBreakerPolicy
+ */
+public class CircuitBreakerOpenException extends AmazonClientException {
+    private static final long serialVersionUID = 1L;
+
+    public CircuitBreakerOpenException(String message, Throwable t) {
+        super(message, t);
+    }
+
+    public CircuitBreakerOpenException(String message) {
+        super(message);
+    }
+}
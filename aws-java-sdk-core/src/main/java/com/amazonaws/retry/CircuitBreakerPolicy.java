@@ -0,0 +1,188 @@
+/*
+ * Copyright 2010-2014 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.retry;
+
+import java.io.IOException;
+
+import org.apache.http.annotation.Immutable;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.AmazonWebServiceRequest;
+import com.amazonaws.ClientConfiguration;
+import com.amazonaws.handlers.RequestHandler2;
+
+/**
+ * Circuit breaker policy that can be configured on a specific service client
+ * using {@link ClientConfiguration}. A circuit breaker is maintained per
+ * service endpoint:
+ * <ul>
+ * <li>While {@link CircuitBreakerState#CLOSED closed}, requests flow normally,
+ * and the circuit opens after the configured number of consecutive failed
+ * attempts.</li>
+ * <li>While {@link CircuitBreakerState#OPEN open}, requests fail fast with a
+ * {@link CircuitBreakerOpenException} without going through the retry policy.
+ * </li>
+ * <li>After the open duration has elapsed, the circuit becomes
+ * {@link CircuitBreakerState#HALF_OPEN half-open}, and a limited number of
+ * probe requests are sent. The circuit closes if a probe succeeds, or opens
+ * again if a probe fails.</li>
+ * </ul>
+ * State transitions are published to
+ * {@link RequestHandler2#circuitBreakerStateChanged} of the request handlers.
+ * <p>
+ * This class is immutable, therefore safe to be shared by multiple clients.
+ *
+ * @see ClientConfiguration#setCircuitBreakerPolicy(CircuitBreakerPolicy)
+ */
+@Immutable
+public final class CircuitBreakerPolicy {
+    /** The default number of consecutive failures that opens the circuit. */
+    public static final int DEFAULT_FAILURE_THRESHOLD = 5;
+
+    /** The default time in milliseconds the circuit stays open. */
+    public static final long DEFAULT_OPEN_DURATION_MILLIS = 10 * 1000;
+
+    /** The default maximum number of in-flight probes when half-open. */
+    public static final int DEFAULT_HALF_OPEN_MAX_PROBES = 1;
+
+    /**
+     * The SDK default failure condition, which regards any failure to
+     * communicate with the endpoint (such as connect or socket timeouts), and
+     * any 5xx service error, as an endpoint failure.
+     */
+    public static final FailureCondition DEFAULT_FAILURE_CONDITION = new FailureCondition() {
+        @Override
+        public boolean isFailure(AmazonWebServiceRequest originalRequest,
+                AmazonClientException exception) {
+            if (exception instanceof AmazonServiceException) {
+                return ((AmazonServiceException) exception).getStatusCode() >= 500;
+            }
+            return exception.getCause() instanceof IOException;
+        }
+    };
+
+    /**
+     * Condition on whether a failed attempt counts as an endpoint failure.
+     * This field should not be null.
+     */
+    private final FailureCondition failureCondition;
+
+    /** Number of consecutive failed attempts that opens the circuit. */
+    private final int failureThreshold;
+
+    /** Time in milliseconds the circuit stays open before probing. */
+    private final long openDurationMillis;
+
+    /** Maximum number of in-flight probe requests when half-open. */
+    private final int halfOpenMaxProbes;
+
+    /**
+     * Constructs a new circuit breaker policy with the SDK default failure
+     * condition, failure threshold, open duration and number of probes.
+     */
+    public CircuitBreakerPolicy() {
+        this(null, DEFAULT_FAILURE_THRESHOLD, DEFAULT_OPEN_DURATION_MILLIS,
+                DEFAULT_HALF_OPEN_MAX_PROBES);
+    }
+
+    /**
+     * Constructs a new circuit breaker policy.
+     *
+     * @param failureCondition
+     *            Condition on whether a failed attempt counts as an endpoint
+     *            failure. If null value is specified, the SDK default failure
+     *            condition is used.
+     * @param failureThreshold
+     *            Number of consecutive failed attempts that opens the circuit.
+     * @param openDurationMillis
+     *            Time in milliseconds the circuit stays open before probing.
+     * @param halfOpenMaxProbes
+     *            Maximum number of in-flight probe requests when half-open.
+     */
+    public CircuitBreakerPolicy(FailureCondition failureCondition,
+                                int failureThreshold,
+                                long openDurationMillis,
+                                int halfOpenMaxProbes) {
+        if (failureCondition == null) {
+            failureCondition = DEFAULT_FAILURE_CONDITION;
+        }
+        if (failureThreshold < 1) {
+            throw new IllegalArgumentException("failureThreshold must be at least one");
+        }
+        if (openDurationMillis < 0) {
+            throw new IllegalArgumentException("openDurationMillis must be non-negative");
+        }
+        if (halfOpenMaxProbes < 1) {
+            throw new IllegalArgumentException("halfOpenMaxProbes must be at least one");
+        }
+        this.failureCondition = failureCondition;
+        this.failureThreshold = failureThreshold;
+        this.openDurationMillis = openDurationMillis;
+        this.halfOpenMaxProbes = halfOpenMaxProbes;
+    }
+
+    /**
+     * Returns the failure condition included in this policy.
+     */
+    public FailureCondition getFailureCondition() {
+        return failureCondition;
+    }
+
+    /**
+     * Returns the number of consecutive failed attempts that opens the
+     * circuit.
+     */
+    public int getFailureThreshold() {
+        return failureThreshold;
+    }
+
+    /**
+     * Returns the time in milliseconds the circuit stays open before probing.
+     */
+    public long getOpenDurationMillis() {
+        return openDurationMillis;
+    }
+
+    /**
+     * Returns the maximum number of in-flight probe requests when half-open.
+     */
+    public int getHalfOpenMaxProbes() {
+        return halfOpenMaxProbes;
+    }
+
+    /**
+     * The hook for providing custom condition on whether a failed attempt
+     * counts as a failure of the endpoint.
+     */
+    public static interface FailureCondition {
+        /**
+         * Returns true if the given failure of an attempt to send a request
+         * counts as a failure of the endpoint; false otherwise.
+         *
+         * @param originalRequest
+         *            The original request object being executed. For
+         *            performance reason, this object is not a defensive copy,
+         *            and caller should not attempt to modify its data.
+         * @param exception
+         *            The exception from the failed attempt, which is either an
+         *            AmazonServiceException indicating a service error, or an
+         *            AmazonClientException caused by an IOException when
+         *            executing the HTTP request.
+         */
+        public boolean isFailure(AmazonWebServiceRequest originalRequest,
+                                 AmazonClientException exception);
+    }
+}
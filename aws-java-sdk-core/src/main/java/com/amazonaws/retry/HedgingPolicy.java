@@ -0,0 +1,203 @@
+/*
+ * Copyright 2010-2014 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.retry;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.apache.http.annotation.Immutable;
+
+import com.amazonaws.AmazonWebServiceRequest;
+import com.amazonaws.ClientConfiguration;
+
+/**
+ * Hedged request policy that can be configured on a specific service client
+ * using {@link ClientConfiguration}. When a request selected by the
+ * {@link HedgeCondition} has not completed after a delay derived from the
+ * observed latency percentile of the same type of request, a second attempt of
+ * the same request is sent. Whichever attempt completes successfully first is
+ * returned to the caller, and the other attempt is cancelled.
+ * <p>
+ * Hedging should only be enabled for idempotent read operations with small
+ * request payloads, such as DynamoDB GetItem, S3 GetObject of small objects,
+ * or SQS ReceiveMessage. Requests with content that cannot be duplicated in
+ * memory, or whose response handler is not a
+ * {@link com.amazonaws.http.StatelessResponseHandler}, are never hedged.
+ * Progress events are only published for the primary attempt of a hedged
+ * request.
+ * <p>
+ * This class is immutable, therefore safe to be shared by multiple clients.
+ *
+ * @see ClientConfiguration#setHedgingPolicy(HedgingPolicy)
+ */
+@Immutable
+public final class HedgingPolicy {
+    /** The default latency percentile used to determine the hedge delay. */
+    public static final double DEFAULT_PERCENTILE = 95.0;
+
+    /** The default minimum delay in milliseconds before a request is hedged. */
+    public static final long DEFAULT_MIN_DELAY_MILLIS = 10;
+
+    /** The default maximum number of in-flight hedged attempts per client. */
+    public static final int DEFAULT_MAX_CONCURRENT_HEDGES = 10;
+
+    /**
+     * Condition on whether a request should be hedged. This field should not
+     * be null.
+     */
+    private final HedgeCondition hedgeCondition;
+
+    /**
+     * The latency percentile, in the range of (0, 100), of the same type of
+     * request after which a hedged attempt is sent.
+     */
+    private final double percentile;
+
+    /**
+     * The minimum delay in milliseconds before a hedged attempt is sent. Note
+     * requests of a type are not hedged at all until enough latency samples of
+     * that type of request have been collected to determine the percentile.
+     */
+    private final long minDelayMillis;
+
+    /**
+     * The maximum number of hedged attempts that can be in flight at the same
+     * time for a client, so as to bound the amplification of load under
+     * widespread slowness.
+     */
+    private final int maxConcurrentHedges;
+
+    /**
+     * Constructs a new hedging policy with the default percentile, minimum
+     * delay and maximum number of concurrent hedges.
+     *
+     * @param hedgeCondition
+     *            Condition on whether a specific request should be hedged.
+     *            Must not be null.
+     */
+    public HedgingPolicy(HedgeCondition hedgeCondition) {
+        this(hedgeCondition, DEFAULT_PERCENTILE, DEFAULT_MIN_DELAY_MILLIS,
+                DEFAULT_MAX_CONCURRENT_HEDGES);
+    }
+
+    /**
+     * Constructs a new hedging policy.
+     *
+     * @param hedgeCondition
+     *            Condition on whether a specific request should be hedged.
+     *            Must not be null.
+     * @param percentile
+     *            The latency percentile, in the range of (0, 100), of the same
+     *            type of request after which a hedged attempt is sent.
+     * @param minDelayMillis
+     *            The minimum delay in milliseconds before a hedged attempt is
+     *            sent, once enough latency samples of the same type of request
+     *            have been collected.
+     * @param maxConcurrentHedges
+     *            The maximum number of hedged attempts that can be in flight
+     *            at the same time for a client.
+     */
+    public HedgingPolicy(HedgeCondition hedgeCondition,
+                         double percentile,
+                         long minDelayMillis,
+                         int maxConcurrentHedges) {
+        if (hedgeCondition == null) {
+            throw new IllegalArgumentException("hedgeCondition must not be null");
+        }
+        if (percentile <= 0 || percentile >= 100) {
+            throw new IllegalArgumentException("percentile must be in the range of (0, 100)");
+        }
+        if (minDelayMillis < 0) {
+            throw new IllegalArgumentException("minDelayMillis must be non-negative");
+        }
+        if (maxConcurrentHedges < 1) {
+            throw new IllegalArgumentException("maxConcurrentHedges must be at least one");
+        }
+        this.hedgeCondition = hedgeCondition;
+        this.percentile = percentile;
+        this.minDelayMillis = minDelayMillis;
+        this.maxConcurrentHedges = maxConcurrentHedges;
+    }
+
+    /**
+     * Returns the hedge condition included in this hedging policy.
+     */
+    public HedgeCondition getHedgeCondition() {
+        return hedgeCondition;
+    }
+
+    /**
+     * Returns the latency percentile of the same type of request after which
+     * a hedged attempt is sent.
+     */
+    public double getPercentile() {
+        return percentile;
+    }
+
+    /**
+     * Returns the minimum delay in milliseconds before a hedged attempt is
+     * sent.
+     */
+    public long getMinDelayMillis() {
+        return minDelayMillis;
+    }
+
+    /**
+     * Returns the maximum number of hedged attempts that can be in flight at
+     * the same time for a client.
+     */
+    public int getMaxConcurrentHedges() {
+        return maxConcurrentHedges;
+    }
+
+    /**
+     * The hook for providing custom condition on whether a request should be
+     * hedged.
+     */
+    public static interface HedgeCondition {
+        /**
+         * Returns true if the given request is an idempotent read that should
+         * be hedged; false otherwise.
+         *
+         * @param originalRequest
+         *            The original request object being executed. For
+         *            performance reason, this object is not a defensive copy,
+         *            and caller should not attempt to modify its data.
+         */
+        public boolean shouldHedge(AmazonWebServiceRequest originalRequest);
+    }
+
+    /**
+     * A hedge condition that selects requests by their types, such as
+     * {@code GetItemRequest.class} or {@code ReceiveMessageRequest.class}.
+     */
+    public static class RequestTypeHedgeCondition implements HedgeCondition {
+        private final Set<Class<? extends AmazonWebServiceRequest>> requestTypes;
+
+        public RequestTypeHedgeCondition(
+                Collection<Class<? extends AmazonWebServiceRequest>> requestTypes) {
+            this.requestTypes = Collections.unmodifiableSet(
+                new HashSet<Class<? extends AmazonWebServiceRequest>>(requestTypes));
+        }
+
+        @Override
+        public boolean shouldHedge(AmazonWebServiceRequest originalRequest) {
+            return originalRequest != null
+                && requestTypes.contains(originalRequest.getClass());
+        }
+    }
+}
@@ -0,0 +1,212 @@
+/*
+ * Copyright 2010-2014 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.retry.internal;
+
+import static com.amazonaws.retry.CircuitBreakerState.CLOSED;
+import static com.amazonaws.retry.CircuitBreakerState.HALF_OPEN;
+import static com.amazonaws.retry.CircuitBreakerState.OPEN;
+
+import org.apache.http.annotation.GuardedBy;
+import org.apache.http.annotation.Immutable;
+import org.apache.http.annotation.ThreadSafe;
+
+import com.amazonaws.retry.CircuitBreakerPolicy;
+import com.amazonaws.retry.CircuitBreakerState;
+
+/**
+ * The circuit breaker of a single service endpoint.
+ * <p>
+ * For internal use only.
+ *
+ * @see CircuitBreakerPolicy
+ */
+@ThreadSafe
+public class CircuitBreaker {
+    /** Returned by {@link #tryAcquire()} if the attempt is rejected. */
+    public static final int REJECTED = 0;
+    /** Returned by {@link #tryAcquire()} if the attempt is permitted. */
+    public static final int PERMITTED = 1;
+    /** Returned by {@link #tryAcquire()} if the attempt is a probe. */
+    public static final int PROBE = 2;
+    /**
+     * Returned by {@link #tryAcquire()} if the attempt is the first probe,
+     * which has transitioned the circuit from open to half-open.
+     */
+    public static final int FIRST_PROBE = 3;
+
+    private final CircuitBreakerPolicy policy;
+
+    @GuardedBy("this")
+    private CircuitBreakerState state = CLOSED;
+    @GuardedBy("this")
+    private int consecutiveFailures;
+    @GuardedBy("this")
+    private long openedAtMillis;
+    @GuardedBy("this")
+    private int probesInFlight;
+    @GuardedBy("this")
+    private long lastAcquiredMillis = System.currentTimeMillis();
+
+    public CircuitBreaker(CircuitBreakerPolicy policy) {
+        this.policy = policy;
+    }
+
+    public CircuitBreakerPolicy getPolicy() {
+        return policy;
+    }
+
+    public synchronized CircuitBreakerState getState() {
+        return state;
+    }
+
+    /**
+     * Returns whether an attempt may be sent to the endpoint, which is one of
+     * {@link #REJECTED}, {@link #PERMITTED}, {@link #PROBE} or
+     * {@link #FIRST_PROBE}. The outcome of every permitted attempt must
+     * subsequently be reported via {@link #onSuccess(int)},
+     * {@link #onFailure(int)} or {@link #onIgnored(int)}.
+     */
+    public synchronized int tryAcquire() {
+        lastAcquiredMillis = System.currentTimeMillis();
+        if (state == OPEN) {
+            if (lastAcquiredMillis - openedAtMillis < policy.getOpenDurationMillis())
+                return REJECTED;
+            transitionTo(HALF_OPEN);
+            probesInFlight++;
+            return FIRST_PROBE;
+        }
+        if (state == HALF_OPEN) {
+            if (probesInFlight < policy.getHalfOpenMaxProbes()) {
+                probesInFlight++;
+                return PROBE;
+            }
+            return REJECTED;
+        }
+        return PERMITTED;
+    }
+
+    /**
+     * Returns true if this circuit breaker is closed, and no attempt has been
+     * made to acquire it for at least the given idle time; false otherwise.
+     * Such a circuit breaker can be discarded, as the endpoint is presumed
+     * healthy.
+     *
+     * @param nowMillis
+     *            the current time in milliseconds
+     * @param idleMillis
+     *            the minimum idle time in milliseconds
+     */
+    public synchronized boolean isIdle(long nowMillis, long idleMillis) {
+        return state == CLOSED && nowMillis - lastAcquiredMillis >= idleMillis;
+    }
+
+    /**
+     * Returns true if the given value returned by {@link #tryAcquire()}
+     * represents a probe; false otherwise.
+     */
+    public static boolean isProbe(int permit) {
+        return permit == PROBE || permit == FIRST_PROBE;
+    }
+
+    /**
+     * Reports that a permitted attempt has reached the endpoint successfully,
+     * or has failed in a way that does not count as an endpoint failure.
+     *
+     * @param permit
+     *            the value returned by {@link #tryAcquire()} for the attempt
+     * @return the resultant state transition; or null if there is none.
+     */
+    public synchronized Transition onSuccess(int permit) {
+        if (isProbe(permit)) {
+            probesInFlight--;
+            if (state == HALF_OPEN) {
+                consecutiveFailures = 0;
+                return transitionTo(CLOSED);
+            }
+        } else if (state == CLOSED) {
+            consecutiveFailures = 0;
+        }
+        return null;
+    }
+
+    /**
+     * Reports that a permitted attempt has failed with an endpoint failure.
+     *
+     * @param permit
+     *            the value returned by {@link #tryAcquire()} for the attempt
+     * @return the resultant state transition; or null if there is none.
+     */
+    public synchronized Transition onFailure(int permit) {
+        if (isProbe(permit)) {
+            probesInFlight--;
+            if (state == HALF_OPEN)
+                return open();
+        } else if (state == CLOSED) {
+            if (++consecutiveFailures >= policy.getFailureThreshold())
+                return open();
+        }
+        return null;
+    }
+
+    /**
+     * Reports that a permitted attempt has been abandoned without an outcome,
+     * such as when it is the cancelled attempt of a hedged request.
+     *
+     * @param permit
+     *            the value returned by {@link #tryAcquire()} for the attempt
+     */
+    public synchronized void onIgnored(int permit) {
+        if (isProbe(permit))
+            probesInFlight--;
+    }
+
+    @GuardedBy("this")
+    private Transition open() {
+        openedAtMillis = System.currentTimeMillis();
+        return transitionTo(OPEN);
+    }
+
+    @GuardedBy("this")
+    private Transition transitionTo(CircuitBreakerState newState) {
+        Transition t = new Transition(state, newState);
+        state = newState;
+        if (newState != HALF_OPEN)
+            probesInFlight = 0;
+        return t;
+    }
+
+    /**
+     * A state transition of a circuit breaker.
+     */
+    @Immutable
+    public static final class Transition {
+        private final CircuitBreakerState previousState;
+        private final CircuitBreakerState newState;
+
+        Transition(CircuitBreakerState previousState,
+                CircuitBreakerState newState) {
+            this.previousState = previousState;
+            this.newState = newState;
+        }
+
+        public CircuitBreakerState getPreviousState() {
+            return previousState;
+        }
+
+        public CircuitBreakerState getNewState() {
+            return newState;
+        }
+    }
+}
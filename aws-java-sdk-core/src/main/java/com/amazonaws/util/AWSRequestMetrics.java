@@ -94,6 +94,34 @@ public class AWSRequestMetrics {
          * request to AWS.
          */
         HttpClientRetryCount,
+        /**
+         * Number of hedged attempts sent for a request.
+         */
+        HedgedRequestCount,
+        /**
+         * Number of requests for which the hedged attempt completed
+         * successfully before the original attempt.
+         */
+        HedgedRequestWinCount,
+        /**
+         * Number of attempts rejected by an open circuit breaker.
+         */
+        CircuitBreakerRejectedCount,
+        /**
+         * Number of times a circuit breaker has transitioned to the open
+         * state.
+         */
+        CircuitBreakerOpenCount,
+        /**
+         * Number of requests coalesced into an identical request in flight,
+         * and therefore not sent.
+         */
+        CoalescedRequestCount,
+        /**
+         * Number of requests served from the response cache, and therefore
+         * not sent.
+         */
+        ResponseCacheHitCount,
         /**
          * Time taken to send a request to AWS by the http client library,
          * excluding any retry. 
@@ -26,6 +26,7 @@ import com.amazonaws.services.dynamodbv2.document.Page;
 public abstract class PageBasedCollection<T,R> implements Iterable<T> {
     private volatile R lastLowLevelResult;
     private volatile LowLevelResultListener<R> listener = LowLevelResultListener.none();
+    private volatile int readAheadPages;
 
     @Override
     public IteratorSupport<T,R> iterator() {
@@ -39,6 +40,26 @@ public abstract class PageBasedCollection<T,R> implements Iterable<T> {
     }
 
     public abstract Page<T,R> firstPage();
+
+    /**
+     * Returns the number of pages fetched ahead of time by a background
+     * thread when iterating over this collection; or zero if each page is
+     * only fetched when it is needed.
+     */
+    public int getReadAheadPages() {
+        return readAheadPages;
+    }
+
+    /**
+     * Sets the number of pages fetched ahead of time by a background thread
+     * while the current page is being consumed, so that iteration doesn't
+     * stall on a network call at every page boundary. Zero, the default,
+     * fetches each page only when it is needed. Only affects iterations that
+     * are subsequently started.
+     */
+    public void setReadAheadPages(int readAheadPages) {
+        this.readAheadPages = readAheadPages;
+    }
     
     /**
      * Returns the maximum number of resources to be retrieved in this
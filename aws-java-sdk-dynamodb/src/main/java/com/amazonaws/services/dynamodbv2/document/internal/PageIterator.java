@@ -16,6 +16,7 @@ package com.amazonaws.services.dynamodbv2.document.internal;
 
 import java.util.Iterator;
 
+import com.amazonaws.internal.ReadAheadPageIterator;
 import com.amazonaws.services.dynamodbv2.document.Page;
 
 /**
@@ -26,9 +27,24 @@ class PageIterator<T,R> implements Iterator<Page<T,R>> {
 
     private Page<T,R> page;
     private final PageBasedCollection<T,R> col;
+    /** Pages fetched ahead of time; or null if not reading ahead. */
+    private final Iterator<Page<T,R>> pages;
 
-    PageIterator(PageBasedCollection<T,R> col) {
+    PageIterator(final PageBasedCollection<T,R> col) {
         this.col = col;
+        final int readAheadPages = col.getReadAheadPages();
+        this.pages = readAheadPages <= 0 ? null
+            : new ReadAheadPageIterator<Page<T,R>>(readAheadPages) {
+                @Override
+                protected Page<T,R> firstPage() {
+                    return col.firstPage();
+                }
+
+                @Override
+                protected Page<T,R> nextPage(Page<T,R> page) {
+                    return page.hasNextPage() ? page.nextPage() : null;
+                }
+            };
     }
 
     @Override
@@ -36,12 +52,20 @@ class PageIterator<T,R> implements Iterator<Page<T,R>> {
         Integer max = col.getMaxResultSize();
         if (max != null && max.intValue() <= 0)
             return false;
+        if (pages != null)
+            return pages.hasNext();
         return page == null || page.hasNextPage();
     }
 
     @Override
     public Page<T,R> next() {
-        if (page == null) {
+        if (pages != null) {
+            final boolean first = page == null;
+            page = pages.next();
+            // The low level result of the first page is set upon retrieval
+            if (!first)
+                col.setLastLowLevelResult(page.getLowLevelResult());
+        } else if (page == null) {
             page = col.firstPage();
         } else {
             page = page.nextPage();
@@ -82,6 +82,7 @@ import com.amazonaws.services.s3.model.PutObjectResult;
 import com.amazonaws.services.s3.model.Region;
 import com.amazonaws.services.s3.model.RestoreObjectRequest;
 import com.amazonaws.services.s3.model.S3Object;
+import com.amazonaws.services.s3.model.S3ObjectSummaryHandler;
 import com.amazonaws.services.s3.model.SetBucketAclRequest;
 import com.amazonaws.services.s3.model.SetBucketCrossOriginConfigurationRequest;
 import com.amazonaws.services.s3.model.SetBucketLifecycleConfigurationRequest;
@@ -406,6 +407,37 @@ public interface AmazonS3 {
     public ObjectListing listObjects(ListObjectsRequest listObjectsRequest)
             throws AmazonClientException, AmazonServiceException;
 
+    /**
+     * <p>
+     * Returns a listing of objects like {@link #listObjects(ListObjectsRequest)},
+     * except the object summaries are delivered to the given handler one at a
+     * time as the response is being parsed, rather than collected into the
+     * returned listing. This avoids holding a whole page of object summaries
+     * in memory when scanning a large number of keys.
+     * </p>
+     *
+     * @param listObjectsRequest
+     *            The request object containing all options for listing the
+     *            objects in a specified bucket.
+     * @param summaryHandler
+     *            The handler of the object summaries of the listing.
+     *
+     * @return A listing of the objects in the specified bucket, with an empty
+     *         list of object summaries, along with any other associated
+     *         information, such as common prefixes (if a delimiter was
+     *         specified), the next marker, etc.
+     *
+     * @throws AmazonClientException
+     *             If any errors are encountered in the client while making the
+     *             request or handling the response.
+     * @throws AmazonServiceException
+     *             If any errors occurred in Amazon S3 while processing the
+     *             request.
+     */
+    public ObjectListing listObjects(ListObjectsRequest listObjectsRequest,
+            S3ObjectSummaryHandler summaryHandler)
+            throws AmazonClientException, AmazonServiceException;
+
     /**
      * <p>
      * Provides an easy way to continue a truncated object listing and retrieve
@@ -78,7 +78,6 @@ import com.amazonaws.handlers.RequestHandler2;
 import com.amazonaws.http.ExecutionContext;
 import com.amazonaws.http.HttpMethodName;
 import com.amazonaws.http.HttpResponseHandler;
-import com.amazonaws.internal.ResettableInputStream;
 import com.amazonaws.internal.StaticCredentialsProvider;
 import com.amazonaws.metrics.AwsSdkMetrics;
 import com.amazonaws.metrics.RequestMetricCollector;
@@ -88,11 +87,13 @@ import com.amazonaws.services.s3.internal.BucketNameUtils;
 import com.amazonaws.services.s3.internal.Constants;
 import com.amazonaws.services.s3.internal.DeleteObjectsResponse;
 import com.amazonaws.services.s3.internal.DigestValidationInputStream;
+import com.amazonaws.services.s3.internal.FileRegionInputStream;
 import com.amazonaws.services.s3.internal.InputSubstream;
 import com.amazonaws.services.s3.internal.MD5DigestCalculatingInputStream;
 import com.amazonaws.services.s3.internal.Mimetypes;
 import com.amazonaws.services.s3.internal.ObjectExpirationHeaderHandler;
 import com.amazonaws.services.s3.internal.ResponseHeaderHandlerChain;
+import com.amazonaws.services.s3.internal.S3CallbackXmlResponseHandler;
 import com.amazonaws.services.s3.internal.S3ErrorResponseHandler;
 import com.amazonaws.services.s3.internal.S3ExecutionContext;
 import com.amazonaws.services.s3.internal.S3MetadataResponseHandler;
@@ -174,6 +175,7 @@ import com.amazonaws.services.s3.model.ResponseHeaderOverrides;
 import com.amazonaws.services.s3.model.RestoreObjectRequest;
 import com.amazonaws.services.s3.model.S3Object;
 import com.amazonaws.services.s3.model.S3ObjectInputStream;
+import com.amazonaws.services.s3.model.S3ObjectSummaryHandler;
 import com.amazonaws.services.s3.model.SSEAwsKeyManagementParams;
 import com.amazonaws.services.s3.model.SSEAwsKeyManagementParamsProvider;
 import com.amazonaws.services.s3.model.SSECustomerKey;
@@ -614,6 +616,21 @@ public class AmazonS3Client extends AmazonWebServiceClient implements AmazonS3 {
      */
     public ObjectListing listObjects(ListObjectsRequest listObjectsRequest)
             throws AmazonClientException, AmazonServiceException {
+        return invoke(createListObjectsRequest(listObjectsRequest), new Unmarshallers.ListObjectsUnmarshaller(), listObjectsRequest.getBucketName(), null);
+    }
+
+    /* (non-Javadoc)
+     * @see com.amazonaws.services.s3.AmazonS3#listObjects(com.amazonaws.services.s3.model.ListObjectsRequest, com.amazonaws.services.s3.model.S3ObjectSummaryHandler)
+     */
+    public ObjectListing listObjects(ListObjectsRequest listObjectsRequest,
+            S3ObjectSummaryHandler summaryHandler)
+            throws AmazonClientException, AmazonServiceException {
+        assertParameterNotNull(summaryHandler, "The object summary handler parameter must be specified when streaming a listing of objects");
+
+        return invoke(createListObjectsRequest(listObjectsRequest), new S3CallbackXmlResponseHandler<ObjectListing>(new Unmarshallers.StreamingListObjectsUnmarshaller(summaryHandler)), listObjectsRequest.getBucketName(), null);
+    }
+
+    private Request<ListObjectsRequest> createListObjectsRequest(ListObjectsRequest listObjectsRequest) {
         assertParameterNotNull(listObjectsRequest.getBucketName(), "The bucket name parameter must be specified when listing objects in a bucket");
 
         Request<ListObjectsRequest> request = createRequest(listObjectsRequest.getBucketName(), null, listObjectsRequest, HttpMethodName.GET);
@@ -622,8 +639,7 @@ public class AmazonS3Client extends AmazonWebServiceClient implements AmazonS3 {
         if (listObjectsRequest.getDelimiter() != null) request.addParameter("delimiter", listObjectsRequest.getDelimiter());
         if (listObjectsRequest.getMaxKeys() != null && listObjectsRequest.getMaxKeys().intValue() >= 0) request.addParameter("max-keys", listObjectsRequest.getMaxKeys().toString());
         if (listObjectsRequest.getEncodingType() != null) request.addParameter("encoding-type", listObjectsRequest.getEncodingType());
-
-        return invoke(request, new Unmarshallers.ListObjectsUnmarshaller(), listObjectsRequest.getBucketName(), null);
+        return request;
     }
 
     /* (non-Javadoc)
@@ -1413,9 +1429,13 @@ public class AmazonS3Client extends AmazonWebServiceClient implements AmazonS3 {
                  * If the user hasn't set the content MD5, then we don't want to
                  * buffer the whole stream in memory just to calculate it. Instead,
                  * we can calculate it on the fly and validate it with the returned
-                 * ETag from the object upload.
+                 * ETag from the object upload. The digest of a large content
+                 * is calculated in parallel with the signing and sending of
+                 * the data.
                  */
-                input = md5DigestStream = new MD5DigestCalculatingInputStream(input);
+                input = md5DigestStream = new MD5DigestCalculatingInputStream(
+                        input, contentLength != null && contentLength.longValue()
+                        >= MD5DigestCalculatingInputStream.PARALLEL_HASHING_THRESHOLD);
             }
 
             if (metadata.getContentType() == null) {
@@ -2745,18 +2765,21 @@ public class AmazonS3Client extends AmazonWebServiceClient implements AmazonS3 {
                     awsreq.getRequestClientOptions()
                         .setReadLimit(bufsize.intValue());
                 }
+                isCurr = new InputSubstream(isCurr,
+                        uploadPartRequest.getFileOffset(),
+                        partSize,
+                        uploadPartRequest.isLastPart());
             } else {
+                // Read the part via positional reads so that neither skipping
+                // to the part nor reopening the file upon retry is necessary
                 try {
-                    isCurr = new ResettableInputStream(fileOrig);
+                    isCurr = new FileRegionInputStream(fileOrig,
+                            uploadPartRequest.getFileOffset(), partSize);
                 } catch(IOException e) {
                     throw new IllegalArgumentException("Failed to open file "
                             + fileOrig, e);
                 }
             }
-            isCurr = new InputSubstream(isCurr,
-                    uploadPartRequest.getFileOffset(),
-                    partSize,
-                    uploadPartRequest.isLastPart());
             MD5DigestCalculatingInputStream md5DigestStream = null;
             if (uploadPartRequest.getMd5Digest() == null
              && !skipContentMd5IntegrityCheck(uploadPartRequest)) {
@@ -2764,9 +2787,12 @@ public class AmazonS3Client extends AmazonWebServiceClient implements AmazonS3 {
                  * If the user hasn't set the content MD5, then we don't want to
                  * buffer the whole stream in memory just to calculate it. Instead,
                  * we can calculate it on the fly and validate it with the returned
-                 * ETag from the object upload.
+                 * ETag from the object upload. The digest of a large part is
+                 * calculated in parallel with the signing and sending of the
+                 * data.
                  */
-                isCurr = md5DigestStream = new MD5DigestCalculatingInputStream(isCurr);
+                isCurr = md5DigestStream = new MD5DigestCalculatingInputStream(isCurr,
+                        partSize >= MD5DigestCalculatingInputStream.PARALLEL_HASHING_THRESHOLD);
             }
             final ProgressListener listener = uploadPartRequest.getGeneralProgressListener();
             publishProgress(listener, ProgressEventType.TRANSFER_PART_STARTED_EVENT);
@@ -28,6 +28,7 @@ import com.amazonaws.regions.Regions;
 import com.amazonaws.services.kms.AWSKMSClient;
 import com.amazonaws.services.s3.internal.S3Direct;
 import com.amazonaws.services.s3.internal.crypto.CryptoModuleDispatcher;
+import com.amazonaws.services.s3.internal.crypto.MultipartDownloadCryptoContext;
 import com.amazonaws.services.s3.internal.crypto.S3CryptoModule;
 import com.amazonaws.services.s3.model.AbortMultipartUploadRequest;
 import com.amazonaws.services.s3.model.CompleteMultipartUploadRequest;
@@ -35,6 +36,8 @@ import com.amazonaws.services.s3.model.CompleteMultipartUploadResult;
 import com.amazonaws.services.s3.model.CopyPartRequest;
 import com.amazonaws.services.s3.model.CopyPartResult;
 import com.amazonaws.services.s3.model.CryptoConfiguration;
+import com.amazonaws.services.s3.model.DataKeyCachePolicy;
+import com.amazonaws.services.s3.model.DataKeyCacheStatistics;
 import com.amazonaws.services.s3.model.DeleteObjectRequest;
 import com.amazonaws.services.s3.model.EncryptedInitiateMultipartUploadRequest;
 import com.amazonaws.services.s3.model.EncryptedPutObjectRequest;
@@ -528,7 +531,10 @@ public class AmazonS3EncryptionClient extends AmazonS3Client implements
      * N-1 in order to encrypt block N, parts uploaded with the
      * AmazonS3EncryptionClient (as opposed to the normal AmazonS3Client) must
      * be uploaded serially, and in order. Otherwise, the previous encryption
-     * context isn't available to use when encrypting the current part.
+     * context isn't available to use when encrypting the current part. The
+     * exception is a multipart upload initiated via an
+     * {@link EncryptedInitiateMultipartUploadRequest} with parallel part
+     * uploads enabled, if {@link #isParallelPartUploadSupported()}.
      */
     @Override
     public UploadPartResult uploadPart(UploadPartRequest uploadPartRequest)
@@ -546,6 +552,47 @@ public class AmazonS3EncryptionClient extends AmazonS3Client implements
         crypto.abortMultipartUploadSecurely(req);
     }
 
+    /**
+     * Returns true if the parts of a multipart upload initiated via an
+     * {@link EncryptedInitiateMultipartUploadRequest} with parallel part
+     * uploads enabled can be uploaded in parallel, which is the case when
+     * this client is configured with authenticated encryption; false
+     * otherwise.
+     *
+     * @see EncryptedInitiateMultipartUploadRequest#setParallelPartUploads(boolean)
+     */
+    public boolean isParallelPartUploadSupported() {
+        return crypto.isParallelPartUploadSupported();
+    }
+
+    /**
+     * Returns a snapshot of the statistics of the cache of data keys generated
+     * and decrypted via KMS; or null if data keys are not cached.
+     *
+     * @see CryptoConfiguration#setDataKeyCachePolicy(DataKeyCachePolicy)
+     */
+    public DataKeyCacheStatistics getDataKeyCacheStatistics() {
+        return crypto.getDataKeyCacheStatistics();
+    }
+
+    /**
+     * Returns the context for downloading the given encrypted object in byte
+     * ranges that are fetched, decrypted and authenticated independently of
+     * each other, such as in parallel; or null if the object can only be
+     * downloaded as a single stream, which is the case unless the object has
+     * been encrypted with AES/GCM.
+     *
+     * @param req
+     *            the request of the whole object
+     * @param metadata
+     *            the metadata of the object as stored in S3, such as returned
+     *            by {@link #getObjectMetadata(String, String)}
+     */
+    public MultipartDownloadCryptoContext newMultipartDownloadContext(
+            GetObjectRequest req, ObjectMetadata metadata) {
+        return crypto.newMultipartDownloadContext(req, metadata);
+    }
+
     /**
      * Creates a new crypto instruction file by re-encrypting the CEK of an
      * existing encrypted S3 object with a new encryption material identifiable
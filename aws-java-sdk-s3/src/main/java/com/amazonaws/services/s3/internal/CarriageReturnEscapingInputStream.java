@@ -0,0 +1,134 @@
+/*
+ * Copyright 2010-2014 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.s3.internal;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.apache.http.annotation.NotThreadSafe;
+
+import com.amazonaws.internal.SdkFilterInputStream;
+
+/**
+ * Input stream wrapper that replaces every carriage return (0x0D) byte of the
+ * wrapped XML document with the character entity "&amp;#013;" as the document
+ * is read, so that the SAX parser does not normalize it into a line feed.
+ * <p>
+ * Since a 0x0D byte can never be part of a multi-byte UTF-8 sequence, the
+ * replacement is performed directly on the bytes without decoding the
+ * document. Mark and reset are not supported.
+ */
+@NotThreadSafe
+public class CarriageReturnEscapingInputStream extends SdkFilterInputStream {
+    private static final byte CR = '\r';
+    private static final byte[] ESCAPED_CR = {'&', '#', '0', '1', '3', ';'};
+    private static final int BUFFER_SIZE = 8192;
+
+    /** Bytes read from the wrapped stream but not yet returned. */
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int pos;
+    private int limit;
+    /**
+     * Index of the next byte of {@link #ESCAPED_CR} to be returned; or the
+     * length of {@link #ESCAPED_CR} if there is no pending replacement.
+     */
+    private int escapePos = ESCAPED_CR.length;
+
+    public CarriageReturnEscapingInputStream(InputStream in) {
+        super(in);
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] b = new byte[1];
+        int n = read(b, 0, 1);
+        return n == -1 ? -1 : b[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        abortIfNeeded();
+        if (off < 0 || len < 0 || len > b.length - off)
+            throw new IndexOutOfBoundsException();
+        if (len == 0)
+            return 0;
+        int n = 0;
+        while (n < len) {
+            if (escapePos < ESCAPED_CR.length) {
+                b[off + n++] = ESCAPED_CR[escapePos++];
+                continue;
+            }
+            if (pos == limit) {
+                // Only block on the wrapped stream if nothing has been read
+                if (n > 0)
+                    break;
+                int read = in.read(buffer, 0, buffer.length);
+                if (read == -1)
+                    return -1;
+                pos = 0;
+                limit = read;
+                continue;
+            }
+            // Copy everything up to the next carriage return in one go
+            int end = Math.min(limit, pos + len - n);
+            int i = pos;
+            while (i < end && buffer[i] != CR)
+                i++;
+            System.arraycopy(buffer, pos, b, off + n, i - pos);
+            n += i - pos;
+            pos = i;
+            if (i < end) {
+                pos++;
+                escapePos = 0;
+            }
+        }
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        if (n <= 0)
+            return 0;
+        byte[] b = new byte[(int) Math.min(n, BUFFER_SIZE)];
+        long skipped = 0;
+        while (skipped < n) {
+            int read = read(b, 0, (int) Math.min(n - skipped, b.length));
+            if (read == -1)
+                break;
+            skipped += read;
+        }
+        return skipped;
+    }
+
+    @Override
+    public int available() throws IOException {
+        abortIfNeeded();
+        return (ESCAPED_CR.length - escapePos) + (limit - pos);
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public void mark(int readlimit) {
+    }
+
+    @Override
+    public void reset() throws IOException {
+        throw new IOException("mark/reset not supported");
+    }
+}
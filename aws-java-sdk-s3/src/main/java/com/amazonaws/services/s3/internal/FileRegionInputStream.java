@@ -0,0 +1,189 @@
+/*
+ * Copyright 2010-2014 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.s3.internal;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+import org.apache.commons.logging.LogFactory;
+import org.apache.http.annotation.NotThreadSafe;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.internal.SdkInputStream;
+
+/**
+ * A mark-and-resettable input stream over a region of a file, such as a part
+ * of a multipart upload. Bytes are read via positional reads on a
+ * {@link FileChannel}, so there is no need to skip through the file to reach
+ * the region, and resetting the stream (e.g. upon a retry) only involves
+ * resetting the position without reopening the file. As positional reads do
+ * not alter the position of the channel, multiple regions of the same file
+ * can be read concurrently.
+ * <p>
+ * The close method of this stream does not close the underlying file, so the
+ * stream can be reset and re-read after being closed by the HTTP client. The
+ * creator of this input stream should therefore always call
+ * {@link #release()} in a finally block to truly release the underlying file.
+ */
+@NotThreadSafe
+public class FileRegionInputStream extends SdkInputStream {
+    private final File file;
+    private final RandomAccessFile raf;
+    private final FileChannel channel;
+    /** Starting position of the region in the file. */
+    private final long offset;
+    /** Length of the region in bytes. */
+    private final long length;
+    /** Current position relative to the start of the region. */
+    private long pos;
+    /** Marked position relative to the start of the region. */
+    private long markPos;
+    private boolean released;
+
+    /**
+     * @param file
+     *            the file to read from; must not be null.
+     * @param offset
+     *            the offset, in bytes, into the file at which the region
+     *            starts.
+     * @param length
+     *            the length, in bytes, of the region; any bytes of the region
+     *            beyond the end of the file are treated as absent.
+     */
+    public FileRegionInputStream(File file, long offset, long length)
+            throws IOException {
+        if (offset < 0 || length < 0)
+            throw new IllegalArgumentException("offset: " + offset
+                    + ", length: " + length);
+        this.file = file;
+        this.raf = new RandomAccessFile(file, "r");
+        this.channel = raf.getChannel();
+        this.offset = offset;
+        this.length = length;
+    }
+
+    /**
+     * Convenient factory method to construct a new input stream for the given
+     * region of a file, converting any IOException into
+     * AmazonClientException.
+     */
+    public static FileRegionInputStream newFileRegionInputStream(File file,
+            long offset, long length) {
+        try {
+            return new FileRegionInputStream(file, offset, length);
+        } catch (IOException e) {
+            throw new AmazonClientException("Failed to open file " + file, e);
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] b = new byte[1];
+        int n = read(b, 0, 1);
+        return n == -1 ? -1 : (b[0] & 0xff);
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        abortIfNeeded();
+        if (len == 0)
+            return 0;
+        final long remaining = length - pos;
+        if (remaining <= 0)
+            return -1;
+        ByteBuffer bb = ByteBuffer.wrap(b, off, (int) Math.min(len, remaining));
+        int n = channel.read(bb, offset + pos);
+        if (n > 0)
+            pos += n;
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        abortIfNeeded();
+        if (n <= 0)
+            return 0;
+        long skipped = Math.min(n, length - pos);
+        pos += skipped;
+        return skipped;
+    }
+
+    @Override
+    public int available() throws IOException {
+        abortIfNeeded();
+        long remaining = Math.min(length - pos, channel.size() - offset - pos);
+        return (int) Math.max(0, Math.min(remaining, Integer.MAX_VALUE));
+    }
+
+    @Override
+    public boolean markSupported() {
+        return true;
+    }
+
+    /**
+     * Marks the current position in this input stream; the read limit is
+     * ignored as any position within the region can be returned to.
+     */
+    @Override
+    public void mark(int readlimit) {
+        abortIfNeeded();
+        markPos = pos;
+    }
+
+    @Override
+    public void reset() throws IOException {
+        abortIfNeeded();
+        if (released)
+            throw new IOException("File region input stream has been released");
+        pos = markPos;
+    }
+
+    /**
+     * Does not close the underlying file; see {@link #release()}.
+     */
+    @Override
+    public void close() {
+        abortIfNeeded();
+    }
+
+    /**
+     * Closes the underlying file.
+     */
+    @Override
+    public void release() {
+        released = true;
+        try {
+            raf.close();
+        } catch (IOException e) {
+            LogFactory.getLog(getClass()).debug("FYI", e);
+        }
+    }
+
+    @Override
+    protected InputStream getWrappedInputStream() {
+        return null;
+    }
+
+    /**
+     * Returns the underlying file.
+     */
+    public File getFile() {
+        return file;
+    }
+}
@@ -14,29 +14,122 @@
  */
 package com.amazonaws.services.s3.internal;
 
+import static com.amazonaws.services.s3.internal.Constants.KB;
+import static com.amazonaws.services.s3.internal.Constants.MB;
+
 import java.io.IOException;
 import java.io.InputStream;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import com.amazonaws.internal.SdkFilterInputStream;
 
 /**
  * Simple InputStream wrapper that examines the wrapped stream's contents as
  * they are read and calculates and MD5 digest.
+ * <p>
+ * Optionally, the digest can be calculated by a shared hashing pool in
+ * parallel with the reading thread, which is then free to sign and send the
+ * data. The data read is handed over to the pool via a small fixed number of
+ * buffers, so the reading thread is held back if hashing falls behind.
  */
 public class MD5DigestCalculatingInputStream extends SdkFilterInputStream {
-    /** The MD5 message digest being calculated by this input stream */
-    private MessageDigest digest;
+    /**
+     * The minimum size of the content for which the MD5 digest is worth
+     * calculating in parallel with the reading thread.
+     */
+    public static final long PARALLEL_HASHING_THRESHOLD = 16 * MB;
+
+    /** Size of each buffer of data handed over to the hashing pool. */
+    private static final int HASHING_BUFFER_SIZE = 64 * KB;
+    /** Number of buffers of data in flight to the hashing pool per stream. */
+    private static final int HASHING_BUFFER_COUNT = 4;
+
+    /**
+     * Used to calculate the MD5 digests of large contents in parallel with
+     * the reading threads. Threads are created on demand up to the number of
+     * processors, and terminate once idle.
+     */
+    private static final ThreadPoolExecutor hashingPool;
+    static {
+        int processors = Runtime.getRuntime().availableProcessors();
+        hashingPool = new ThreadPoolExecutor(processors, processors,
+            60L, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+            new ThreadFactory() {
+                private final AtomicInteger threadCount = new AtomicInteger(0);
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r);
+                    thread.setDaemon(true);
+                    thread.setName("java-sdk-s3-md5-digest-" + threadCount.incrementAndGet());
+                    return thread;
+                }
+            });
+        hashingPool.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * The MD5 message digest being calculated by this input stream; only
+     * replaced by the reading thread when no data is in flight to the pool.
+     */
+    private volatile MessageDigest digest;
     /**
      * The MD5 message digest as at the time when the last {@link #mark(int)}
      * operation was called; always null if mark is not supported.
      */
     private MessageDigest digestLastMarked;
 
+    /**
+     * The buffers available for handing over data to the hashing pool; or
+     * null if the digest is calculated by the reading thread.
+     */
+    private final BlockingQueue<Chunk> freeChunks;
+    /** The buffers of data yet to be hashed, in the order read. */
+    private final BlockingQueue<Chunk> pendingChunks;
+    /** The number of buffers handed over but not yet hashed. */
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    /** Hashes the pending buffers in order. */
+    private final Runnable hasher = new Runnable() {
+        @Override
+        public void run() {
+            do {
+                Chunk chunk = pendingChunks.poll();
+                digest.update(chunk.data, 0, chunk.length);
+                freeChunks.add(chunk);
+            } while (pendingCount.decrementAndGet() > 0);
+        }
+    };
+
     public MD5DigestCalculatingInputStream(InputStream in) {
+        this(in, false);
+    }
+
+    /**
+     * @param parallel
+     *            true if the digest is to be calculated by the shared hashing
+     *            pool in parallel with the reading thread; false if by the
+     *            reading thread.
+     *
+     * @see #PARALLEL_HASHING_THRESHOLD
+     */
+    public MD5DigestCalculatingInputStream(InputStream in, boolean parallel) {
         super(in);
         digest = newMD5();
+        if (parallel) {
+            freeChunks = new ArrayBlockingQueue<Chunk>(HASHING_BUFFER_COUNT);
+            pendingChunks = new ArrayBlockingQueue<Chunk>(HASHING_BUFFER_COUNT);
+            for (int i = 0; i < HASHING_BUFFER_COUNT; i++)
+                freeChunks.add(new Chunk());
+        } else {
+            freeChunks = pendingChunks = null;
+        }
     }
 
     private MessageDigest newMD5() {
@@ -56,6 +149,7 @@ public class MD5DigestCalculatingInputStream extends SdkFilterInputStream {
     }
 
     public byte[] getMd5Digest() {
+        awaitHashed();
         return digest.digest();
     }
 
@@ -63,6 +157,7 @@ public class MD5DigestCalculatingInputStream extends SdkFilterInputStream {
     public void mark(int readlimit) {
         if (markSupported()) {
             super.mark(readlimit);
+            awaitHashed();
             digestLastMarked = cloneFrom(digest);
         }
     }
@@ -74,6 +169,7 @@ public class MD5DigestCalculatingInputStream extends SdkFilterInputStream {
     public void reset() throws IOException {
         if (markSupported()) {
             super.reset();
+            awaitHashed();
             digest = (digestLastMarked == null)
                    // This is necessary so that should there be a reset without a
                    // preceding mark, the MD5 would still be computed correctly.
@@ -88,6 +184,7 @@ public class MD5DigestCalculatingInputStream extends SdkFilterInputStream {
     public int read() throws IOException {
         int ch = super.read();
         if (ch != -1) {
+            awaitHashed();
             digest.update((byte)ch);
         }
         return ch;
@@ -97,8 +194,65 @@ public class MD5DigestCalculatingInputStream extends SdkFilterInputStream {
     public int read(byte[] b, int off, int len) throws IOException {
         int result = super.read(b, off, len);
         if (result != -1) {
-            digest.update(b, off, result);
+            update(b, off, result);
         }
         return result;
     }
+
+    private void update(byte[] b, int off, int len) {
+        if (freeChunks == null) {
+            digest.update(b, off, len);
+            return;
+        }
+        while (len > 0) {
+            Chunk chunk = take(freeChunks);
+            int n = Math.min(len, chunk.data.length);
+            System.arraycopy(b, off, chunk.data, 0, n);
+            chunk.length = n;
+            pendingChunks.add(chunk);
+            if (pendingCount.getAndIncrement() == 0)
+                hashingPool.execute(hasher);
+            off += n;
+            len -= n;
+        }
+    }
+
+    /**
+     * Blocks until all the data handed over to the hashing pool has been
+     * hashed; a no-op if the digest is calculated by the reading thread.
+     */
+    private void awaitHashed() {
+        if (freeChunks == null)
+            return;
+        // All the buffers are returned only after the data is hashed
+        Chunk[] chunks = new Chunk[HASHING_BUFFER_COUNT];
+        for (int i = 0; i < chunks.length; i++)
+            chunks[i] = take(freeChunks);
+        for (Chunk chunk : chunks)
+            freeChunks.add(chunk);
+    }
+
+    private static Chunk take(BlockingQueue<Chunk> queue) {
+        boolean interrupted = false;
+        try {
+            for (;;) {
+                try {
+                    return queue.take();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        } finally {
+            if (interrupted)
+                Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * A buffer of data handed over to the hashing pool.
+     */
+    private static final class Chunk {
+        final byte[] data = new byte[HASHING_BUFFER_SIZE];
+        int length;
+    }
 }
@@ -0,0 +1,33 @@
+/*
+ * Copyright 2010-2014 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.s3.internal;
+
+import java.io.InputStream;
+
+import com.amazonaws.http.SideEffectingResponseHandler;
+import com.amazonaws.transform.Unmarshaller;
+
+/**
+ * S3 XML response handler whose unmarshaller delivers parts of the response to
+ * a callback as they are parsed, so that the request is never coalesced,
+ * cached or hedged.
+ */
+public class S3CallbackXmlResponseHandler<T> extends S3XmlResponseHandler<T>
+        implements SideEffectingResponseHandler {
+
+    public S3CallbackXmlResponseHandler(Unmarshaller<T, InputStream> responseUnmarshaller) {
+        super(responseUnmarshaller);
+    }
+}
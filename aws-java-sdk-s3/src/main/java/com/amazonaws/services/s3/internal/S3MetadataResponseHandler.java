@@ -16,13 +16,15 @@ package com.amazonaws.services.s3.internal;
 
 import com.amazonaws.AmazonWebServiceResponse;
 import com.amazonaws.http.HttpResponse;
+import com.amazonaws.http.StatelessResponseHandler;
 import com.amazonaws.services.s3.model.ObjectMetadata;
 
 /**
  * S3 response handler that knows how to pull S3 object metadata out of a
  * response and unmarshall it into an S3ObjectMetadata object.
  */
-public class S3MetadataResponseHandler extends AbstractS3ResponseHandler<ObjectMetadata> {
+public class S3MetadataResponseHandler extends AbstractS3ResponseHandler<ObjectMetadata>
+        implements StatelessResponseHandler {
 
     /**
      * @see com.amazonaws.http.HttpResponseHandler#handle(com.amazonaws.http.HttpResponse)
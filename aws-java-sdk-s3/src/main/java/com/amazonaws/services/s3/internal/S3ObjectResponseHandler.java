@@ -17,6 +17,7 @@ package com.amazonaws.services.s3.internal;
 
 import com.amazonaws.AmazonWebServiceResponse;
 import com.amazonaws.http.HttpResponse;
+import com.amazonaws.http.StatelessResponseHandler;
 import com.amazonaws.services.s3.Headers;
 import com.amazonaws.services.s3.model.ObjectMetadata;
 import com.amazonaws.services.s3.model.S3Object;
@@ -27,7 +28,8 @@ import com.amazonaws.util.BinaryUtils;
  * S3 HTTP response handler that knows how to pull S3 object content and
  * metadata out of an HTTP response and unmarshall it into an S3Object object.
  */
-public class S3ObjectResponseHandler extends AbstractS3ResponseHandler<S3Object> {
+public class S3ObjectResponseHandler extends AbstractS3ResponseHandler<S3Object>
+        implements StatelessResponseHandler {
 
     /**
      * @see com.amazonaws.http.HttpResponseHandler#handle(com.amazonaws.http.HttpResponse)
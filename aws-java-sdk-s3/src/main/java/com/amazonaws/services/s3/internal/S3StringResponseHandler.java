@@ -21,12 +21,14 @@ import java.io.InputStream;
 
 import com.amazonaws.AmazonWebServiceResponse;
 import com.amazonaws.http.HttpResponse;
+import com.amazonaws.http.StatelessResponseHandler;
 
 /**
  * Custom S3 response handler for responses that simply contain text data that
  * doesn't need to be parsed as XML.
  */
-public class S3StringResponseHandler extends AbstractS3ResponseHandler<String> {
+public class S3StringResponseHandler extends AbstractS3ResponseHandler<String>
+        implements StatelessResponseHandler {
 
     /* (non-Javadoc)
      * @see com.amazonaws.http.HttpResponseHandler#handle(com.amazonaws.http.HttpResponse)
@@ -26,7 +26,8 @@ import com.amazonaws.transform.Unmarshaller;
 
 /**
  * S3 Implementation of HttpResponseHandler. Relies on a SAX unmarshaller for
- * handling the response.
+ * handling the response. As it records the headers of the last response
+ * handled, requests with this response handler are never hedged.
  */
 public class S3XmlResponseHandler<T> extends AbstractS3ResponseHandler<T> {
 
@@ -19,15 +19,16 @@ package com.amazonaws.services.s3.internal;
 import static com.amazonaws.util.StringUtils.UTF8;
 import static com.amazonaws.util.IOUtils.closeQuietly;
 
-import java.io.BufferedOutputStream;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.OutputStream;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
 import java.net.MalformedURLException;
 import java.net.SocketException;
 import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
 import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
@@ -46,7 +47,6 @@ import com.amazonaws.services.s3.model.S3Object;
 import com.amazonaws.util.BinaryUtils;
 import com.amazonaws.util.DateUtils;
 import com.amazonaws.util.HttpUtils;
-import com.amazonaws.util.Md5Utils;
 
 /**
  * General utility methods used throughout the AWS S3 Java client.
@@ -58,6 +58,9 @@ public class ServiceUtils {
 
     public static final boolean OVERWRITE_MODE = false;
 
+    /** The size of the buffer used to download an object to a file. */
+    private static final int DOWNLOAD_BUFFER_SIZE = 128 * 1024;
+
     @Deprecated
     protected static final DateUtils dateUtils = new DateUtils();
 
@@ -246,6 +249,37 @@ public class ServiceUtils {
     public static void downloadObjectToFile(S3Object s3Object,
             File destinationFile, boolean performIntegrityCheck,
             boolean appendData) {
+        downloadObjectToFile(s3Object, destinationFile, performIntegrityCheck,
+                appendData, false);
+    }
+
+    /**
+     * Downloads an S3Object, as returned from
+     * {@link AmazonS3Client#getObject(com.amazonaws.services.s3.model.GetObjectRequest)},
+     * to the specified file.
+     * <p>
+     * The data is written via a file channel, and the MD5 hash used for the
+     * integrity check is computed as the data is being written, so the data is
+     * never read back from the file.
+     *
+     * @param s3Object
+     *            The S3Object containing a reference to an InputStream
+     *            containing the object's data.
+     * @param destinationFile
+     *            The file to store the object's data in.
+     * @param performIntegrityCheck
+     *            Boolean valuable to indicate whether to perform integrity check
+     * @param appendData
+     *            appends the data to end of the file.
+     * @param preallocate
+     *            whether to extend the file to the content length of the
+     *            object before the data is written, so as to reduce file
+     *            system fragmentation. The file is truncated to the length of
+     *            the data actually written if the download fails.
+     */
+    public static void downloadObjectToFile(S3Object s3Object,
+            File destinationFile, boolean performIntegrityCheck,
+            boolean appendData, boolean preallocate) {
 
         // attempt to create the parent if it doesn't exist
         File parentDirectory = destinationFile.getParentFile();
@@ -257,49 +291,105 @@ public class ServiceUtils {
             }
         }
 
-        OutputStream outputStream = null;
-        try {
-            outputStream = new BufferedOutputStream(new FileOutputStream(
-                    destinationFile, appendData));
-            byte[] buffer = new byte[1024*10];
-            int bytesRead;
-            while ((bytesRead = s3Object.getObjectContent().read(buffer)) > -1) {
-                outputStream.write(buffer, 0, bytesRead);
-            }
-        } catch (IOException e) {
-            s3Object.getObjectContent().abort();
-            throw new AmazonClientException(
-                    "Unable to store object contents to disk: " + e.getMessage(), e);
-        } finally {
-            closeQuietly(outputStream, log);
-            closeQuietly(s3Object.getObjectContent(), log);
-        }
-
-        byte[] clientSideHash = null;
+        final ObjectMetadata metadata = s3Object.getObjectMetadata();
+        MessageDigest digest = null;
         byte[] serverSideHash = null;
         try {
             // Multipart Uploads don't have an MD5 calculated on the service
             // side
             // Server Side encryption with AWS KMS enabled objects has MD5 of
             // cipher text. So the MD5 validation needs to be skipped.
-            if (!(ServiceUtils.isMultipartUploadETag(s3Object
-                    .getObjectMetadata().getETag()))
-                    && !skipContentMd5IntegrityCheck(s3Object
-                            .getObjectMetadata())) {
-                clientSideHash = Md5Utils.computeMD5Hash(new FileInputStream(destinationFile));
-                serverSideHash = BinaryUtils.fromHex(s3Object.getObjectMetadata().getETag());
+            if (performIntegrityCheck
+                    && metadata.getETag() != null
+                    && !ServiceUtils.isMultipartUploadETag(metadata.getETag())
+                    && !skipContentMd5IntegrityCheck(metadata)) {
+                serverSideHash = BinaryUtils.fromHex(metadata.getETag());
+                digest = MessageDigest.getInstance("MD5");
             }
         } catch (Exception e) {
             log.warn("Unable to calculate MD5 hash to validate download: " + e.getMessage(), e);
         }
 
-        if (performIntegrityCheck && clientSideHash != null && serverSideHash != null && !Arrays.equals(clientSideHash, serverSideHash)) {
+        RandomAccessFile file = null;
+        long position = 0;
+        try {
+            file = new RandomAccessFile(destinationFile, "rw");
+            if (!appendData)
+                file.setLength(0);
+            position = file.length();
+            final FileChannel channel = file.getChannel();
+            if (digest != null && position == 0
+            &&  s3Object.getObjectContent().getDelegateStream()
+                    instanceof DigestValidationInputStream) {
+                // The whole object content is already validated against the
+                // same MD5 as it is read, so there is no need to hash it twice
+                digest = null;
+            }
+            if (digest != null && position > 0) {
+                // The existing data is part of the object
+                digestFileContent(channel, position, digest);
+            }
+            long contentLength = metadata.getContentLength();
+            if (preallocate && contentLength > 0)
+                file.setLength(position + contentLength);
+            // The data has to be copied out of the input stream into a heap
+            // buffer anyway; the file channel copies it into its own cached
+            // direct buffer.
+            final byte[] buffer = new byte[DOWNLOAD_BUFFER_SIZE];
+            final InputStream in = s3Object.getObjectContent();
+            int bytesRead;
+            while ((bytesRead = in.read(buffer)) > -1) {
+                if (digest != null)
+                    digest.update(buffer, 0, bytesRead);
+                ByteBuffer bb = ByteBuffer.wrap(buffer, 0, bytesRead);
+                while (bb.hasRemaining())
+                    position += channel.write(bb, position);
+            }
+        } catch (IOException e) {
+            s3Object.getObjectContent().abort();
+            throw new AmazonClientException(
+                    "Unable to store object contents to disk: " + e.getMessage(), e);
+        } finally {
+            if (file != null) {
+                try {
+                    // Discards any preallocated space not written to
+                    if (file.length() > position)
+                        file.setLength(position);
+                } catch (IOException e) {
+                    log.debug("Unable to truncate " + destinationFile, e);
+                }
+            }
+            closeQuietly(file, log);
+            closeQuietly(s3Object.getObjectContent(), log);
+        }
+
+        if (digest != null && !Arrays.equals(digest.digest(), serverSideHash)) {
             throw new AmazonClientException("Unable to verify integrity of data download.  " +
                     "Client calculated content hash didn't match hash calculated by Amazon S3.  " +
                     "The data stored in '" + destinationFile.getAbsolutePath() + "' may be corrupt.");
         }
     }
 
+    /**
+     * Updates the given digest with the first given number of bytes of the
+     * file.
+     */
+    private static void digestFileContent(FileChannel channel, long length,
+            MessageDigest digest) throws IOException {
+        final ByteBuffer bb = ByteBuffer.allocate(DOWNLOAD_BUFFER_SIZE);
+        long position = 0;
+        while (position < length) {
+            bb.clear();
+            if (length - position < bb.capacity())
+                bb.limit((int) (length - position));
+            int n = channel.read(bb, position);
+            if (n < 0)
+                break;
+            position += n;
+            digest.update(bb.array(), 0, n);
+        }
+    }
+
     /**
      * Interface for the task of downloading object from S3 to a specific file,
      * enabling one-time retry mechanism after integrity check failure
@@ -338,6 +428,20 @@ public class ServiceUtils {
      */
     public static S3Object retryableDownloadS3ObjectToFile(File file,
             RetryableS3DownloadTask retryableS3DownloadTask, boolean appendData) {
+        return retryableDownloadS3ObjectToFile(file, retryableS3DownloadTask,
+                appendData, false);
+    }
+
+    /**
+     * Same as {@link #retryableDownloadS3ObjectToFile(File, RetryableS3DownloadTask, boolean)},
+     * but optionally extends the file to the content length of the object
+     * before the data is written.
+     *
+     * @see #downloadObjectToFile(S3Object, File, boolean, boolean, boolean)
+     */
+    public static S3Object retryableDownloadS3ObjectToFile(File file,
+            RetryableS3DownloadTask retryableS3DownloadTask, boolean appendData,
+            boolean preallocate) {
         boolean hasRetried = false;
         boolean needRetry;
         S3Object s3Object;
@@ -350,7 +454,7 @@ public class ServiceUtils {
             try {
                 ServiceUtils.downloadObjectToFile(s3Object, file,
                         retryableS3DownloadTask.needIntegrityCheck(),
-                        appendData);
+                        appendData, preallocate);
             } catch (AmazonClientException ace) {
                 if (!ace.isRetryable())
                     throw ace;
@@ -14,6 +14,7 @@
  */
 package com.amazonaws.services.s3.internal.crypto;
 
+import java.security.GeneralSecurityException;
 import java.security.InvalidAlgorithmParameterException;
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
@@ -26,6 +27,7 @@ import javax.crypto.IllegalBlockSizeException;
 import javax.crypto.NoSuchPaddingException;
 import javax.crypto.NullCipher;
 import javax.crypto.SecretKey;
+import javax.crypto.ShortBufferException;
 
 /**
  * Functions like a {@link Cipher} but provides only a subset of all the
@@ -297,6 +299,50 @@ class CipherLite {
         return cipher.update(input, inputOffset, inputLen);
     }
 
+    /**
+     * Continues a multiple-part encryption or decryption operation, storing
+     * the result in the given output buffer instead of a new buffer. The
+     * output buffer may be the same as the input buffer for in-place
+     * processing.
+     * <p>
+     * Note this method bypasses the bookkeeping of subclasses that support
+     * {@link #mark()} and {@link #reset()}.
+     *
+     * @return the number of bytes stored in <code>output</code>
+     */
+    final int update(byte[] input, int inputOffset, int inputLen,
+            byte[] output, int outputOffset) throws ShortBufferException {
+        return cipher.update(input, inputOffset, inputLen, output, outputOffset);
+    }
+
+    /**
+     * Finishes a multiple-part encryption or decryption operation, storing
+     * the result in the given output buffer instead of a new buffer.
+     * <p>
+     * Note this method bypasses the bookkeeping of subclasses that support
+     * {@link #mark()} and {@link #reset()}.
+     *
+     * @return the number of bytes stored in <code>output</code>
+     */
+    final int doFinal(byte[] output, int outputOffset)
+            throws IllegalBlockSizeException, ShortBufferException,
+            BadPaddingException {
+        return cipher.doFinal(output, outputOffset);
+    }
+
+    /**
+     * Returns the encryption of a single block with the secret key of this
+     * cipher lite using the underlying block cipher in ECB mode, such as for
+     * deriving the hash subkey of AES/GCM.
+     */
+    final byte[] encryptBlock(byte[] block) throws GeneralSecurityException {
+        Cipher ecb = Cipher.getInstance(
+                secreteKey.getAlgorithm() + "/ECB/NoPadding",
+                cipher.getProvider());
+        ecb.init(Cipher.ENCRYPT_MODE, secreteKey);
+        return ecb.doFinal(block);
+    }
+
     /**
      * Returns the algorithm name of the underlying cipher.
      */
@@ -31,6 +31,7 @@ import com.amazonaws.services.s3.model.CopyPartRequest;
 import com.amazonaws.services.s3.model.CopyPartResult;
 import com.amazonaws.services.s3.model.CryptoConfiguration;
 import com.amazonaws.services.s3.model.CryptoMode;
+import com.amazonaws.services.s3.model.DataKeyCacheStatistics;
 import com.amazonaws.services.s3.model.EncryptionMaterialsProvider;
 import com.amazonaws.services.s3.model.GetObjectRequest;
 import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
@@ -53,6 +54,8 @@ public class CryptoModuleDispatcher extends S3CryptoModule<MultipartUploadContex
     private final S3CryptoModuleEO eo;
     /** Authenticated encryption (AE) cryptographic module. */
     private final S3CryptoModuleAE ae;
+    /** The cache of KMS data keys shared by the modules; or null. */
+    private final KMSDataKeyCache dataKeyCache;
 
     public CryptoModuleDispatcher(AWSKMSClient kms, S3Direct s3,
             AWSCredentialsProvider credentialsProvider,
@@ -66,23 +69,26 @@ public class CryptoModuleDispatcher extends S3CryptoModule<MultipartUploadContex
         }
         cryptoConfig = cryptoConfig.readOnly(); // make read-only
         this.defaultCryptoMode = cryptoConfig.getCryptoMode();
+        this.dataKeyCache = cryptoConfig.getDataKeyCachePolicy() == null
+            ? null
+            : new KMSDataKeyCache(cryptoConfig.getDataKeyCachePolicy());
         switch(this.defaultCryptoMode) {
             case StrictAuthenticatedEncryption:
                 this.ae = new S3CryptoModuleAEStrict(kms, s3, credentialsProvider,
                         encryptionMaterialsProvider,
-                        cryptoConfig);
+                        cryptoConfig, dataKeyCache);
                 this.eo = null;
                 break;
             case AuthenticatedEncryption:
                 this.ae = new S3CryptoModuleAE(kms, s3, credentialsProvider,
                         encryptionMaterialsProvider,
-                        cryptoConfig);
+                        cryptoConfig, dataKeyCache);
                 this.eo = null;
                 break;
             case EncryptionOnly:
                 this.eo = new S3CryptoModuleEO(kms, s3, credentialsProvider,
                         encryptionMaterialsProvider,
-                        cryptoConfig);
+                        cryptoConfig, dataKeyCache);
                 CryptoConfiguration aeConfig = cryptoConfig.clone();
                 try {
                     aeConfig.setCryptoMode(AuthenticatedEncryption);
@@ -92,7 +98,7 @@ public class CryptoModuleDispatcher extends S3CryptoModule<MultipartUploadContex
                 }
                 this.ae = new S3CryptoModuleAE(kms, s3, credentialsProvider,
                     encryptionMaterialsProvider,
-                    aeConfig.readOnly());
+                    aeConfig.readOnly(), dataKeyCache);
                 break;
             default:
                 throw new IllegalStateException();
@@ -169,6 +175,26 @@ public class CryptoModuleDispatcher extends S3CryptoModule<MultipartUploadContex
              ;
     }
 
+    @Override
+    public boolean isParallelPartUploadSupported() {
+        return defaultCryptoMode == EncryptionOnly
+             ? eo.isParallelPartUploadSupported()
+             : ae.isParallelPartUploadSupported()
+             ;
+    }
+
+    @Override
+    public DataKeyCacheStatistics getDataKeyCacheStatistics() {
+        return dataKeyCache == null ? null : dataKeyCache.getStatistics();
+    }
+
+    @Override
+    public MultipartDownloadCryptoContext newMultipartDownloadContext(
+            GetObjectRequest req, ObjectMetadata metadata) {
+        // AE module can handle S3 objects encrypted in either AE or EO format
+        return ae.newMultipartDownloadContext(req, metadata);
+    }
+
     @Override
     public CopyPartResult copyPartSecurely(CopyPartRequest req) {
         return defaultCryptoMode == EncryptionOnly 
@@ -0,0 +1,203 @@
+/*
+ * Copyright 2010-2014 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.s3.internal.crypto;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.GeneralSecurityException;
+
+import org.apache.http.annotation.NotThreadSafe;
+
+import com.amazonaws.internal.SdkFilterInputStream;
+
+/**
+ * Encrypts a single part of a multipart upload of a
+ * {@link ParallelMultipartUploadCryptoContext}, independently of the other
+ * parts. The plaintext is encrypted in place in a buffer reused across reads,
+ * and the GHASH of the resultant ciphertext is computed along the way. For the
+ * last part, the authentication tag of the entire content is appended.
+ * <p>
+ * Mark and reset are supported by re-encrypting the part from its beginning,
+ * which requires the underlying input stream to be positioned at the
+ * beginning of the part upon reset.
+ */
+@NotThreadSafe
+class GCMPartInputStream extends SdkFilterInputStream {
+    private static final int BUFFER_SIZE = 1024 * 16;
+    private static final int TAG_LENGTH = 16;
+    private final ParallelMultipartUploadCryptoContext uploadContext;
+    private final int partNumber;
+    private final long partOffset;
+    /**
+     * The initial GHASH state, which is the combined GHASH of all the
+     * preceding parts for the last part; or null if this is not the last
+     * part.
+     */
+    private final long[] initialHash;
+    private final GHash ghash;
+    private CipherLite cipherLite;
+    /** Holds both the plaintext read and the ciphertext to be returned. */
+    private byte[] buf;
+    private int currPos;
+    private int maxPos;
+    private boolean eof;
+    private long pos;
+    private long markPos;
+
+    /**
+     * @param in
+     *            the plaintext of the part
+     * @param initialHash
+     *            the combined GHASH of all the preceding parts if this is the
+     *            last part; or null otherwise.
+     */
+    GCMPartInputStream(InputStream in,
+            ParallelMultipartUploadCryptoContext uploadContext,
+            int partNumber, long partOffset, long[] initialHash) {
+        super(in);
+        this.uploadContext = uploadContext;
+        this.partNumber = partNumber;
+        this.partOffset = partOffset;
+        this.initialHash = initialHash;
+        this.ghash = uploadContext.newGHash();
+        this.buf = uploadContext.acquireBuffer(BUFFER_SIZE + TAG_LENGTH);
+        restart();
+    }
+
+    private void restart() {
+        cipherLite = uploadContext.newPartCipherLite(partOffset);
+        ghash.reset(initialHash == null ? new long[2] : initialHash);
+        currPos = maxPos = 0;
+        eof = false;
+        pos = 0;
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] b = new byte[1];
+        int n = read(b, 0, 1);
+        return n == -1 ? -1 : (b[0] & 0xff);
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        abortIfNeeded();
+        if (buf == null)
+            throw new IOException("Stream closed");
+        if (len == 0)
+            return 0;
+        if (currPos >= maxPos && !nextChunk())
+            return -1;
+        int n = Math.min(len, maxPos - currPos);
+        System.arraycopy(buf, currPos, b, off, n);
+        currPos += n;
+        pos += n;
+        return n;
+    }
+
+    /**
+     * Encrypts the next chunk of plaintext into the buffer. Returns false if
+     * the end of the part has been reached; true otherwise.
+     */
+    private boolean nextChunk() throws IOException {
+        currPos = maxPos = 0;
+        while (maxPos == 0) {
+            if (eof)
+                return false;
+            int len = in.read(buf, 0, BUFFER_SIZE);
+            try {
+                if (len == -1) {
+                    eof = true;
+                    maxPos = finish();
+                } else if (len > 0) {
+                    maxPos = cipherLite.update(buf, 0, len, buf, 0);
+                    ghash.update(buf, 0, maxPos);
+                }
+            } catch (GeneralSecurityException e) {
+                throw new SecurityException(e);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Completes the encryption of this part, and returns the number of bytes
+     * stored in the buffer, including the tag if this is the last part.
+     */
+    private int finish() throws GeneralSecurityException {
+        int len = cipherLite.doFinal(buf, 0);
+        ghash.update(buf, 0, len);
+        long length = ghash.getByteCount();
+        long[] hash = ghash.finish();
+        if (initialHash == null) {
+            uploadContext.partEncrypted(partNumber, partOffset, length, hash);
+            return len;
+        }
+        byte[] tag = uploadContext.computeTag(hash, partOffset + length);
+        System.arraycopy(tag, 0, buf, len, TAG_LENGTH);
+        return len + TAG_LENGTH;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = 0;
+        byte[] b = new byte[(int) Math.min(BUFFER_SIZE, Math.max(n, 0))];
+        while (skipped < n) {
+            int len = read(b, 0, (int) Math.min(b.length, n - skipped));
+            if (len == -1)
+                break;
+            skipped += len;
+        }
+        return skipped;
+    }
+
+    @Override
+    public int available() {
+        abortIfNeeded();
+        return maxPos - currPos;
+    }
+
+    @Override
+    public boolean markSupported() {
+        abortIfNeeded();
+        return in.markSupported();
+    }
+
+    @Override
+    public void mark(int readlimit) {
+        abortIfNeeded();
+        markPos = pos;
+    }
+
+    @Override
+    public void reset() throws IOException {
+        abortIfNeeded();
+        in.reset();
+        long target = markPos;
+        restart();
+        if (skip(target) != target)
+            throw new IOException("Unable to reset to position " + target);
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+        if (buf != null) {
+            uploadContext.releaseBuffer(buf);
+            buf = null;
+        }
+        abortIfNeeded();
+    }
+}
@@ -0,0 +1,284 @@
+/*
+ * Copyright 2010-2014 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.s3.internal.crypto;
+
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
+
+import org.apache.http.annotation.NotThreadSafe;
+
+/**
+ * The GHASH function of AES/GCM, as defined in <a href=
+ * "http://csrc.nist.gov/publications/nistpubs/800-38D/SP-800-38D.pdf"> NIST
+ * Special Publication 800-38D</a>, over a sequence of ciphertext bytes.
+ * <p>
+ * The GHASH of consecutive ranges of ciphertext can be computed independently
+ * and subsequently be combined via {@link #combine(long[], long[], long)}, so
+ * that different parts of the same AES/GCM encrypted content can be processed
+ * in parallel. Elements of GF(2^128) are represented as two longs, the high
+ * and low 64 bits of the block in big-endian order.
+ * <p>
+ * Multiplication by the hash subkey uses the 4-bit tables of Shoup's method.
+ */
+@NotThreadSafe
+final class GHash {
+    /** The GF(2^128) reduction polynomial in the bit-reflected order. */
+    private static final long R = 0xE100000000000000L;
+    /** Reduction of the four bits shifted out of a 4-bit multiplication. */
+    private static final long[] LAST4 = {
+        0x0000L << 48, 0x1c20L << 48, 0x3840L << 48, 0x2460L << 48,
+        0x7080L << 48, 0x6ca0L << 48, 0x48c0L << 48, 0x54e0L << 48,
+        0xe100L << 48, 0xfd20L << 48, 0xd940L << 48, 0xc560L << 48,
+        0x9180L << 48, 0x8da0L << 48, 0xa9c0L << 48, 0xb5e0L << 48,
+    };
+    /** Multiples of the hash subkey by each 4-bit value. */
+    private final long[] tableHi = new long[16];
+    private final long[] tableLo = new long[16];
+    /** A trailing partial block yet to be hashed. */
+    private final byte[] partial = new byte[16];
+    private int partialLength;
+    private long stateHi;
+    private long stateLo;
+    private long byteCount;
+
+    /**
+     * @param subkey
+     *            the hash subkey H, which is the encryption of the all zero
+     *            block with the content encrypting key
+     */
+    GHash(long[] subkey) {
+        long vh = subkey[0];
+        long vl = subkey[1];
+        tableHi[8] = vh;
+        tableLo[8] = vl;
+        for (int i = 4; i > 0; i >>= 1) {
+            long t = (vl & 1) == 0 ? 0 : R;
+            vl = (vh << 63) | (vl >>> 1);
+            vh = (vh >>> 1) ^ t;
+            tableHi[i] = vh;
+            tableLo[i] = vl;
+        }
+        for (int i = 2; i <= 8; i *= 2) {
+            vh = tableHi[i];
+            vl = tableLo[i];
+            for (int j = 1; j < i; j++) {
+                tableHi[i + j] = vh ^ tableHi[j];
+                tableLo[i + j] = vl ^ tableLo[j];
+            }
+        }
+    }
+
+    /**
+     * Resets this GHASH to start from the given state, which is typically
+     * either the all zero block, or the combined GHASH of all the preceding
+     * ciphertext.
+     */
+    void reset(long[] initialState) {
+        stateHi = initialState[0];
+        stateLo = initialState[1];
+        partialLength = 0;
+        byteCount = 0;
+    }
+
+    /**
+     * Hashes the given ciphertext bytes.
+     */
+    void update(byte[] b, int off, int len) {
+        byteCount += len;
+        if (partialLength > 0) {
+            int n = Math.min(16 - partialLength, len);
+            System.arraycopy(b, off, partial, partialLength, n);
+            partialLength += n;
+            off += n;
+            len -= n;
+            if (partialLength < 16)
+                return;
+            hashBlock(partial, 0);
+            partialLength = 0;
+        }
+        for (; len >= 16; off += 16, len -= 16)
+            hashBlock(b, off);
+        if (len > 0) {
+            System.arraycopy(b, off, partial, 0, len);
+            partialLength = len;
+        }
+    }
+
+    /**
+     * Hashes any trailing partial block padded with zeros, and returns the
+     * resultant state.
+     */
+    long[] finish() {
+        if (partialLength > 0) {
+            Arrays.fill(partial, partialLength, 16, (byte) 0);
+            hashBlock(partial, 0);
+            partialLength = 0;
+        }
+        return new long[] { stateHi, stateLo };
+    }
+
+    /**
+     * Returns the number of ciphertext bytes hashed since the last reset.
+     */
+    long getByteCount() {
+        return byteCount;
+    }
+
+    private void hashBlock(byte[] b, int off) {
+        long xh = stateHi ^ toLong(b, off);
+        long xl = stateLo ^ toLong(b, off + 8);
+        // Process the 32 nibbles of x from the last to the first
+        int nibble = (int) xl & 0xf;
+        long zh = tableHi[nibble];
+        long zl = tableLo[nibble];
+        for (int i = 15; i >= 0; i--) {
+            int octet = (int) (i < 8 ? xh >>> (56 - 8 * i) : xl >>> (120 - 8 * i)) & 0xff;
+            if (i != 15) {
+                nibble = octet & 0xf;
+                int rem = (int) zl & 0xf;
+                zl = (zh << 60) | (zl >>> 4);
+                zh = (zh >>> 4) ^ LAST4[rem] ^ tableHi[nibble];
+                zl ^= tableLo[nibble];
+            }
+            nibble = octet >>> 4;
+            int rem = (int) zl & 0xf;
+            zl = (zh << 60) | (zl >>> 4);
+            zh = (zh >>> 4) ^ LAST4[rem] ^ tableHi[nibble];
+            zl ^= tableLo[nibble];
+        }
+        stateHi = zh;
+        stateLo = zl;
+    }
+
+    /**
+     * Returns the GHASH of two consecutive ranges of ciphertext, given the
+     * GHASH of each range computed from the all zero state.
+     *
+     * @param first
+     *            GHASH of the first range of ciphertext
+     * @param second
+     *            GHASH of the second range of ciphertext
+     * @param secondBlocks
+     *            number of (possibly padded) blocks in the second range
+     * @param subkey
+     *            the hash subkey H
+     */
+    static long[] combine(long[] first, long[] second, long secondBlocks,
+            long[] subkey) {
+        long[] x = multiply(first, power(subkey, secondBlocks));
+        x[0] ^= second[0];
+        x[1] ^= second[1];
+        return x;
+    }
+
+    /**
+     * Returns the authentication tag given the final GHASH state of the
+     * entire ciphertext without additional authenticated data.
+     *
+     * @param state
+     *            the final state as returned by {@link #finish()}
+     * @param ciphertextLength
+     *            total number of ciphertext bytes, excluding the tag
+     * @param subkey
+     *            the hash subkey H
+     * @param tagMask
+     *            the encryption of the pre-counter block J0
+     */
+    static byte[] tag(long[] state, long ciphertextLength, long[] subkey,
+            byte[] tagMask) {
+        long[] s = multiply(
+                new long[] { state[0], state[1] ^ (ciphertextLength << 3) },
+                subkey);
+        byte[] tag = new byte[16];
+        for (int i = 0; i < 8; i++) {
+            tag[i] = (byte) (tagMask[i] ^ (s[0] >>> (56 - 8 * i)));
+            tag[i + 8] = (byte) (tagMask[i + 8] ^ (s[1] >>> (56 - 8 * i)));
+        }
+        return tag;
+    }
+
+    /**
+     * Returns the hash subkey H of the given AES/GCM cipher lite, which is the
+     * encryption of the all zero block with the content encrypting key.
+     */
+    static long[] hashSubkeyOf(CipherLite gcm) throws GeneralSecurityException {
+        return toElement(gcm.encryptBlock(new byte[16]));
+    }
+
+    /**
+     * Returns the encryption of the pre-counter block J0 of the given AES/GCM
+     * cipher lite, which masks the authentication tag.
+     *
+     * @throws IllegalArgumentException
+     *             if the nonce of the cipher lite is not 12 bytes long
+     */
+    static byte[] tagMaskOf(CipherLite gcm) throws GeneralSecurityException {
+        byte[] nonce = gcm.getIV();
+        if (nonce == null || nonce.length != 12)
+            throw new IllegalArgumentException("Expecting a 12-byte AES/GCM nonce");
+        byte[] j0 = new byte[16];
+        System.arraycopy(nonce, 0, j0, 0, nonce.length);
+        j0[15] = 1;
+        return gcm.encryptBlock(j0);
+    }
+
+    /**
+     * Returns the given 16-byte block as an element of GF(2^128).
+     */
+    static long[] toElement(byte[] block) {
+        return new long[] { toLong(block, 0), toLong(block, 8) };
+    }
+
+    /**
+     * Returns x times y in GF(2^128).
+     */
+    static long[] multiply(long[] x, long[] y) {
+        long zh = 0, zl = 0;
+        long vh = y[0], vl = y[1];
+        for (int i = 0; i < 128; i++) {
+            long bit = i < 64 ? x[0] >>> (63 - i) : x[1] >>> (127 - i);
+            if ((bit & 1) != 0) {
+                zh ^= vh;
+                zl ^= vl;
+            }
+            long t = (vl & 1) == 0 ? 0 : R;
+            vl = (vh << 63) | (vl >>> 1);
+            vh = (vh >>> 1) ^ t;
+        }
+        return new long[] { zh, zl };
+    }
+
+    /**
+     * Returns x to the power of n in GF(2^128).
+     */
+    static long[] power(long[] x, long n) {
+        long[] result = { 1L << 63, 0 }; // the multiplicative identity
+        long[] square = x;
+        for (; n > 0; n >>>= 1) {
+            if ((n & 1) != 0)
+                result = multiply(result, square);
+            if (n > 1)
+                square = multiply(square, square);
+        }
+        return result;
+    }
+
+    private static long toLong(byte[] b, int off) {
+        long v = 0;
+        for (int i = 0; i < 8; i++)
+            v = (v << 8) | (b[off + i] & 0xff);
+        return v;
+    }
+}
@@ -0,0 +1,218 @@
+/*
+ * Copyright 2010-2014 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.s3.internal.crypto;
+
+import static com.amazonaws.util.BinaryUtils.copyAllBytesFrom;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.http.annotation.GuardedBy;
+import org.apache.http.annotation.ThreadSafe;
+
+import com.amazonaws.services.kms.AWSKMSClient;
+import com.amazonaws.services.kms.model.DecryptRequest;
+import com.amazonaws.services.kms.model.DecryptResult;
+import com.amazonaws.services.kms.model.GenerateDataKeyRequest;
+import com.amazonaws.services.kms.model.GenerateDataKeyResult;
+import com.amazonaws.services.s3.model.DataKeyCachePolicy;
+import com.amazonaws.services.s3.model.DataKeyCacheStatistics;
+
+/**
+ * A cache of the data keys generated and decrypted via KMS, shared by the
+ * crypto modules of an S3 encryption client.
+ * <p>
+ * The plaintext of a data key is wiped from the cache once the data key has
+ * been evicted or has expired. Concurrent misses of the same data key are not
+ * coalesced, but are simply resolved via KMS independently.
+ *
+ * @see DataKeyCachePolicy
+ */
+@ThreadSafe
+final class KMSDataKeyCache {
+    private final DataKeyCachePolicy policy;
+    /** Data keys for encryption, keyed by how they are generated. */
+    @GuardedBy("this")
+    private final Map<List<Object>, DataKey> encryptionKeys;
+    /** Data keys for decryption, keyed by their encrypted form. */
+    @GuardedBy("this")
+    private final Map<List<Object>, DataKey> decryptionKeys;
+    @GuardedBy("this")
+    private long encryptionHits;
+    @GuardedBy("this")
+    private long encryptionMisses;
+    @GuardedBy("this")
+    private long decryptionHits;
+    @GuardedBy("this")
+    private long decryptionMisses;
+
+    KMSDataKeyCache(DataKeyCachePolicy policy) {
+        this.policy = policy;
+        this.encryptionKeys = new LruMap(policy.getMaxEntries());
+        this.decryptionKeys = new LruMap(policy.getMaxEntries());
+    }
+
+    /**
+     * Returns a data key for encrypting a new object, which is either a
+     * cached data key generated by a previous request with the same
+     * parameters, or a new data key generated via KMS.
+     */
+    GenerateDataKeyResult generateDataKey(AWSKMSClient kms,
+            GenerateDataKeyRequest req) {
+        final Map<String, String> context = copyOf(req.getEncryptionContext());
+        final List<Object> key = Arrays.<Object>asList(req.getKeyId(),
+                req.getKeySpec(), req.getNumberOfBytes(), context);
+        synchronized (this) {
+            DataKey dataKey = encryptionKeys.get(key);
+            if (dataKey != null) {
+                if (!dataKey.isExpired()
+                &&  dataKey.uses < policy.getMaxEncryptionUses()) {
+                    dataKey.uses++;
+                    encryptionHits++;
+                    return dataKey.toGenerateDataKeyResult();
+                }
+                encryptionKeys.remove(key).wipe();
+            }
+            encryptionMisses++;
+        }
+        GenerateDataKeyResult result = kms.generateDataKey(req);
+        byte[] plaintext = copyAllBytesFrom(result.getPlaintext());
+        byte[] blob = copyAllBytesFrom(result.getCiphertextBlob());
+        DataKey dataKey = new DataKey(result.getKeyId(), plaintext, blob);
+        dataKey.uses = 1;
+        synchronized (this) {
+            put(encryptionKeys, key, dataKey);
+            // So objects encrypted with this data key can be decrypted
+            // without KMS
+            put(decryptionKeys, decryptionKeyOf(blob, context),
+                new DataKey(result.getKeyId(), plaintext.clone(), blob));
+        }
+        return result;
+    }
+
+    /**
+     * Returns the plaintext of the data key of the given decrypt request,
+     * which is either cached or decrypted via KMS.
+     */
+    byte[] decrypt(AWSKMSClient kms, DecryptRequest req) {
+        final byte[] blob = copyAllBytesFrom(req.getCiphertextBlob());
+        final List<Object> key =
+            decryptionKeyOf(blob, copyOf(req.getEncryptionContext()));
+        synchronized (this) {
+            DataKey dataKey = decryptionKeys.get(key);
+            if (dataKey != null) {
+                if (!dataKey.isExpired()) {
+                    decryptionHits++;
+                    return dataKey.plaintext.clone();
+                }
+                decryptionKeys.remove(key).wipe();
+            }
+            decryptionMisses++;
+        }
+        DecryptResult result = kms.decrypt(req);
+        byte[] plaintext = copyAllBytesFrom(result.getPlaintext());
+        synchronized (this) {
+            put(decryptionKeys, key,
+                new DataKey(result.getKeyId(), plaintext.clone(), blob));
+        }
+        return plaintext;
+    }
+
+    synchronized DataKeyCacheStatistics getStatistics() {
+        return new DataKeyCacheStatistics(encryptionHits, encryptionMisses,
+                decryptionHits, decryptionMisses);
+    }
+
+    @GuardedBy("this")
+    private static void put(Map<List<Object>, DataKey> map, List<Object> key,
+            DataKey dataKey) {
+        DataKey replaced = map.put(key, dataKey);
+        if (replaced != null)
+            replaced.wipe();
+    }
+
+    private static List<Object> decryptionKeyOf(byte[] blob,
+            Map<String, String> context) {
+        return Arrays.<Object>asList(ByteBuffer.wrap(blob), context);
+    }
+
+    private static Map<String, String> copyOf(Map<String, String> map) {
+        return map == null
+             ? Collections.<String, String>emptyMap()
+             : new HashMap<String, String>(map);
+    }
+
+    /**
+     * A cached data key.
+     */
+    private final class DataKey {
+        private final String keyId;
+        private final byte[] plaintext;
+        private final byte[] ciphertextBlob;
+        private final long createdMillis = System.currentTimeMillis();
+        /** Number of objects encrypted with this data key. */
+        @GuardedBy("KMSDataKeyCache.this")
+        private long uses;
+
+        DataKey(String keyId, byte[] plaintext, byte[] ciphertextBlob) {
+            this.keyId = keyId;
+            this.plaintext = plaintext;
+            this.ciphertextBlob = ciphertextBlob;
+        }
+
+        boolean isExpired() {
+            return System.currentTimeMillis() - createdMillis
+                >= policy.getMaxAgeMillis();
+        }
+
+        GenerateDataKeyResult toGenerateDataKeyResult() {
+            return new GenerateDataKeyResult()
+                .withKeyId(keyId)
+                .withPlaintext(ByteBuffer.wrap(plaintext.clone()))
+                .withCiphertextBlob(ByteBuffer.wrap(ciphertextBlob.clone()));
+        }
+
+        void wipe() {
+            Arrays.fill(plaintext, (byte) 0);
+        }
+    }
+
+    /**
+     * A map that evicts and wipes the least recently used data key once it
+     * exceeds the maximum number of entries.
+     */
+    private static final class LruMap extends LinkedHashMap<List<Object>, DataKey> {
+        private static final long serialVersionUID = 1L;
+        private final int maxEntries;
+
+        LruMap(int maxEntries) {
+            super(16, 0.75f, true);
+            this.maxEntries = maxEntries;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<List<Object>, DataKey> eldest) {
+            if (size() <= maxEntries)
+                return false;
+            eldest.getValue().wipe();
+            return true;
+        }
+    }
+}
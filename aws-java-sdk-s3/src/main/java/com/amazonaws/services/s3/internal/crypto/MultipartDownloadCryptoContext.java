@@ -0,0 +1,362 @@
+/*
+ * Copyright 2010-2014 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.s3.internal.crypto;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.http.annotation.GuardedBy;
+import org.apache.http.annotation.NotThreadSafe;
+import org.apache.http.annotation.ThreadSafe;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.internal.SdkFilterInputStream;
+import com.amazonaws.services.s3.internal.S3Direct;
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.S3Object;
+import com.amazonaws.services.s3.model.S3ObjectInputStream;
+import com.amazonaws.util.IOUtils;
+
+/**
+ * Contextual information for downloading an AES/GCM encrypted object in byte
+ * ranges that are fetched and decrypted independently of each other, such as
+ * in parallel.
+ * <p>
+ * Each byte range is decrypted with AES/CTR starting from the counter block at
+ * the offset of the range, while the GHASH of the ciphertext of the range is
+ * computed along the way. Once all the byte ranges have been downloaded, the
+ * content is authenticated via {@link #authenticate(FileChannel, long, GetObjectRequest)} by
+ * combining the GHASH of all the byte ranges and comparing the resultant tag
+ * against the one stored at the end of the object.
+ * <p>
+ * For internal use only.
+ */
+@ThreadSafe
+public final class MultipartDownloadCryptoContext {
+    private static final int BUFFER_SIZE = 1024 * 16;
+    private static final int TAG_LENGTH = 16;
+    private final S3Direct s3;
+    private final CipherLite cipherLite;
+    private final long plaintextLength;
+    private final long[] hashSubkey;
+    private final byte[] tagMask;
+    /** The GHASH of the byte ranges downloaded, keyed by their start offsets. */
+    @GuardedBy("this")
+    private final Map<Long, long[]> rangeHashes = new HashMap<Long, long[]>();
+    /** The authentication tag at the end of the object, once fetched. */
+    @GuardedBy("this")
+    private byte[] tag;
+
+    /**
+     * @param cipherLite
+     *            the AES/GCM cipher lite of the object
+     * @param contentLength
+     *            the length of the object in S3, including the tag
+     */
+    MultipartDownloadCryptoContext(S3Direct s3, CipherLite cipherLite,
+            long contentLength) throws GeneralSecurityException {
+        if (contentLength < TAG_LENGTH)
+            throw new SecurityException("Content length " + contentLength
+                    + " is too short for an AES/GCM encrypted object");
+        this.s3 = s3;
+        this.cipherLite = cipherLite;
+        this.plaintextLength = contentLength - TAG_LENGTH;
+        this.hashSubkey = GHash.hashSubkeyOf(cipherLite);
+        this.tagMask = GHash.tagMaskOf(cipherLite);
+    }
+
+    /**
+     * Returns the length of the decrypted content of the object.
+     */
+    public long getPlaintextLength() {
+        return plaintextLength;
+    }
+
+    /**
+     * Returns the block size of the cipher, of which the start offset of
+     * every byte range must be a multiple.
+     */
+    public int getBlockSize() {
+        return cipherLite.getContentCryptoScheme().getBlockSizeInBytes();
+    }
+
+    /**
+     * Retrieves the given byte range of the object, the content of which is
+     * decrypted as it is read.
+     *
+     * @param req
+     *            the request for a range of the decrypted content. The start
+     *            offset of the range must be a multiple of the block size.
+     * @return the object with the decrypted content of the range; or null if
+     *         the constraints of the request have not been met.
+     */
+    public S3Object getObjectRange(GetObjectRequest req) {
+        final long[] range = req.getRange();
+        final long start = range[0];
+        final long end = Math.min(range[1], plaintextLength - 1);
+        if (start % getBlockSize() != 0 || start > end) {
+            throw new IllegalArgumentException("Invalid range [" + start
+                    + ", " + end + "] of " + plaintextLength + " bytes");
+        }
+        final boolean isLastRange = end == plaintextLength - 1;
+        // The last range also retrieves the tag, saving a separate request
+        req.setRange(start, isLastRange ? end + TAG_LENGTH : end);
+        S3Object s3Object = s3.getObject(req);
+        if (s3Object == null)
+            return null;
+        S3ObjectInputStream content = s3Object.getObjectContent();
+        try {
+            s3Object.setObjectContent(new S3ObjectInputStream(
+                    new RangeDecryptingInputStream(content, start,
+                            end - start + 1, isLastRange),
+                    content.getHttpRequest()));
+        } catch (RuntimeException e) {
+            content.abort();
+            throw e;
+        }
+        return s3Object;
+    }
+
+    /**
+     * Authenticates the decrypted content of the object by comparing the tag
+     * computed from the GHASH of all its byte ranges against the one stored
+     * in S3. The GHASH of any byte range not downloaded via this context,
+     * such as by a previous download that has been paused, is computed by
+     * re-encrypting the decrypted content of the byte range.
+     *
+     * @param channel
+     *            the channel to read the decrypted content from
+     * @param rangeSize
+     *            the size of every byte range except the last
+     * @param tagRequest
+     *            the request used to retrieve the tag if it has not been
+     *            retrieved along with the last byte range; its range is
+     *            overridden
+     * @throws SecurityException
+     *             if the decrypted content cannot be authenticated
+     */
+    public void authenticate(FileChannel channel, long rangeSize,
+            GetObjectRequest tagRequest) throws IOException {
+        long[] hash = { 0, 0 };
+        for (long start = 0; start < plaintextLength; start += rangeSize) {
+            long length = Math.min(rangeSize, plaintextLength - start);
+            long[] rangeHash;
+            synchronized (this) {
+                rangeHash = rangeHashes.get(start);
+            }
+            if (rangeHash == null)
+                rangeHash = hashOf(channel, start, length);
+            hash = GHash.combine(hash, rangeHash, (length + 15) / 16, hashSubkey);
+        }
+        byte[] expected = GHash.tag(hash, plaintextLength, hashSubkey, tagMask);
+        if (!MessageDigest.isEqual(expected, getTag(tagRequest)))
+            throw new SecurityException("Unable to authenticate the decrypted content");
+    }
+
+    /**
+     * Returns the GHASH of the ciphertext of the given byte range of the
+     * decrypted content, which is re-encrypted for this purpose.
+     */
+    private long[] hashOf(FileChannel channel, long start, long length)
+            throws IOException {
+        CipherLite encrypter = newRangeCipherLite(start);
+        GHash ghash = new GHash(hashSubkey);
+        ghash.reset(new long[2]);
+        byte[] buf = new byte[BUFFER_SIZE + TAG_LENGTH];
+        long position = start;
+        final long end = start + length;
+        try {
+            while (position < end) {
+                ByteBuffer bb = ByteBuffer.wrap(buf, 0,
+                        (int) Math.min(BUFFER_SIZE, end - position));
+                int n = channel.read(bb, position);
+                if (n == -1)
+                    throw new IOException("Unexpected end of file at " + position);
+                position += n;
+                ghash.update(buf, 0, encrypter.update(buf, 0, n, buf, 0));
+            }
+            ghash.update(buf, 0, encrypter.doFinal(buf, 0));
+        } catch (GeneralSecurityException e) {
+            throw new SecurityException(e);
+        }
+        return ghash.finish();
+    }
+
+    /**
+     * Returns the tag at the end of the object, which is retrieved via the
+     * given request unless it has already been retrieved along with the last
+     * byte range.
+     */
+    private byte[] getTag(GetObjectRequest req) throws IOException {
+        synchronized (this) {
+            if (tag != null)
+                return tag;
+        }
+        req.setRange(plaintextLength, plaintextLength + TAG_LENGTH - 1);
+        S3Object s3Object = s3.getObject(req);
+        if (s3Object == null) {
+            throw new AmazonClientException("Unable to retrieve the tag of "
+                + req.getKey() + " as the object has been modified");
+        }
+        InputStream in = s3Object.getObjectContent();
+        try {
+            byte[] b = IOUtils.toByteArray(in);
+            if (b.length != TAG_LENGTH)
+                throw new SecurityException("Invalid tag length " + b.length);
+            return b;
+        } finally {
+            IOUtils.closeQuietly(in, null);
+        }
+    }
+
+    private CipherLite newRangeCipherLite(long start) {
+        try {
+            return cipherLite.createAuxiliary(start);
+        } catch (Exception e) {
+            throw new AmazonClientException(
+                "Unable to create cipher for byte range at " + start, e);
+        }
+    }
+
+    private synchronized void rangeDecrypted(long start, long[] hash,
+            byte[] tag) {
+        rangeHashes.put(start, hash);
+        if (tag != null)
+            this.tag = tag;
+    }
+
+    /**
+     * Decrypts the ciphertext of a byte range, followed by the tag in case of
+     * the last byte range.
+     */
+    @NotThreadSafe
+    private class RangeDecryptingInputStream extends SdkFilterInputStream {
+        private final long start;
+        private final long length;
+        private final boolean isLastRange;
+        private final CipherLite decrypter;
+        private final GHash ghash = new GHash(hashSubkey);
+        private final byte[] buf = new byte[BUFFER_SIZE + TAG_LENGTH];
+        private final byte[] rangeTag;
+        private int tagLength;
+        private long ciphertextRead;
+        private int currPos;
+        private int maxPos;
+        private boolean eof;
+
+        RangeDecryptingInputStream(InputStream in, long start, long length,
+                boolean isLastRange) {
+            super(in);
+            this.start = start;
+            this.length = length;
+            this.isLastRange = isLastRange;
+            this.rangeTag = isLastRange ? new byte[TAG_LENGTH] : null;
+            this.decrypter = newRangeCipherLite(start);
+            ghash.reset(new long[2]);
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] b = new byte[1];
+            int n = read(b, 0, 1);
+            return n == -1 ? -1 : (b[0] & 0xff);
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            abortIfNeeded();
+            if (len == 0)
+                return 0;
+            while (currPos >= maxPos) {
+                if (eof)
+                    return -1;
+                nextChunk();
+            }
+            int n = Math.min(len, maxPos - currPos);
+            System.arraycopy(buf, currPos, b, off, n);
+            currPos += n;
+            return n;
+        }
+
+        private void nextChunk() throws IOException {
+            currPos = maxPos = 0;
+            long remaining = length - ciphertextRead;
+            try {
+                if (remaining > 0) {
+                    int n = in.read(buf, 0, (int) Math.min(BUFFER_SIZE, remaining));
+                    if (n == -1)
+                        throw new IOException("Unexpected end of byte range at "
+                                + (start + ciphertextRead));
+                    ciphertextRead += n;
+                    ghash.update(buf, 0, n);
+                    maxPos = decrypter.update(buf, 0, n, buf, 0);
+                    return;
+                }
+                eof = true;
+                maxPos = decrypter.doFinal(buf, 0);
+            } catch (GeneralSecurityException e) {
+                throw new SecurityException(e);
+            }
+            if (isLastRange) {
+                while (tagLength < TAG_LENGTH) {
+                    int n = in.read(rangeTag, tagLength, TAG_LENGTH - tagLength);
+                    if (n == -1)
+                        throw new IOException("Unexpected end of the authentication tag");
+                    tagLength += n;
+                }
+            }
+            rangeDecrypted(start, ghash.finish(), rangeTag);
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = 0;
+            byte[] b = new byte[(int) Math.min(BUFFER_SIZE, Math.max(n, 0))];
+            while (skipped < n) {
+                int len = read(b, 0, (int) Math.min(b.length, n - skipped));
+                if (len == -1)
+                    break;
+                skipped += len;
+            }
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            abortIfNeeded();
+            return maxPos - currPos;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        @Override
+        public void mark(int readlimit) {
+        }
+
+        @Override
+        public void reset() throws IOException {
+            throw new IOException("mark/reset not supported");
+        }
+    }
+}
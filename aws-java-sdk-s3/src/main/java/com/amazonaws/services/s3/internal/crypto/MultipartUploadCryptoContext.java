@@ -97,4 +97,11 @@ class MultipartUploadCryptoContext extends MultipartUploadContext {
     void endPartUpload() {
         partUploadInProgress = false;
     }
+
+    /**
+     * Invoked once the multipart upload has been aborted. Does nothing by
+     * default.
+     */
+    void abort() {
+    }
 }
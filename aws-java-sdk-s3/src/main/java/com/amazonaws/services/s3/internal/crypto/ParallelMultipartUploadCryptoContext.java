@@ -0,0 +1,207 @@
+/*
+ * Copyright 2010-2014 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.s3.internal.crypto;
+
+import java.security.GeneralSecurityException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.apache.http.annotation.GuardedBy;
+import org.apache.http.annotation.ThreadSafe;
+
+import com.amazonaws.AmazonClientException;
+
+/**
+ * Contextual information for an in-flight AES/GCM encrypted multipart upload,
+ * the parts of which can be uploaded in parallel.
+ * <p>
+ * Each part is encrypted independently with AES/CTR starting from the counter
+ * block at the offset of the part, which yields the same ciphertext as the
+ * AES/GCM encryption of the entire content, while the GHASH of the ciphertext
+ * of each part is computed along the way. The authentication tag is appended
+ * to the last part after combining the GHASH of all the other parts, so the
+ * last part must be uploaded after, or concurrently with, all the other parts.
+ */
+@ThreadSafe
+class ParallelMultipartUploadCryptoContext extends MultipartUploadCryptoContext {
+    /** The hash subkey H of AES/GCM. */
+    private final long[] hashSubkey;
+    /** The encryption of the pre-counter block J0 of AES/GCM. */
+    private final byte[] tagMask;
+    /** Buffers that can be reused for encrypting the parts. */
+    private final Queue<byte[]> buffers = new ConcurrentLinkedQueue<byte[]>();
+    /** The GHASH of each part that has been encrypted, keyed by part number. */
+    @GuardedBy("this")
+    private final Map<Integer, PartHash> partHashes = new HashMap<Integer, PartHash>();
+    /** The numbers of the parts that have failed before being encrypted. */
+    @GuardedBy("this")
+    private final Set<Integer> failedParts = new HashSet<Integer>();
+    @GuardedBy("this")
+    private boolean aborted;
+
+    ParallelMultipartUploadCryptoContext(String bucketName, String key,
+            ContentCryptoMaterial cekMaterial) {
+        super(bucketName, key, cekMaterial);
+        CipherLite cipherLite = cekMaterial.getCipherLite();
+        try {
+            this.hashSubkey = GHash.hashSubkeyOf(cipherLite);
+            this.tagMask = GHash.tagMaskOf(cipherLite);
+        } catch (GeneralSecurityException e) {
+            throw new AmazonClientException(
+                "Unable to initialize parallel part uploads: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Returns a new AES/CTR cipher lite for encrypting the part that starts at
+     * the given byte offset of the content.
+     */
+    CipherLite newPartCipherLite(long partOffset) {
+        try {
+            return getCipherLite().createAuxiliary(partOffset);
+        } catch (Exception e) {
+            throw new AmazonClientException(
+                "Unable to create cipher for part at offset " + partOffset, e);
+        }
+    }
+
+    /**
+     * Returns a new GHASH for the ciphertext of a part.
+     */
+    GHash newGHash() {
+        return new GHash(hashSubkey);
+    }
+
+    /**
+     * Returns a buffer of at least the given size, reusing a previously
+     * released one if available.
+     */
+    byte[] acquireBuffer(int size) {
+        byte[] buf = buffers.poll();
+        return buf != null && buf.length >= size ? buf : new byte[size];
+    }
+
+    void releaseBuffer(byte[] buf) {
+        buffers.offer(buf);
+    }
+
+    /**
+     * Records the GHASH of a part that has been completely encrypted. Note the
+     * ciphertext of a part is the same when the part is re-uploaded, such as
+     * upon retries.
+     */
+    synchronized void partEncrypted(int partNumber, long partOffset,
+            long length, long[] hash) {
+        partHashes.put(partNumber, new PartHash(partOffset, length, hash));
+        failedParts.remove(partNumber);
+        notifyAll();
+    }
+
+    /**
+     * Records that the upload of the given part has failed, so that the
+     * upload of the last part does not wait for the GHASH of this part unless
+     * it has already been computed.
+     */
+    synchronized void partFailed(int partNumber) {
+        if (!partHashes.containsKey(partNumber)) {
+            failedParts.add(partNumber);
+            notifyAll();
+        }
+    }
+
+    /**
+     * Blocks until all the parts preceding the last part have been encrypted,
+     * and returns the combined GHASH of their ciphertext.
+     *
+     * @param lastPartNumber
+     *            the part number of the last part
+     * @param lastPartOffset
+     *            the byte offset of the last part
+     * @throws AmazonClientException
+     *             if any preceding part has failed, the upload has been
+     *             aborted, or the waiting thread is interrupted
+     */
+    synchronized long[] awaitPrecedingPartsHash(int lastPartNumber,
+            long lastPartOffset) {
+        for (int partNumber = 1; partNumber < lastPartNumber;) {
+            if (aborted)
+                throw new AmazonClientException("The multipart upload has been aborted");
+            if (partHashes.containsKey(partNumber)) {
+                partNumber++;
+            } else if (failedParts.contains(partNumber)) {
+                throw new AmazonClientException(
+                    "Unable to upload the last part, as part " + partNumber
+                  + " has failed to upload");
+            } else {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new AmazonClientException(
+                        "Interrupted waiting for the parts preceding the last part", e);
+                }
+            }
+        }
+        long[] hash = { 0, 0 };
+        long offset = 0;
+        for (int partNumber = 1; partNumber < lastPartNumber; partNumber++) {
+            PartHash p = partHashes.get(partNumber);
+            if (p.offset != offset)
+                throw new AmazonClientException("Part " + partNumber
+                        + " is expected to start at offset " + offset
+                        + " but started at " + p.offset);
+            hash = GHash.combine(hash, p.hash, (p.length + 15) / 16, hashSubkey);
+            offset += p.length;
+        }
+        if (offset != lastPartOffset)
+            throw new AmazonClientException("The last part is expected to start at offset "
+                    + offset + " but started at " + lastPartOffset);
+        return hash;
+    }
+
+    /**
+     * Returns the authentication tag of the entire content.
+     *
+     * @param finalHash
+     *            the final GHASH of the entire ciphertext
+     * @param ciphertextLength
+     *            the total length of the ciphertext excluding the tag
+     */
+    byte[] computeTag(long[] finalHash, long ciphertextLength) {
+        return GHash.tag(finalHash, ciphertextLength, hashSubkey, tagMask);
+    }
+
+    @Override
+    synchronized void abort() {
+        aborted = true;
+        notifyAll();
+    }
+
+    private static class PartHash {
+        private final long offset;
+        private final long length;
+        private final long[] hash;
+
+        PartHash(long offset, long length, long[] hash) {
+            this.offset = offset;
+            this.length = length;
+            this.hash = hash;
+        }
+    }
+}
@@ -22,7 +22,9 @@ import com.amazonaws.services.s3.model.CompleteMultipartUploadResult;
 import com.amazonaws.services.s3.model.CopyPartRequest;
 import com.amazonaws.services.s3.model.CopyPartResult;
 import com.amazonaws.services.s3.model.CryptoMode;
+import com.amazonaws.services.s3.model.DataKeyCacheStatistics;
 import com.amazonaws.services.s3.model.EncryptedGetObjectRequest;
+import com.amazonaws.services.s3.model.EncryptedInitiateMultipartUploadRequest;
 import com.amazonaws.services.s3.model.GetObjectRequest;
 import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
 import com.amazonaws.services.s3.model.InitiateMultipartUploadResult;
@@ -80,4 +82,34 @@ public abstract class S3CryptoModule<T extends MultipartUploadContext> {
      */
     public abstract PutObjectResult putInstructionFileSecurely(
             PutInstructionFileRequest req);
+
+    /**
+     * Returns true if the parts of a multipart upload initiated via an
+     * {@link EncryptedInitiateMultipartUploadRequest} with parallel part
+     * uploads enabled can be uploaded in parallel; false otherwise.
+     */
+    public boolean isParallelPartUploadSupported() {
+        return false;
+    }
+
+    /**
+     * Returns the context for downloading the given encrypted object in byte
+     * ranges that are decrypted independently of each other; or null if the
+     * object can only be decrypted as a single stream.
+     *
+     * @param metadata
+     *            the metadata of the object as stored in S3
+     */
+    public MultipartDownloadCryptoContext newMultipartDownloadContext(
+            GetObjectRequest req, ObjectMetadata metadata) {
+        return null;
+    }
+
+    /**
+     * Returns the statistics of the cache of KMS data keys; or null if data
+     * keys are not cached.
+     */
+    public DataKeyCacheStatistics getDataKeyCacheStatistics() {
+        return null;
+    }
 }
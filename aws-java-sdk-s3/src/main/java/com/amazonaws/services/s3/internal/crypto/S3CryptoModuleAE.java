@@ -15,9 +15,11 @@
 package com.amazonaws.services.s3.internal.crypto;
 
 import static com.amazonaws.services.s3.AmazonS3EncryptionClient.USER_AGENT;
+import static com.amazonaws.services.s3.internal.FileRegionInputStream.newFileRegionInputStream;
 import static com.amazonaws.services.s3.model.CryptoMode.AuthenticatedEncryption;
 import static com.amazonaws.services.s3.model.CryptoMode.StrictAuthenticatedEncryption;
 import static com.amazonaws.services.s3.model.ExtraMaterialsDescription.NONE;
+import static com.amazonaws.services.s3.model.S3DataSource.Utils.cleanupDataSource;
 import static com.amazonaws.util.IOUtils.closeQuietly;
 
 import java.io.BufferedOutputStream;
@@ -27,6 +29,7 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.security.GeneralSecurityException;
 import java.util.Collections;
 import java.util.Map;
 
@@ -38,6 +41,7 @@ import com.amazonaws.services.kms.AWSKMSClient;
 import com.amazonaws.services.s3.internal.S3Direct;
 import com.amazonaws.services.s3.model.CryptoConfiguration;
 import com.amazonaws.services.s3.model.CryptoMode;
+import com.amazonaws.services.s3.model.EncryptedInitiateMultipartUploadRequest;
 import com.amazonaws.services.s3.model.EncryptedGetObjectRequest;
 import com.amazonaws.services.s3.model.EncryptionMaterialsProvider;
 import com.amazonaws.services.s3.model.ExtraMaterialsDescription;
@@ -48,6 +52,7 @@ import com.amazonaws.services.s3.model.S3Object;
 import com.amazonaws.services.s3.model.S3ObjectId;
 import com.amazonaws.services.s3.model.S3ObjectInputStream;
 import com.amazonaws.services.s3.model.UploadPartRequest;
+import com.amazonaws.services.s3.model.UploadPartResult;
 import com.amazonaws.util.json.Jackson;
 
 /**
@@ -60,13 +65,14 @@ class S3CryptoModuleAE extends S3CryptoModuleBase<MultipartUploadCryptoContext>
     }
     /**
      * @param cryptoConfig a read-only copy of the crypto configuration.
+     * @param dataKeyCache the cache of KMS data keys; or null if not cached.
      */
     S3CryptoModuleAE(AWSKMSClient kms, S3Direct s3,
             AWSCredentialsProvider credentialsProvider,
             EncryptionMaterialsProvider encryptionMaterialsProvider,
-            CryptoConfiguration cryptoConfig) {
+            CryptoConfiguration cryptoConfig, KMSDataKeyCache dataKeyCache) {
         super(kms, s3, credentialsProvider, encryptionMaterialsProvider,
-                cryptoConfig);
+                cryptoConfig, dataKeyCache);
         CryptoMode mode = cryptoConfig.getCryptoMode();
         if (mode != StrictAuthenticatedEncryption
         &&  mode != AuthenticatedEncryption) {
@@ -81,7 +87,7 @@ class S3CryptoModuleAE extends S3CryptoModuleBase<MultipartUploadCryptoContext>
             EncryptionMaterialsProvider encryptionMaterialsProvider,
             CryptoConfiguration cryptoConfig) {
         this(null, s3, new DefaultAWSCredentialsProviderChain(),
-                encryptionMaterialsProvider, cryptoConfig);
+                encryptionMaterialsProvider, cryptoConfig, null);
     }
     /**
      * Used for testing purposes only.
@@ -90,7 +96,7 @@ class S3CryptoModuleAE extends S3CryptoModuleBase<MultipartUploadCryptoContext>
             EncryptionMaterialsProvider encryptionMaterialsProvider,
             CryptoConfiguration cryptoConfig) {
         this(kms, s3, new DefaultAWSCredentialsProviderChain(),
-                encryptionMaterialsProvider, cryptoConfig);
+                encryptionMaterialsProvider, cryptoConfig, null);
     }
 
     /**
@@ -232,7 +238,8 @@ class S3CryptoModuleAE extends S3CryptoModuleBase<MultipartUploadCryptoContext>
                     cryptoRange,   // range is sometimes necessary to compute the adjusted IV
                     extraMatDesc,
                     keyWrapExpected,
-                    kms
+                    kms,
+                    dataKeyCache
             );
         securityCheck(cekMaterial, retrieved);
         S3ObjectWrapper decrypted = decrypt(retrieved, cekMaterial, cryptoRange);
@@ -261,7 +268,8 @@ class S3CryptoModuleAE extends S3CryptoModuleBase<MultipartUploadCryptoContext>
                 cryptoRange,
                 extraMatDesc,
                 keyWrapExpected,
-                kms
+                kms,
+                dataKeyCache
             );
         securityCheck(cekMaterial, retrieved);
         S3ObjectWrapper decrypted = decrypt(retrieved, cekMaterial, cryptoRange);
@@ -359,13 +367,179 @@ class S3CryptoModuleAE extends S3CryptoModuleBase<MultipartUploadCryptoContext>
         return s3Object.getObjectMetadata();
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * <p>
+     * Only objects encrypted with AES/GCM can be downloaded in byte ranges,
+     * as each byte range is decrypted starting from the counter block at the
+     * offset of the range, and the content is authenticated once all the byte
+     * ranges have been downloaded. Objects encrypted with AES/CBC, or whose
+     * instruction file cannot be found, are to be downloaded as a single
+     * stream.
+     */
+    @Override
+    public final MultipartDownloadCryptoContext newMultipartDownloadContext(
+            GetObjectRequest req, ObjectMetadata metadata) {
+        final S3ObjectId id = req.getS3ObjectId();
+        S3Object s3Object = new S3Object();
+        s3Object.setBucketName(req.getBucketName());
+        s3Object.setKey(req.getKey());
+        s3Object.setObjectMetadata(metadata);
+        S3ObjectWrapper wrapped = new S3ObjectWrapper(s3Object, id);
+        ExtraMaterialsDescription extraMatDesc = NONE;
+        boolean keyWrapExpected = isStrict();
+        String suffix = null;
+        if (req instanceof EncryptedGetObjectRequest) {
+            EncryptedGetObjectRequest ereq = (EncryptedGetObjectRequest)req;
+            extraMatDesc = ereq.getExtraMaterialDescription();
+            if (!keyWrapExpected)
+                keyWrapExpected = ereq.isKeyWrapExpected();
+            suffix = ereq.getInstructionFileSuffix();
+            if (suffix != null && suffix.trim().isEmpty())
+                suffix = null;
+        }
+        ContentCryptoMaterial cekMaterial;
+        if (suffix == null && wrapped.hasEncryptionInfo()) {
+            cekMaterial = ContentCryptoMaterial.fromObjectMetadata(metadata,
+                    kekMaterialsProvider,
+                    cryptoConfig.getCryptoProvider(),
+                    null,
+                    extraMatDesc,
+                    keyWrapExpected,
+                    kms,
+                    dataKeyCache);
+        } else {
+            S3ObjectWrapper ifile = fetchInstructionFile(id, suffix);
+            if (ifile == null)
+                return null;
+            try {
+                if (!ifile.isInstructionFile())
+                    return null;
+                String json = ifile.toJsonString();
+                @SuppressWarnings("unchecked")
+                Map<String, String> matdesc = Collections.unmodifiableMap(
+                        Jackson.fromJsonString(json, Map.class));
+                cekMaterial = ContentCryptoMaterial.fromInstructionFile(
+                        matdesc,
+                        kekMaterialsProvider,
+                        cryptoConfig.getCryptoProvider(),
+                        null,
+                        extraMatDesc,
+                        keyWrapExpected,
+                        kms,
+                        dataKeyCache);
+            } finally {
+                closeQuietly(ifile, log);
+            }
+        }
+        securityCheck(cekMaterial, wrapped);
+        if (!ContentCryptoScheme.AES_GCM.equals(cekMaterial.getContentCryptoScheme()))
+            return null;
+        try {
+            return new MultipartDownloadCryptoContext(s3,
+                    cekMaterial.getCipherLite(), metadata.getContentLength());
+        } catch (GeneralSecurityException e) {
+            throw new AmazonClientException(
+                    "Unable to set up the decryption of " + id, e);
+        }
+    }
+
     @Override
     final MultipartUploadCryptoContext newUploadContext(
             InitiateMultipartUploadRequest req, ContentCryptoMaterial cekMaterial) {
+        if (req instanceof EncryptedInitiateMultipartUploadRequest
+        &&  ((EncryptedInitiateMultipartUploadRequest) req).isParallelPartUploads()) {
+            return new ParallelMultipartUploadCryptoContext(
+                    req.getBucketName(), req.getKey(), cekMaterial);
+        }
         return new MultipartUploadCryptoContext(
                 req.getBucketName(), req.getKey(), cekMaterial);
     }
 
+    @Override
+    public final boolean isParallelPartUploadSupported() {
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>
+     * Parts of a multipart upload initiated with parallel part uploads enabled
+     * can be uploaded in parallel, as each part is encrypted independently
+     * starting from the AES/GCM counter block at the offset of the part.
+     * However, each such part must be uploaded from a file, and the last part
+     * must be uploaded after, or concurrently with, all the other parts.
+     */
+    @Override
+    public UploadPartResult uploadPartSecurely(UploadPartRequest req) {
+        MultipartUploadCryptoContext uploadContext =
+            multipartUploadContexts.get(req.getUploadId());
+        if (uploadContext instanceof ParallelMultipartUploadCryptoContext) {
+            return uploadPartInParallel(req,
+                    (ParallelMultipartUploadCryptoContext) uploadContext);
+        }
+        return super.uploadPartSecurely(req);
+    }
+
+    private UploadPartResult uploadPartInParallel(UploadPartRequest req,
+            ParallelMultipartUploadCryptoContext uploadContext) {
+        appendUserAgent(req, USER_AGENT);
+        final int blockSize = contentCryptoScheme.getBlockSizeInBytes();
+        final boolean isLastPart = req.isLastPart();
+        final int partNumber = req.getPartNumber();
+        final long partOffset = req.getFileOffset();
+        final File fileOrig = req.getFile();
+        final InputStream isOrig = req.getInputStream();
+        if (fileOrig == null) {
+            throw new AmazonClientException(
+                "Parts of a multipart upload with parallel part uploads enabled must be uploaded from a file");
+        }
+        if ((!isLastPart && req.getPartSize() % blockSize != 0)
+        ||  partOffset % blockSize != 0) {
+            throw new AmazonClientException(
+                "Invalid part size or file offset: part sizes and file offsets for encrypted multipart uploads "
+                    + "must be multiples of the cipher block size ("
+                    + blockSize
+                    + ") with the exception of the size of the last part.");
+        }
+        if (isLastPart && uploadContext.hasFinalPartBeenSeen()) {
+            throw new AmazonClientException(
+                "This part was specified as the last part in a multipart upload, but a previous part was already marked as the last part.  "
+              + "Only the last part of the upload should be marked as the last part.");
+        }
+        final UploadPartResult result;
+        SdkFilterInputStream isCurr = null;
+        boolean success = false;
+        try {
+            long[] initialHash = isLastPart
+                ? uploadContext.awaitPrecedingPartsHash(partNumber, partOffset)
+                : null;
+            isCurr = new GCMPartInputStream(
+                    newFileRegionInputStream(fileOrig, partOffset, req.getPartSize()),
+                    uploadContext, partNumber, partOffset, initialHash);
+            req.setInputStream(isCurr);
+            // Treat all encryption requests as input stream upload requests,
+            // not as file upload requests.
+            req.setFile(null);
+            req.setFileOffset(0);
+            // The last part of the multipart upload will contain an extra
+            // 16-byte mac
+            if (isLastPart)
+                req.setPartSize(computeLastPartSize(req));
+            result = s3.uploadPart(req);
+            success = true;
+        } finally {
+            if (!success)
+                uploadContext.partFailed(partNumber);
+            cleanupDataSource(req, fileOrig, isOrig, isCurr, log);
+        }
+        if (isLastPart)
+            uploadContext.setHasFinalPartBeenSeen(true);
+        return result;
+    }
+
     //// specific overrides for uploading parts.
     @Override
     final CipherLite cipherLiteForNextPart(
@@ -29,13 +29,14 @@ import com.amazonaws.services.s3.model.EncryptionMaterialsProvider;
 class S3CryptoModuleAEStrict extends S3CryptoModuleAE {
     /**
      * @param cryptoConfig a read-only copy of the crypto configuration.
+     * @param dataKeyCache the cache of KMS data keys; or null if not cached.
      */
     S3CryptoModuleAEStrict(AWSKMSClient kms, S3Direct s3,
             AWSCredentialsProvider credentialsProvider,
             EncryptionMaterialsProvider encryptionMaterialsProvider,
-            CryptoConfiguration cryptoConfig) {
+            CryptoConfiguration cryptoConfig, KMSDataKeyCache dataKeyCache) {
         super(kms, s3, credentialsProvider, encryptionMaterialsProvider,
-                cryptoConfig);
+                cryptoConfig, dataKeyCache);
         if (cryptoConfig.getCryptoMode() != StrictAuthenticatedEncryption)
             throw new IllegalArgumentException();
     }
@@ -53,6 +53,7 @@ import com.amazonaws.services.kms.AWSKMSClient;
 import com.amazonaws.services.kms.model.GenerateDataKeyRequest;
 import com.amazonaws.services.kms.model.GenerateDataKeyResult;
 import com.amazonaws.services.s3.Headers;
+import com.amazonaws.services.s3.internal.FileRegionInputStream;
 import com.amazonaws.services.s3.internal.InputSubstream;
 import com.amazonaws.services.s3.internal.Mimetypes;
 import com.amazonaws.services.s3.internal.S3Direct;
@@ -89,6 +90,11 @@ public abstract class S3CryptoModuleBase<T extends MultipartUploadCryptoContext>
         extends S3CryptoModule<T> {
     private static final boolean IS_MULTI_PART = true;
     protected static final int DEFAULT_BUFFER_SIZE = 1024*2;    // 2K
+    /**
+     * Buffer size used to encrypt the content of a file, which unlike an input
+     * stream can be marked and reset regardless of how much is read ahead.
+     */
+    private static final int FILE_BUFFER_SIZE = 1024*16;    // 16K
     protected final EncryptionMaterialsProvider kekMaterialsProvider;
     protected final Log log = LogFactory.getLog(getClass());
     protected final S3CryptoScheme cryptoScheme;
@@ -101,14 +107,17 @@ public abstract class S3CryptoModuleBase<T extends MultipartUploadCryptoContext>
         Collections.synchronizedMap(new HashMap<String,T>());
     protected final S3Direct s3;
     protected final AWSKMSClient kms;
+    /** The cache of KMS data keys; or null if not cached. */
+    protected final KMSDataKeyCache dataKeyCache;
 
     /**
      * @param cryptoConfig a read-only copy of the crypto configuration.
+     * @param dataKeyCache the cache of KMS data keys; or null if not cached.
      */
     protected S3CryptoModuleBase(AWSKMSClient kms, S3Direct s3,
             AWSCredentialsProvider credentialsProvider,
             EncryptionMaterialsProvider kekMaterialsProvider,
-            CryptoConfiguration cryptoConfig) {
+            CryptoConfiguration cryptoConfig, KMSDataKeyCache dataKeyCache) {
         if (!cryptoConfig.isReadOnly())
             throw new IllegalArgumentException("The cryto configuration parameter is required to be read-only");
         this.kekMaterialsProvider = kekMaterialsProvider;
@@ -117,6 +126,7 @@ public abstract class S3CryptoModuleBase<T extends MultipartUploadCryptoContext>
         this.cryptoScheme = S3CryptoScheme.from(cryptoConfig.getCryptoMode());
         this.contentCryptoScheme = cryptoScheme.getContentCryptoScheme();
         this.kms = kms;
+        this.dataKeyCache = dataKeyCache;
     }
 
     /**
@@ -132,6 +142,7 @@ public abstract class S3CryptoModuleBase<T extends MultipartUploadCryptoContext>
         this.cryptoScheme = S3CryptoScheme.from(cryptoConfig.getCryptoMode());
         this.contentCryptoScheme = cryptoScheme.getContentCryptoScheme();
         this.kms = null;
+        this.dataKeyCache = null;
     }
 
     /**
@@ -173,6 +184,10 @@ public abstract class S3CryptoModuleBase<T extends MultipartUploadCryptoContext>
     /**
      * Puts an encrypted object into S3, and puts an instruction file into S3.
      * Encryption info is stored in the instruction file.
+     * <p>
+     * The instruction file is only put once the encrypted object has been put
+     * successfully, so that a failed put never leaves an existing object with
+     * the instruction file of another content encryption key.
      * 
      * @param putObjectRequest
      *            The request object containing all the parameters to upload a
@@ -213,7 +228,9 @@ public abstract class S3CryptoModuleBase<T extends MultipartUploadCryptoContext>
     @Override
     public final void abortMultipartUploadSecurely(AbortMultipartUploadRequest req) {
         s3.abortMultipartUpload(req);
-        multipartUploadContexts.remove(req.getUploadId());
+        T uploadContext = multipartUploadContexts.remove(req.getUploadId());
+        if (uploadContext != null)
+            uploadContext.abort();
     }
 
     @Override
@@ -344,14 +361,14 @@ public abstract class S3CryptoModuleBase<T extends MultipartUploadCryptoContext>
                     throw new IllegalArgumentException(
                         "A File or InputStream must be specified when uploading part");
                 }
-                isCurr = isOrig;
+                isCurr = new InputSubstream(isOrig,
+                        req.getFileOffset(),
+                        req.getPartSize(),
+                        req.isLastPart());
             } else {
-                isCurr = new ResettableInputStream(fileOrig);
+                isCurr = new FileRegionInputStream(fileOrig,
+                        req.getFileOffset(), req.getPartSize());
             }
-            isCurr = new InputSubstream(isCurr,
-                    req.getFileOffset(),
-                    req.getPartSize(),
-                    req.isLastPart());
             return cipherLite.markSupported()
                  ? new CipherLiteInputStream(isCurr, cipherLite,
                        DEFAULT_BUFFER_SIZE,
@@ -468,7 +485,9 @@ public abstract class S3CryptoModuleBase<T extends MultipartUploadCryptoContext>
                 .withGeneralProgressListener(req.getGeneralProgressListener())
                 .withRequestMetricCollector(req.getRequestMetricCollector())
                 ;
-            GenerateDataKeyResult keyGenRes = kms.generateDataKey(keyGenReq);
+            GenerateDataKeyResult keyGenRes = dataKeyCache == null
+                ? kms.generateDataKey(keyGenReq)
+                : dataKeyCache.generateDataKey(kms, keyGenReq);
             final SecretKey cek = 
                 new SecretKeySpec(copyAllBytesFrom(keyGenRes.getPlaintext()),
                         contentCryptoScheme.getKeyGeneratorAlgorithm());
@@ -587,13 +606,15 @@ public abstract class S3CryptoModuleBase<T extends MultipartUploadCryptoContext>
                         EXCLUDE_SKIPPED_BYTES);
             }
             final CipherLite cipherLite = cekMaterial.getCipherLite();
+            final int bufferSize = fileOrig == null
+                ? DEFAULT_BUFFER_SIZE : FILE_BUFFER_SIZE;
 
             if (cipherLite.markSupported()) {
                 return new CipherLiteInputStream(isCurr, cipherLite,
-                        DEFAULT_BUFFER_SIZE);
+                        bufferSize);
             } else {
                 return new RenewableCipherLiteInputStream(isCurr, cipherLite,
-                        DEFAULT_BUFFER_SIZE);
+                        bufferSize);
             }
         } catch (Exception e) {
             cleanupDataSource(req, fileOrig, isOrig, isCurr, log);
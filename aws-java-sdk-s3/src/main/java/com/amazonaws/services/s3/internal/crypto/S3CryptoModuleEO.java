@@ -37,13 +37,14 @@ import com.amazonaws.services.s3.model.UploadPartRequest;
 class S3CryptoModuleEO extends S3CryptoModuleBase<MultipartUploadCbcContext> {
     /**
      * @param cryptoConfig a read-only copy of the crypto configuration
+     * @param dataKeyCache the cache of KMS data keys; or null if not cached.
      */
     S3CryptoModuleEO(AWSKMSClient kms, S3Direct s3,
             AWSCredentialsProvider credentialsProvider,
             EncryptionMaterialsProvider encryptionMaterialsProvider,
-            CryptoConfiguration cryptoConfig) {
+            CryptoConfiguration cryptoConfig, KMSDataKeyCache dataKeyCache) {
         super(kms, s3, credentialsProvider, encryptionMaterialsProvider,
-                cryptoConfig);
+                cryptoConfig, dataKeyCache);
         if (cryptoConfig.getCryptoMode() != EncryptionOnly)
             throw new IllegalArgumentException();
     }
@@ -55,7 +56,7 @@ class S3CryptoModuleEO extends S3CryptoModuleBase<MultipartUploadCbcContext> {
             EncryptionMaterialsProvider encryptionMaterialsProvider,
             CryptoConfiguration cryptoConfig) {
         this(null, s3, new DefaultAWSCredentialsProviderChain(),
-                encryptionMaterialsProvider, cryptoConfig);
+                encryptionMaterialsProvider, cryptoConfig, null);
     }
 
     /**
@@ -65,7 +66,7 @@ class S3CryptoModuleEO extends S3CryptoModuleBase<MultipartUploadCbcContext> {
             EncryptionMaterialsProvider encryptionMaterialsProvider,
             CryptoConfiguration cryptoConfig) {
         this(kms, s3, new DefaultAWSCredentialsProviderChain(),
-                encryptionMaterialsProvider, cryptoConfig);
+                encryptionMaterialsProvider, cryptoConfig, null);
     }
 
     @Override
@@ -0,0 +1,536 @@
+/*
+ * Copyright 2010-2014 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.s3.iterable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.http.annotation.GuardedBy;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.ListObjectsRequest;
+import com.amazonaws.services.s3.model.ObjectListing;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+
+/**
+ * Provides a way to iterate a large number of Amazon S3 objects by listing
+ * disjoint partitions of the key space concurrently. For example:
+ *
+ * <pre class="brush: java">
+ * for ( S3ObjectSummary summary : ParallelS3Objects.withPrefix(s3, &quot;my-bucket&quot;, &quot;photos/&quot;).withParallelism(16) ) {
+ *     System.out.printf(&quot;Object with key '%s'\n&quot;, summary.getKey());
+ * }
+ * </pre>
+ * <p>
+ * By default, the key space is partitioned by the common prefixes found
+ * directly under the prefix using the delimiter "/", so that each virtual
+ * subdirectory is listed as a separate partition. Alternatively, the key space
+ * can be partitioned at caller-supplied split keys via
+ * {@link #withSplitKeys(Collection)}, which is preferable when the keys are
+ * not evenly spread across virtual subdirectories.
+ * <p>
+ * Pages of object summaries are buffered up to a bounded number, so listing
+ * is paced by the caller. Objects are returned in the lexicographical order
+ * of their keys if {@link #withOrdered(boolean)} is true; otherwise, in the
+ * order in which the pages are listed, which yields the highest throughput.
+ * An iteration that is abandoned before it is exhausted should be canceled
+ * via {@link ParallelListingIterator#cancel()} so as to release the listing
+ * threads.
+ */
+public class ParallelS3Objects implements Iterable<S3ObjectSummary> {
+    /** The default number of partitions listed concurrently. */
+    public static final int DEFAULT_PARALLELISM = 8;
+    /** The default delimiter used to partition the key space. */
+    public static final String DEFAULT_DELIMITER = "/";
+
+    private final AmazonS3 s3;
+    private final String bucketName;
+    private String prefix;
+    private Integer batchSize;
+    private int parallelism = DEFAULT_PARALLELISM;
+    private int bufferSize;
+    private boolean ordered;
+    private String delimiter = DEFAULT_DELIMITER;
+    private List<String> splitKeys;
+    private ExecutorService executorService;
+
+    private ParallelS3Objects(AmazonS3 s3, String bucketName) {
+        this.s3 = s3;
+        this.bucketName = bucketName;
+    }
+
+    /**
+     * Constructs an iterable that covers all the objects in an Amazon S3
+     * bucket.
+     *
+     * @param s3
+     *            The Amazon S3 client.
+     * @param bucketName
+     *            The bucket name.
+     * @return An iterable for object summaries.
+     */
+    public static ParallelS3Objects inBucket(AmazonS3 s3, String bucketName) {
+        return new ParallelS3Objects(s3, bucketName);
+    }
+
+    /**
+     * Constructs an iterable that covers the objects in an Amazon S3 bucket
+     * where the key begins with the given prefix.
+     *
+     * @param s3
+     *            The Amazon S3 client.
+     * @param bucketName
+     *            The bucket name.
+     * @param prefix
+     *            The prefix.
+     * @return An iterable for object summaries.
+     */
+    public static ParallelS3Objects withPrefix(AmazonS3 s3, String bucketName, String prefix) {
+        ParallelS3Objects objects = new ParallelS3Objects(s3, bucketName);
+        objects.prefix = prefix;
+        return objects;
+    }
+
+    /**
+     * Sets the batch size, i.e., how many {@link S3ObjectSummary}s will be
+     * fetched at once per partition.
+     */
+    public ParallelS3Objects withBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of partitions listed concurrently.
+     */
+    public ParallelS3Objects withParallelism(int parallelism) {
+        if (parallelism < 1)
+            throw new IllegalArgumentException("parallelism must be at least one");
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of pages of object summaries buffered ahead of
+     * the caller. Defaults to twice the parallelism.
+     */
+    public ParallelS3Objects withBufferSize(int bufferSize) {
+        if (bufferSize < 1)
+            throw new IllegalArgumentException("bufferSize must be at least one");
+        this.bufferSize = bufferSize;
+        return this;
+    }
+
+    /**
+     * Sets whether objects are returned in the lexicographical order of their
+     * keys. False by default.
+     */
+    public ParallelS3Objects withOrdered(boolean ordered) {
+        this.ordered = ordered;
+        return this;
+    }
+
+    /**
+     * Sets the delimiter used to partition the key space by common prefixes.
+     * Ignored if split keys are specified.
+     */
+    public ParallelS3Objects withDelimiter(String delimiter) {
+        this.delimiter = delimiter;
+        return this;
+    }
+
+    /**
+     * Sets the keys at which the key space is partitioned, instead of by
+     * common prefixes. The partitions are the ranges of keys up to and
+     * including the first split key, after the first up to and including the
+     * second, and so on, and after the last split key.
+     */
+    public ParallelS3Objects withSplitKeys(Collection<String> splitKeys) {
+        List<String> sorted = new ArrayList<String>(splitKeys);
+        Collections.sort(sorted);
+        this.splitKeys = sorted;
+        return this;
+    }
+
+    /**
+     * Sets the executor service used to list the partitions. If not
+     * specified, a thread pool is created for each iteration, and shut down
+     * once the iteration is complete.
+     */
+    public ParallelS3Objects withExecutorService(ExecutorService executorService) {
+        this.executorService = executorService;
+        return this;
+    }
+
+    public Integer getBatchSize() {
+        return batchSize;
+    }
+
+    public String getPrefix() {
+        return prefix;
+    }
+
+    public String getBucketName() {
+        return bucketName;
+    }
+
+    public AmazonS3 getS3() {
+        return s3;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public int getBufferSize() {
+        return bufferSize > 0 ? bufferSize : 2 * parallelism;
+    }
+
+    public boolean isOrdered() {
+        return ordered;
+    }
+
+    /**
+     * Returns a new iterator, which starts listing upon the first call to
+     * {@link Iterator#hasNext()} or {@link Iterator#next()}.
+     */
+    @Override
+    public ParallelListingIterator iterator() {
+        return new ParallelListingIterator();
+    }
+
+    /**
+     * A range of keys listed as a unit.
+     */
+    private static final class Partition {
+        final String prefix;
+        /** Exclusive lower bound; or null if unbounded. */
+        final String marker;
+        /** Inclusive upper bound; or null if unbounded. */
+        final String endKey;
+        /** Object summaries already listed when partitioning; or null. */
+        final List<S3ObjectSummary> listed;
+
+        Partition(String prefix, String marker, String endKey,
+                List<S3ObjectSummary> listed) {
+            this.prefix = prefix;
+            this.marker = marker;
+            this.endKey = endKey;
+            this.listed = listed;
+        }
+    }
+
+    /**
+     * A page of object summaries of a partition.
+     */
+    private static final class Page {
+        final List<S3ObjectSummary> summaries;
+        /** True if this is the last page of the partition. */
+        final boolean last;
+        final RuntimeException error;
+
+        Page(List<S3ObjectSummary> summaries, boolean last, RuntimeException error) {
+            this.summaries = summaries;
+            this.last = last;
+            this.error = error;
+        }
+    }
+
+    /**
+     * Iterator over the object summaries listed concurrently by partition.
+     */
+    public class ParallelListingIterator implements Iterator<S3ObjectSummary> {
+        private List<Partition> partitions;
+        private final AtomicInteger nextPartition = new AtomicInteger();
+        private final List<Future<?>> futures = new ArrayList<Future<?>>();
+        private volatile boolean canceled;
+
+        /** Page queues by partition index if ordered. */
+        @GuardedBy("this")
+        private final Map<Integer, BlockingQueue<Page>> queues =
+                new HashMap<Integer, BlockingQueue<Page>>();
+        /** The page queue shared by all partitions if unordered. */
+        private BlockingQueue<Page> sharedQueue;
+        /** Index of the partition being consumed if ordered. */
+        @GuardedBy("this")
+        private int head;
+        /** Number of partitions fully consumed. */
+        private int finished;
+        private Iterator<S3ObjectSummary> current;
+
+        @Override
+        public boolean hasNext() {
+            if (partitions == null)
+                start();
+            while (current == null || !current.hasNext()) {
+                if (finished == partitions.size())
+                    return false;
+                Page page = takePage();
+                if (page.error != null) {
+                    cancel();
+                    throw page.error;
+                }
+                if (page.last) {
+                    finished++;
+                    if (ordered)
+                        advanceHead();
+                }
+                current = page.summaries.iterator();
+            }
+            return true;
+        }
+
+        @Override
+        public S3ObjectSummary next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            return current.next();
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        /**
+         * Stops listing any further pages, and releases the listing threads.
+         */
+        public void cancel() {
+            canceled = true;
+            synchronized (futures) {
+                for (Future<?> f : futures)
+                    f.cancel(true);
+            }
+        }
+
+        private void start() {
+            partitions = splitKeys == null ? partitionByCommonPrefixes()
+                                           : partitionBySplitKeys();
+            final int workers = Math.min(parallelism, partitions.size());
+            if (workers == 0)
+                return;
+            if (!ordered)
+                sharedQueue = new LinkedBlockingQueue<Page>(getBufferSize());
+            ExecutorService executor = executorService;
+            if (executor == null)
+                executor = Executors.newFixedThreadPool(workers, newThreadFactory());
+            synchronized (futures) {
+                for (int i = 0; i < workers; i++) {
+                    futures.add(executor.submit(new Runnable() {
+                        @Override
+                        public void run() {
+                            listPartitions();
+                        }
+                    }));
+                }
+            }
+            // Threads of our own pool terminate once all the partitions are listed
+            if (executorService == null)
+                executor.shutdown();
+        }
+
+        private List<Partition> partitionBySplitKeys() {
+            List<Partition> list = new ArrayList<Partition>(splitKeys.size() + 1);
+            String marker = null;
+            for (String splitKey : splitKeys) {
+                list.add(new Partition(prefix, marker, splitKey, null));
+                marker = splitKey;
+            }
+            list.add(new Partition(prefix, marker, null, null));
+            return list;
+        }
+
+        private List<Partition> partitionByCommonPrefixes() {
+            List<Partition> list = new ArrayList<Partition>();
+            ObjectListing listing = null;
+            do {
+                if (listing == null) {
+                    listing = s3.listObjects(new ListObjectsRequest()
+                        .withBucketName(bucketName)
+                        .withPrefix(prefix)
+                        .withDelimiter(delimiter));
+                } else {
+                    listing = s3.listNextBatchOfObjects(listing);
+                }
+                // Merge the objects directly under the prefix and the common
+                // prefixes in key order, grouping consecutive objects
+                List<S3ObjectSummary> summaries = listing.getObjectSummaries();
+                List<S3ObjectSummary> group = null;
+                int i = 0;
+                for (String commonPrefix : listing.getCommonPrefixes()) {
+                    while (i < summaries.size()
+                        && summaries.get(i).getKey().compareTo(commonPrefix) < 0) {
+                        if (group == null)
+                            group = new ArrayList<S3ObjectSummary>();
+                        group.add(summaries.get(i++));
+                    }
+                    if (group != null) {
+                        list.add(new Partition(null, null, null, group));
+                        group = null;
+                    }
+                    list.add(new Partition(commonPrefix, null, null, null));
+                }
+                if (i < summaries.size()) {
+                    list.add(new Partition(null, null, null,
+                        new ArrayList<S3ObjectSummary>(summaries.subList(i, summaries.size()))));
+                }
+            } while (listing.isTruncated());
+            return list;
+        }
+
+        /**
+         * Lists partitions one after another until there are no more.
+         */
+        private void listPartitions() {
+            int index;
+            while (!canceled && (index = nextPartitionIndex()) >= 0) {
+                BlockingQueue<Page> queue = queueOf(index);
+                try {
+                    try {
+                        listPartition(partitions.get(index), queue);
+                    } catch (RuntimeException e) {
+                        queue.put(new Page(Collections.<S3ObjectSummary>emptyList(), true, e));
+                        return;
+                    }
+                } catch (InterruptedException e) {
+                    // Canceled
+                    return;
+                }
+            }
+        }
+
+        private void listPartition(Partition partition, BlockingQueue<Page> queue)
+                throws InterruptedException {
+            if (partition.listed != null) {
+                queue.put(new Page(partition.listed, true, null));
+                return;
+            }
+            ObjectListing listing = null;
+            boolean last;
+            do {
+                if (listing == null) {
+                    listing = s3.listObjects(new ListObjectsRequest()
+                        .withBucketName(bucketName)
+                        .withPrefix(partition.prefix)
+                        .withMarker(partition.marker)
+                        .withMaxKeys(batchSize));
+                } else {
+                    listing = s3.listNextBatchOfObjects(listing);
+                }
+                List<S3ObjectSummary> summaries = listing.getObjectSummaries();
+                last = !listing.isTruncated();
+                if (partition.endKey != null) {
+                    int n = summaries.size();
+                    while (n > 0 && summaries.get(n - 1).getKey().compareTo(partition.endKey) > 0)
+                        n--;
+                    if (n < summaries.size()) {
+                        summaries = summaries.subList(0, n);
+                        last = true;
+                    }
+                }
+                queue.put(new Page(summaries, last, null));
+            } while (!last && !canceled);
+        }
+
+        /**
+         * Returns the index of the next partition to be listed; or -1 if
+         * there is none. If ordered, waits until the partition is within
+         * the parallelism of the partition being consumed, so that at most
+         * that many partitions are buffered.
+         */
+        private int nextPartitionIndex() {
+            int index = nextPartition.getAndIncrement();
+            if (index >= partitions.size())
+                return -1;
+            if (ordered) {
+                synchronized (this) {
+                    while (index >= head + parallelism && !canceled) {
+                        try {
+                            wait();
+                        } catch (InterruptedException e) {
+                            return -1;
+                        }
+                    }
+                }
+            }
+            return index;
+        }
+
+        private BlockingQueue<Page> queueOf(int index) {
+            if (!ordered)
+                return sharedQueue;
+            synchronized (this) {
+                BlockingQueue<Page> queue = queues.get(index);
+                if (queue == null) {
+                    queue = new LinkedBlockingQueue<Page>(
+                            Math.max(1, getBufferSize() / parallelism));
+                    queues.put(index, queue);
+                }
+                return queue;
+            }
+        }
+
+        private synchronized void advanceHead() {
+            queues.remove(head++);
+            notifyAll();
+        }
+
+        private Page takePage() {
+            BlockingQueue<Page> queue;
+            if (ordered) {
+                synchronized (this) {
+                    queue = queueOf(head);
+                }
+            } else {
+                queue = sharedQueue;
+            }
+            try {
+                return queue.take();
+            } catch (InterruptedException e) {
+                cancel();
+                Thread.currentThread().interrupt();
+                throw new AmazonClientException("Listing interrupted", e);
+            }
+        }
+    }
+
+    private static ThreadFactory newThreadFactory() {
+        return new ThreadFactory() {
+            private final AtomicInteger threadCount = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r);
+                thread.setName("s3-parallel-listing-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        };
+    }
+}
@@ -16,6 +16,7 @@ package com.amazonaws.services.s3.iterable;
 
 import java.util.Iterator;
 
+import com.amazonaws.internal.ReadAheadPageIterator;
 import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.model.ListObjectsRequest;
 import com.amazonaws.services.s3.model.ObjectListing;
@@ -33,7 +34,9 @@ import com.amazonaws.services.s3.model.S3ObjectSummary;
  * <p>
  * The list of {@link S3ObjectSummary}s will be fetched lazily, a page at a
  * time, as they are needed. The size of the page can be controlled with the
- * {@link S3Objects#withBatchSize(int)} method.
+ * {@link S3Objects#withBatchSize(int)} method, and pages can be fetched ahead
+ * of time in the background with the {@link S3Objects#withReadAhead(int)}
+ * method.
  */
 public class S3Objects implements Iterable<S3ObjectSummary> {
 
@@ -41,6 +44,7 @@ public class S3Objects implements Iterable<S3ObjectSummary> {
     private String prefix = null;
     private String bucketName;
     private Integer batchSize = null;
+    private int readAheadPages = 0;
 
     private S3Objects(AmazonS3 s3, String bucketName) {
         this.s3 = s3;
@@ -91,10 +95,28 @@ public class S3Objects implements Iterable<S3ObjectSummary> {
         return this;
     }
 
+    /**
+     * Sets the number of pages fetched ahead of time by a background thread
+     * while the current page is being consumed, so that iteration doesn't
+     * stall on a round trip at every page boundary. Zero, the default,
+     * fetches each page only when it is needed.
+     *
+     * @param readAheadPages
+     *            How many pages to fetch ahead of time.
+     */
+    public S3Objects withReadAhead(int readAheadPages) {
+        this.readAheadPages = readAheadPages;
+        return this;
+    }
+
     public Integer getBatchSize() {
         return batchSize;
     }
 
+    public int getReadAheadPages() {
+        return readAheadPages;
+    }
+
     public String getPrefix() {
         return prefix;
     }
@@ -113,6 +135,22 @@ public class S3Objects implements Iterable<S3ObjectSummary> {
 
         private Iterator<S3ObjectSummary> currentIterator = null;
 
+        /** Pages fetched ahead of time; or null if not reading ahead. */
+        private final Iterator<ObjectListing> pages = getReadAheadPages() <= 0 ? null
+            : new ReadAheadPageIterator<ObjectListing>(getReadAheadPages()) {
+                @Override
+                protected ObjectListing firstPage() {
+                    return firstListing();
+                }
+
+                @Override
+                protected ObjectListing nextPage(ObjectListing listing) {
+                    return listing.isTruncated()
+                         ? getS3().listNextBatchOfObjects(listing)
+                         : null;
+                }
+            };
+
         @Override
         public boolean hasNext() {
             prepareCurrentListing();
@@ -133,12 +171,10 @@ public class S3Objects implements Iterable<S3ObjectSummary> {
         private void prepareCurrentListing() {
             while ( currentListing == null || (!currentIterator.hasNext() && currentListing.isTruncated()) ) {
 
-                if ( currentListing == null ) {
-                    ListObjectsRequest req = new ListObjectsRequest();
-                    req.setBucketName(getBucketName());
-                    req.setPrefix(getPrefix());
-                    req.setMaxKeys(getBatchSize());
-                    currentListing = getS3().listObjects(req);
+                if ( pages != null ) {
+                    currentListing = pages.next();
+                } else if ( currentListing == null ) {
+                    currentListing = firstListing();
                 } else {
                     currentListing = getS3().listNextBatchOfObjects(currentListing);
                 }
@@ -147,6 +183,14 @@ public class S3Objects implements Iterable<S3ObjectSummary> {
             }
         }
 
+        private ObjectListing firstListing() {
+            ListObjectsRequest req = new ListObjectsRequest();
+            req.setBucketName(getBucketName());
+            req.setPrefix(getPrefix());
+            req.setMaxKeys(getBatchSize());
+            return getS3().listObjects(req);
+        }
+
     }
 
     @Override
@@ -16,6 +16,7 @@ package com.amazonaws.services.s3.iterable;
 
 import java.util.Iterator;
 
+import com.amazonaws.internal.ReadAheadPageIterator;
 import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.model.ListVersionsRequest;
 import com.amazonaws.services.s3.model.S3VersionSummary;
@@ -33,7 +34,9 @@ import com.amazonaws.services.s3.model.VersionListing;
  * <p>
  * The list of {@link S3VersionSummary}s will be fetched lazily, a page at a
  * time, as they are needed. The size of the page can be controlled with the
- * {@link S3Versions#withBatchSize(int)} method.
+ * {@link S3Versions#withBatchSize(int)} method, and pages can be fetched
+ * ahead of time in the background with the
+ * {@link S3Versions#withReadAhead(int)} method.
  */
 public class S3Versions implements Iterable<S3VersionSummary> {
 
@@ -42,6 +45,7 @@ public class S3Versions implements Iterable<S3VersionSummary> {
     private String prefix;
     private String key;
     private Integer batchSize;
+    private int readAheadPages;
 
     private S3Versions(AmazonS3 s3, String bucketName) {
         this.s3 = s3;
@@ -111,10 +115,28 @@ public class S3Versions implements Iterable<S3VersionSummary> {
         return this;
     }
 
+    /**
+     * Sets the number of pages fetched ahead of time by a background thread
+     * while the current page is being consumed, so that iteration doesn't
+     * stall on a round trip at every page boundary. Zero, the default,
+     * fetches each page only when it is needed.
+     *
+     * @param readAheadPages
+     *            How many pages to fetch ahead of time.
+     */
+    public S3Versions withReadAhead(int readAheadPages) {
+        this.readAheadPages = readAheadPages;
+        return this;
+    }
+
     public Integer getBatchSize() {
         return batchSize;
     }
 
+    public int getReadAheadPages() {
+        return readAheadPages;
+    }
+
     public String getPrefix() {
         return prefix;
     }
@@ -137,6 +159,22 @@ public class S3Versions implements Iterable<S3VersionSummary> {
         private Iterator<S3VersionSummary> currentIterator = null;
         private S3VersionSummary nextSummary = null;
 
+        /** Pages fetched ahead of time; or null if not reading ahead. */
+        private final Iterator<VersionListing> pages = getReadAheadPages() <= 0 ? null
+            : new ReadAheadPageIterator<VersionListing>(getReadAheadPages()) {
+                @Override
+                protected VersionListing firstPage() {
+                    return firstListing();
+                }
+
+                @Override
+                protected VersionListing nextPage(VersionListing listing) {
+                    return listing.isTruncated()
+                         ? getS3().listNextBatchOfVersions(listing)
+                         : null;
+                }
+            };
+
         @Override
         public boolean hasNext() {
             prepareCurrentListing();
@@ -170,18 +208,10 @@ public class S3Versions implements Iterable<S3VersionSummary> {
             while (currentListing == null
                     || (!currentIterator.hasNext() && currentListing
                             .isTruncated())) {
-                if (currentListing == null) {
-                    ListVersionsRequest req = new ListVersionsRequest();
-                    req.setBucketName(getBucketName());
-
-                    if (getKey() != null) {
-                        req.setPrefix(getKey());
-                    } else {
-                        req.setPrefix(getPrefix());
-                    }
-
-                    req.setMaxResults(getBatchSize());
-                    currentListing = getS3().listVersions(req);
+                if (pages != null) {
+                    currentListing = pages.next();
+                } else if (currentListing == null) {
+                    currentListing = firstListing();
                 } else {
                     currentListing = getS3().listNextBatchOfVersions(
                             currentListing);
@@ -195,6 +225,20 @@ public class S3Versions implements Iterable<S3VersionSummary> {
             }
         }
 
+        private VersionListing firstListing() {
+            ListVersionsRequest req = new ListVersionsRequest();
+            req.setBucketName(getBucketName());
+
+            if (getKey() != null) {
+                req.setPrefix(getKey());
+            } else {
+                req.setPrefix(getPrefix());
+            }
+
+            req.setMaxResults(getBatchSize());
+            return getS3().listVersions(req);
+        }
+
     }
 
     @Override
@@ -0,0 +1,262 @@
+/*
+ * Copyright 2010-2014 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.s3.iterable;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import com.amazonaws.AbortedException;
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.ListObjectsRequest;
+import com.amazonaws.services.s3.model.ObjectListing;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.amazonaws.services.s3.model.S3ObjectSummaryHandler;
+
+/**
+ * Provides a way to iterate Amazon S3 objects at high throughput in a
+ * "foreach" statement. For example:
+ *
+ * <pre class="brush: java">
+ * for ( S3ObjectSummary summary : StreamingS3Objects.withPrefix(s3, &quot;my-bucket&quot;, &quot;photos/&quot;) ) {
+ *     System.out.printf(&quot;Object with key '%s'\n&quot;, summary.getKey());
+ * }
+ * </pre>
+ * <p>
+ * Unlike {@link S3Objects}, pages are listed by a background thread, and
+ * each object summary is handed over to the caller as soon as it is parsed
+ * via {@link AmazonS3#listObjects(ListObjectsRequest, S3ObjectSummaryHandler)}.
+ * The next page is therefore requested while the caller is still processing
+ * the current one. At most {@link #withBufferSize(int)} object summaries are
+ * buffered ahead of the caller. An iteration that is abandoned before it is
+ * exhausted should be canceled via {@link StreamingIterator#cancel()} so as
+ * to release the background thread.
+ */
+public class StreamingS3Objects implements Iterable<S3ObjectSummary> {
+    /** The default maximum number of object summaries buffered. */
+    public static final int DEFAULT_BUFFER_SIZE = 2000;
+
+    /** Marks the end of the listing in the buffer. */
+    private static final S3ObjectSummary END = new S3ObjectSummary();
+
+    private final AmazonS3 s3;
+    private final String bucketName;
+    private String prefix;
+    private Integer batchSize;
+    private int bufferSize = DEFAULT_BUFFER_SIZE;
+
+    private StreamingS3Objects(AmazonS3 s3, String bucketName) {
+        this.s3 = s3;
+        this.bucketName = bucketName;
+    }
+
+    /**
+     * Constructs an iterable that covers all the objects in an Amazon S3
+     * bucket.
+     *
+     * @param s3
+     *            The Amazon S3 client.
+     * @param bucketName
+     *            The bucket name.
+     * @return An iterable for object summaries.
+     */
+    public static StreamingS3Objects inBucket(AmazonS3 s3, String bucketName) {
+        return new StreamingS3Objects(s3, bucketName);
+    }
+
+    /**
+     * Constructs an iterable that covers the objects in an Amazon S3 bucket
+     * where the key begins with the given prefix.
+     *
+     * @param s3
+     *            The Amazon S3 client.
+     * @param bucketName
+     *            The bucket name.
+     * @param prefix
+     *            The prefix.
+     * @return An iterable for object summaries.
+     */
+    public static StreamingS3Objects withPrefix(AmazonS3 s3, String bucketName, String prefix) {
+        StreamingS3Objects objects = new StreamingS3Objects(s3, bucketName);
+        objects.prefix = prefix;
+        return objects;
+    }
+
+    /**
+     * Sets the batch size, i.e., how many {@link S3ObjectSummary}s will be
+     * fetched per request.
+     */
+    public StreamingS3Objects withBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of object summaries buffered ahead of the
+     * caller. Defaults to {@link #DEFAULT_BUFFER_SIZE}, which is two full
+     * pages.
+     */
+    public StreamingS3Objects withBufferSize(int bufferSize) {
+        if (bufferSize < 1)
+            throw new IllegalArgumentException("bufferSize must be at least one");
+        this.bufferSize = bufferSize;
+        return this;
+    }
+
+    public Integer getBatchSize() {
+        return batchSize;
+    }
+
+    public String getPrefix() {
+        return prefix;
+    }
+
+    public String getBucketName() {
+        return bucketName;
+    }
+
+    public AmazonS3 getS3() {
+        return s3;
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    /**
+     * Returns a new iterator, which starts listing upon the first call to
+     * {@link Iterator#hasNext()} or {@link Iterator#next()}.
+     */
+    @Override
+    public StreamingIterator iterator() {
+        return new StreamingIterator();
+    }
+
+    /**
+     * Iterator over the object summaries listed by a background thread.
+     */
+    public class StreamingIterator implements Iterator<S3ObjectSummary> {
+        private final BlockingQueue<S3ObjectSummary> buffer =
+                new LinkedBlockingQueue<S3ObjectSummary>(bufferSize);
+        private Thread thread;
+        private volatile boolean canceled;
+        private volatile AmazonClientException error;
+        private S3ObjectSummary next;
+        private boolean done;
+
+        @Override
+        public boolean hasNext() {
+            if (next != null)
+                return true;
+            if (done)
+                return false;
+            if (thread == null) {
+                thread = new Thread(new Lister(), "s3-streaming-listing");
+                thread.setDaemon(true);
+                thread.start();
+            }
+            try {
+                next = buffer.take();
+            } catch (InterruptedException e) {
+                cancel();
+                Thread.currentThread().interrupt();
+                throw new AbortedException("Listing interrupted", e);
+            }
+            if (next == END) {
+                next = null;
+                done = true;
+                if (error != null)
+                    throw error;
+                return false;
+            }
+            return true;
+        }
+
+        @Override
+        public S3ObjectSummary next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            S3ObjectSummary summary = next;
+            next = null;
+            return summary;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        /**
+         * Stops listing any further objects, and releases the background
+         * thread.
+         */
+        public void cancel() {
+            canceled = true;
+            if (thread != null)
+                thread.interrupt();
+        }
+
+        /**
+         * Lists the pages one after another in the background thread.
+         */
+        private final class Lister implements Runnable, S3ObjectSummaryHandler {
+            @Override
+            public void run() {
+                try {
+                    ListObjectsRequest req = new ListObjectsRequest()
+                        .withBucketName(bucketName)
+                        .withPrefix(prefix)
+                        .withMaxKeys(batchSize);
+                    while (!canceled) {
+                        ObjectListing listing = s3.listObjects(req, this);
+                        if (!listing.isTruncated())
+                            break;
+                        req = new ListObjectsRequest()
+                            .withBucketName(bucketName)
+                            .withPrefix(prefix)
+                            .withMarker(listing.getNextMarker())
+                            .withMaxKeys(batchSize);
+                    }
+                } catch (AmazonClientException e) {
+                    error = e;
+                } catch (RuntimeException e) {
+                    error = new AmazonClientException("Unable to list objects", e);
+                } finally {
+                    if (!canceled) {
+                        try {
+                            buffer.put(END);
+                        } catch (InterruptedException e) {
+                            // Canceled
+                        }
+                    }
+                }
+            }
+
+            /**
+             * Hands over the object summary to the caller as it is parsed.
+             */
+            @Override
+            public void handle(S3ObjectSummary summary) {
+                try {
+                    buffer.put(summary);
+                } catch (InterruptedException e) {
+                    throw new AbortedException("Listing canceled", e);
+                }
+            }
+        }
+    }
+}
@@ -43,6 +43,11 @@ public class CryptoConfiguration implements Cloneable {
      * null if no explicit KMS region is specified.
      */
     private Regions kmsRegion;
+    /**
+     * The policy for caching the data keys generated and decrypted via KMS;
+     * or null if data keys are not cached.
+     */
+    private DataKeyCachePolicy dataKeyCachePolicy;
 
     /**
      * Creates a new CryptoConfiguration object with default storage mode and
@@ -283,6 +288,14 @@ public class CryptoConfiguration implements Cloneable {
         @Override public CryptoConfiguration withKmsRegion(Regions kmsRegion) {
             throw new UnsupportedOperationException();
         }
+        @Override public void setDataKeyCachePolicy(
+                DataKeyCachePolicy dataKeyCachePolicy) {
+            throw new UnsupportedOperationException();
+        }
+        @Override public CryptoConfiguration withDataKeyCachePolicy(
+                DataKeyCachePolicy dataKeyCachePolicy) {
+            throw new UnsupportedOperationException();
+        }
     }
 
     /**
@@ -305,6 +318,7 @@ public class CryptoConfiguration implements Cloneable {
         that.cryptoProvider = this.cryptoProvider;
         that.ignoreMissingInstructionFile = this.ignoreMissingInstructionFile;
         that.kmsRegion = this.kmsRegion;
+        that.dataKeyCachePolicy = this.dataKeyCachePolicy;
         return that;
     }
 
@@ -342,4 +356,32 @@ public class CryptoConfiguration implements Cloneable {
         this.kmsRegion = kmsRegion;
         return this;
     }
+
+    /**
+     * Returns the policy for caching the data keys generated and decrypted
+     * via KMS; or null if data keys are not cached, which is the default.
+     */
+    public DataKeyCachePolicy getDataKeyCachePolicy() {
+        return dataKeyCachePolicy;
+    }
+
+    /**
+     * Sets the policy for caching the data keys generated and decrypted via
+     * KMS, so that encrypting and decrypting small objects is not bounded by
+     * the latency and rate limits of KMS; or null to disable caching. This
+     * policy is ignored unless KMS is used as the encryption material.
+     */
+    public void setDataKeyCachePolicy(DataKeyCachePolicy dataKeyCachePolicy) {
+        this.dataKeyCachePolicy = dataKeyCachePolicy;
+    }
+
+    /**
+     * Fluent API for setting the policy for caching the data keys generated
+     * and decrypted via KMS; or null to disable caching.
+     */
+    public CryptoConfiguration withDataKeyCachePolicy(
+            DataKeyCachePolicy dataKeyCachePolicy) {
+        this.dataKeyCachePolicy = dataKeyCachePolicy;
+        return this;
+    }
 }
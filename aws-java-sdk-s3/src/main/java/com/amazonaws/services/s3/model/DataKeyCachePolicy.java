@@ -0,0 +1,128 @@
+/*
+ * Copyright 2010-2014 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.s3.model;
+
+import org.apache.http.annotation.Immutable;
+
+import com.amazonaws.services.s3.AmazonS3EncryptionClient;
+
+/**
+ * Policy for caching the data keys generated and decrypted via AWS KMS by the
+ * S3 encryption client, which can be configured using
+ * {@link CryptoConfiguration}. Without caching, every encrypted object put
+ * into S3 requires a data key to be generated by KMS, and every encrypted
+ * object retrieved from S3 requires its data key to be decrypted by KMS, so
+ * that the throughput of small objects is bounded by the latency and rate
+ * limits of KMS.
+ * <ul>
+ * <li>A data key generated by KMS is reused to encrypt up to the configured
+ * number of objects with the same KMS customer master key and materials
+ * description, each object with its own randomly generated IV, until the data
+ * key expires.</li>
+ * <li>A data key decrypted by KMS, or generated by KMS by the same client, is
+ * reused to decrypt other objects secured by the same encrypted data key and
+ * materials description until the data key expires.</li>
+ * </ul>
+ * Each cache is bounded by the configured maximum number of entries, beyond
+ * which the least recently used data keys are evicted. Note that caching
+ * retains plaintext data keys in memory for up to the configured maximum
+ * age, and the use of a data key may no longer be audited via KMS once it has
+ * been cached.
+ * <p>
+ * This class is immutable, therefore safe to be shared by multiple clients.
+ *
+ * @see CryptoConfiguration#setDataKeyCachePolicy(DataKeyCachePolicy)
+ * @see AmazonS3EncryptionClient#getDataKeyCacheStatistics()
+ */
+@Immutable
+public final class DataKeyCachePolicy {
+    /** The default maximum number of data keys cached for each purpose. */
+    public static final int DEFAULT_MAX_ENTRIES = 100;
+
+    /** The default maximum time in milliseconds a data key is cached. */
+    public static final long DEFAULT_MAX_AGE_MILLIS = 5 * 60 * 1000;
+
+    /** The default maximum number of objects encrypted with a data key. */
+    public static final long DEFAULT_MAX_ENCRYPTION_USES = 1000;
+
+    /** Maximum number of data keys cached for each of encryption and decryption. */
+    private final int maxEntries;
+
+    /** Maximum time in milliseconds a data key is cached. */
+    private final long maxAgeMillis;
+
+    /** Maximum number of objects encrypted with the same data key. */
+    private final long maxEncryptionUses;
+
+    /**
+     * Constructs a new data key cache policy with the default maximum number
+     * of entries, maximum age and maximum number of encryption uses.
+     */
+    public DataKeyCachePolicy() {
+        this(DEFAULT_MAX_ENTRIES, DEFAULT_MAX_AGE_MILLIS,
+                DEFAULT_MAX_ENCRYPTION_USES);
+    }
+
+    /**
+     * Constructs a new data key cache policy.
+     *
+     * @param maxEntries
+     *            Maximum number of data keys cached for each of encryption
+     *            and decryption.
+     * @param maxAgeMillis
+     *            Maximum time in milliseconds a data key is cached since it
+     *            has been generated or decrypted by KMS.
+     * @param maxEncryptionUses
+     *            Maximum number of objects encrypted with the same data key.
+     */
+    public DataKeyCachePolicy(int maxEntries, long maxAgeMillis,
+            long maxEncryptionUses) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("maxEntries must be at least one");
+        }
+        if (maxAgeMillis < 1) {
+            throw new IllegalArgumentException("maxAgeMillis must be positive");
+        }
+        if (maxEncryptionUses < 1) {
+            throw new IllegalArgumentException("maxEncryptionUses must be at least one");
+        }
+        this.maxEntries = maxEntries;
+        this.maxAgeMillis = maxAgeMillis;
+        this.maxEncryptionUses = maxEncryptionUses;
+    }
+
+    /**
+     * Returns the maximum number of data keys cached for each of encryption
+     * and decryption.
+     */
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    /**
+     * Returns the maximum time in milliseconds a data key is cached since it
+     * has been generated or decrypted by KMS.
+     */
+    public long getMaxAgeMillis() {
+        return maxAgeMillis;
+    }
+
+    /**
+     * Returns the maximum number of objects encrypted with the same data key.
+     */
+    public long getMaxEncryptionUses() {
+        return maxEncryptionUses;
+    }
+}
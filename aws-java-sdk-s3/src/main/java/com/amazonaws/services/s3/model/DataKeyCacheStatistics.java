@@ -0,0 +1,77 @@
+/*
+ * Copyright 2010-2014 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.s3.model;
+
+import org.apache.http.annotation.Immutable;
+
+import com.amazonaws.services.s3.AmazonS3EncryptionClient;
+
+/**
+ * A snapshot of the statistics of the data key cache of an S3 encryption
+ * client, as configured via a {@link DataKeyCachePolicy}.
+ *
+ * @see AmazonS3EncryptionClient#getDataKeyCacheStatistics()
+ */
+@Immutable
+public final class DataKeyCacheStatistics {
+    private final long encryptionHits;
+    private final long encryptionMisses;
+    private final long decryptionHits;
+    private final long decryptionMisses;
+
+    public DataKeyCacheStatistics(long encryptionHits, long encryptionMisses,
+            long decryptionHits, long decryptionMisses) {
+        this.encryptionHits = encryptionHits;
+        this.encryptionMisses = encryptionMisses;
+        this.decryptionHits = decryptionHits;
+        this.decryptionMisses = decryptionMisses;
+    }
+
+    /**
+     * Returns the number of objects encrypted with a cached data key.
+     */
+    public long getEncryptionHits() {
+        return encryptionHits;
+    }
+
+    /**
+     * Returns the number of data keys generated via KMS for encryption.
+     */
+    public long getEncryptionMisses() {
+        return encryptionMisses;
+    }
+
+    /**
+     * Returns the number of objects decrypted with a cached data key.
+     */
+    public long getDecryptionHits() {
+        return decryptionHits;
+    }
+
+    /**
+     * Returns the number of data keys decrypted via KMS for decryption.
+     */
+    public long getDecryptionMisses() {
+        return decryptionMisses;
+    }
+
+    @Override
+    public String toString() {
+        return "encryptionHits=" + encryptionHits
+            + ", encryptionMisses=" + encryptionMisses
+            + ", decryptionHits=" + decryptionHits
+            + ", decryptionMisses=" + decryptionMisses;
+    }
+}
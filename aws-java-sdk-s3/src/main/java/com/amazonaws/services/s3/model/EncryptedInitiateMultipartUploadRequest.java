@@ -30,6 +30,8 @@ import com.amazonaws.services.s3.AmazonS3EncryptionClient;
  * <li>specify encryption material description on a per-request basis;</li>
  * <li>specify whether a new set of encryption material is to be created for the
  * upload or not;</li>
+ * <li>specify whether the parts of the upload are to be encrypted independently
+ * so they can be uploaded in parallel;</li>
  * </ul>
  * In particular, {@link EncryptedInitiateMultipartUploadRequest} is only
  * recognized by {@link AmazonS3EncryptionClient}.
@@ -50,6 +52,11 @@ public class EncryptedInitiateMultipartUploadRequest extends
      * otherwise. Default is true.
      */
     private boolean createEncryptionMaterial = true;
+    /**
+     * True if the parts are to be encrypted independently so they can be
+     * uploaded in parallel; false otherwise. Default is false.
+     */
+    private boolean parallelPartUploads;
     
     public EncryptedInitiateMultipartUploadRequest(String bucketName, String key) {
         super(bucketName, key);
@@ -111,4 +118,40 @@ public class EncryptedInitiateMultipartUploadRequest extends
         this.createEncryptionMaterial = createEncryptionMaterial;
         return this;
     }
+
+    /**
+     * Returns true if the parts are to be encrypted independently so they can
+     * be uploaded in parallel; false otherwise. Default is false.
+     * <p>
+     * Parallel part uploads are only supported by
+     * {@link AmazonS3EncryptionClient} configured with authenticated
+     * encryption, in which case each part must be uploaded from a file, and
+     * the last part must be uploaded after, or concurrently with, all the
+     * other parts. This attribute is otherwise ignored.
+     *
+     * @see AmazonS3EncryptionClient#isParallelPartUploadSupported()
+     */
+    public boolean isParallelPartUploads() {
+        return parallelPartUploads;
+    }
+
+    /**
+     * @param parallelPartUploads
+     *            true if the parts are to be encrypted independently so they
+     *            can be uploaded in parallel; false otherwise.
+     */
+    public void setParallelPartUploads(boolean parallelPartUploads) {
+        this.parallelPartUploads = parallelPartUploads;
+    }
+
+    /**
+     * @param parallelPartUploads
+     *            true if the parts are to be encrypted independently so they
+     *            can be uploaded in parallel; false otherwise.
+     */
+    public EncryptedInitiateMultipartUploadRequest withParallelPartUploads(
+            boolean parallelPartUploads) {
+        this.parallelPartUploads = parallelPartUploads;
+        return this;
+    }
 }
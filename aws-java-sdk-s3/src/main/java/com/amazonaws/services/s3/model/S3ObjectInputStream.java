@@ -92,6 +92,14 @@ public class S3ObjectInputStream extends SdkFilterInputStream {
         IOUtils.closeQuietly(in, null);
     }
 
+    /**
+     * Returns the input stream directly wrapped by this stream.
+     * This method is intended only for internal use by the AWS SDK.
+     */
+    public InputStream getDelegateStream() {
+        return in;
+    }
+
     /**
      * Returns the http request from which this input stream is derived.
      */
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2010-2014 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.s3.model;
+
+import com.amazonaws.services.s3.AmazonS3;
+
+/**
+ * Receives the object summaries of a listing one at a time as the response is
+ * being parsed, instead of having them collected into an
+ * {@link ObjectListing}.
+ * <p>
+ * Each summary is delivered at most once per listing request, in the order of
+ * the keys, by the thread executing the request; the handler is never called
+ * concurrently for the same request. If the request is retried after a
+ * failure part way through the response, the summaries already delivered are
+ * skipped when the response is parsed again. However, the summaries delivered
+ * before a request ultimately fails are not taken back, so a caller that
+ * retries a failed listing itself should expect to see them again, unless it
+ * resumes from the last key it has handled.
+ * <p>
+ * A listing request with a summary handler is never coalesced with identical
+ * requests, served from the response cache, or hedged, regardless of the
+ * client configuration.
+ *
+ * @see AmazonS3#listObjects(ListObjectsRequest, S3ObjectSummaryHandler)
+ */
+public interface S3ObjectSummaryHandler {
+    /**
+     * Handles the summary of the next object of the listing, which is called
+     * in the order of the keys from the thread parsing the response. Any
+     * exception thrown fails the listing.
+     */
+    public void handle(S3ObjectSummary summary);
+}
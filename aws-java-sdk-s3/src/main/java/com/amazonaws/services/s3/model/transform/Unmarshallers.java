@@ -33,6 +33,8 @@ import com.amazonaws.services.s3.model.ObjectListing;
 import com.amazonaws.services.s3.model.Owner;
 import com.amazonaws.services.s3.model.PartListing;
 import com.amazonaws.services.s3.model.RequestPaymentConfiguration;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.amazonaws.services.s3.model.S3ObjectSummaryHandler;
 import com.amazonaws.services.s3.model.VersionListing;
 import com.amazonaws.services.s3.model.transform.XmlResponsesSaxParser.BucketCrossOriginConfigurationHandler;
 import com.amazonaws.services.s3.model.transform.XmlResponsesSaxParser.CompleteMultipartUploadHandler;
@@ -78,6 +80,54 @@ public class Unmarshallers {
         }
     }
 
+    /**
+     * Unmarshaller for the ListObjects XML response, which delivers the object
+     * summaries to a handler as they are parsed. If the response is parsed
+     * again, such as when the request is retried after a failure part way
+     * through the response, the summaries already delivered are skipped.
+     */
+    public static final class StreamingListObjectsUnmarshaller implements
+            Unmarshaller<ObjectListing, InputStream> {
+        private final S3ObjectSummaryHandler summaryHandler;
+        /** The key of the last summary delivered to the handler; or null. */
+        private String lastDeliveredKey;
+
+        public StreamingListObjectsUnmarshaller(S3ObjectSummaryHandler summaryHandler) {
+            this.summaryHandler = summaryHandler;
+        }
+
+        public ObjectListing unmarshall(InputStream in) throws Exception {
+            return new XmlResponsesSaxParser()
+                    .parseListBucketObjectsResponse(in, new S3ObjectSummaryHandler() {
+                        public void handle(S3ObjectSummary summary) {
+                            if (lastDeliveredKey != null
+                                    && compareKeys(summary.getKey(), lastDeliveredKey) <= 0)
+                                return;
+                            summaryHandler.handle(summary);
+                            lastDeliveredKey = summary.getKey();
+                        }
+                    })
+                    .getObjectListing();
+        }
+
+        /**
+         * Compares the given keys in the order in which they are listed, which
+         * is the binary order of their UTF-8 encoding, and therefore the order
+         * of their code points.
+         */
+        private static int compareKeys(String a, String b) {
+            int i = 0, j = 0;
+            while (i < a.length() && j < b.length()) {
+                int ca = a.codePointAt(i), cb = b.codePointAt(j);
+                if (ca != cb)
+                    return ca < cb ? -1 : 1;
+                i += Character.charCount(ca);
+                j += Character.charCount(cb);
+            }
+            return (a.length() - i) - (b.length() - j);
+        }
+    }
+
     /**
      * Unmarshaller for the ListVersions XML response.
      */
@@ -17,10 +17,7 @@
  */
 package com.amazonaws.services.s3.model.transform;
 
-import static com.amazonaws.util.StringUtils.UTF8;
-
 import java.io.BufferedReader;
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
@@ -43,6 +40,7 @@ import org.xml.sax.helpers.DefaultHandler;
 import org.xml.sax.helpers.XMLReaderFactory;
 
 import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.s3.internal.CarriageReturnEscapingInputStream;
 import com.amazonaws.services.s3.internal.Constants;
 import com.amazonaws.services.s3.internal.DeleteObjectsResponse;
 import com.amazonaws.services.s3.internal.ObjectExpirationResult;
@@ -88,6 +86,7 @@ import com.amazonaws.services.s3.model.RequestPaymentConfiguration.Payer;
 import com.amazonaws.services.s3.model.RoutingRule;
 import com.amazonaws.services.s3.model.RoutingRuleCondition;
 import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.amazonaws.services.s3.model.S3ObjectSummaryHandler;
 import com.amazonaws.services.s3.model.S3VersionSummary;
 import com.amazonaws.services.s3.model.StorageClass;
 import com.amazonaws.services.s3.model.TagSet;
@@ -173,52 +172,13 @@ public class XmlResponsesSaxParser {
                 log.debug("Sanitizing XML document destined for handler " + handler.getClass());
             }
 
-            InputStream sanitizedInputStream = null;
-
-            try {
-
-                /*
-                 * Read object listing XML document from input stream provided into a
-                 * string buffer, so we can replace troublesome characters before
-                 * sending the document to the XML parser.
-                 */
-                StringBuilder listingDocBuffer = new StringBuilder();
-                BufferedReader br = new BufferedReader(
-                    new InputStreamReader(inputStream, Constants.DEFAULT_ENCODING));
-
-                char[] buf = new char[8192];
-                int read = -1;
-                while ((read = br.read(buf)) != -1) {
-                    listingDocBuffer.append(buf, 0, read);
-                }
-                br.close();
-
-                /*
-                 * Replace any carriage return (\r) characters with explicit XML
-                 * character entities, to prevent the SAX parser from
-                 * misinterpreting 0x0D characters as 0x0A and being unable to
-                 * parse the XML.
-                 */
-                String listingDoc = listingDocBuffer.toString().replaceAll("\r", "&#013;");
-
-                sanitizedInputStream = new ByteArrayInputStream(
-                    listingDoc.getBytes(UTF8));
-
-            } catch (IOException e) {
-                throw e;
-
-            } catch (Throwable t) {
-                try {
-                    inputStream.close();
-                } catch (IOException e) {
-                    if (log.isErrorEnabled()) {
-                        log.error("Unable to close response InputStream after failure sanitizing XML document", e);
-                    }
-                }
-                throw new AmazonClientException("Failed to sanitize XML document destined for handler "
-                    + handler.getClass(), t);
-            }
-            return sanitizedInputStream;
+            /*
+             * Replace any carriage return (\r) characters with explicit XML
+             * character entities as the document is read, to prevent the SAX
+             * parser from misinterpreting 0x0D characters as 0x0A and being
+             * unable to parse the XML.
+             */
+            return new CarriageReturnEscapingInputStream(inputStream);
         }
     }
 
@@ -296,6 +256,26 @@ public class XmlResponsesSaxParser {
         return handler;
     }
 
+    /**
+     * Parses a ListBucket response XML document from an input stream,
+     * delivering each object summary to the given handler as it is parsed
+     * rather than collecting them into the object listing.
+     *
+     * @param inputStream
+     *            XML data input stream.
+     * @param summaryHandler
+     *            the handler of the object summaries.
+     * @return the XML handler object populated with data parsed from the XML
+     *         stream, except for the object summaries.
+     * @throws AmazonClientException
+     */
+    public ListBucketHandler parseListBucketObjectsResponse(InputStream inputStream,
+            S3ObjectSummaryHandler summaryHandler) throws IOException {
+        ListBucketHandler handler = new ListBucketHandler(summaryHandler);
+        parseXmlInputStream(handler, sanitizeXmlDocument(handler, inputStream));
+        return handler;
+    }
+
     /**
      * Parses a ListVersions response XML document from an input stream.
      *
@@ -480,11 +460,27 @@ public class XmlResponsesSaxParser {
      */
     public static class ListBucketHandler extends AbstractHandler {
         private final ObjectListing objectListing = new ObjectListing();
+        /** The handler of object summaries if streaming; or null. */
+        private final S3ObjectSummaryHandler summaryHandler;
 
         private S3ObjectSummary currentObject = null;
         private Owner currentOwner = null;
         private String lastKey = null;
 
+        public ListBucketHandler() {
+            this(null);
+        }
+
+        /**
+         * @param summaryHandler
+         *            the handler to which object summaries are delivered as
+         *            they are parsed; or null to collect them into the object
+         *            listing.
+         */
+        public ListBucketHandler(S3ObjectSummaryHandler summaryHandler) {
+            this.summaryHandler = summaryHandler;
+        }
+
         public ObjectListing getObjectListing() {
             return objectListing;
         }
@@ -529,6 +525,9 @@ public class XmlResponsesSaxParser {
                                 .get(objectListing.getObjectSummaries().size() - 1)
                                 .getKey();
 
+                        } else if (summaryHandler != null && lastKey != null) {
+                            nextMarker = lastKey;
+
                         } else if (!objectListing.getCommonPrefixes().isEmpty()) {
                             nextMarker = objectListing.getCommonPrefixes()
                                 .get(objectListing.getCommonPrefixes().size() - 1);
@@ -584,7 +583,10 @@ public class XmlResponsesSaxParser {
                     }
 
                 } else if (name.equals("Contents")) {
-                    objectListing.getObjectSummaries().add(currentObject);
+                    if (summaryHandler == null)
+                        objectListing.getObjectSummaries().add(currentObject);
+                    else
+                        summaryHandler.handle(currentObject);
                     currentObject = null;
                 }
             }
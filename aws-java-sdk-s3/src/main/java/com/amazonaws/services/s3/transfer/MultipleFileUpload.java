@@ -34,6 +34,10 @@ public interface  MultipleFileUpload extends Transfer {
 
     /**
      * Returns a collection of sub transfers associated with the multi file upload.
+     * Files are dispatched as they are found with a bounded number of uploads
+     * in flight, so the returned collection is a snapshot of the sub
+     * transfers in flight at the time of the call. Consecutive small files
+     * may be uploaded by a single sub transfer.
      */
     public Collection<? extends Upload> getSubTransfers();
 
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2010-2014 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.s3.transfer;
+
+/**
+ * Server-side copy, or move, of all the objects under a key prefix to another
+ * key prefix. The progress is reported in terms of the bytes copied, with the
+ * total bytes to transfer growing as the objects are listed.
+ */
+public interface MultipleObjectCopy extends Transfer {
+
+    /**
+     * Returns the name of the bucket from which objects are copied.
+     */
+    public String getSourceBucketName();
+
+    /**
+     * Returns the key prefix of the objects being copied.
+     */
+    public String getSourceKeyPrefix();
+
+    /**
+     * Returns the name of the bucket to which objects are copied.
+     */
+    public String getDestinationBucketName();
+
+    /**
+     * Returns the key prefix replacing the source key prefix in the keys of
+     * the copied objects.
+     */
+    public String getDestinationKeyPrefix();
+
+    /**
+     * Returns the number of objects copied so far.
+     */
+    public long getObjectsCopied();
+
+    /**
+     * Returns the number of objects that could not be copied, or whose source
+     * could not be deleted when moving, so far.
+     */
+    public long getObjectsFailed();
+
+    /**
+     * Cancels this copy. Objects already copied, or moved, are left as they
+     * are.
+     */
+    public void abort();
+}
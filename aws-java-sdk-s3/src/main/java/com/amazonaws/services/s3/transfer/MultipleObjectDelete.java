@@ -0,0 +1,56 @@
+/*
+ * Copyright 2010-2014 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.s3.transfer;
+
+/**
+ * Bulk deletion of all the objects under a key prefix. The progress of the
+ * deletion is reported in terms of the total size of the objects deleted,
+ * with the total bytes to transfer growing as the objects are listed.
+ */
+public interface MultipleObjectDelete extends Transfer {
+
+    /**
+     * Returns the key prefix of the objects being deleted.
+     */
+    public String getKeyPrefix();
+
+    /**
+     * Returns the name of the bucket from which objects are deleted.
+     */
+    public String getBucketName();
+
+    /**
+     * Returns the number of objects deleted so far.
+     */
+    public long getObjectsDeleted();
+
+    /**
+     * Returns the number of objects that could not be deleted after all the
+     * retries so far.
+     */
+    public long getObjectsFailed();
+
+    /**
+     * Returns the average number of objects deleted per second since the
+     * deletion started, up to the time it is done; or zero if it has not yet
+     * started.
+     */
+    public double getObjectsPerSecond();
+
+    /**
+     * Cancels this deletion. Objects already deleted are not restored.
+     */
+    public void abort();
+}
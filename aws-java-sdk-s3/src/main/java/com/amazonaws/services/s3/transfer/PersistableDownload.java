@@ -63,6 +63,28 @@ public final class PersistableDownload extends PersistableTransfer {
     @JsonProperty
     private final String file;
 
+    /**
+     * The size of each byte range if the object is downloaded in multiple
+     * parts; or zero otherwise.
+     */
+    @JsonProperty
+    private final long partSize;
+
+    /** The length of the object if downloaded in multiple parts. */
+    @JsonProperty
+    private final long contentLength;
+
+    /**
+     * The ETag of the object if downloaded in multiple parts, used to ensure
+     * the remaining parts are of the same object on resume.
+     */
+    @JsonProperty
+    private final String eTag;
+
+    /** The indices of the parts that have been completely downloaded. */
+    @JsonProperty
+    private final int[] completedParts;
+
     public PersistableDownload() {
         this(null, null, null, null, null, false, null);
     }
@@ -82,6 +104,30 @@ public final class PersistableDownload extends PersistableTransfer {
         this.responseHeaders = responseHeaders;
         this.isRequesterPays = isRequesterPays;
         this.file = file;
+        this.partSize = 0;
+        this.contentLength = 0;
+        this.eTag = null;
+        this.completedParts = null;
+    }
+
+    /**
+     * Constructs the state of a download in multiple parts.
+     */
+    public PersistableDownload(String bucketName, String key, String versionId,
+            ResponseHeaderOverrides responseHeaders, boolean isRequesterPays,
+            String file, long partSize, long contentLength, String eTag,
+            int[] completedParts) {
+        this.bucketName = bucketName;
+        this.key = key;
+        this.versionId = versionId;
+        this.range = null;
+        this.responseHeaders = responseHeaders;
+        this.isRequesterPays = isRequesterPays;
+        this.file = file;
+        this.partSize = partSize;
+        this.contentLength = contentLength;
+        this.eTag = eTag;
+        this.completedParts = completedParts == null ? null : completedParts.clone();
     }
 
     /**
@@ -134,6 +180,35 @@ public final class PersistableDownload extends PersistableTransfer {
         return file;
     }
 
+    /**
+     * Returns the size of each byte range if the object is downloaded in
+     * multiple parts; or zero otherwise.
+     */
+    long getPartSize() {
+        return partSize;
+    }
+
+    /**
+     * Returns the length of the object if downloaded in multiple parts.
+     */
+    long getContentLength() {
+        return contentLength;
+    }
+
+    /**
+     * Returns the ETag of the object if downloaded in multiple parts.
+     */
+    String getETag() {
+        return eTag;
+    }
+
+    /**
+     * Returns the indices of the parts that have been completely downloaded.
+     */
+    int[] getCompletedParts() {
+        return completedParts == null ? null : completedParts.clone();
+    }
+
     String getPauseType() {
         return pauseType;
     }
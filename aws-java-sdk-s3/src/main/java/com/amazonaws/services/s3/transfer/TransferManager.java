@@ -20,7 +20,11 @@ import static com.amazonaws.services.s3.internal.ServiceUtils.OVERWRITE_MODE;
 import java.io.File;
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Stack;
@@ -51,8 +55,10 @@ import com.amazonaws.event.ProgressListenerChain;
 import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.AmazonS3Client;
 import com.amazonaws.services.s3.AmazonS3Encryption;
+import com.amazonaws.services.s3.AmazonS3EncryptionClient;
 import com.amazonaws.services.s3.internal.Mimetypes;
 import com.amazonaws.services.s3.internal.ServiceUtils;
+import com.amazonaws.services.s3.internal.crypto.MultipartDownloadCryptoContext;
 import com.amazonaws.services.s3.model.AbortMultipartUploadRequest;
 import com.amazonaws.services.s3.model.CopyObjectRequest;
 import com.amazonaws.services.s3.model.GetObjectMetadataRequest;
@@ -67,22 +73,35 @@ import com.amazonaws.services.s3.model.PutObjectRequest;
 import com.amazonaws.services.s3.model.S3Object;
 import com.amazonaws.services.s3.model.S3ObjectSummary;
 import com.amazonaws.services.s3.transfer.Transfer.TransferState;
+import com.amazonaws.services.s3.transfer.internal.BulkDeleteCallable;
 import com.amazonaws.services.s3.transfer.internal.CopyCallable;
 import com.amazonaws.services.s3.transfer.internal.CopyImpl;
 import com.amazonaws.services.s3.transfer.internal.CopyMonitor;
+import com.amazonaws.services.s3.transfer.internal.DirectorySyncPlanner;
 import com.amazonaws.services.s3.transfer.internal.DownloadImpl;
 import com.amazonaws.services.s3.transfer.internal.DownloadMonitor;
+import com.amazonaws.services.s3.transfer.internal.DownloadSyncPlanner;
+import com.amazonaws.services.s3.transfer.internal.FileTreeIterator;
+import com.amazonaws.services.s3.transfer.internal.MultipartDownloadCallable;
 import com.amazonaws.services.s3.transfer.internal.MultipleFileDownloadImpl;
+import com.amazonaws.services.s3.transfer.internal.MultipleFileTransferDispatcher;
+import com.amazonaws.services.s3.transfer.internal.MultipleFileTransferDispatcher.SubTransferSource;
 import com.amazonaws.services.s3.transfer.internal.MultipleFileTransferMonitor;
 import com.amazonaws.services.s3.transfer.internal.MultipleFileUploadImpl;
+import com.amazonaws.services.s3.transfer.internal.MultipleObjectCopyImpl;
+import com.amazonaws.services.s3.transfer.internal.MultipleObjectDeleteImpl;
+import com.amazonaws.services.s3.transfer.internal.PrefixCopyCallable;
 import com.amazonaws.services.s3.transfer.internal.S3ProgressListener;
 import com.amazonaws.services.s3.transfer.internal.S3ProgressListenerChain;
 import com.amazonaws.services.s3.transfer.internal.TransferManagerUtils;
 import com.amazonaws.services.s3.transfer.internal.TransferProgressUpdatingListener;
 import com.amazonaws.services.s3.transfer.internal.TransferStateChangeListener;
+import com.amazonaws.services.s3.transfer.internal.UploadBatchCallable;
+import com.amazonaws.services.s3.transfer.internal.UploadBatchImpl;
 import com.amazonaws.services.s3.transfer.internal.UploadCallable;
 import com.amazonaws.services.s3.transfer.internal.UploadImpl;
 import com.amazonaws.services.s3.transfer.internal.UploadMonitor;
+import com.amazonaws.services.s3.transfer.internal.UploadSyncPlanner;
 import com.amazonaws.util.VersionInfoUtils;
 
 /**
@@ -595,7 +614,7 @@ public class TransferManager {
         transferProgress.setTotalBytesToTransfer(TransferManagerUtils
                 .getContentLength(putObjectRequest));
 
-        S3ProgressListenerChain listenerChain = new S3ProgressListenerChain(
+        S3ProgressListenerChain listenerChain = newListenerChain(
                 new TransferProgressUpdatingListener(transferProgress),
                 putObjectRequest.getGeneralProgressListener(), progressListener);
 
@@ -742,6 +761,20 @@ public class TransferManager {
             final File file, final TransferStateChangeListener stateListener,
             final S3ProgressListener s3progressListener,
             final boolean resumeExistingDownload) {
+        return doDownload(getObjectRequest, file, stateListener,
+                s3progressListener, resumeExistingDownload, null);
+    }
+
+    /**
+     * @param pausedDownload
+     *            the state of the paused multi-part download to be resumed;
+     *            or null if there is none.
+     */
+    private Download doDownload(final GetObjectRequest getObjectRequest,
+            final File file, final TransferStateChangeListener stateListener,
+            final S3ProgressListener s3progressListener,
+            final boolean resumeExistingDownload,
+            final PersistableDownload pausedDownload) {
 
         appendSingleObjectUserAgent(getObjectRequest);
 
@@ -749,7 +782,7 @@ public class TransferManager {
 
         TransferProgress transferProgress = new TransferProgress();
         // S3 progress listener to capture the persistable transfer when available
-        S3ProgressListenerChain listenerChain = new S3ProgressListenerChain(
+        S3ProgressListenerChain listenerChain = newListenerChain(
             // The listener for updating transfer progress
             new TransferProgressUpdatingListener(transferProgress),
             getObjectRequest.getGeneralProgressListener(),
@@ -798,7 +831,9 @@ public class TransferManager {
         long totalBytesToDownload = lastByte - startingByte + 1;
         transferProgress.setTotalBytesToTransfer(totalBytesToDownload);
 
-        if (resumeExistingDownload) {
+        // A paused multi-part download is resumed by its completed parts
+        if (resumeExistingDownload
+                && (pausedDownload == null || pausedDownload.getPartSize() <= 0)) {
             if (file.exists()) {
                 long numberOfBytesRead = file.length();
                 startingByte = startingByte + numberOfBytesRead;
@@ -815,13 +850,112 @@ public class TransferManager {
         }
 
         final CountDownLatch latch = new CountDownLatch(1);
-        Future<?> future = submitDownloadTask(getObjectRequest, file,
-                resumeExistingDownload, latch, download);
+        final MultipartDownloadCallable multipartDownload =
+            newMultipartDownload(getObjectRequest, file, objectMetadata,
+                resumeExistingDownload, pausedDownload);
+        final Future<?> future;
+        if (multipartDownload == null) {
+            future = submitDownloadTask(getObjectRequest, file,
+                    resumeExistingDownload, latch, download);
+        } else {
+            S3Object s3Object = new S3Object();
+            s3Object.setBucketName(getObjectRequest.getBucketName());
+            s3Object.setKey(getObjectRequest.getKey());
+            s3Object.setObjectMetadata(objectMetadata);
+            download.setS3Object(s3Object);
+            download.setMultipartDownload(multipartDownload);
+            transferProgress.updateProgress(multipartDownload.getCompletedBytes());
+            future = submitMultipartDownloadTask(multipartDownload, latch,
+                    download);
+        }
         download.setMonitor(new DownloadMonitor(download, future));
         latch.countDown();
         return download;
     }
 
+    /**
+     * Returns a new multi-part download of the given request; or null if the
+     * object is to be downloaded using a single connection. An object
+     * encrypted with AES/GCM is downloaded in parts via the
+     * {@link AmazonS3EncryptionClient}, which decrypts the parts independently
+     * and authenticates the whole content once all parts have been
+     * downloaded.
+     */
+    private MultipartDownloadCallable newMultipartDownload(
+            final GetObjectRequest getObjectRequest, final File file,
+            final ObjectMetadata objectMetadata,
+            final boolean resumeExistingDownload,
+            final PersistableDownload pausedDownload) {
+        final String eTag = objectMetadata.getETag();
+        if (eTag == null || getObjectRequest.getRange() != null)
+            return null;
+        final boolean resumable = pausedDownload != null
+                && pausedDownload.getPartSize() > 0;
+        if (!resumable && (resumeExistingDownload
+                || objectMetadata.getContentLength() < configuration.getMultipartDownloadThreshold()))
+            return null;
+        long contentLength = objectMetadata.getContentLength();
+        int blockSize = 1;
+        MultipartDownloadCryptoContext cryptoContext = null;
+        if (s3 instanceof AmazonS3Encryption) {
+            if (!(s3 instanceof AmazonS3EncryptionClient))
+                return null;
+            cryptoContext = ((AmazonS3EncryptionClient) s3)
+                .newMultipartDownloadContext(getObjectRequest, objectMetadata);
+            if (cryptoContext == null)
+                return null;
+            contentLength = cryptoContext.getPlaintextLength();
+            blockSize = cryptoContext.getBlockSize();
+        }
+        if (resumable) {
+            if (eTag.equals(pausedDownload.getETag())
+                    && contentLength == pausedDownload.getContentLength()
+                    && pausedDownload.getPartSize() % blockSize == 0) {
+                return new MultipartDownloadCallable(s3, threadPool,
+                    getObjectRequest, file, contentLength,
+                    pausedDownload.getPartSize(), eTag,
+                    pausedDownload.getCompletedParts(), cryptoContext);
+            }
+            // The paused parts are of a different object; the file is
+            // truncated as the multi-part download starts over.
+            log.info("Object " + getObjectRequest.getKey()
+                + " has been modified since the download was paused;"
+                + " downloading the whole object again");
+        }
+        // Parts of an encrypted object must start at cipher block boundaries
+        long partSize = configuration.getMultipartDownloadPartSize();
+        partSize = (partSize + blockSize - 1) / blockSize * blockSize;
+        return new MultipartDownloadCallable(s3, threadPool, getObjectRequest,
+            file, contentLength, partSize, eTag, null, cryptoContext);
+    }
+
+    private Future<?> submitMultipartDownloadTask(
+            final MultipartDownloadCallable multipartDownload,
+            final CountDownLatch latch,
+            final DownloadImpl download) {
+        return threadPool.submit(new Callable<Object>() {
+            @Override
+            public Object call() throws Exception {
+                try {
+                    latch.await();
+                    download.setState(TransferState.InProgress);
+                    multipartDownload.call();
+                    download.setState(TransferState.Completed);
+                    return true;
+                } catch (Throwable t) {
+                    // Downloads aren't allowed to move from canceled to failed
+                    if (download.getState() != TransferState.Canceled) {
+                        download.setState(TransferState.Failed);
+                    }
+                    if (t instanceof Exception)
+                        throw (Exception) t;
+                    else
+                        throw (Error) t;
+                }
+            }
+        });
+    }
+
     private Future<?> submitDownloadTask(
             final GetObjectRequest getObjectRequest, final File file,
             final boolean resumeExistingDownload,
@@ -857,7 +991,8 @@ public class TransferManager {
                                     performIntegrityCheck = false;
                                 return performIntegrityCheck;
                             }
-                        }, resumeExistingDownload);
+                        }, resumeExistingDownload,
+                        configuration.isPreallocateDownloadFiles());
 
                     if (s3Object == null) {
                         download.setState(TransferState.Canceled);
@@ -946,7 +1081,7 @@ public class TransferManager {
         } while ( !commonPrefixes.isEmpty() );
 
         /* This is the hook for adding additional progress listeners */
-        ProgressListenerChain additionalListeners = new ProgressListenerChain();
+        ProgressListenerChain additionalListeners = newListenerChain();
 
         TransferProgress transferProgress = new TransferProgress();
         transferProgress.setTotalBytesToTransfer(totalSize);
@@ -1070,10 +1205,10 @@ public class TransferManager {
             throw new IllegalArgumentException("Must provide a directory to upload");
         }
 
-        List<File> files = new LinkedList<File>();
-        listFiles(directory, files, includeSubdirectories);
-
-        return uploadFileList(bucketName, virtualDirectoryKeyPrefix, directory, files, metadataProvider);
+        // Files are found lazily while being uploaded
+        return uploadFiles(bucketName, virtualDirectoryKeyPrefix, directory,
+                new FileTreeIterator(directory, includeSubdirectories), -1,
+                metadataProvider);
     }
 
     /**
@@ -1146,6 +1281,37 @@ public class TransferManager {
      *            is used to provide metadata for each file being uploaded.
      */
     public MultipleFileUpload uploadFileList(String bucketName, String virtualDirectoryKeyPrefix, File directory, List<File> files,ObjectMetadataProvider metadataProvider) {
+        if (files == null)
+            files = Collections.emptyList();
+        long totalSize = 0;
+        for (File f : files) {
+            // Check, if file, since only files can be uploaded.
+            if (f.isFile())
+                totalSize += f.length();
+        }
+        return uploadFiles(bucketName, virtualDirectoryKeyPrefix, directory,
+                files.iterator(), totalSize, metadataProvider);
+    }
+
+    /**
+     * Uploads the given files to the bucket named, keeping at most a bounded
+     * number of file uploads in flight at any time, and batching consecutive
+     * small files.
+     * <p>
+     * The files are dispatched by the thread pool as uploads finish, without
+     * any thread waiting for an upload, so this method returns immediately
+     * and works with a thread pool of any size. The iterator is never used
+     * by more than one thread at a time, so it need not be thread-safe.
+     *
+     * @param totalSize
+     *            the total size of the files; or -1 if not known in advance,
+     *            in which case the total bytes to transfer grows as the files
+     *            are dispatched.
+     */
+    private MultipleFileUpload uploadFiles(final String bucketName,
+            String virtualDirectoryKeyPrefix, File directory,
+            final Iterator<File> files, long totalSize,
+            final ObjectMetadataProvider metadataProvider) {
 
         if ( directory == null || !directory.exists() || !directory.isDirectory() ) {
             throw new IllegalArgumentException("Must provide a common base directory for uploaded files");
@@ -1156,94 +1322,480 @@ public class TransferManager {
         } else if ( !virtualDirectoryKeyPrefix.endsWith("/") ) {
             virtualDirectoryKeyPrefix = virtualDirectoryKeyPrefix + "/";
         }
+        final String keyPrefix = virtualDirectoryKeyPrefix;
 
         /* This is the hook for adding additional progress listeners */
-        ProgressListenerChain additionalListeners = new ProgressListenerChain();
-        TransferProgress progress = new TransferProgress();
+        ProgressListenerChain additionalListeners = newListenerChain();
+        final TransferProgress progress = new TransferProgress();
+        final boolean totalSizeKnown = totalSize >= 0;
+        progress.setTotalBytesToTransfer(totalSizeKnown ? totalSize : 0);
         /*
          * Bind additional progress listeners to this
          * MultipleFileTransferProgressUpdatingListener to receive
          * ByteTransferred events from each single-file upload implementation.
          */
-        ProgressListener listener = new MultipleFileTransferProgressUpdatingListener(
+        final ProgressListener listener = new MultipleFileTransferProgressUpdatingListener(
                 progress, additionalListeners);
 
-        List<UploadImpl> uploads = new LinkedList<UploadImpl>();
+        // Only the in-flight uploads are retained
+        Collection<Upload> uploads = Collections.synchronizedSet(new LinkedHashSet<Upload>());
         MultipleFileUploadImpl multipleFileUpload = new MultipleFileUploadImpl("Uploading etc", progress, additionalListeners, virtualDirectoryKeyPrefix, bucketName, uploads);
-        multipleFileUpload.setMonitor(new MultipleFileTransferMonitor(multipleFileUpload, uploads));
-        final CountDownLatch latch = new CountDownLatch(1);
-        MultipleFileTransferStateChangeListener transferListener =
-            new MultipleFileTransferStateChangeListener(latch, multipleFileUpload);
-        if (files == null || files.isEmpty()) {
-            multipleFileUpload.setState(TransferState.Completed);
-        } else {
-            /*
-             * If the absolute path for the common/base directory does NOT end
-             * in a separator (which is the case for anything but root
-             * directories), then we know there's still a separator between the
-             * base directory and the rest of the file's path, so we increment
-             * the starting position by one.
-             */
-            int startingPosition = directory.getAbsolutePath().length();
-            if (!(directory.getAbsolutePath().endsWith(File.separator)))
-                startingPosition++;
-
-            long totalSize = 0;
-            for (File f : files) {
-                // Check, if file, since only files can be uploaded.
-                if (f.isFile()) {
-                    totalSize += f.length();
-
-                    String key = f.getAbsolutePath()
-                            .substring(startingPosition)
-                            .replaceAll("\\\\", "/");
-
-                    ObjectMetadata metadata = new ObjectMetadata();
-
-                    // Invoke the callback if it's present.
-                    // The callback allows the user to customize the metadata
-                    // for each file being uploaded.
-                    if (metadataProvider != null) {
-                        metadataProvider.provideObjectMetadata(f, metadata);
+
+        /*
+         * If the absolute path for the common/base directory does NOT end
+         * in a separator (which is the case for anything but root
+         * directories), then we know there's still a separator between the
+         * base directory and the rest of the file's path, so we increment
+         * the starting position by one.
+         */
+        int position = directory.getAbsolutePath().length();
+        if (!(directory.getAbsolutePath().endsWith(File.separator)))
+            position++;
+        final int startingPosition = position;
+        final long batchThreshold = configuration.getUploadBatchThreshold();
+
+        MultipleFileTransferDispatcher<Upload> dispatcher = new MultipleFileTransferDispatcher<Upload>(
+                multipleFileUpload, uploads, new SubTransferSource<Upload>() {
+                    /** A file found but not yet dispatched. */
+                    private File pending;
+
+                    @Override
+                    public Upload startNext(TransferStateChangeListener stateListener) {
+                        List<PutObjectRequest> batch = null;
+                        long batchSize = 0;
+                        while (batch == null || batch.size() < MAX_UPLOAD_BATCH_SIZE) {
+                            File f = pending != null ? pending : nextFile();
+                            pending = null;
+                            if (f == null)
+                                break;
+                            long length = f.length();
+                            if (batchThreshold <= 0 || length > batchThreshold) {
+                                if (batch != null) {
+                                    // Dispatched after the current batch
+                                    pending = f;
+                                    break;
+                                }
+                                addToTotal(length);
+                                return doUpload(newRequest(f)
+                                        .<PutObjectRequest> withGeneralProgressListener(listener),
+                                        stateListener, null, null);
+                            }
+                            if (batch == null)
+                                batch = new ArrayList<PutObjectRequest>();
+                            batch.add(newRequest(f));
+                            batchSize += length;
+                            addToTotal(length);
+                        }
+                        if (batch == null)
+                            return null;
+                        if (batch.size() == 1) {
+                            return doUpload(batch.get(0)
+                                    .<PutObjectRequest> withGeneralProgressListener(listener),
+                                    stateListener, null, null);
+                        }
+                        return doUploadBatch(batch, batchSize, listener, stateListener);
                     }
 
-                    // All the single-file uploads share the same
-                    // MultipleFileTransferProgressUpdatingListener and
-                    // MultipleFileTransferStateChangeListener
-                    uploads.add((UploadImpl) doUpload(
-                            new PutObjectRequest(bucketName,
-                                    virtualDirectoryKeyPrefix + key, f)
-                                    .withMetadata(metadata)
-                                    .<PutObjectRequest> withGeneralProgressListener(
-                                            listener), transferListener, null, null));
-                }
-            }
-            progress.setTotalBytesToTransfer(totalSize);
+                    private File nextFile() {
+                        while (files.hasNext()) {
+                            File f = files.next();
+                            // Check, if file, since only files can be uploaded.
+                            if (f.isFile())
+                                return f;
+                        }
+                        return null;
+                    }
+
+                    private void addToTotal(long length) {
+                        if (!totalSizeKnown) {
+                            progress.setTotalBytesToTransfer(
+                                    progress.getTotalBytesToTransfer() + length);
+                        }
+                    }
+
+                    private PutObjectRequest newRequest(File f) {
+                        String key = f.getAbsolutePath()
+                                .substring(startingPosition)
+                                .replaceAll("\\\\", "/");
+
+                        ObjectMetadata metadata = new ObjectMetadata();
+
+                        // Invoke the callback if it's present.
+                        // The callback allows the user to customize the metadata
+                        // for each file being uploaded.
+                        if (metadataProvider != null) {
+                            metadataProvider.provideObjectMetadata(f, metadata);
+                        }
+                        return new PutObjectRequest(bucketName, keyPrefix + key, f)
+                                .withMetadata(metadata);
+                    }
+                }, getMaxConcurrentFileTransfers());
+        multipleFileUpload.setMonitor(dispatcher);
+        dispatcher.start(threadPool);
+        return multipleFileUpload;
+    }
+
+    /**
+     * Uploads the given batch of small files one after another as a single
+     * sub-transfer of a multiple file upload.
+     */
+    private Upload doUploadBatch(List<PutObjectRequest> requests, long totalSize,
+            ProgressListener progressListener,
+            TransferStateChangeListener stateListener) {
+        TransferProgress transferProgress = new TransferProgress();
+        transferProgress.setTotalBytesToTransfer(totalSize);
+        S3ProgressListenerChain listenerChain = newListenerChain(
+                new TransferProgressUpdatingListener(transferProgress),
+                progressListener);
+        for (PutObjectRequest req : requests) {
+            appendSingleObjectUserAgent(req);
+            req.setGeneralProgressListener(listenerChain);
         }
+        UploadBatchImpl upload = new UploadBatchImpl("Uploading " + requests.size()
+                + " files to " + requests.get(0).getBucketName(),
+                transferProgress, listenerChain, stateListener);
+        UploadBatchCallable callable = new UploadBatchCallable(s3, upload, requests);
+        upload.setMonitor(callable);
+        callable.start(threadPool);
+        return upload;
+    }
 
-        // Notify all state changes waiting for the uploads to all be queued
-        // to wake up and continue
-        latch.countDown();
+    /**
+     * Synchronizes the virtual directory designated by the key prefix given
+     * with the local directory given, optionally recursing for all
+     * subdirectories. Each local directory is compared against a listing of
+     * the corresponding virtual directory, and a file is uploaded only if
+     * there is no object for it, or if its size differs from that of the
+     * object, or if it has been modified since the object was last modified.
+     * <p>
+     * The comparison proceeds one directory at a time while the changed files
+     * are being uploaded, with a bounded number of uploads in flight as
+     * specified by
+     * {@link TransferManagerConfiguration#setMaxConcurrentFileTransfers(int)}.
+     * The returned transfer only retains the in-flight uploads as its
+     * sub-transfers, and its total bytes to transfer grows as changed files
+     * are found.
+     * </p>
+     *
+     * @param bucketName
+     *            The name of the bucket to upload objects to.
+     * @param virtualDirectoryKeyPrefix
+     *            The key prefix of the virtual directory to upload to. Use the
+     *            null or empty string to upload files to the root of the
+     *            bucket.
+     * @param directory
+     *            The directory to upload.
+     * @param includeSubdirectories
+     *            Whether to include subdirectories in the upload.
+     * @param deleteExtraneous
+     *            Whether to delete the objects in the virtual directory for
+     *            which there are no corresponding local files. Virtual
+     *            subdirectories are only considered if includeSubdirectories
+     *            is true.
+     */
+    public MultipleFileUpload syncUploadDirectory(final String bucketName,
+            String virtualDirectoryKeyPrefix, File directory,
+            boolean includeSubdirectories, boolean deleteExtraneous) {
+        if ( directory == null || !directory.exists() || !directory.isDirectory() ) {
+            throw new IllegalArgumentException("Must provide a directory to upload");
+        }
+        if (virtualDirectoryKeyPrefix == null || virtualDirectoryKeyPrefix.length() == 0) {
+            virtualDirectoryKeyPrefix = "";
+        } else if ( !virtualDirectoryKeyPrefix.endsWith(DEFAULT_DELIMITER) ) {
+            virtualDirectoryKeyPrefix = virtualDirectoryKeyPrefix + DEFAULT_DELIMITER;
+        }
+        final DirectorySyncPlanner planner = new UploadSyncPlanner(s3,
+                bucketName, virtualDirectoryKeyPrefix, directory,
+                includeSubdirectories, deleteExtraneous);
+
+        /* This is the hook for adding additional progress listeners */
+        ProgressListenerChain additionalListeners = newListenerChain();
+        final TransferProgress progress = new TransferProgress();
+        progress.setTotalBytesToTransfer(0);
+        final ProgressListener listener = new MultipleFileTransferProgressUpdatingListener(
+                progress, additionalListeners);
+
+        Collection<Upload> uploads = Collections.synchronizedSet(new LinkedHashSet<Upload>());
+        MultipleFileUploadImpl multipleFileUpload = new MultipleFileUploadImpl(
+                "Synchronizing " + directory + " to " + bucketName + "/"
+                + virtualDirectoryKeyPrefix, progress, additionalListeners,
+                virtualDirectoryKeyPrefix, bucketName, uploads);
+        MultipleFileTransferDispatcher<Upload> dispatcher = new MultipleFileTransferDispatcher<Upload>(
+                multipleFileUpload, uploads, new SubTransferSource<Upload>() {
+                    @Override
+                    public Upload startNext(TransferStateChangeListener stateListener) {
+                        DirectorySyncPlanner.Item item = planner.next();
+                        if (item == null)
+                            return null;
+                        progress.setTotalBytesToTransfer(
+                                progress.getTotalBytesToTransfer() + item.getSize());
+                        return doUpload(new PutObjectRequest(bucketName,
+                                item.getKey(), item.getFile())
+                                .<PutObjectRequest> withGeneralProgressListener(listener),
+                                stateListener, null, null);
+                    }
+                }, getMaxConcurrentFileTransfers());
+        multipleFileUpload.setMonitor(dispatcher);
+        dispatcher.start(threadPool);
         return multipleFileUpload;
     }
 
     /**
-     * Lists files in the directory given and adds them to the result list
-     * passed in, optionally adding subdirectories recursively.
+     * Synchronizes the local directory given with the virtual directory
+     * designated by the key prefix given, including all virtual
+     * subdirectories. Each virtual directory is listed and compared against
+     * the corresponding local directory, and an object is downloaded only if
+     * there is no file for it, or if its size differs from that of the file,
+     * or if it has been modified since the file was last modified.
+     * <p>
+     * The comparison proceeds one virtual directory at a time while the
+     * changed objects are being downloaded, with a bounded number of
+     * downloads in flight as specified by
+     * {@link TransferManagerConfiguration#setMaxConcurrentFileTransfers(int)}.
+     * The returned transfer only retains the in-flight downloads as its
+     * sub-transfers, and its total bytes to transfer grows as changed objects
+     * are found.
+     * </p>
+     *
+     * @param bucketName
+     *            The bucket containing the virtual directory
+     * @param keyPrefix
+     *            The key prefix for the virtual directory, or null for the
+     *            entire bucket.
+     * @param destinationDirectory
+     *            The directory to place downloaded files. Subdirectories will
+     *            be created as necessary.
+     * @param deleteExtraneous
+     *            Whether to delete the local files and directories for which
+     *            there are no corresponding objects.
      */
-    private void listFiles(File dir, List<File> results, boolean includeSubDirectories) {
-        File[] found = dir.listFiles();
-        if ( found != null ) {
-            for ( File f : found ) {
-                if (f.isDirectory()) {
-                    if (includeSubDirectories) {
-                        listFiles(f, results, includeSubDirectories);
+    public MultipleFileDownload syncDownloadDirectory(final String bucketName,
+            String keyPrefix, File destinationDirectory,
+            boolean deleteExtraneous) {
+        if (keyPrefix == null || keyPrefix.length() == 0) {
+            keyPrefix = "";
+        } else if ( !keyPrefix.endsWith(DEFAULT_DELIMITER) ) {
+            keyPrefix = keyPrefix + DEFAULT_DELIMITER;
+        }
+        final DirectorySyncPlanner planner = new DownloadSyncPlanner(s3,
+                bucketName, keyPrefix, destinationDirectory, deleteExtraneous);
+
+        /* This is the hook for adding additional progress listeners */
+        ProgressListenerChain additionalListeners = newListenerChain();
+        final TransferProgress progress = new TransferProgress();
+        progress.setTotalBytesToTransfer(0);
+        final ProgressListener listener = new MultipleFileTransferProgressUpdatingListener(
+                progress, additionalListeners);
+
+        Collection<Download> downloads = Collections.synchronizedSet(new LinkedHashSet<Download>());
+        final MultipleFileDownloadImpl multipleFileDownload = new MultipleFileDownloadImpl(
+                "Synchronizing from " + bucketName + "/" + keyPrefix,
+                progress, additionalListeners, keyPrefix, bucketName, downloads);
+        MultipleFileTransferDispatcher<Download> dispatcher = new MultipleFileTransferDispatcher<Download>(
+                multipleFileDownload, downloads, new SubTransferSource<Download>() {
+                    @Override
+                    public Download startNext(TransferStateChangeListener stateListener) {
+                        DirectorySyncPlanner.Item item = planner.next();
+                        if (item == null)
+                            return null;
+                        File parentFile = item.getFile().getParentFile();
+                        if ( !parentFile.exists() && !parentFile.mkdirs() ) {
+                            throw new AmazonClientException("Couldn't create parent directories for "
+                                    + item.getFile().getAbsolutePath());
+                        }
+                        progress.setTotalBytesToTransfer(
+                                progress.getTotalBytesToTransfer() + item.getSize());
+                        return doDownload(new GetObjectRequest(bucketName, item.getKey())
+                                .<GetObjectRequest> withGeneralProgressListener(listener),
+                                item.getFile(), stateListener, null, false);
                     }
-                } else {
-                    results.add(f);
-                }
-            }
+                }, getMaxConcurrentFileTransfers());
+        multipleFileDownload.setMonitor(dispatcher);
+        dispatcher.start(threadPool);
+        return multipleFileDownload;
+    }
+
+    /**
+     * <p>
+     * Schedules a new transfer to delete all the objects under the key prefix
+     * given. This method is non-blocking and returns immediately (i.e. before
+     * the deletion has finished).
+     * </p>
+     * <p>
+     * The objects are listed one page at a time, and each page of up to 1000
+     * objects is deleted by a single multi-object delete request while the
+     * next page is being listed, with a bounded number of delete requests in
+     * flight as specified by
+     * {@link TransferManagerConfiguration#setMaxConcurrentFileTransfers(int)}.
+     * Only the keys that failed to be deleted by a request are retried. In a
+     * versioned bucket, a delete marker is created for each object, and no
+     * versions are deleted.
+     * </p>
+     * <p>
+     * Use the returned <code>MultipleObjectDelete</code> object to check the
+     * number of objects deleted so far and the deletion throughput.
+     * </p>
+     *
+     * @param bucketName
+     *            The name of the bucket containing the objects to delete.
+     * @param keyPrefix
+     *            The key prefix of the objects to delete. Use the empty string
+     *            to delete all the objects in the bucket.
+     *
+     * @return A new <code>MultipleObjectDelete</code> object to use to check
+     *         the state of the deletion.
+     */
+    public MultipleObjectDelete deletePrefix(String bucketName, String keyPrefix) {
+        assertParameterNotNull(bucketName,
+                "The bucket name must be specified when a bulk delete is initiated.");
+        assertParameterNotNull(keyPrefix,
+                "The key prefix must be specified when a bulk delete is initiated.");
+
+        TransferProgress progress = new TransferProgress();
+        progress.setTotalBytesToTransfer(0);
+        ProgressListenerChain listenerChain = newListenerChain(
+                new TransferProgressUpdatingListener(progress));
+        MultipleObjectDeleteImpl delete = new MultipleObjectDeleteImpl(
+                "Deleting objects from " + bucketName + "/" + keyPrefix,
+                progress, listenerChain, keyPrefix, bucketName);
+        BulkDeleteCallable callable = new BulkDeleteCallable(s3, threadPool,
+                delete, getMaxConcurrentFileTransfers());
+        delete.setMonitor(callable);
+        callable.start();
+        return delete;
+    }
+
+    /**
+     * <p>
+     * Schedules a new transfer to copy all the objects under the source key
+     * prefix given, replacing the source key prefix with the destination key
+     * prefix in the keys of the copied objects. This method is non-blocking
+     * and returns immediately (i.e. before the copy has finished).
+     * </p>
+     * <p>
+     * Objects are copied server-side as they are listed. An object larger
+     * than the multipart copy threshold is copied in parts, and any other
+     * object is copied with a single copy request. Single copies and part
+     * copies share one budget of requests in flight, as specified by
+     * {@link TransferManagerConfiguration#setMaxConcurrentFileTransfers(int)}.
+     * </p>
+     * <p>
+     * <code>TransferManager</code> doesn't support copying of encrypted objects
+     * whose encryption materials is stored in instruction file.
+     * </p>
+     *
+     * @param sourceBucketName
+     *            The name of the bucket from where the objects are to be
+     *            copied.
+     * @param sourceKeyPrefix
+     *            The key prefix of the objects to copy.
+     * @param destinationBucketName
+     *            The name of the bucket to where the objects are to be copied.
+     * @param destinationKeyPrefix
+     *            The key prefix replacing the source key prefix in the keys of
+     *            the copied objects.
+     *
+     * @return A new <code>MultipleObjectCopy</code> object to use to check the
+     *         state of the copy.
+     */
+    public MultipleObjectCopy copyPrefix(String sourceBucketName,
+            String sourceKeyPrefix, String destinationBucketName,
+            String destinationKeyPrefix) {
+        return copyObjects(sourceBucketName, sourceKeyPrefix,
+                destinationBucketName, destinationKeyPrefix, false);
+    }
+
+    /**
+     * <p>
+     * Schedules a new transfer to move all the objects under the source key
+     * prefix given, replacing the source key prefix with the destination key
+     * prefix in the keys of the moved objects. This method is non-blocking
+     * and returns immediately (i.e. before the move has finished).
+     * </p>
+     * <p>
+     * Objects are copied in the same way as
+     * {@link #copyPrefix(String, String, String, String)}, and the source
+     * objects are deleted in batches with multi-object delete requests once
+     * they have been copied. A source object is never deleted unless its copy
+     * has completed.
+     * </p>
+     *
+     * @param sourceBucketName
+     *            The name of the bucket from where the objects are to be
+     *            moved.
+     * @param sourceKeyPrefix
+     *            The key prefix of the objects to move.
+     * @param destinationBucketName
+     *            The name of the bucket to where the objects are to be moved.
+     * @param destinationKeyPrefix
+     *            The key prefix replacing the source key prefix in the keys of
+     *            the moved objects.
+     *
+     * @return A new <code>MultipleObjectCopy</code> object to use to check the
+     *         state of the move.
+     */
+    public MultipleObjectCopy movePrefix(String sourceBucketName,
+            String sourceKeyPrefix, String destinationBucketName,
+            String destinationKeyPrefix) {
+        return copyObjects(sourceBucketName, sourceKeyPrefix,
+                destinationBucketName, destinationKeyPrefix, true);
+    }
+
+    private MultipleObjectCopy copyObjects(String sourceBucketName,
+            String sourceKeyPrefix, String destinationBucketName,
+            String destinationKeyPrefix, boolean deleteSource) {
+        assertParameterNotNull(sourceBucketName,
+                "The source bucket name must be specified when a copy request is initiated.");
+        assertParameterNotNull(sourceKeyPrefix,
+                "The source key prefix must be specified when a copy request is initiated.");
+        assertParameterNotNull(destinationBucketName,
+                "The destination bucket name must be specified when a copy request is initiated.");
+        assertParameterNotNull(destinationKeyPrefix,
+                "The destination key prefix must be specified when a copy request is initiated.");
+        if (sourceBucketName.equals(destinationBucketName)
+         && destinationKeyPrefix.startsWith(sourceKeyPrefix)) {
+            // The copied objects would be listed again
+            throw new IllegalArgumentException(
+                    "The destination key prefix must not be under the source key prefix");
         }
+
+        TransferProgress progress = new TransferProgress();
+        progress.setTotalBytesToTransfer(0);
+        ProgressListenerChain listenerChain = newListenerChain(
+                new TransferProgressUpdatingListener(progress));
+        MultipleObjectCopyImpl copy = new MultipleObjectCopyImpl(
+                (deleteSource ? "Moving" : "Copying") + " objects from "
+                + sourceBucketName + "/" + sourceKeyPrefix + " to "
+                + destinationBucketName + "/" + destinationKeyPrefix,
+                progress, listenerChain, sourceBucketName, sourceKeyPrefix,
+                destinationBucketName, destinationKeyPrefix);
+        PrefixCopyCallable callable = new PrefixCopyCallable(this, threadPool,
+                copy, deleteSource, getMaxConcurrentFileTransfers());
+        copy.setMonitor(callable);
+        callable.start();
+        return copy;
+    }
+
+    /**
+     * Returns a new progress listener chain for a transfer, which coalesces
+     * the byte transfer events to the listeners of the transfer at the
+     * configured interval.
+     *
+     * @see TransferManagerConfiguration#setProgressCoalescingIntervalMillis(long)
+     */
+    private S3ProgressListenerChain newListenerChain(ProgressListener... listeners) {
+        return new S3ProgressListenerChain(
+                configuration.getProgressCoalescingIntervalMillis(), listeners);
+    }
+
+    /**
+     * Returns the maximum number of file transfers, or delete requests, in
+     * flight for a multiple object operation.
+     */
+    private int getMaxConcurrentFileTransfers() {
+        int max = configuration.getMaxConcurrentFileTransfers();
+        return max > 0 ? max
+             : Math.max(1, TransferManagerUtils.getMaxThreads(threadPool) / 2);
     }
 
     /**
@@ -1352,6 +1904,9 @@ public class TransferManager {
 
     private static final String DEFAULT_DELIMITER = "/";
 
+    /** Maximum number of small files uploaded by a single batch. */
+    private static final int MAX_UPLOAD_BATCH_SIZE = 32;
+
     /**
      * There is no need for threads from timedThreadPool if there is no more running threads in current process,
      * so we need a daemon thread factory for it.
@@ -1521,7 +2076,7 @@ public class TransferManager {
         TransferProgress transferProgress = new TransferProgress();
         transferProgress.setTotalBytesToTransfer(metadata.getContentLength());
 
-        ProgressListenerChain listenerChain = new ProgressListenerChain(
+        ProgressListenerChain listenerChain = newListenerChain(
                 new TransferProgressUpdatingListener(transferProgress));
         CopyImpl copy = new CopyImpl(description, transferProgress,
                 listenerChain, stateChangeListener);
@@ -1597,7 +2152,7 @@ public class TransferManager {
         request.setResponseHeaders(persistableDownload.getResponseHeaders());
 
         return doDownload(request, new File(persistableDownload.getFile()), null, null,
-                APPEND_MODE);
+                APPEND_MODE, persistableDownload);
     }
 
     /**
@@ -39,6 +39,18 @@ public class TransferManagerConfiguration {
     /** Default minimum size of each part for multi-part copy. */
     private static final long DEFAULT_MINIMUM_COPY_PART_SIZE = 100 * MB;
 
+    /**
+     * Default size threshold for multi-part download, which is disabled by
+     * default.
+     */
+    private static final long DEFAULT_MULTIPART_DOWNLOAD_THRESHOLD = Long.MAX_VALUE;
+
+    /** Default size of each byte range for multi-part download. */
+    private static final long DEFAULT_MULTIPART_DOWNLOAD_PART_SIZE = 8 * MB;
+
+    /** Default size threshold of files uploaded in batches. */
+    private static final long DEFAULT_UPLOAD_BATCH_THRESHOLD = 128 * KB;
+
     /**
      * The minimum part size for upload parts. Decreasing the minimum part size
      * will cause multipart uploads to be split into a larger number of smaller
@@ -77,6 +89,66 @@ public class TransferManagerConfiguration {
      */
     private long multipartCopyPartSize = DEFAULT_MINIMUM_COPY_PART_SIZE;
 
+    /**
+     * The size threshold, in bytes, for when to use multi-part download.
+     * Downloads of objects over this size will be split into byte ranges which
+     * are downloaded concurrently and written to the file at their offsets,
+     * while objects smaller than this threshold will be downloaded using a
+     * single connection. Multi-part download is disabled by default.
+     */
+    private long multipartDownloadThreshold = DEFAULT_MULTIPART_DOWNLOAD_THRESHOLD;
+
+    /**
+     * The size in bytes of each byte range when a multi-part download is
+     * carried out.
+     */
+    private long multipartDownloadPartSize = DEFAULT_MULTIPART_DOWNLOAD_PART_SIZE;
+
+    /**
+     * Whether a file being downloaded to is extended to the length of the
+     * object before the data is written.
+     */
+    private boolean preallocateDownloadFiles;
+
+    /**
+     * The maximum number of part buffers used for uploading an input stream
+     * in parts concurrently; or zero if parallel upload of input streams is
+     * disabled, which is the default.
+     */
+    private int streamUploadBufferCount;
+
+    /**
+     * Whether the part buffers used for uploading an input stream in parts
+     * concurrently are allocated off-heap.
+     */
+    private boolean directStreamUploadBuffers;
+
+    /**
+     * Whether the part size and the number of in-flight parts of multipart
+     * uploads and copies are tuned adaptively.
+     */
+    private boolean adaptiveMultipartTuning;
+
+    /**
+     * The maximum number of files transferred at the same time by a multiple
+     * file upload or a directory synchronization; or zero to derive it from
+     * the number of threads of the transfer manager.
+     */
+    private int maxConcurrentFileTransfers;
+
+    /**
+     * The size threshold at or below which files of a multiple file upload
+     * are uploaded in batches.
+     */
+    private long uploadBatchThreshold = DEFAULT_UPLOAD_BATCH_THRESHOLD;
+
+    /**
+     * The interval in milliseconds at which the byte transfer events of a
+     * transfer are coalesced for its progress listeners; or zero if every
+     * byte transfer event is delivered.
+     */
+    private long progressCoalescingIntervalMillis;
+
     /**
      * Returns the minimum part size for upload parts.
      * Decreasing the minimum part size causes
@@ -192,4 +264,252 @@ public class TransferManagerConfiguration {
     public void setMultipartCopyThreshold(long multipartCopyThreshold) {
         this.multipartCopyThreshold = multipartCopyThreshold;
     }
-}
\ No newline at end of file
+
+    /**
+     * Returns the size threshold in bytes for when to use multi-part download.
+     * Downloads of objects over this size will be split into byte ranges which
+     * are downloaded concurrently, while objects smaller than this threshold
+     * will be downloaded using a single connection. Multi-part download is
+     * disabled by default.
+     *
+     * @return The size threshold in bytes for when to use multi-part download.
+     */
+    public long getMultipartDownloadThreshold() {
+        return multipartDownloadThreshold;
+    }
+
+    /**
+     * Sets the size threshold in bytes for when to use multi-part download.
+     * Downloads of objects over this size will be split into byte ranges which
+     * are downloaded concurrently, while objects smaller than this threshold
+     * will be downloaded using a single connection.
+     * <p>
+     * Multi-part download does not apply to downloads of a specific range, or
+     * to downloads via the Amazon S3 encryption client.
+     *
+     * @param multipartDownloadThreshold
+     *            The size threshold in bytes for when to use multi-part
+     *            download.
+     */
+    public void setMultipartDownloadThreshold(long multipartDownloadThreshold) {
+        this.multipartDownloadThreshold = multipartDownloadThreshold;
+    }
+
+    /**
+     * Returns the size in bytes of each byte range in a multi-part download.
+     *
+     * @return The size in bytes of each byte range in a multi-part download.
+     */
+    public long getMultipartDownloadPartSize() {
+        return multipartDownloadPartSize;
+    }
+
+    /**
+     * Sets the size in bytes of each byte range in a multi-part download.
+     * Decreasing this size will result in increase in the number of ranged
+     * requests to the server.
+     *
+     * @param multipartDownloadPartSize
+     *            The size in bytes of each byte range in a multi-part
+     *            download.
+     */
+    public void setMultipartDownloadPartSize(long multipartDownloadPartSize) {
+        this.multipartDownloadPartSize = multipartDownloadPartSize;
+    }
+
+    /**
+     * Returns whether a file being downloaded to is extended to the length of
+     * the object before the data is written. False by default.
+     *
+     * @return True if download files are preallocated; false otherwise.
+     */
+    public boolean isPreallocateDownloadFiles() {
+        return preallocateDownloadFiles;
+    }
+
+    /**
+     * Sets whether a file being downloaded to is extended to the length of
+     * the object before the data is written, which may reduce file system
+     * fragmentation for large objects. The file is truncated to the length of
+     * the data actually written if the download fails.
+     *
+     * @param preallocateDownloadFiles
+     *            True to preallocate download files; false otherwise.
+     */
+    public void setPreallocateDownloadFiles(boolean preallocateDownloadFiles) {
+        this.preallocateDownloadFiles = preallocateDownloadFiles;
+    }
+
+    /**
+     * Returns the maximum number of part buffers used for uploading an input
+     * stream in parts concurrently; or zero if parallel upload of input
+     * streams is disabled, which is the default.
+     *
+     * @return The maximum number of part buffers per input stream upload.
+     */
+    public int getStreamUploadBufferCount() {
+        return streamUploadBufferCount;
+    }
+
+    /**
+     * Sets the maximum number of part buffers used for uploading an input
+     * stream in parts concurrently. When set to a positive value, an input
+     * stream of unknown length, or of a length over the multipart upload
+     * threshold, is read into reusable buffers of the upload part size, and
+     * the filled buffers are uploaded as parts concurrently. Once all the
+     * buffers are in use, reading from the input stream is suspended until a
+     * part has been uploaded, so at most this number of parts are held in
+     * memory for each upload.
+     * <p>
+     * Parallel upload of input streams does not apply to uploads via the
+     * Amazon S3 encryption client, and such uploads cannot be paused.
+     *
+     * @param streamUploadBufferCount
+     *            The maximum number of part buffers per input stream upload;
+     *            or zero (or a negative value) to disable parallel upload of
+     *            input streams.
+     */
+    public void setStreamUploadBufferCount(int streamUploadBufferCount) {
+        this.streamUploadBufferCount = streamUploadBufferCount;
+    }
+
+    /**
+     * Returns whether the part buffers used for uploading an input stream in
+     * parts concurrently are allocated off-heap. False by default.
+     *
+     * @return True if the part buffers are allocated off-heap; false
+     *         otherwise.
+     */
+    public boolean isDirectStreamUploadBuffers() {
+        return directStreamUploadBuffers;
+    }
+
+    /**
+     * Sets whether the part buffers used for uploading an input stream in
+     * parts concurrently are allocated off-heap, which avoids adding large
+     * buffers to the Java heap.
+     *
+     * @param directStreamUploadBuffers
+     *            True to allocate the part buffers off-heap; false otherwise.
+     */
+    public void setDirectStreamUploadBuffers(boolean directStreamUploadBuffers) {
+        this.directStreamUploadBuffers = directStreamUploadBuffers;
+    }
+
+    /**
+     * Returns whether the part size and the number of in-flight parts of
+     * multipart uploads and copies are tuned adaptively. False by default.
+     *
+     * @return True if adaptive multipart tuning is enabled; false otherwise.
+     */
+    public boolean isAdaptiveMultipartTuning() {
+        return adaptiveMultipartTuning;
+    }
+
+    /**
+     * Sets whether the part size and the number of in-flight parts of
+     * multipart uploads and copies are tuned adaptively. When enabled:
+     * <ul>
+     * <li>The part size is chosen from the size of the object, aiming at
+     * about a thousand parts within the limit of 10,000 parts, but never less
+     * than the configured minimum upload or copy part size.</li>
+     * <li>The number of in-flight parts of a parallel upload or copy starts
+     * small, and is grown or shrunk based on the measured throughput of the
+     * completed parts, up to the number of threads of the transfer manager.
+     * A failed part halves the number of in-flight parts.</li>
+     * </ul>
+     * The chosen part size, the current number of in-flight parts and the
+     * measured throughput are available from the {@link TransferProgress} of
+     * each transfer.
+     *
+     * @param adaptiveMultipartTuning
+     *            True to enable adaptive multipart tuning; false otherwise.
+     */
+    public void setAdaptiveMultipartTuning(boolean adaptiveMultipartTuning) {
+        this.adaptiveMultipartTuning = adaptiveMultipartTuning;
+    }
+
+    /**
+     * Returns the maximum number of files transferred at the same time by a
+     * multiple file upload or a directory synchronization; or zero (the
+     * default) if it is derived from the number of threads of the transfer
+     * manager.
+     *
+     * @return The maximum number of files transferred at the same time.
+     */
+    public int getMaxConcurrentFileTransfers() {
+        return maxConcurrentFileTransfers;
+    }
+
+    /**
+     * Sets the maximum number of files transferred at the same time by a
+     * multiple file upload or a directory synchronization. Files are only
+     * transferred as they are found, and at most this number of file
+     * transfers are in flight at any time, so memory usage doesn't grow with
+     * the number of files. This also limits the number of multi-object delete
+     * requests in flight for a bulk delete, and the number of single copy and
+     * part copy requests in flight for a prefix copy. Zero, the default,
+     * derives the limit as half the number of threads of the transfer manager.
+     *
+     * @param maxConcurrentFileTransfers
+     *            The maximum number of files transferred at the same time; or
+     *            zero to derive it from the number of threads.
+     */
+    public void setMaxConcurrentFileTransfers(int maxConcurrentFileTransfers) {
+        this.maxConcurrentFileTransfers = maxConcurrentFileTransfers;
+    }
+
+    /**
+     * Returns the size threshold in bytes at or below which files of a
+     * multiple file upload are uploaded in batches.
+     *
+     * @return The size threshold of files uploaded in batches.
+     */
+    public long getUploadBatchThreshold() {
+        return uploadBatchThreshold;
+    }
+
+    /**
+     * Sets the size threshold in bytes at or below which files of a multiple
+     * file upload are uploaded in batches. Consecutive small files are
+     * uploaded one after another by a single sub-transfer, which saves the
+     * overhead of a separate transfer per file when uploading a large number
+     * of tiny files. Zero or a negative value disables batching.
+     *
+     * @param uploadBatchThreshold
+     *            The size threshold of files uploaded in batches.
+     */
+    public void setUploadBatchThreshold(long uploadBatchThreshold) {
+        this.uploadBatchThreshold = uploadBatchThreshold;
+    }
+
+    /**
+     * Returns the interval in milliseconds at which the byte transfer events
+     * of a transfer are coalesced for its progress listeners; or zero (the
+     * default) if every byte transfer event is delivered.
+     *
+     * @return The interval at which byte transfer events are coalesced.
+     */
+    public long getProgressCoalescingIntervalMillis() {
+        return progressCoalescingIntervalMillis;
+    }
+
+    /**
+     * Sets the interval in milliseconds at which the byte transfer events of
+     * a transfer are coalesced for its progress listeners. When positive, the
+     * bytes transferred are accumulated per listener without locking, and
+     * delivered as a single event at most once per interval, and before any
+     * other event such as the completion of the transfer. This greatly reduces
+     * the number of events, which are otherwise published for every few
+     * kilobytes read, and keeps listeners that are not safe to be called
+     * synchronously from lagging behind when many transfers are in progress.
+     * The progress of the transfer itself is always updated immediately.
+     *
+     * @param progressCoalescingIntervalMillis
+     *            The interval at which byte transfer events are coalesced; or
+     *            zero to deliver every byte transfer event.
+     */
+    public void setProgressCoalescingIntervalMillis(long progressCoalescingIntervalMillis) {
+        this.progressCoalescingIntervalMillis = progressCoalescingIntervalMillis;
+    }
+}
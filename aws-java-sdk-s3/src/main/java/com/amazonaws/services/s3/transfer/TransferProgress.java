@@ -14,6 +14,8 @@
  */
 package com.amazonaws.services.s3.transfer;
 
+import java.util.concurrent.atomic.AtomicLong;
+
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
@@ -23,8 +25,15 @@ import org.apache.commons.logging.LogFactory;
 public final class TransferProgress {
 
     private static final Log log = LogFactory.getLog(TransferProgress.class);
-    private volatile long bytesTransferred = 0;
+    /**
+     * Updated without locking, since it is updated by every read of the data
+     * of all the parts of a transfer in flight.
+     */
+    private final AtomicLong bytesTransferred = new AtomicLong();
     private volatile long totalBytesToTransfer = -1;
+    private volatile long partSize = -1;
+    private volatile int partConcurrency = -1;
+    private volatile long partThroughput = -1;
 
     /**
      * @deprecated Replaced by {@link #getBytesTransferred()}
@@ -39,7 +48,7 @@ public final class TransferProgress {
      * @return The number of bytes completed in the associated transfer.
      */
     public long getBytesTransferred() {
-        return bytesTransferred;
+        return bytesTransferred.get();
     }
 
     /**
@@ -58,7 +67,7 @@ public final class TransferProgress {
      * @deprecated Replaced by {@link #getPercentTransferred()}
      */
     @Deprecated
-    public synchronized double getPercentTransfered() {
+    public double getPercentTransfered() {
         return getPercentTransferred();
     }
 
@@ -69,24 +78,33 @@ public final class TransferProgress {
      * @return A percentage of the number of bytes transferred out of the total
      *         number of bytes to transfer; or -1.0 if the total length is not known.
      */
-    public synchronized double getPercentTransferred() {
-        if (getBytesTransferred() < 0) return 0;
+    public double getPercentTransferred() {
+        long bytesTransferred = getBytesTransferred();
+        if (bytesTransferred < 0) return 0;
 
+        long totalBytesToTransfer = this.totalBytesToTransfer;
         return totalBytesToTransfer < 0
              ? -1.0 
              : ((double)bytesTransferred / (double)totalBytesToTransfer) * (double)100;
     }
 
-    public synchronized void updateProgress(long bytes) {
-        this.bytesTransferred += bytes;
-        if (totalBytesToTransfer > -1
-        &&  this.bytesTransferred > this.totalBytesToTransfer) {
-            this.bytesTransferred = this.totalBytesToTransfer;
-            if (log.isDebugEnabled()) {
-                log.debug("Number of bytes transfered is more than the actual total bytes to transfer. Total number of bytes to Transfer : "
-                        + totalBytesToTransfer
-                        + ". Bytes Transferred : "
-                        + (bytesTransferred + bytes));
+    public void updateProgress(long bytes) {
+        for (;;) {
+            long current = bytesTransferred.get();
+            long updated = current + bytes;
+            long totalBytesToTransfer = this.totalBytesToTransfer;
+            boolean exceeded = totalBytesToTransfer > -1
+                && updated > totalBytesToTransfer;
+            if (exceeded)
+                updated = totalBytesToTransfer;
+            if (bytesTransferred.compareAndSet(current, updated)) {
+                if (exceeded && log.isDebugEnabled()) {
+                    log.debug("Number of bytes transfered is more than the actual total bytes to transfer. Total number of bytes to Transfer : "
+                            + totalBytesToTransfer
+                            + ". Bytes Transferred : "
+                            + (current + bytes));
+                }
+                return;
             }
         }
     }
@@ -94,4 +112,56 @@ public final class TransferProgress {
     public void setTotalBytesToTransfer(long totalBytesToTransfer) {
         this.totalBytesToTransfer = totalBytesToTransfer;
     }
+
+    /**
+     * Returns the size in bytes of each part of the associated multipart
+     * transfer, or -1 if the transfer isn't carried out in parts (or the part
+     * size isn't known yet).
+     *
+     * @return The size in bytes of each part of the associated transfer.
+     */
+    public long getPartSize() {
+        return partSize;
+    }
+
+    public void setPartSize(long partSize) {
+        this.partSize = partSize;
+    }
+
+    /**
+     * Returns the maximum number of parts of the associated multipart transfer
+     * currently allowed to be in flight, which varies over the course of the
+     * transfer if adaptive multipart tuning is enabled; or -1 if the number is
+     * not limited by the transfer itself.
+     *
+     * @return The maximum number of in-flight parts of the associated
+     *         transfer, or -1 if not applicable.
+     *
+     * @see TransferManagerConfiguration#setAdaptiveMultipartTuning(boolean)
+     */
+    public int getPartConcurrency() {
+        return partConcurrency;
+    }
+
+    public void setPartConcurrency(int partConcurrency) {
+        this.partConcurrency = partConcurrency;
+    }
+
+    /**
+     * Returns the most recently measured aggregate throughput, in bytes per
+     * second, of the parts of the associated multipart transfer; or -1 if no
+     * throughput has been measured.
+     *
+     * @return The most recently measured throughput of the parts in bytes per
+     *         second, or -1 if not available.
+     *
+     * @see TransferManagerConfiguration#setAdaptiveMultipartTuning(boolean)
+     */
+    public long getPartThroughput() {
+        return partThroughput;
+    }
+
+    public void setPartThroughput(long partThroughput) {
+        this.partThroughput = partThroughput;
+    }
 }
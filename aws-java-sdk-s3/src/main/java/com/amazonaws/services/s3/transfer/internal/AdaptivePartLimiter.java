@@ -0,0 +1,190 @@
+/*
+ * Copyright 2010-2014 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.s3.transfer.internal;
+
+import java.util.concurrent.Callable;
+
+import org.apache.http.annotation.GuardedBy;
+import org.apache.http.annotation.ThreadSafe;
+
+import com.amazonaws.services.s3.transfer.TransferProgress;
+
+/**
+ * Limits the number of in-flight parts of a multipart transfer, and tunes the
+ * limit adaptively based on the measured throughput and errors of the parts:
+ * <ul>
+ * <li>Each time a window of parts (as many as the current limit) has
+ * completed, the aggregate throughput of the window is compared to that of
+ * the previous window. The limit keeps moving in the same direction while the
+ * throughput improves, reverses direction when the throughput degrades, and
+ * stays put when the throughput is flat.</li>
+ * <li>A failed part halves the limit.</li>
+ * </ul>
+ * The current limit and measured throughput are published to the
+ * {@link TransferProgress} of the transfer.
+ */
+@ThreadSafe
+public class AdaptivePartLimiter {
+    /** Initial number of in-flight parts, if allowed by the maximum. */
+    private static final int INITIAL_LIMIT = 4;
+    /** Relative change in throughput regarded as significant. */
+    private static final double SIGNIFICANCE = 0.05;
+
+    private final int maxLimit;
+    private final TransferProgress transferProgress;
+
+    @GuardedBy("this")
+    private int limit;
+    @GuardedBy("this")
+    private int inFlight;
+    /** +1 if the limit is being increased; -1 if decreased. */
+    @GuardedBy("this")
+    private int direction = 1;
+    @GuardedBy("this")
+    private int windowParts;
+    @GuardedBy("this")
+    private long windowBytes;
+    @GuardedBy("this")
+    private long windowStartNano = System.nanoTime();
+    /** Throughput in bytes per second of the last window; or -1 if none. */
+    @GuardedBy("this")
+    private double lastThroughput = -1;
+
+    /**
+     * @param maxLimit
+     *            the maximum number of in-flight parts, typically the number
+     *            of threads available for the transfer
+     * @param transferProgress
+     *            the progress of the transfer to which the tuning decisions
+     *            are published
+     */
+    public AdaptivePartLimiter(int maxLimit, TransferProgress transferProgress) {
+        this.maxLimit = Math.max(1, maxLimit);
+        this.transferProgress = transferProgress;
+        this.limit = Math.min(INITIAL_LIMIT, this.maxLimit);
+        transferProgress.setPartConcurrency(limit);
+    }
+
+    /**
+     * Blocks until another part is allowed to be in flight. The outcome of
+     * every acquired part must be reported via the callable returned from
+     * {@link #wrap(Callable, long)}, or via {@link #cancel()} if the part is
+     * never executed.
+     */
+    public synchronized void acquire() throws InterruptedException {
+        while (inFlight >= limit)
+            wait();
+        inFlight++;
+    }
+
+    /**
+     * Allows another part to be in flight if the limit has not been reached,
+     * without blocking. Returns whether the part has been allowed, in which
+     * case its outcome must be reported as for {@link #acquire()}.
+     */
+    public synchronized boolean tryAcquire() {
+        if (inFlight >= limit)
+            return false;
+        inFlight++;
+        return true;
+    }
+
+    /**
+     * Reports that an acquired part will never be executed.
+     */
+    public synchronized void cancel() {
+        inFlight--;
+        notifyAll();
+    }
+
+    /**
+     * Returns a callable that executes the given part, and reports its
+     * outcome to this limiter.
+     *
+     * @param part
+     *            the callable that transfers the part
+     * @param partSize
+     *            the size of the part in bytes
+     */
+    public <T> Callable<T> wrap(final Callable<T> part, final long partSize) {
+        return new Callable<T>() {
+            @Override
+            public T call() throws Exception {
+                boolean success = false;
+                try {
+                    T result = part.call();
+                    success = true;
+                    return result;
+                } finally {
+                    if (success)
+                        onSuccess(partSize);
+                    else
+                        onFailure();
+                }
+            }
+        };
+    }
+
+    private synchronized void onSuccess(long partSize) {
+        inFlight--;
+        windowBytes += partSize;
+        if (++windowParts >= limit) {
+            final long now = System.nanoTime();
+            final double throughput = windowBytes * 1e9
+                    / Math.max(1, now - windowStartNano);
+            if (lastThroughput >= 0) {
+                if (throughput < lastThroughput * (1 - SIGNIFICANCE)) {
+                    direction = -direction;
+                    setLimit(limit + direction);
+                } else if (throughput > lastThroughput * (1 + SIGNIFICANCE)) {
+                    setLimit(limit + direction);
+                }
+            } else {
+                setLimit(limit + direction);
+            }
+            lastThroughput = throughput;
+            transferProgress.setPartThroughput((long) throughput);
+            resetWindow(now);
+        }
+        notifyAll();
+    }
+
+    private synchronized void onFailure() {
+        inFlight--;
+        setLimit(limit / 2);
+        // Start probing upwards afresh once parts succeed again
+        direction = 1;
+        lastThroughput = -1;
+        resetWindow(System.nanoTime());
+        notifyAll();
+    }
+
+    @GuardedBy("this")
+    private void setLimit(int newLimit) {
+        limit = Math.max(1, Math.min(newLimit, maxLimit));
+        transferProgress.setPartConcurrency(limit);
+    }
+
+    @GuardedBy("this")
+    private void resetWindow(long now) {
+        windowParts = 0;
+        windowBytes = 0;
+        windowStartNano = now;
+    }
+
+    public synchronized int getLimit() {
+        return limit;
+    }
+}
@@ -0,0 +1,322 @@
+/*
+ * Copyright 2010-2014 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.s3.transfer.internal;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.http.annotation.ThreadSafe;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.DeleteObjectsRequest;
+import com.amazonaws.services.s3.model.DeleteObjectsRequest.KeyVersion;
+import com.amazonaws.services.s3.model.ListObjectsRequest;
+import com.amazonaws.services.s3.model.MultiObjectDeleteException;
+import com.amazonaws.services.s3.model.MultiObjectDeleteException.DeleteError;
+import com.amazonaws.services.s3.model.ObjectListing;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.amazonaws.services.s3.transfer.TransferManager;
+import com.amazonaws.services.s3.transfer.TransferProgress;
+import com.amazonaws.services.s3.transfer.Transfer.TransferState;
+
+/**
+ * Deletes all the objects under a key prefix, and monitors the deletion.
+ * <p>
+ * Each page of the listing, of up to 1000 objects, is deleted by a single
+ * multi-object delete request in the thread pool while the next page is being
+ * listed, keeping at most a bounded number of delete requests in flight at
+ * any time. The keys that fail to be deleted by a request are retried with
+ * exponential backoff, without resending the keys that have been deleted.
+ * <p>
+ * No thread is ever held waiting for a delete request: the next pages are
+ * listed by a short task submitted to the thread pool whenever a delete
+ * request finishes, so the deletion works with a thread pool of any size.
+ */
+@ThreadSafe
+public class BulkDeleteCallable implements Callable<Boolean>, TransferMonitor {
+    /** Maximum number of retries of the keys that failed to be deleted. */
+    private static final int MAX_RETRIES = 3;
+    /** Base delay in milliseconds before the failed keys are retried. */
+    private static final long BASE_BACKOFF_MILLIS = 100;
+
+    private static final Log log = LogFactory.getLog(BulkDeleteCallable.class);
+
+    private final AmazonS3 s3;
+    private final ExecutorService threadPool;
+    private final MultipleObjectDeleteImpl delete;
+    private final int maxInFlight;
+    /** Completed with the outcome of the deletion. */
+    private final FutureTask<Boolean> future = new FutureTask<Boolean>(this);
+    private final Runnable dispatchTask = new Runnable() {
+        @Override
+        public void run() {
+            drainDispatchRequests();
+        }
+    };
+
+    /** Set once either the deletion starts or is canceled before starting. */
+    private final AtomicBoolean started = new AtomicBoolean();
+    private final AtomicReference<AmazonClientException> firstError = new AtomicReference<AmazonClientException>();
+    /** Number of delete requests in flight. */
+    private final AtomicInteger running = new AtomicInteger();
+    /** Number of outstanding requests to run the dispatch task. */
+    private final AtomicInteger dispatchRequests = new AtomicInteger();
+    /** The last page listed; only used by the dispatch task. */
+    private ObjectListing listing;
+    private volatile Exception listingException;
+    private volatile boolean exhausted;
+    private volatile boolean canceled;
+
+    /**
+     * @param maxInFlight
+     *            the maximum number of delete requests in flight at any time
+     */
+    public BulkDeleteCallable(AmazonS3 s3, ExecutorService threadPool,
+            MultipleObjectDeleteImpl delete, int maxInFlight) {
+        this.s3 = s3;
+        this.threadPool = threadPool;
+        this.delete = delete;
+        this.maxInFlight = Math.max(1, maxInFlight);
+    }
+
+    /**
+     * Starts the deletion in the thread pool. Returns immediately.
+     */
+    public void start() {
+        if (!started.compareAndSet(false, true))
+            return;
+        delete.setState(TransferState.InProgress);
+        requestDispatch();
+    }
+
+    /**
+     * Stops listing and deleting further objects. Delete requests already in
+     * flight are allowed to complete, but their failed keys are not retried.
+     */
+    void cancel() {
+        canceled = true;
+        if (started.compareAndSet(false, true))
+            delete.setState(TransferState.Canceled);
+        requestDispatch();
+    }
+
+    /**
+     * Requests the dispatch task to be run, unless it is already pending or
+     * running, in which case it will run once more.
+     */
+    private void requestDispatch() {
+        if (dispatchRequests.getAndIncrement() != 0)
+            return;
+        try {
+            threadPool.execute(dispatchTask);
+        } catch (RejectedExecutionException e) {
+            // The thread pool has been shut down
+            canceled = true;
+            drainDispatchRequests();
+        }
+    }
+
+    private void drainDispatchRequests() {
+        int requests = 1;
+        do {
+            dispatch();
+            requests = dispatchRequests.addAndGet(-requests);
+        } while (requests != 0);
+    }
+
+    /**
+     * Lists pages and submits a delete request for each until the window is
+     * full or the listing is exhausted, and completes the future once all the
+     * delete requests are done. Never blocks waiting for a delete request.
+     */
+    private void dispatch() {
+        TransferProgress progress = delete.getProgress();
+        while (!canceled && !exhausted && running.get() < maxInFlight) {
+            try {
+                listing = listing == null
+                        ? s3.listObjects(TransferManager.appendSingleObjectUserAgent(
+                            new ListObjectsRequest()
+                                .withBucketName(delete.getBucketName())
+                                .withPrefix(delete.getKeyPrefix())))
+                        : s3.listNextBatchOfObjects(listing);
+            } catch (RuntimeException e) {
+                listingException = e;
+                exhausted = true;
+                break;
+            }
+            if (!listing.isTruncated())
+                exhausted = true;
+            List<S3ObjectSummary> summaries = listing.getObjectSummaries();
+            if (summaries.isEmpty())
+                continue;
+            long size = 0;
+            for (S3ObjectSummary summary : summaries)
+                size += summary.getSize();
+            progress.setTotalBytesToTransfer(progress.getTotalBytesToTransfer() + size);
+            running.incrementAndGet();
+            try {
+                threadPool.execute(new DeleteBatch(summaries));
+            } catch (RejectedExecutionException e) {
+                running.decrementAndGet();
+                listingException = e;
+                exhausted = true;
+                break;
+            }
+        }
+        if ((canceled || exhausted) && running.get() == 0)
+            future.run();
+    }
+
+    /**
+     * Collates the outcome of the deletion. Only run by the future once all
+     * the delete requests are done.
+     */
+    @Override
+    public Boolean call() throws Exception {
+        Exception e = listingException;
+        if (e != null) {
+            delete.setState(canceled ? TransferState.Canceled : TransferState.Failed);
+            throw e;
+        }
+        if (delete.getObjectsFailed() > 0) {
+            delete.setState(TransferState.Failed);
+            throw new AmazonClientException(delete.getObjectsFailed()
+                    + " of the objects could not be deleted from "
+                    + delete.getBucketName(), firstError.get());
+        }
+        if (canceled) {
+            delete.setState(TransferState.Canceled);
+            throw new AmazonClientException("Bulk delete canceled");
+        }
+        delete.setState(TransferState.Completed);
+        return Boolean.TRUE;
+    }
+
+    @Override
+    public Future<?> getFuture() {
+        return future;
+    }
+
+    @Override
+    public boolean isDone() {
+        return future.isDone();
+    }
+
+    /**
+     * Deletes a single page of objects, retrying only the failed keys.
+     */
+    private final class DeleteBatch implements Runnable {
+        private final List<S3ObjectSummary> summaries;
+
+        DeleteBatch(List<S3ObjectSummary> summaries) {
+            this.summaries = summaries;
+        }
+
+        @Override
+        public void run() {
+            List<S3ObjectSummary> remaining = summaries;
+            try {
+                for (int retries = 0; !canceled; retries++) {
+                    try {
+                        s3.deleteObjects(newRequest(remaining));
+                        deleted(remaining);
+                        return;
+                    } catch (MultiObjectDeleteException e) {
+                        Set<String> failedKeys = new HashSet<String>();
+                        for (DeleteError error : e.getErrors())
+                            failedKeys.add(error.getKey());
+                        List<S3ObjectSummary> failed = new ArrayList<S3ObjectSummary>(failedKeys.size());
+                        deleted(remaining, failed, failedKeys);
+                        remaining = failed;
+                        if (retries >= MAX_RETRIES) {
+                            failed(remaining, e);
+                            return;
+                        }
+                        if (log.isDebugEnabled()) {
+                            log.debug("Retrying " + remaining.size()
+                                    + " keys that failed to be deleted from "
+                                    + delete.getBucketName());
+                        }
+                        Thread.sleep(BASE_BACKOFF_MILLIS << retries);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (AmazonClientException e) {
+                failed(remaining, e);
+            } finally {
+                running.decrementAndGet();
+                requestDispatch();
+            }
+        }
+
+        private DeleteObjectsRequest newRequest(List<S3ObjectSummary> summaries) {
+            List<KeyVersion> keys = new ArrayList<KeyVersion>(summaries.size());
+            for (S3ObjectSummary summary : summaries)
+                keys.add(new KeyVersion(summary.getKey()));
+            return TransferManager.appendSingleObjectUserAgent(
+                    new DeleteObjectsRequest(delete.getBucketName())
+                        .withKeys(keys)
+                        .withQuiet(true));
+        }
+
+        /**
+         * Records the given objects as deleted, except for those with the
+         * given failed keys, which are collected into the given list.
+         */
+        private void deleted(List<S3ObjectSummary> summaries,
+                List<S3ObjectSummary> failed, Set<String> failedKeys) {
+            int count = 0;
+            long bytes = 0;
+            for (S3ObjectSummary summary : summaries) {
+                if (failedKeys.contains(summary.getKey())) {
+                    failed.add(summary);
+                } else {
+                    count++;
+                    bytes += summary.getSize();
+                }
+            }
+            delete.objectsDeleted(count, bytes);
+        }
+
+        /**
+         * Records the given objects as deleted.
+         */
+        private void deleted(List<S3ObjectSummary> summaries) {
+            long bytes = 0;
+            for (S3ObjectSummary summary : summaries)
+                bytes += summary.getSize();
+            delete.objectsDeleted(summaries.size(), bytes);
+        }
+
+        private void failed(List<S3ObjectSummary> summaries, AmazonClientException e) {
+            delete.objectsFailed(summaries.size());
+            firstError.compareAndSet(null, e);
+        }
+    }
+}
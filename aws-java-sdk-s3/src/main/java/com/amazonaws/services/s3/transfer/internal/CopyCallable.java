@@ -24,6 +24,7 @@ import java.util.concurrent.Callable;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -94,6 +95,12 @@ public class CopyCallable implements Callable<CopyResult> {
 
     private final ProgressListenerChain listenerChain;
 
+    /**
+     * Index of the first of the parts submitted in parallel that may not have
+     * been started yet. Only used by the submitting thread.
+     */
+    private int nextUnstartedPart;
+
     public CopyCallable(TransferManager transferManager,
             ExecutorService threadPool, CopyImpl copy,
             CopyObjectRequest copyObjectRequest, ObjectMetadata metadata,
@@ -173,6 +180,7 @@ public class CopyCallable implements Callable<CopyResult> {
         multipartUploadId = initiateMultipartUpload(copyObjectRequest);
 
         long optimalPartSize = getOptimalPartSize(metadata.getContentLength());
+        copy.getProgress().setPartSize(optimalPartSize);
 
         try {
             CopyPartRequestFactory requestFactory = new CopyPartRequestFactory(
@@ -210,12 +218,56 @@ public class CopyCallable implements Callable<CopyResult> {
      * records its corresponding Future.
      */
     private void copyPartsInParallel(CopyPartRequestFactory requestFactory) {
+        final AdaptivePartLimiter limiter = configuration.isAdaptiveMultipartTuning()
+            ? new AdaptivePartLimiter(TransferManagerUtils.getMaxThreads(threadPool), copy.getProgress())
+            : null;
+        final List<FutureTask<PartETag>> tasks = new ArrayList<FutureTask<PartETag>>();
         while (requestFactory.hasMoreRequests()) {
             if (threadPool.isShutdown())
                 throw new CancellationException(
                         "TransferManager has been shutdown");
             CopyPartRequest request = requestFactory.getNextCopyPartRequest();
-            futures.add(threadPool.submit(new CopyPartCallable(s3, request)));
+            Callable<PartETag> callable = new CopyPartCallable(s3, request);
+            if (limiter != null) {
+                acquirePart(limiter, tasks);
+                callable = limiter.wrap(callable,
+                        request.getLastByte() - request.getFirstByte() + 1);
+            }
+            FutureTask<PartETag> task = new FutureTask<PartETag>(callable);
+            threadPool.execute(task);
+            futures.add(task);
+            if (limiter != null)
+                tasks.add(task);
+        }
+        // The monitor is about to wait for the parts still queued
+        while (nextUnstartedPart < tasks.size())
+            tasks.get(nextUnstartedPart++).run();
+    }
+
+    /**
+     * Waits until the given limiter allows another part to be in flight.
+     * While waiting, the current thread copies any of the given parts that
+     * has yet to be started by the thread pool, so that it never waits on
+     * parts queued behind threads of the same pool, including its own. If
+     * interrupted, the parts already submitted are cancelled.
+     */
+    private void acquirePart(AdaptivePartLimiter limiter,
+            List<FutureTask<PartETag>> tasks) {
+        try {
+            boolean acquired = limiter.tryAcquire();
+            while (!acquired && nextUnstartedPart < tasks.size()) {
+                // no-op if already started by the thread pool
+                tasks.get(nextUnstartedPart++).run();
+                acquired = limiter.tryAcquire();
+            }
+            // Any part still in flight is being copied by another thread
+            if (!acquired)
+                limiter.acquire();
+        } catch (InterruptedException e) {
+            for (Future<PartETag> f : futures)
+                f.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Copy interrupted");
         }
     }
 
@@ -0,0 +1,193 @@
+/*
+ * Copyright 2010-2014 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.s3.transfer.internal;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.http.annotation.ThreadSafe;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.DeleteObjectsRequest;
+import com.amazonaws.services.s3.model.ListObjectsRequest;
+import com.amazonaws.services.s3.model.ObjectListing;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+
+/**
+ * Plans the synchronization of a local directory with a virtual directory in
+ * Amazon S3, one directory at a time, so that only the entries of a single
+ * directory are held in memory regardless of the size of the whole tree. Each
+ * call to {@link #next()} returns the next file that needs to be transferred;
+ * extraneous entries on the destination side are deleted along the way if so
+ * requested.
+ */
+@ThreadSafe
+public abstract class DirectorySyncPlanner {
+    static final String DELIMITER = "/";
+    /** Maximum number of keys per multi-object delete request. */
+    private static final int MAX_DELETE_BATCH_SIZE = 1000;
+
+    protected final Log log = LogFactory.getLog(getClass());
+    protected final AmazonS3 s3;
+    protected final String bucketName;
+    protected final boolean deleteExtraneous;
+
+    private final LinkedList<Item> pending = new LinkedList<Item>();
+    private final List<String> keysToDelete = new ArrayList<String>();
+    private boolean exhausted;
+    private long skippedCount;
+    private long deletedCount;
+
+    protected DirectorySyncPlanner(AmazonS3 s3, String bucketName,
+            boolean deleteExtraneous) {
+        this.s3 = s3;
+        this.bucketName = bucketName;
+        this.deleteExtraneous = deleteExtraneous;
+    }
+
+    /**
+     * Returns the next file that needs to be transferred; or null if the
+     * synchronization has been fully planned, in which case all extraneous
+     * entries (if requested) have been deleted.
+     */
+    public synchronized Item next() {
+        while (pending.isEmpty()) {
+            if (exhausted)
+                return null;
+            if (!planNextDirectory()) {
+                exhausted = true;
+                flushDeletes();
+                if (log.isDebugEnabled()) {
+                    log.debug("Synchronization of " + bucketName
+                            + " planned; unchanged: " + skippedCount
+                            + ", deleted: " + deletedCount);
+                }
+                return null;
+            }
+        }
+        return pending.removeFirst();
+    }
+
+    /**
+     * Compares the next directory, adding the files that need to be
+     * transferred via {@link #addPending(File, String, long)}. Returns false
+     * if there are no more directories.
+     */
+    protected abstract boolean planNextDirectory();
+
+    protected final void addPending(File file, String key, long size) {
+        pending.add(new Item(file, key, size));
+    }
+
+    protected final void skip() {
+        skippedCount++;
+    }
+
+    /**
+     * Lists the next page of objects directly under the given prefix.
+     *
+     * @param previous
+     *            the previous page; or null for the first page.
+     */
+    protected final ObjectListing listObjects(String prefix, String delimiter,
+            ObjectListing previous) {
+        return previous == null
+             ? s3.listObjects(new ListObjectsRequest()
+                   .withBucketName(bucketName)
+                   .withPrefix(prefix)
+                   .withDelimiter(delimiter))
+             : s3.listNextBatchOfObjects(previous);
+    }
+
+    /**
+     * Schedules the given object for deletion, which is carried out in
+     * batches via multi-object delete requests.
+     */
+    protected final void deleteObject(String key) {
+        keysToDelete.add(key);
+        if (keysToDelete.size() >= MAX_DELETE_BATCH_SIZE)
+            flushDeletes();
+    }
+
+    /**
+     * Schedules all the objects with the given prefix for deletion.
+     */
+    protected final void deleteObjectsWithPrefix(String prefix) {
+        ObjectListing listing = null;
+        do {
+            listing = listObjects(prefix, null, listing);
+            for (S3ObjectSummary s : listing.getObjectSummaries())
+                deleteObject(s.getKey());
+        } while (listing.isTruncated());
+    }
+
+    private void flushDeletes() {
+        if (keysToDelete.isEmpty())
+            return;
+        s3.deleteObjects(new DeleteObjectsRequest(bucketName)
+            .withKeys(keysToDelete.toArray(new String[keysToDelete.size()]))
+            .withQuiet(true));
+        deletedCount += keysToDelete.size();
+        keysToDelete.clear();
+    }
+
+    /**
+     * Deletes the given local file, or directory recursively.
+     */
+    protected final void deleteLocal(File file) {
+        if (file.isDirectory()) {
+            File[] children = file.listFiles();
+            if (children != null) {
+                for (File child : children)
+                    deleteLocal(child);
+            }
+        }
+        if (file.delete())
+            deletedCount++;
+        else
+            log.warn("Unable to delete extraneous file " + file.getAbsolutePath());
+    }
+
+    /**
+     * A file to be transferred.
+     */
+    public static final class Item {
+        private final File file;
+        private final String key;
+        private final long size;
+
+        Item(File file, String key, long size) {
+            this.file = file;
+            this.key = key;
+            this.size = size;
+        }
+
+        public File getFile() {
+            return file;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public long getSize() {
+            return size;
+        }
+    }
+}
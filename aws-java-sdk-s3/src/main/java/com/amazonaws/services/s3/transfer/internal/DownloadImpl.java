@@ -35,12 +35,23 @@ public class DownloadImpl extends AbstractTransfer implements Download {
      */
     private final PersistableDownload persistableDownload;
 
+    private final GetObjectRequest getObjectRequest;
+    private final File file;
+
+    /**
+     * The multi-part download in progress; or null if the object is being
+     * downloaded using a single connection.
+     */
+    private volatile MultipartDownloadCallable multipartDownload;
+
     public DownloadImpl(String description, TransferProgress transferProgress,
             ProgressListenerChain progressListenerChain, S3Object s3Object,
             TransferStateChangeListener listener,
             GetObjectRequest getObjectRequest, File file) {
         super(description, transferProgress, progressListenerChain, listener);
         this.s3Object = s3Object;
+        this.getObjectRequest = getObjectRequest;
+        this.file = file;
         this.persistableDownload = captureDownloadState(getObjectRequest, file);
         S3ProgressPublisher.publishTransferPersistable(progressListenerChain,
                 persistableDownload);
@@ -82,9 +93,12 @@ public class DownloadImpl extends AbstractTransfer implements Download {
 
         this.monitor.getFuture().cancel(true);
 
-        if ( s3Object != null ) {
+        if ( s3Object != null && s3Object.getObjectContent() != null ) {
               s3Object.getObjectContent().abort();
         }
+        if (multipartDownload != null) {
+            multipartDownload.cancel();
+        }
         setState(TransferState.Canceled);
     }
 
@@ -95,6 +109,9 @@ public class DownloadImpl extends AbstractTransfer implements Download {
      */
     public synchronized void abortWithoutNotifyingStateChangeListener() throws IOException {
         this.monitor.getFuture().cancel(true);
+        if (multipartDownload != null) {
+            multipartDownload.cancel();
+        }
         this.state = TransferState.Canceled;
     }
 
@@ -105,6 +122,13 @@ public class DownloadImpl extends AbstractTransfer implements Download {
         this.s3Object = s3Object;
     }
 
+    /**
+     * Set the multi-part download in progress.
+     */
+    public void setMultipartDownload(MultipartDownloadCallable multipartDownload) {
+        this.multipartDownload = multipartDownload;
+    }
+
     /**
      * This method is also responsible for firing COMPLETED signal to the
      * listeners.
@@ -145,11 +169,27 @@ public class DownloadImpl extends AbstractTransfer implements Download {
         boolean forceCancel = true;
         TransferState currentState = getState();
         this.monitor.getFuture().cancel(true);
+        final MultipartDownloadCallable multipartDownload = this.multipartDownload;
+        if (multipartDownload != null) {
+            multipartDownload.cancel();
+        }
 
         if (persistableDownload == null) {
             throw new PauseException(TransferManagerUtils.determinePauseStatus(
                     currentState, forceCancel));
         }
+        if (multipartDownload != null) {
+            // Capture the parts completed so far
+            return new PersistableDownload(
+                    getObjectRequest.getBucketName(),
+                    getObjectRequest.getKey(), getObjectRequest.getVersionId(),
+                    getObjectRequest.getResponseHeaders(),
+                    getObjectRequest.isRequesterPays(), file.getAbsolutePath(),
+                    multipartDownload.getPartSize(),
+                    multipartDownload.getContentLength(),
+                    multipartDownload.getETag(),
+                    multipartDownload.getCompletedParts());
+        }
         return persistableDownload;
     }
 }
\ No newline at end of file
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2010-2014 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.s3.transfer.internal;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.ObjectListing;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+
+/**
+ * Plans the synchronization of a virtual directory in Amazon S3 to a local
+ * directory. An object is downloaded if there is no file for it, or if its
+ * size differs from that of the file, or if it has been modified since the
+ * file was last modified.
+ */
+public class DownloadSyncPlanner extends DirectorySyncPlanner {
+    private final File destinationDirectory;
+    /** Key prefixes yet to be compared, visited depth first. */
+    private final LinkedList<String> prefixes = new LinkedList<String>();
+
+    /**
+     * @param keyPrefix
+     *            the key prefix of the virtual directory, which must be
+     *            either empty or end with a "/"
+     */
+    public DownloadSyncPlanner(AmazonS3 s3, String bucketName, String keyPrefix,
+            File destinationDirectory, boolean deleteExtraneous) {
+        super(s3, bucketName, deleteExtraneous);
+        this.destinationDirectory = destinationDirectory;
+        prefixes.add(keyPrefix);
+    }
+
+    @Override
+    protected boolean planNextDirectory() {
+        if (prefixes.isEmpty())
+            return false;
+        final String prefix = prefixes.removeFirst();
+        final File dir = prefix.length() == 0
+            ? destinationDirectory
+            : new File(destinationDirectory, prefix);
+
+        final Map<String, File> files = new HashMap<String, File>();
+        final Map<String, File> subdirectories = new HashMap<String, File>();
+        File[] found = dir.listFiles();
+        if (found != null) {
+            for (File f : found) {
+                if (f.isDirectory())
+                    subdirectories.put(f.getName(), f);
+                else
+                    files.put(f.getName(), f);
+            }
+        }
+        ObjectListing listing = null;
+        do {
+            listing = listObjects(prefix, DELIMITER, listing);
+            final List<String> commonPrefixes = listing.getCommonPrefixes();
+            for (S3ObjectSummary s : listing.getObjectSummaries()) {
+                final String key = s.getKey();
+                // Skip any objects that are also virtual directories, since
+                // we can't save both a directory and a file of the same name.
+                if (key.equals(prefix) || commonPrefixes.contains(key + DELIMITER))
+                    continue;
+                final String name = key.substring(prefix.length());
+                final File f = files.remove(name);
+                if (f == null) {
+                    addPending(new File(dir, name), key, s.getSize());
+                } else if (f.length() != s.getSize()
+                        || s.getLastModified().getTime() > f.lastModified()) {
+                    addPending(f, key, s.getSize());
+                } else {
+                    skip();
+                }
+            }
+            for (String commonPrefix : commonPrefixes) {
+                subdirectories.remove(commonPrefix.substring(prefix.length(),
+                        commonPrefix.length() - DELIMITER.length()));
+                prefixes.addFirst(commonPrefix);
+            }
+        } while (listing.isTruncated());
+        if (deleteExtraneous) {
+            for (File f : files.values())
+                deleteLocal(f);
+            for (File d : subdirectories.values())
+                deleteLocal(d);
+        }
+        return true;
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2010-2014 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.s3.transfer.internal;
+
+import java.io.File;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.NoSuchElementException;
+
+import org.apache.http.annotation.NotThreadSafe;
+
+/**
+ * Lazily iterates over the files in a directory, optionally recursing into
+ * subdirectories depth first. Only the listing of a single directory is held
+ * at any time, so the memory footprint doesn't depend on the total number of
+ * files in the tree.
+ */
+@NotThreadSafe
+public class FileTreeIterator implements Iterator<File> {
+    private final boolean includeSubdirectories;
+    /** Directories yet to be listed. */
+    private final LinkedList<File> directories = new LinkedList<File>();
+    /** Listing of the current directory. */
+    private File[] listing;
+    private int index;
+    private File next;
+
+    public FileTreeIterator(File directory, boolean includeSubdirectories) {
+        this.includeSubdirectories = includeSubdirectories;
+        directories.add(directory);
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (next == null) {
+            if (listing != null && index < listing.length) {
+                File f = listing[index];
+                listing[index++] = null;
+                if (f.isDirectory()) {
+                    if (includeSubdirectories)
+                        directories.addFirst(f);
+                } else {
+                    next = f;
+                }
+            } else if (directories.isEmpty()) {
+                listing = null;
+                return false;
+            } else {
+                listing = directories.removeFirst().listFiles();
+                index = 0;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public File next() {
+        if (!hasNext())
+            throw new NoSuchElementException();
+        File f = next;
+        next = null;
+        return f;
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+}
@@ -0,0 +1,402 @@
+/*
+ * Copyright 2010-2014 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.s3.transfer.internal;
+
+import static com.amazonaws.event.SDKProgressPublisher.publishProgress;
+import static com.amazonaws.util.IOUtils.closeQuietly;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import com.amazonaws.AbortedException;
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.event.ProgressEvent;
+import com.amazonaws.event.ProgressEventFilter;
+import com.amazonaws.event.ProgressEventType;
+import com.amazonaws.event.ProgressListener;
+import com.amazonaws.event.ProgressListenerChain;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.internal.crypto.MultipartDownloadCryptoContext;
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.S3Object;
+import com.amazonaws.services.s3.transfer.TransferManager;
+
+/**
+ * Downloads an object into a file by splitting it into byte ranges, which are
+ * fetched concurrently and written to the file at their offsets.
+ * <p>
+ * The thread calling {@link #call()} downloads parts as well as the workers
+ * submitted to the thread pool, so that the download always makes progress
+ * even if the thread pool is saturated.
+ * <p>
+ * An object encrypted via the S3 encryption client is downloaded with a
+ * {@link MultipartDownloadCryptoContext}, which decrypts each byte range
+ * independently, and authenticates the content of the file once all the byte
+ * ranges have been downloaded.
+ */
+public class MultipartDownloadCallable implements Callable<File> {
+    private static final Log log = LogFactory.getLog(MultipartDownloadCallable.class);
+    /** The number of workers used if the thread pool size is unknown. */
+    private static final int DEFAULT_MAX_WORKERS = 10;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final AmazonS3 s3;
+    private final ExecutorService threadPool;
+    private final GetObjectRequest getObjectRequest;
+    private final File file;
+    private final long contentLength;
+    private final long partSize;
+    private final int numParts;
+    private final String eTag;
+    /** The context for decrypting the byte ranges; or null if not encrypted. */
+    private final MultipartDownloadCryptoContext cryptoContext;
+    /**
+     * The progress listener of the byte range requests, which filters out the
+     * transfer started events of the individual byte ranges.
+     */
+    private final ProgressListener partListener;
+    /** True if the file is to be truncated to the content length. */
+    private final boolean newFile;
+
+    /** The parts that have been completely written to the file. */
+    private final BitSet completedParts;
+    /** The index of the next part to be considered for download. */
+    private int nextPart;
+    /** The objects whose content is being read. */
+    private final Set<S3Object> inFlight = new HashSet<S3Object>();
+
+    private volatile boolean cancelled;
+    private volatile FileChannel channel;
+
+    /**
+     * @param getObjectRequest
+     *            the request of the whole object, from which the requests of
+     *            the byte ranges are derived
+     * @param eTag
+     *            the ETag of the object, which every byte range is required
+     *            to match so that the parts are of the same object
+     * @param completedParts
+     *            the indices of the parts that have already been downloaded
+     *            into the file by a paused download; or null if none
+     */
+    public MultipartDownloadCallable(AmazonS3 s3, ExecutorService threadPool,
+            GetObjectRequest getObjectRequest, File file, long contentLength,
+            long partSize, String eTag, int[] completedParts) {
+        this(s3, threadPool, getObjectRequest, file, contentLength, partSize,
+            eTag, completedParts, null);
+    }
+
+    /**
+     * @param contentLength
+     *            the length of the decrypted content if the object is
+     *            encrypted
+     * @param partSize
+     *            the size of every part except the last, which must be a
+     *            multiple of the cipher block size if the object is encrypted
+     * @param cryptoContext
+     *            the context for decrypting the parts of an encrypted object;
+     *            or null if the object is not encrypted
+     */
+    public MultipartDownloadCallable(AmazonS3 s3, ExecutorService threadPool,
+            GetObjectRequest getObjectRequest, File file, long contentLength,
+            long partSize, String eTag, int[] completedParts,
+            MultipartDownloadCryptoContext cryptoContext) {
+        if (partSize <= 0)
+            throw new IllegalArgumentException("partSize must be positive");
+        if (cryptoContext != null && partSize % cryptoContext.getBlockSize() != 0)
+            throw new IllegalArgumentException(
+                "partSize must be a multiple of the cipher block size");
+        this.s3 = s3;
+        this.threadPool = threadPool;
+        this.getObjectRequest = getObjectRequest;
+        this.file = file;
+        this.contentLength = contentLength;
+        this.partSize = partSize;
+        this.numParts = (int) ((contentLength + partSize - 1) / partSize);
+        this.eTag = eTag;
+        this.cryptoContext = cryptoContext;
+        this.partListener = new ProgressListenerChain(
+            new ProgressEventFilter() {
+                @Override
+                public ProgressEvent filter(ProgressEvent progressEvent) {
+                    return progressEvent.getEventType() == ProgressEventType.TRANSFER_STARTED_EVENT
+                         ? null
+                         : progressEvent;
+                }
+            }, getObjectRequest.getGeneralProgressListener());
+        this.completedParts = new BitSet(numParts);
+        if (completedParts != null) {
+            for (int part : completedParts) {
+                if (part >= 0 && part < numParts)
+                    this.completedParts.set(part);
+            }
+        }
+        this.newFile = completedParts == null || !file.exists();
+        if (newFile)
+            this.completedParts.clear();
+    }
+
+    public long getPartSize() {
+        return partSize;
+    }
+
+    public long getContentLength() {
+        return contentLength;
+    }
+
+    public String getETag() {
+        return eTag;
+    }
+
+    /**
+     * Returns the number of bytes of the parts already downloaded.
+     */
+    public synchronized long getCompletedBytes() {
+        long bytes = 0;
+        for (int i = completedParts.nextSetBit(0); i >= 0; i = completedParts.nextSetBit(i + 1))
+            bytes += partLength(i);
+        return bytes;
+    }
+
+    /**
+     * Returns the indices of the parts that have been completely written to
+     * the file.
+     */
+    public synchronized int[] getCompletedParts() {
+        int[] parts = new int[completedParts.cardinality()];
+        int n = 0;
+        for (int i = completedParts.nextSetBit(0); i >= 0; i = completedParts.nextSetBit(i + 1))
+            parts[n++] = i;
+        return parts;
+    }
+
+    /**
+     * Cancels this download, aborting the parts being downloaded. The parts
+     * that have been completely written to the file are retained for resuming
+     * the download.
+     */
+    public void cancel() {
+        cancelled = true;
+        List<S3Object> toAbort;
+        synchronized(this) {
+            toAbort = new ArrayList<S3Object>(inFlight);
+        }
+        for (S3Object s3Object : toAbort)
+            s3Object.getObjectContent().abort();
+    }
+
+    @Override
+    public File call() throws Exception {
+        publishProgress(getObjectRequest.getGeneralProgressListener(),
+            ProgressEventType.TRANSFER_STARTED_EVENT);
+        createParentDirectory();
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        boolean unauthenticated = false;
+        try {
+            if (newFile || raf.length() != contentLength)
+                raf.setLength(contentLength);
+            channel = raf.getChannel();
+            final List<Future<?>> workers = startWorkers();
+            AmazonClientException failure = null;
+            try {
+                downloadParts();
+            } catch (AmazonClientException e) {
+                failure = e;
+                cancelled = true;
+            }
+            for (Future<?> worker : workers) {
+                // Workers yet to be started have no work left
+                if (worker.cancel(false))
+                    continue;
+                try {
+                    worker.get();
+                } catch (CancellationException e) {
+                    // ignored
+                } catch (ExecutionException e) {
+                    cancelled = true;
+                    if (failure == null) {
+                        Throwable cause = e.getCause();
+                        failure = cause instanceof AmazonClientException
+                            ? (AmazonClientException) cause
+                            : new AmazonClientException(
+                                "Unable to download part: " + cause.getMessage(), cause);
+                    }
+                }
+            }
+            if (failure != null)
+                throw failure;
+            if (cancelled)
+                throw new AbortedException("Download cancelled");
+            if (cryptoContext != null) {
+                try {
+                    cryptoContext.authenticate(channel, partSize,
+                        newPartRequest(contentLength, contentLength));
+                } catch (SecurityException e) {
+                    unauthenticated = true;
+                    throw e;
+                }
+            }
+            return file;
+        } finally {
+            closeQuietly(raf, log);
+            // Never leave behind decrypted content that fails authentication
+            if (unauthenticated && !file.delete())
+                log.warn("Unable to delete " + file.getAbsolutePath());
+        }
+    }
+
+    private void createParentDirectory() {
+        File parentDirectory = file.getAbsoluteFile().getParentFile();
+        if (parentDirectory != null && !parentDirectory.exists()
+                && !parentDirectory.mkdirs()) {
+            throw new AmazonClientException(
+                "Unable to create directory in the path "
+                    + parentDirectory.getAbsolutePath());
+        }
+    }
+
+    private List<Future<?>> startWorkers() {
+        int maxWorkers = threadPool instanceof ThreadPoolExecutor
+            ? ((ThreadPoolExecutor) threadPool).getMaximumPoolSize()
+            : DEFAULT_MAX_WORKERS;
+        // The calling thread is itself a worker
+        int numWorkers = Math.min(maxWorkers, numParts - completedParts.cardinality()) - 1;
+        List<Future<?>> workers = new ArrayList<Future<?>>();
+        for (int i = 0; i < numWorkers; i++) {
+            workers.add(threadPool.submit(new Callable<Object>() {
+                @Override
+                public Object call() {
+                    downloadParts();
+                    return null;
+                }
+            }));
+        }
+        return workers;
+    }
+
+    /**
+     * Downloads the remaining parts one at a time until there is none left.
+     */
+    private void downloadParts() {
+        byte[] buffer = null;
+        int part;
+        while (!cancelled && (part = claimNextPart()) >= 0) {
+            if (buffer == null)
+                buffer = new byte[BUFFER_SIZE];
+            try {
+                downloadPart(part, buffer);
+            } catch (AmazonClientException e) {
+                cancelled = true;
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Returns the index of the next part to download; or -1 if there is none.
+     */
+    private synchronized int claimNextPart() {
+        while (nextPart < numParts) {
+            int part = nextPart++;
+            if (!completedParts.get(part))
+                return part;
+        }
+        return -1;
+    }
+
+    private long partLength(int part) {
+        long start = part * partSize;
+        return Math.min(partSize, contentLength - start);
+    }
+
+    private void downloadPart(int part, byte[] buffer) {
+        final long start = part * partSize;
+        final long end = start + partLength(part) - 1;
+        final GetObjectRequest req = newPartRequest(start, end);
+        final S3Object s3Object = cryptoContext == null
+            ? s3.getObject(req)
+            : cryptoContext.getObjectRange(req);
+        if (s3Object == null) {
+            throw new AmazonClientException("Unable to download "
+                + getObjectRequest.getKey()
+                + " as the object has been modified during the download");
+        }
+        synchronized(this) {
+            inFlight.add(s3Object);
+        }
+        final InputStream in = s3Object.getObjectContent();
+        long position = start;
+        try {
+            int bytesRead;
+            while ((bytesRead = in.read(buffer)) > -1) {
+                if (cancelled)
+                    throw new AbortedException("Download cancelled");
+                ByteBuffer bb = ByteBuffer.wrap(buffer, 0, bytesRead);
+                while (bb.hasRemaining())
+                    position += channel.write(bb, position);
+            }
+        } catch (IOException e) {
+            throw new AmazonClientException(
+                "Unable to store object contents to disk: " + e.getMessage(), e);
+        } finally {
+            synchronized(this) {
+                inFlight.remove(s3Object);
+            }
+            s3Object.getObjectContent().abort();
+        }
+        if (position != end + 1) {
+            throw new AmazonClientException("Unable to download part " + part
+                + " of " + getObjectRequest.getKey() + ": expected "
+                + (end + 1 - start) + " bytes but received "
+                + (position - start));
+        }
+        synchronized(this) {
+            completedParts.set(part);
+        }
+    }
+
+    private GetObjectRequest newPartRequest(long start, long end) {
+        GetObjectRequest req = new GetObjectRequest(
+                getObjectRequest.getBucketName(), getObjectRequest.getKey(),
+                getObjectRequest.getVersionId())
+            .withMatchingETagConstraint(eTag);
+        req.setRange(start, end);
+        req.setResponseHeaders(getObjectRequest.getResponseHeaders());
+        req.setRequesterPays(getObjectRequest.isRequesterPays());
+        req.setSSECustomerKey(getObjectRequest.getSSECustomerKey());
+        req.setGeneralProgressListener(partListener);
+        req.setRequestMetricCollector(getObjectRequest.getRequestMetricCollector());
+        req.setRequestCredentials(getObjectRequest.getRequestCredentials());
+        return TransferManager.appendMultipartUserAgent(req);
+    }
+}
@@ -15,7 +15,9 @@
 package com.amazonaws.services.s3.transfer.internal;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 
 import com.amazonaws.AmazonClientException;
 import com.amazonaws.AmazonServiceException;
@@ -71,7 +73,8 @@ public class MultipleFileDownloadImpl extends MultipleFileTransfer<Download> imp
     @Override
     public void waitForCompletion()
             throws AmazonClientException, AmazonServiceException, InterruptedException {
-        if (subTransfers.isEmpty())
+        // Sub-transfers of a synchronization are only known as dispatched
+        if (subTransfers.isEmpty() && !(monitor instanceof MultipleFileTransferDispatcher))
             return;
         super.waitForCompletion();
     }
@@ -93,8 +96,16 @@ public class MultipleFileDownloadImpl extends MultipleFileTransfer<Download> imp
          * then notify the listener.
          */
 
+        if (monitor instanceof MultipleFileTransferDispatcher)
+            ((MultipleFileTransferDispatcher<?>) monitor).cancel();
+        // Sub-transfers may be concurrently added and removed by a dispatcher
+        List<Transfer> downloads;
+        synchronized (subTransfers) {
+            downloads = new ArrayList<Transfer>(subTransfers);
+        }
+
         /* First abort all the download jobs without notifying the state change listener.*/
-        for (Transfer fileDownload : subTransfers) {
+        for (Transfer fileDownload : downloads) {
             ((DownloadImpl)fileDownload).abortWithoutNotifyingStateChangeListener();
         }
 
@@ -103,7 +114,7 @@ public class MultipleFileDownloadImpl extends MultipleFileTransfer<Download> imp
          * is able to check isDone() on each sub-transfer object without
          * contention with worker threads.
          */
-        for (Transfer fileDownload : subTransfers) {
+        for (Transfer fileDownload : downloads) {
             ((DownloadImpl)fileDownload).notifyStateChangeListeners(TransferState.Canceled);
         }
     }
@@ -0,0 +1,266 @@
+/*
+ * Copyright 2010-2014 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.s3.transfer.internal;
+
+import java.util.Collection;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.http.annotation.ThreadSafe;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.s3.transfer.Transfer;
+import com.amazonaws.services.s3.transfer.Transfer.TransferState;
+
+/**
+ * Dispatches the sub-transfers of a multiple file transfer as they are
+ * produced by a {@link SubTransferSource}, keeping at most a bounded number
+ * of sub-transfers in flight at any time, and monitors the overall transfer.
+ * <p>
+ * Only the in-flight sub-transfers are retained in the collection of
+ * sub-transfers of the multiple file transfer, so the memory footprint is
+ * independent of the total number of files. The state of the multiple file
+ * transfer is collated from the outcome of all the sub-transfers once the
+ * source is exhausted and all the sub-transfers are done.
+ * <p>
+ * No thread is ever held waiting for a sub-transfer: the dispatcher fills the
+ * window in a short task submitted to the thread pool, and submits such a
+ * task again whenever a sub-transfer finishes. This is what allows the
+ * sub-transfers to share the same thread pool, however small, with any
+ * number of multiple file transfers.
+ */
+@ThreadSafe
+public class MultipleFileTransferDispatcher<T extends Transfer> implements
+        Callable<Boolean>, TransferMonitor {
+
+    /**
+     * Produces the sub-transfers of a multiple file transfer.
+     */
+    public static interface SubTransferSource<T extends Transfer> {
+        /**
+         * Starts and returns the next sub-transfer, which must notify the
+         * given state change listener of its state changes; or returns null
+         * if there are no more sub-transfers.
+         */
+        public T startNext(TransferStateChangeListener stateChangeListener)
+                throws Exception;
+    }
+
+    private final MultipleFileTransfer<T> transfer;
+    /** The in-flight sub-transfers, which must be a synchronized collection. */
+    private final Collection<T> inFlight;
+    private final SubTransferSource<T> source;
+    private final int maxInFlight;
+    /** Completed with the outcome of the whole transfer. */
+    private final FutureTask<Boolean> future = new FutureTask<Boolean>(this);
+    private final Runnable dispatchTask = new Runnable() {
+        @Override
+        public void run() {
+            drainDispatchRequests();
+        }
+    };
+
+    /** Number of sub-transfers started or being started but not finished. */
+    private final AtomicInteger running = new AtomicInteger();
+    /** Number of outstanding requests to run the dispatch task. */
+    private final AtomicInteger dispatchRequests = new AtomicInteger();
+    private final AtomicInteger failedCount = new AtomicInteger();
+    private final AtomicInteger canceledCount = new AtomicInteger();
+    private final AtomicReference<Transfer> firstFailed = new AtomicReference<Transfer>();
+    private volatile Exception sourceException;
+    private volatile boolean exhausted;
+    private volatile boolean canceled;
+    /** Whether the thread pool has rejected the dispatch task. */
+    private volatile boolean rejected;
+    private volatile ExecutorService threadPool;
+
+    /**
+     * @param transfer
+     *            the multiple file transfer
+     * @param inFlight
+     *            the synchronized collection of sub-transfers of the multiple
+     *            file transfer, to which the in-flight sub-transfers are added
+     * @param source
+     *            the source of sub-transfers
+     * @param maxInFlight
+     *            the maximum number of sub-transfers in flight at any time
+     */
+    public MultipleFileTransferDispatcher(MultipleFileTransfer<T> transfer,
+            Collection<T> inFlight, SubTransferSource<T> source,
+            int maxInFlight) {
+        this.transfer = transfer;
+        this.inFlight = inFlight;
+        this.source = source;
+        this.maxInFlight = Math.max(1, maxInFlight);
+    }
+
+    /**
+     * Starts dispatching sub-transfers in the given thread pool. Returns
+     * immediately.
+     */
+    public void start(ExecutorService threadPool) {
+        this.threadPool = threadPool;
+        requestDispatch();
+    }
+
+    /**
+     * Stops dispatching further sub-transfers. The in-flight sub-transfers
+     * are expected to be aborted by the caller.
+     */
+    public void cancel() {
+        canceled = true;
+        requestDispatch();
+    }
+
+    /**
+     * Requests the dispatch task to be run, unless it is already pending or
+     * running, in which case it will run once more.
+     */
+    private void requestDispatch() {
+        if (dispatchRequests.getAndIncrement() != 0)
+            return;
+        ExecutorService pool = threadPool;
+        if (pool == null) {
+            // Not started yet; start() will request the dispatch again
+            dispatchRequests.decrementAndGet();
+            return;
+        }
+        try {
+            pool.execute(dispatchTask);
+        } catch (RejectedExecutionException e) {
+            // The thread pool has been shut down
+            rejected = true;
+            canceled = true;
+            drainDispatchRequests();
+        }
+    }
+
+    private void drainDispatchRequests() {
+        int requests = 1;
+        do {
+            dispatch();
+            requests = dispatchRequests.addAndGet(-requests);
+        } while (requests != 0);
+    }
+
+    /**
+     * Starts sub-transfers until the window is full or the source is
+     * exhausted, and completes the future once all the sub-transfers are
+     * done. Never blocks waiting for a sub-transfer.
+     */
+    private void dispatch() {
+        while (!canceled && !exhausted && running.get() < maxInFlight) {
+            running.incrementAndGet();
+            SubTransferListener listener = new SubTransferListener();
+            T subTransfer;
+            try {
+                subTransfer = source.startNext(listener);
+            } catch (Exception e) {
+                running.decrementAndGet();
+                sourceException = e;
+                exhausted = true;
+                break;
+            }
+            if (subTransfer == null) {
+                running.decrementAndGet();
+                exhausted = true;
+                break;
+            }
+            synchronized (inFlight) {
+                // The sub-transfer may have finished already
+                if (!listener.finished.get())
+                    inFlight.add(subTransfer);
+            }
+        }
+        if ((canceled || exhausted) && running.get() == 0)
+            future.run();
+    }
+
+    /**
+     * Collates the outcome of all the sub-transfers. Only run by the future
+     * once all the sub-transfers are done.
+     */
+    @Override
+    public Boolean call() throws Exception {
+        Exception e = sourceException;
+        if (e != null) {
+            transfer.setState(canceled ? TransferState.Canceled : TransferState.Failed);
+            throw e;
+        }
+        if (failedCount.get() > 0) {
+            transfer.setState(TransferState.Failed);
+            // Dispatching inline from a sub-transfer if the pool was shut down
+            AmazonClientException ace = rejected ? null
+                    : firstFailed.get().waitForException();
+            throw ace != null ? ace : new AmazonClientException(failedCount.get()
+                    + " of the file transfers failed");
+        }
+        if (canceled || canceledCount.get() > 0) {
+            transfer.setState(TransferState.Canceled);
+            throw new AmazonClientException("Multiple file transfer canceled");
+        }
+        transfer.setState(TransferState.Completed);
+        return Boolean.TRUE;
+    }
+
+    @Override
+    public Future<?> getFuture() {
+        return future;
+    }
+
+    @Override
+    public boolean isDone() {
+        return future.isDone();
+    }
+
+    /**
+     * Tracks the state of a single sub-transfer.
+     */
+    private final class SubTransferListener implements TransferStateChangeListener {
+        private final AtomicBoolean finished = new AtomicBoolean();
+
+        @Override
+        public void transferStateChanged(Transfer subTransfer, TransferState state) {
+            if (state == TransferState.InProgress) {
+                if (transfer.getState() == TransferState.Waiting)
+                    transfer.setState(TransferState.InProgress);
+                return;
+            }
+            if (state != TransferState.Completed
+             && state != TransferState.Failed
+             && state != TransferState.Canceled)
+                return;
+            synchronized (inFlight) {
+                if (!finished.compareAndSet(false, true))
+                    return;
+                inFlight.remove(subTransfer);
+            }
+            if (state == TransferState.Failed) {
+                failedCount.incrementAndGet();
+                firstFailed.compareAndSet(null, subTransfer);
+            } else if (state == TransferState.Canceled) {
+                canceledCount.incrementAndGet();
+            }
+            running.decrementAndGet();
+            requestDispatch();
+        }
+    }
+}
@@ -72,7 +72,8 @@ public class MultipleFileUploadImpl extends MultipleFileTransfer<Upload> impleme
     @Override
     public void waitForCompletion()
             throws AmazonClientException, AmazonServiceException, InterruptedException {
-        if (subTransfers.isEmpty())
+        // Sub-transfers of a synchronization are only known as dispatched
+        if (subTransfers.isEmpty() && !(monitor instanceof MultipleFileTransferDispatcher))
             return;
         super.waitForCompletion();
     }
@@ -82,7 +83,10 @@ public class MultipleFileUploadImpl extends MultipleFileTransfer<Upload> impleme
      */
     @Override
     public Collection<? extends Upload> getSubTransfers() {
-        return Collections.unmodifiableCollection(subTransfers);
+        // Sub-transfers may be concurrently added and removed by a dispatcher
+        synchronized (subTransfers) {
+            return Collections.unmodifiableCollection(new ArrayList<Upload>(subTransfers));
+        }
     }
 
 }
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2010-2014 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.s3.transfer.internal;
+
+import static com.amazonaws.event.SDKProgressPublisher.publishRequestBytesTransferred;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.amazonaws.event.ProgressEventType;
+import com.amazonaws.event.ProgressListenerChain;
+import com.amazonaws.services.s3.transfer.MultipleObjectCopy;
+import com.amazonaws.services.s3.transfer.TransferProgress;
+
+/**
+ * Server-side copy, or move, of all the objects under a key prefix.
+ */
+public class MultipleObjectCopyImpl extends AbstractTransfer implements MultipleObjectCopy {
+
+    private final String sourceBucketName;
+    private final String sourceKeyPrefix;
+    private final String destinationBucketName;
+    private final String destinationKeyPrefix;
+
+    private final AtomicLong objectsCopied = new AtomicLong();
+    private final AtomicLong objectsFailed = new AtomicLong();
+
+    public MultipleObjectCopyImpl(String description, TransferProgress transferProgress,
+            ProgressListenerChain progressListenerChain,
+            String sourceBucketName, String sourceKeyPrefix,
+            String destinationBucketName, String destinationKeyPrefix) {
+        super(description, transferProgress, progressListenerChain);
+        this.sourceBucketName = sourceBucketName;
+        this.sourceKeyPrefix = sourceKeyPrefix;
+        this.destinationBucketName = destinationBucketName;
+        this.destinationKeyPrefix = destinationKeyPrefix;
+    }
+
+    @Override
+    public String getSourceBucketName() {
+        return sourceBucketName;
+    }
+
+    @Override
+    public String getSourceKeyPrefix() {
+        return sourceKeyPrefix;
+    }
+
+    @Override
+    public String getDestinationBucketName() {
+        return destinationBucketName;
+    }
+
+    @Override
+    public String getDestinationKeyPrefix() {
+        return destinationKeyPrefix;
+    }
+
+    @Override
+    public long getObjectsCopied() {
+        return objectsCopied.get();
+    }
+
+    @Override
+    public long getObjectsFailed() {
+        return objectsFailed.get();
+    }
+
+    @Override
+    public void abort() {
+        ((PrefixCopyCallable) monitor).cancel();
+    }
+
+    /**
+     * Returns the destination key of the object with the given source key.
+     */
+    String toDestinationKey(String sourceKey) {
+        return destinationKeyPrefix + sourceKey.substring(sourceKeyPrefix.length());
+    }
+
+    /**
+     * Records the given number of bytes as copied.
+     */
+    void bytesCopied(long bytes) {
+        publishRequestBytesTransferred(listenerChain, bytes);
+    }
+
+    /**
+     * Records an object as copied.
+     */
+    void objectCopied() {
+        objectsCopied.incrementAndGet();
+    }
+
+    /**
+     * Records the given number of objects as failed.
+     */
+    void objectsFailed(int count) {
+        objectsFailed.addAndGet(count);
+    }
+
+    /**
+     * Override this method so that TransferState updates are also sent out to the
+     * progress listener chain in forms of ProgressEvent.
+     */
+    @Override
+    public void setState(TransferState state) {
+        super.setState(state);
+
+        switch (state) {
+        case InProgress:
+            fireProgressEvent(ProgressEventType.TRANSFER_STARTED_EVENT);
+            break;
+        case Completed:
+            fireProgressEvent(ProgressEventType.TRANSFER_COMPLETED_EVENT);
+            break;
+        case Canceled:
+            fireProgressEvent(ProgressEventType.TRANSFER_CANCELED_EVENT);
+            break;
+        case Failed:
+            fireProgressEvent(ProgressEventType.TRANSFER_FAILED_EVENT);
+            break;
+        default:
+            break;
+        }
+    }
+}
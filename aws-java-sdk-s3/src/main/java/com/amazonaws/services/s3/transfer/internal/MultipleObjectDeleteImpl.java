@@ -0,0 +1,127 @@
+/*
+ * Copyright 2010-2014 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.s3.transfer.internal;
+
+import static com.amazonaws.event.SDKProgressPublisher.publishRequestBytesTransferred;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.amazonaws.event.ProgressEventType;
+import com.amazonaws.event.ProgressListenerChain;
+import com.amazonaws.services.s3.transfer.MultipleObjectDelete;
+import com.amazonaws.services.s3.transfer.TransferProgress;
+
+/**
+ * Bulk deletion of all the objects under a key prefix.
+ */
+public class MultipleObjectDeleteImpl extends AbstractTransfer implements MultipleObjectDelete {
+
+    private final String keyPrefix;
+    private final String bucketName;
+
+    private final AtomicLong objectsDeleted = new AtomicLong();
+    private final AtomicLong objectsFailed = new AtomicLong();
+    /** Time in nanoseconds the deletion started; or zero if not yet. */
+    private volatile long startNanos;
+    /** Time in nanoseconds the deletion is done; or zero if not yet. */
+    private volatile long endNanos;
+
+    public MultipleObjectDeleteImpl(String description, TransferProgress transferProgress,
+            ProgressListenerChain progressListenerChain, String keyPrefix, String bucketName) {
+        super(description, transferProgress, progressListenerChain);
+        this.keyPrefix = keyPrefix;
+        this.bucketName = bucketName;
+    }
+
+    @Override
+    public String getKeyPrefix() {
+        return keyPrefix;
+    }
+
+    @Override
+    public String getBucketName() {
+        return bucketName;
+    }
+
+    @Override
+    public long getObjectsDeleted() {
+        return objectsDeleted.get();
+    }
+
+    @Override
+    public long getObjectsFailed() {
+        return objectsFailed.get();
+    }
+
+    @Override
+    public double getObjectsPerSecond() {
+        long start = startNanos;
+        if (start == 0)
+            return 0;
+        long end = endNanos;
+        long elapsed = (end == 0 ? System.nanoTime() : end) - start;
+        return elapsed <= 0 ? 0 : objectsDeleted.get() * 1e9 / elapsed;
+    }
+
+    @Override
+    public void abort() {
+        ((BulkDeleteCallable) monitor).cancel();
+    }
+
+    /**
+     * Records the given number of objects of the given total size as deleted.
+     */
+    void objectsDeleted(int count, long bytes) {
+        objectsDeleted.addAndGet(count);
+        publishRequestBytesTransferred(listenerChain, bytes);
+    }
+
+    /**
+     * Records the given number of objects as failed to be deleted.
+     */
+    void objectsFailed(int count) {
+        objectsFailed.addAndGet(count);
+    }
+
+    /**
+     * Override this method so that TransferState updates are also sent out to the
+     * progress listener chain in forms of ProgressEvent.
+     */
+    @Override
+    public void setState(TransferState state) {
+        super.setState(state);
+
+        switch (state) {
+        case InProgress:
+            startNanos = System.nanoTime();
+            fireProgressEvent(ProgressEventType.TRANSFER_STARTED_EVENT);
+            break;
+        case Completed:
+            endNanos = System.nanoTime();
+            fireProgressEvent(ProgressEventType.TRANSFER_COMPLETED_EVENT);
+            break;
+        case Canceled:
+            endNanos = System.nanoTime();
+            fireProgressEvent(ProgressEventType.TRANSFER_CANCELED_EVENT);
+            break;
+        case Failed:
+            endNanos = System.nanoTime();
+            fireProgressEvent(ProgressEventType.TRANSFER_FAILED_EVENT);
+            break;
+        default:
+            break;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2010-2014 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.s3.transfer.internal;
+
+import java.nio.ByteBuffer;
+import java.util.LinkedList;
+
+import org.apache.http.annotation.GuardedBy;
+import org.apache.http.annotation.ThreadSafe;
+
+/**
+ * A bounded pool of reusable, equally sized part buffers, used for uploading
+ * an input stream in parts concurrently. Buffers are allocated lazily up to
+ * the capacity of the pool, either on the heap or off-heap, and are reused
+ * once released.
+ */
+@ThreadSafe
+public class PartBufferPool {
+    private final int capacity;
+    private final int bufferSize;
+    private final boolean direct;
+
+    @GuardedBy("this")
+    private final LinkedList<ByteBuffer> free = new LinkedList<ByteBuffer>();
+    @GuardedBy("this")
+    private int allocated;
+
+    /**
+     * @param capacity
+     *            the maximum number of buffers of this pool
+     * @param bufferSize
+     *            the size in bytes of each buffer
+     * @param direct
+     *            true if the buffers are to be allocated off-heap; false
+     *            otherwise.
+     */
+    public PartBufferPool(int capacity, int bufferSize, boolean direct) {
+        if (capacity < 1)
+            throw new IllegalArgumentException("capacity must be at least one");
+        if (bufferSize < 1)
+            throw new IllegalArgumentException("bufferSize must be at least one");
+        this.capacity = capacity;
+        this.bufferSize = bufferSize;
+        this.direct = direct;
+    }
+
+    /**
+     * Returns a cleared buffer if one is available or can be allocated; or
+     * null if all the buffers of this pool are in use.
+     */
+    public synchronized ByteBuffer tryAcquire() {
+        if (!free.isEmpty())
+            return free.removeFirst();
+        if (allocated < capacity) {
+            allocated++;
+            return direct
+                 ? ByteBuffer.allocateDirect(bufferSize)
+                 : ByteBuffer.allocate(bufferSize);
+        }
+        return null;
+    }
+
+    /**
+     * Returns a cleared buffer, blocking until one is released if all the
+     * buffers of this pool are in use.
+     */
+    public synchronized ByteBuffer acquire() throws InterruptedException {
+        ByteBuffer buffer;
+        while ((buffer = tryAcquire()) == null)
+            wait();
+        return buffer;
+    }
+
+    /**
+     * Returns the given buffer, previously acquired from this pool, to the
+     * pool.
+     */
+    public synchronized void release(ByteBuffer buffer) {
+        buffer.clear();
+        free.addFirst(buffer);
+        notifyAll();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+}
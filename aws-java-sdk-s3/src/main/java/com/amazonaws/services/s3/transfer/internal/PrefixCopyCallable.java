@@ -0,0 +1,567 @@
+/*
+ * Copyright 2010-2014 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.s3.transfer.internal;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.http.annotation.GuardedBy;
+import org.apache.http.annotation.ThreadSafe;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.AbortMultipartUploadRequest;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadRequest;
+import com.amazonaws.services.s3.model.CopyObjectRequest;
+import com.amazonaws.services.s3.model.CopyPartRequest;
+import com.amazonaws.services.s3.model.DeleteObjectsRequest;
+import com.amazonaws.services.s3.model.DeleteObjectsRequest.KeyVersion;
+import com.amazonaws.services.s3.model.GetObjectMetadataRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
+import com.amazonaws.services.s3.model.ListObjectsRequest;
+import com.amazonaws.services.s3.model.MultiObjectDeleteException;
+import com.amazonaws.services.s3.model.ObjectListing;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PartETag;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.amazonaws.services.s3.transfer.TransferManager;
+import com.amazonaws.services.s3.transfer.TransferManagerConfiguration;
+import com.amazonaws.services.s3.transfer.TransferProgress;
+import com.amazonaws.services.s3.transfer.Transfer.TransferState;
+
+/**
+ * Copies, or moves, all the objects under a key prefix, and monitors the
+ * copy.
+ * <p>
+ * Objects are copied as they are listed. An object no larger than the
+ * multipart copy threshold is copied by a single copy request, whereas a
+ * larger object is copied in parts, the last of which completes the multipart
+ * upload. Single copies and part copies share one budget of requests in flight
+ * at any time, so the listing is paced by the progress of the copies
+ * regardless of the object sizes. When moving, the source objects are deleted
+ * with multi-object delete requests of up to 1000 keys as they are copied.
+ * <p>
+ * No thread is ever held waiting for a request: the listing proceeds in a
+ * short task submitted to the thread pool whenever a request finishes, so the
+ * copy works with a thread pool of any size.
+ */
+@ThreadSafe
+public class PrefixCopyCallable implements Callable<Boolean>, TransferMonitor {
+    /** Maximum number of keys per multi-object delete request. */
+    private static final int MAX_KEYS_PER_DELETE = 1000;
+
+    private static final Log log = LogFactory.getLog(PrefixCopyCallable.class);
+
+    private final AmazonS3 s3;
+    private final TransferManagerConfiguration configuration;
+    private final ExecutorService threadPool;
+    private final MultipleObjectCopyImpl copy;
+    private final boolean deleteSource;
+    private final int maxInFlight;
+    /** Completed with the outcome of the copy. */
+    private final FutureTask<Boolean> future = new FutureTask<Boolean>(this);
+    private final Runnable dispatchTask = new Runnable() {
+        @Override
+        public void run() {
+            drainDispatchRequests();
+        }
+    };
+
+    /** Source keys of the moved objects yet to be deleted. */
+    @GuardedBy("pendingDeletes")
+    private final List<KeyVersion> pendingDeletes = new ArrayList<KeyVersion>();
+
+    /** Set once either the copy starts or is canceled before starting. */
+    private final AtomicBoolean started = new AtomicBoolean();
+    private final AtomicReference<AmazonClientException> firstError = new AtomicReference<AmazonClientException>();
+    /** Number of single copy and part copy requests in flight. */
+    private final AtomicInteger running = new AtomicInteger();
+    /** Number of outstanding requests to run the dispatch task. */
+    private final AtomicInteger dispatchRequests = new AtomicInteger();
+    /** The last page listed; only used by the dispatch task. */
+    private ObjectListing listing;
+    /** Index of the next object of the last page; only used by the dispatch task. */
+    private int nextIndex;
+    /** The object whose parts are being submitted; only used by the dispatch task. */
+    private PendingParts pendingParts;
+    private volatile Exception listingException;
+    private volatile boolean exhausted;
+    private volatile boolean canceled;
+
+    /**
+     * @param deleteSource
+     *            whether the source objects are deleted once copied
+     * @param maxInFlight
+     *            the maximum number of requests in flight at any time
+     */
+    public PrefixCopyCallable(TransferManager transferManager,
+            ExecutorService threadPool, MultipleObjectCopyImpl copy,
+            boolean deleteSource, int maxInFlight) {
+        this.s3 = transferManager.getAmazonS3Client();
+        this.configuration = transferManager.getConfiguration();
+        this.threadPool = threadPool;
+        this.copy = copy;
+        this.deleteSource = deleteSource;
+        this.maxInFlight = Math.max(1, maxInFlight);
+    }
+
+    /**
+     * Starts the copy in the thread pool. Returns immediately.
+     */
+    public void start() {
+        if (!started.compareAndSet(false, true))
+            return;
+        copy.setState(TransferState.InProgress);
+        requestDispatch();
+    }
+
+    /**
+     * Stops listing and copying further objects. Requests already in flight
+     * are allowed to complete, but the multipart uploads of partially copied
+     * objects are aborted.
+     */
+    void cancel() {
+        canceled = true;
+        if (started.compareAndSet(false, true))
+            copy.setState(TransferState.Canceled);
+        requestDispatch();
+    }
+
+    /**
+     * Requests the dispatch task to be run, unless it is already pending or
+     * running, in which case it will run once more.
+     */
+    private void requestDispatch() {
+        if (dispatchRequests.getAndIncrement() != 0)
+            return;
+        try {
+            threadPool.execute(dispatchTask);
+        } catch (RejectedExecutionException e) {
+            // The thread pool has been shut down
+            canceled = true;
+            drainDispatchRequests();
+        }
+    }
+
+    private void drainDispatchRequests() {
+        int requests = 1;
+        do {
+            dispatch();
+            requests = dispatchRequests.addAndGet(-requests);
+        } while (requests != 0);
+    }
+
+    /**
+     * Lists objects and submits their copy requests until the budget of
+     * requests in flight is used up or the listing is exhausted, and
+     * completes the future once all the requests are done. Never blocks
+     * waiting for a request.
+     */
+    private void dispatch() {
+        try {
+            while (!canceled && !exhausted && running.get() < maxInFlight) {
+                if (pendingParts != null) {
+                    if (!pendingParts.submitNext())
+                        pendingParts = null;
+                    continue;
+                }
+                S3ObjectSummary summary = nextSummary();
+                if (summary == null) {
+                    exhausted = true;
+                    break;
+                }
+                TransferProgress progress = copy.getProgress();
+                progress.setTotalBytesToTransfer(
+                        progress.getTotalBytesToTransfer() + summary.getSize());
+                if (summary.getSize() > configuration.getMultipartCopyThreshold())
+                    pendingParts = copyInParts(summary);
+                else
+                    submit(new SingleCopy(summary));
+            }
+        } catch (RuntimeException e) {
+            listingException = e;
+            exhausted = true;
+        }
+        if (pendingParts != null && (canceled || exhausted)) {
+            // Skips the parts not submitted
+            pendingParts.skipRemaining();
+            pendingParts = null;
+        }
+        if ((canceled || exhausted) && running.get() == 0) {
+            if (deleteSource && !canceled && listingException == null)
+                deleteSources(true);
+            future.run();
+        }
+    }
+
+    /**
+     * Returns the next object listed, listing the next page if needed; or
+     * null if there are no more objects.
+     */
+    private S3ObjectSummary nextSummary() {
+        while (listing == null || nextIndex >= listing.getObjectSummaries().size()) {
+            if (listing != null && !listing.isTruncated())
+                return null;
+            listing = listing == null
+                    ? s3.listObjects(TransferManager.appendSingleObjectUserAgent(
+                        new ListObjectsRequest()
+                            .withBucketName(copy.getSourceBucketName())
+                            .withPrefix(copy.getSourceKeyPrefix())))
+                    : s3.listNextBatchOfObjects(listing);
+            nextIndex = 0;
+        }
+        return listing.getObjectSummaries().get(nextIndex++);
+    }
+
+    /**
+     * Collates the outcome of the copy. Only run by the future once all the
+     * requests are done.
+     */
+    @Override
+    public Boolean call() throws Exception {
+        Exception e = listingException;
+        if (e != null) {
+            copy.setState(canceled ? TransferState.Canceled : TransferState.Failed);
+            throw e;
+        }
+        if (copy.getObjectsFailed() > 0) {
+            copy.setState(TransferState.Failed);
+            throw new AmazonClientException(copy.getObjectsFailed()
+                    + " of the objects could not be "
+                    + (deleteSource ? "moved" : "copied") + " from "
+                    + copy.getSourceBucketName(), firstError.get());
+        }
+        if (canceled) {
+            copy.setState(TransferState.Canceled);
+            throw new AmazonClientException("Copy canceled");
+        }
+        copy.setState(TransferState.Completed);
+        return Boolean.TRUE;
+    }
+
+    @Override
+    public Future<?> getFuture() {
+        return future;
+    }
+
+    @Override
+    public boolean isDone() {
+        return future.isDone();
+    }
+
+    /**
+     * Submits the given task to the thread pool, counting it as in flight.
+     * The task must call {@link #requestDone()} when done.
+     */
+    private void submit(Runnable task) {
+        running.incrementAndGet();
+        try {
+            threadPool.execute(task);
+        } catch (RuntimeException e) {
+            running.decrementAndGet();
+            throw e;
+        }
+    }
+
+    /**
+     * Records a request as no longer in flight, and resumes the dispatch.
+     */
+    private void requestDone() {
+        running.decrementAndGet();
+        requestDispatch();
+    }
+
+    private CopyObjectRequest newCopyRequest(S3ObjectSummary summary) {
+        return TransferManager.appendSingleObjectUserAgent(new CopyObjectRequest(
+                copy.getSourceBucketName(), summary.getKey(),
+                copy.getDestinationBucketName(),
+                copy.toDestinationKey(summary.getKey())));
+    }
+
+    /**
+     * Initiates the multipart upload of the given large object, and returns
+     * its parts to be submitted; or null if the upload could not be
+     * initiated.
+     */
+    private PendingParts copyInParts(S3ObjectSummary summary) {
+        CopyObjectRequest copyRequest = newCopyRequest(summary);
+        try {
+            // The metadata is not carried over by a multipart upload
+            ObjectMetadata metadata = s3.getObjectMetadata(TransferManager.appendSingleObjectUserAgent(
+                    new GetObjectMetadataRequest(summary.getBucketName(), summary.getKey())));
+            String uploadId = s3.initiateMultipartUpload(TransferManager.appendMultipartUserAgent(
+                    new InitiateMultipartUploadRequest(
+                            copyRequest.getDestinationBucketName(),
+                            copyRequest.getDestinationKey(),
+                            newObjectMetadata(metadata))))
+                    .getUploadId();
+            long partSize = TransferManagerUtils.calculateOptimalPartSizeForCopy(
+                    copyRequest, configuration, summary.getSize());
+            int partCount = (int) ((summary.getSize() + partSize - 1) / partSize);
+            return new PendingParts(
+                    new MultipartCopy(summary, copyRequest, uploadId, partCount),
+                    new CopyPartRequestFactory(copyRequest, uploadId,
+                            partSize, summary.getSize()));
+        } catch (AmazonClientException e) {
+            failed(1, e);
+            return null;
+        }
+    }
+
+    /**
+     * Returns the metadata of a new object copied in parts from an object with
+     * the given metadata.
+     */
+    private static ObjectMetadata newObjectMetadata(ObjectMetadata source) {
+        ObjectMetadata metadata = new ObjectMetadata();
+        metadata.setUserMetadata(source.getUserMetadata());
+        if (source.getContentType() != null)
+            metadata.setContentType(source.getContentType());
+        if (source.getContentEncoding() != null)
+            metadata.setContentEncoding(source.getContentEncoding());
+        if (source.getContentDisposition() != null)
+            metadata.setContentDisposition(source.getContentDisposition());
+        if (source.getCacheControl() != null)
+            metadata.setCacheControl(source.getCacheControl());
+        return metadata;
+    }
+
+    /**
+     * Records the given object as copied, and schedules its source for
+     * deletion if moving.
+     */
+    private void copied(S3ObjectSummary summary) {
+        copy.objectCopied();
+        if (!deleteSource)
+            return;
+        synchronized (pendingDeletes) {
+            pendingDeletes.add(new KeyVersion(summary.getKey()));
+        }
+        deleteSources(false);
+    }
+
+    private void failed(int count, AmazonClientException e) {
+        copy.objectsFailed(count);
+        firstError.compareAndSet(null, e);
+    }
+
+    /**
+     * Deletes the source objects pending deletion with a multi-object delete
+     * request, either if there are enough of them or if forced.
+     */
+    private void deleteSources(boolean force) {
+        List<KeyVersion> keys;
+        synchronized (pendingDeletes) {
+            if (pendingDeletes.isEmpty()
+             || (!force && pendingDeletes.size() < MAX_KEYS_PER_DELETE))
+                return;
+            keys = new ArrayList<KeyVersion>(pendingDeletes);
+            pendingDeletes.clear();
+        }
+        try {
+            s3.deleteObjects(TransferManager.appendSingleObjectUserAgent(
+                    new DeleteObjectsRequest(copy.getSourceBucketName())
+                        .withKeys(keys)
+                        .withQuiet(true)));
+        } catch (MultiObjectDeleteException e) {
+            failed(e.getErrors().size(), e);
+        } catch (AmazonClientException e) {
+            failed(keys.size(), e);
+        }
+    }
+
+    /**
+     * Copies an object with a single copy request.
+     */
+    private final class SingleCopy implements Runnable {
+        private final S3ObjectSummary summary;
+
+        SingleCopy(S3ObjectSummary summary) {
+            this.summary = summary;
+        }
+
+        @Override
+        public void run() {
+            try {
+                if (canceled)
+                    return;
+                s3.copyObject(newCopyRequest(summary));
+                copy.bytesCopied(summary.getSize());
+                copied(summary);
+            } catch (AmazonClientException e) {
+                failed(1, e);
+            } finally {
+                requestDone();
+            }
+        }
+    }
+
+    /**
+     * Tracks the parts of an object being copied in parts, and completes or
+     * aborts the multipart upload once all the parts are done.
+     */
+    private final class MultipartCopy {
+        private final S3ObjectSummary summary;
+        private final CopyObjectRequest copyRequest;
+        private final String uploadId;
+        private final int partCount;
+        private final PartETag[] partETags;
+        /** Number of parts neither copied, failed nor skipped. */
+        private final AtomicInteger remaining;
+        private final AtomicInteger copiedParts = new AtomicInteger();
+        private final AtomicReference<AmazonClientException> error = new AtomicReference<AmazonClientException>();
+
+        MultipartCopy(S3ObjectSummary summary, CopyObjectRequest copyRequest,
+                String uploadId, int partCount) {
+            this.summary = summary;
+            this.copyRequest = copyRequest;
+            this.uploadId = uploadId;
+            this.partCount = partCount;
+            this.partETags = new PartETag[partCount];
+            this.remaining = new AtomicInteger(partCount);
+        }
+
+        boolean isFailed() {
+            return error.get() != null;
+        }
+
+        void partCopied(PartETag partETag) {
+            partETags[partETag.getPartNumber() - 1] = partETag;
+            copiedParts.incrementAndGet();
+            partsDone(1);
+        }
+
+        void partFailed(AmazonClientException e) {
+            error.compareAndSet(null, e);
+            partsDone(1);
+        }
+
+        void partsSkipped(int count) {
+            if (count > 0)
+                partsDone(count);
+        }
+
+        private void partsDone(int count) {
+            if (remaining.addAndGet(-count) > 0)
+                return;
+            if (copiedParts.get() == partCount) {
+                try {
+                    s3.completeMultipartUpload(TransferManager.appendMultipartUserAgent(
+                            new CompleteMultipartUploadRequest(
+                                    copyRequest.getDestinationBucketName(),
+                                    copyRequest.getDestinationKey(), uploadId,
+                                    Arrays.asList(partETags))));
+                    copied(summary);
+                    return;
+                } catch (AmazonClientException e) {
+                    error.compareAndSet(null, e);
+                }
+            }
+            try {
+                s3.abortMultipartUpload(new AbortMultipartUploadRequest(
+                        copyRequest.getDestinationBucketName(),
+                        copyRequest.getDestinationKey(), uploadId));
+            } catch (Exception e) {
+                log.info(
+                        "Unable to abort multipart upload, you may need to manually remove uploaded parts: "
+                                + e.getMessage(), e);
+            }
+            AmazonClientException e = error.get();
+            if (e != null)
+                failed(1, e);
+        }
+    }
+
+    /**
+     * Copies a single part of an object.
+     */
+    private final class PartCopy implements Runnable {
+        private final MultipartCopy multipartCopy;
+        private final CopyPartRequest request;
+
+        PartCopy(MultipartCopy multipartCopy, CopyPartRequest request) {
+            this.multipartCopy = multipartCopy;
+            this.request = request;
+        }
+
+        @Override
+        public void run() {
+            try {
+                if (canceled || multipartCopy.isFailed()) {
+                    multipartCopy.partsSkipped(1);
+                    return;
+                }
+                PartETag partETag;
+                try {
+                    partETag = s3.copyPart(request).getPartETag();
+                } catch (AmazonClientException e) {
+                    multipartCopy.partFailed(e);
+                    return;
+                }
+                copy.bytesCopied(request.getLastByte() - request.getFirstByte() + 1);
+                multipartCopy.partCopied(partETag);
+            } finally {
+                requestDone();
+            }
+        }
+    }
+
+    /**
+     * The parts of an object being copied in parts that are yet to be
+     * submitted. Only used by the dispatch task.
+     */
+    private final class PendingParts {
+        private final MultipartCopy multipartCopy;
+        private final CopyPartRequestFactory requestFactory;
+        private int submitted;
+
+        PendingParts(MultipartCopy multipartCopy, CopyPartRequestFactory requestFactory) {
+            this.multipartCopy = multipartCopy;
+            this.requestFactory = requestFactory;
+        }
+
+        /**
+         * Submits the next part, and returns whether there may be more parts
+         * to submit. Once all the parts are submitted, or the copy of the
+         * object has failed, the remaining parts are skipped.
+         */
+        boolean submitNext() {
+            if (!requestFactory.hasMoreRequests() || multipartCopy.isFailed()) {
+                skipRemaining();
+                return false;
+            }
+            CopyPartRequest request = TransferManager.appendMultipartUserAgent(
+                    requestFactory.getNextCopyPartRequest());
+            submit(new PartCopy(multipartCopy, request));
+            submitted++;
+            return true;
+        }
+
+        void skipRemaining() {
+            multipartCopy.partsSkipped(multipartCopy.partCount - submitted);
+        }
+    }
+}
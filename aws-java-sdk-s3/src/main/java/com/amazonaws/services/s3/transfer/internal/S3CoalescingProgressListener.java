@@ -0,0 +1,37 @@
+/*
+ * Copyright 2013-2014 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.s3.transfer.internal;
+
+import com.amazonaws.event.CoalescingProgressListener;
+import com.amazonaws.event.ProgressListener;
+import com.amazonaws.services.s3.transfer.PersistableTransfer;
+
+/**
+ * S3 specific coalescing progress listener, which also passes persistable
+ * transfers to the underlying listener if it is an {@link S3ProgressListener}.
+ */
+public class S3CoalescingProgressListener extends CoalescingProgressListener
+        implements S3ProgressListener {
+
+    public S3CoalescingProgressListener(ProgressListener listener, long intervalMillis) {
+        super(listener, intervalMillis);
+    }
+
+    @Override
+    public void onPersistableTransfer(PersistableTransfer persistableTransfer) {
+        S3ProgressPublisher.publishTransferPersistable(getListener(),
+                persistableTransfer);
+    }
+}
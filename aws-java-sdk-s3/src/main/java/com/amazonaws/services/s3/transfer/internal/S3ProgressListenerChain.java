@@ -14,6 +14,7 @@
  */
 package com.amazonaws.services.s3.transfer.internal;
 
+import com.amazonaws.event.CoalescingProgressListener;
 import com.amazonaws.event.ProgressListener;
 import com.amazonaws.services.s3.transfer.PersistableTransfer;
 
@@ -23,6 +24,12 @@ import com.amazonaws.services.s3.transfer.PersistableTransfer;
 public class S3ProgressListenerChain extends
         com.amazonaws.event.ProgressListenerChain implements S3ProgressListener
 {
+    /**
+     * The interval in milliseconds at which byte transfer events are coalesced
+     * for the listeners of this chain; or zero if not coalesced.
+     */
+    private final long coalescingIntervalMillis;
+
     /**
      * Create a listener chain that directly passes all the progress events to
      * the specified listeners.
@@ -32,6 +39,59 @@ public class S3ProgressListenerChain extends
      */
     public S3ProgressListenerChain(ProgressListener... listeners) {
         super(listeners);
+        this.coalescingIntervalMillis = 0;
+    }
+
+    /**
+     * Create a listener chain that coalesces the byte transfer events to each
+     * of the specified listeners, and any listener subsequently added, at the
+     * given interval. Listeners that update the progress of a transfer are
+     * always passed every event.
+     *
+     * @param coalescingIntervalMillis
+     *            the interval in milliseconds at which byte transfer events
+     *            are coalesced; or zero if not coalesced.
+     * @param listeners only listeners of type {@link S3ProgressListener}
+     * will be notified with the S3 transfer events.
+     *
+     * @see CoalescingProgressListener
+     */
+    public S3ProgressListenerChain(long coalescingIntervalMillis,
+            ProgressListener... listeners) {
+        super();
+        if (listeners == null) {
+            throw new IllegalArgumentException(
+                    "Progress Listeners cannot be null.");
+        }
+        this.coalescingIntervalMillis = coalescingIntervalMillis;
+        for (ProgressListener listener : listeners)
+            addProgressListener(listener);
+    }
+
+    @Override
+    public synchronized void addProgressListener(ProgressListener listener) {
+        if (coalescingIntervalMillis > 0
+        &&  listener != null
+        &&  listener != ProgressListener.NOOP
+        &&  !(listener instanceof TransferProgressUpdatingListener)
+        &&  !(listener instanceof CoalescingProgressListener)) {
+            listener = new S3CoalescingProgressListener(listener,
+                    coalescingIntervalMillis);
+        }
+        super.addProgressListener(listener);
+    }
+
+    @Override
+    public synchronized void removeProgressListener(ProgressListener listener) {
+        if (listener == null) return;
+        for (ProgressListener l : getListeners()) {
+            if (l instanceof CoalescingProgressListener
+            &&  listener.equals(((CoalescingProgressListener) l).getListener())) {
+                super.removeProgressListener(l);
+                return;
+            }
+        }
+        super.removeProgressListener(listener);
     }
 
     @Override
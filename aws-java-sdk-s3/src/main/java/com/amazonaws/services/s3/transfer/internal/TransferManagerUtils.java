@@ -15,8 +15,10 @@
 package com.amazonaws.services.s3.transfer.internal;
 
 import static com.amazonaws.services.s3.internal.Constants.MAXIMUM_UPLOAD_PARTS;
+import static com.amazonaws.services.s3.internal.Constants.MB;
 
 import java.io.File;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
@@ -31,6 +33,20 @@ import com.amazonaws.services.s3.transfer.TransferManagerConfiguration;
  * Internal utilities for multipart uploads with TransferManager.
  */
 public class TransferManagerUtils {
+    /** Number of parts targeted by adaptive multipart tuning. */
+    private static final int ADAPTIVE_TARGET_PARTS = 1000;
+
+    /**
+     * Maximum part size chosen by adaptive multipart tuning, unless a larger
+     * size is necessary to stay within the maximum number of parts.
+     */
+    private static final long ADAPTIVE_MAX_PART_SIZE = 512L * MB;
+
+    /**
+     * Number of threads assumed available if the thread pool is not a
+     * {@link ThreadPoolExecutor}.
+     */
+    private static final int DEFAULT_MAX_THREADS = 10;
 
     /**
      * Returns a new thread pool configured with the default settings.
@@ -71,6 +87,34 @@ public class TransferManagerUtils {
         return (getRequestFile(putObjectRequest) != null);
     }
 
+    /**
+     * Returns true if the specified request has an input stream as the data
+     * source that should be uploaded in parts concurrently via a bounded pool
+     * of part buffers; false otherwise.
+     *
+     * @param putObjectRequest
+     *            The request to check.
+     * @param configuration
+     *            Configuration settings controlling how transfer manager
+     *            processes requests.
+     * @param isUsingEncryption
+     *            True if the upload is via the Amazon S3 encryption client.
+     */
+    public static boolean isStreamUploadParallelizable(
+            final PutObjectRequest putObjectRequest,
+            final TransferManagerConfiguration configuration,
+            final boolean isUsingEncryption) {
+        if (isUsingEncryption
+         || configuration.getStreamUploadBufferCount() <= 0
+         || getRequestFile(putObjectRequest) != null
+         || putObjectRequest.getInputStream() == null)
+            return false;
+        // Input streams of unknown length are otherwise uploaded in one chunk
+        long contentLength = getContentLength(putObjectRequest);
+        return contentLength < 0
+            || contentLength > configuration.getMultipartUploadThreshold();
+    }
+
     /**
      * Returns the size of the data in this request, otherwise -1 if the content
      * length is unknown.
@@ -111,9 +155,42 @@ public class TransferManagerUtils {
         double optimalPartSize = (double)contentLength / (double)MAXIMUM_UPLOAD_PARTS;
         // round up so we don't push the upload over the maximum number of parts
         optimalPartSize = Math.ceil(optimalPartSize);
+        if (configuration.isAdaptiveMultipartTuning()) {
+            return calculateAdaptivePartSize((long) contentLength,
+                    configuration.getMinimumUploadPartSize());
+        }
         return (long)Math.max(optimalPartSize, configuration.getMinimumUploadPartSize());
     }
 
+    /**
+     * Returns the part size chosen by adaptive multipart tuning for an object
+     * of the given size, which aims at about {@link #ADAPTIVE_TARGET_PARTS}
+     * parts in whole megabytes, within the maximum number of parts.
+     */
+    static long calculateAdaptivePartSize(long contentLength, long minimumPartSize) {
+        if (contentLength < 0)
+            return minimumPartSize;
+        long partSize = Math.min(ceilDiv(contentLength, ADAPTIVE_TARGET_PARTS),
+                ADAPTIVE_MAX_PART_SIZE);
+        partSize = ceilDiv(partSize, MB) * MB;
+        partSize = Math.max(partSize, ceilDiv(contentLength, MAXIMUM_UPLOAD_PARTS));
+        return Math.max(partSize, minimumPartSize);
+    }
+
+    private static long ceilDiv(long dividend, long divisor) {
+        return (dividend + divisor - 1) / divisor;
+    }
+
+    /**
+     * Returns the maximum number of threads of the given thread pool, or a
+     * default if not known.
+     */
+    public static int getMaxThreads(ExecutorService threadPool) {
+        return threadPool instanceof ThreadPoolExecutor
+             ? ((ThreadPoolExecutor) threadPool).getMaximumPoolSize()
+             : DEFAULT_MAX_THREADS;
+    }
+
     /**
      * Returns true if the the specified request should be processed as a
      * multipart upload (instead of a single part upload).
@@ -160,6 +237,10 @@ public class TransferManagerUtils {
                 / (double) MAXIMUM_UPLOAD_PARTS;
         // round up so we don't push the copy over the maximum number of parts
         optimalPartSize = Math.ceil(optimalPartSize);
+        if (configuration.isAdaptiveMultipartTuning()) {
+            return calculateAdaptivePartSize(contentLengthOfSource,
+                    configuration.getMultipartCopyPartSize());
+        }
         return (long) Math.max(optimalPartSize,
                 configuration.getMultipartCopyPartSize());
     }
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2010-2014 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.s3.transfer.internal;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.PutObjectRequest;
+import com.amazonaws.services.s3.model.PutObjectResult;
+import com.amazonaws.services.s3.transfer.Transfer.TransferState;
+import com.amazonaws.services.s3.transfer.model.UploadResult;
+
+/**
+ * Uploads a batch of small files one after another, and monitors the batch.
+ */
+public class UploadBatchCallable implements Callable<UploadResult>, TransferMonitor {
+    private final AmazonS3 s3;
+    private final UploadBatchImpl upload;
+    private final List<PutObjectRequest> requests;
+    private volatile boolean aborted;
+    private volatile Future<UploadResult> future;
+
+    public UploadBatchCallable(AmazonS3 s3, UploadBatchImpl upload,
+            List<PutObjectRequest> requests) {
+        this.s3 = s3;
+        this.upload = upload;
+        this.requests = requests;
+    }
+
+    /**
+     * Starts uploading the batch in the given thread pool.
+     */
+    public void start(ExecutorService threadPool) {
+        future = threadPool.submit(this);
+    }
+
+    @Override
+    public UploadResult call() throws Exception {
+        upload.setState(TransferState.InProgress);
+        PutObjectRequest lastRequest = null;
+        PutObjectResult lastResult = null;
+        try {
+            for (PutObjectRequest req : requests) {
+                if (aborted)
+                    throw new AmazonClientException("Upload canceled");
+                lastResult = s3.putObject(req);
+                lastRequest = req;
+            }
+        } catch (Exception e) {
+            // Already canceled if aborted
+            if (!aborted)
+                upload.setState(TransferState.Failed);
+            throw e;
+        }
+        upload.setState(TransferState.Completed);
+        if (lastRequest == null)
+            return null;
+        // The result of the batch is that of its last file
+        UploadResult uploadResult = new UploadResult();
+        uploadResult.setBucketName(lastRequest.getBucketName());
+        uploadResult.setKey(lastRequest.getKey());
+        uploadResult.setETag(lastResult.getETag());
+        uploadResult.setVersionId(lastResult.getVersionId());
+        return uploadResult;
+    }
+
+    /**
+     * Cancels the remaining files of the batch.
+     */
+    void abort() {
+        if (upload.isDone())
+            return;
+        aborted = true;
+        Future<UploadResult> f = future;
+        if (f != null)
+            f.cancel(true);
+        upload.setState(TransferState.Canceled);
+    }
+
+    @Override
+    public Future<?> getFuture() {
+        return future;
+    }
+
+    @Override
+    public boolean isDone() {
+        Future<UploadResult> f = future;
+        return f != null && f.isDone();
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2010-2014 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.s3.transfer.internal;
+
+import com.amazonaws.event.ProgressListenerChain;
+import com.amazonaws.services.s3.transfer.PauseResult;
+import com.amazonaws.services.s3.transfer.PauseStatus;
+import com.amazonaws.services.s3.transfer.PersistableUpload;
+import com.amazonaws.services.s3.transfer.TransferProgress;
+import com.amazonaws.services.s3.transfer.exception.PauseException;
+
+/**
+ * A batch of small files uploaded one after another by a single task, so as
+ * to avoid the overhead of a separate transfer per file. The result of the
+ * batch is that of the last file uploaded. A batch can be aborted but not
+ * paused.
+ */
+public class UploadBatchImpl extends UploadImpl {
+
+    public UploadBatchImpl(String description, TransferProgress transferProgress,
+            ProgressListenerChain progressListenerChain, TransferStateChangeListener listener) {
+        super(description, transferProgress, progressListenerChain, listener);
+    }
+
+    @Override
+    public PersistableUpload pause() throws PauseException {
+        throw new PauseException(PauseStatus.NO_EFFECT);
+    }
+
+    @Override
+    public PauseResult<PersistableUpload> tryPause(boolean forceCancelTransfers) {
+        return new PauseResult<PersistableUpload>(PauseStatus.NO_EFFECT);
+    }
+
+    @Override
+    public void abort() {
+        ((UploadBatchCallable) monitor).abort();
+    }
+}
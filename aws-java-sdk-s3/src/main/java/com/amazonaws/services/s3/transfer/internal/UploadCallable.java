@@ -16,24 +16,36 @@ package com.amazonaws.services.s3.transfer.internal;
 
 import static com.amazonaws.event.SDKProgressPublisher.publishProgress;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.apache.http.annotation.GuardedBy;
 
+import com.amazonaws.AmazonClientException;
 import com.amazonaws.event.ProgressEventType;
 import com.amazonaws.event.ProgressListenerChain;
 import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.AmazonS3Encryption;
+import com.amazonaws.services.s3.AmazonS3EncryptionClient;
+import com.amazonaws.services.s3.internal.Constants;
 import com.amazonaws.services.s3.model.AbortMultipartUploadRequest;
 import com.amazonaws.services.s3.model.CompleteMultipartUploadRequest;
 import com.amazonaws.services.s3.model.CompleteMultipartUploadResult;
@@ -64,7 +76,8 @@ public class UploadCallable implements Callable<UploadResult> {
 
     private static final Log log = LogFactory.getLog(UploadCallable.class);
     private final TransferManagerConfiguration configuration;
-    private final List<Future<PartETag>> futures = new ArrayList<Future<PartETag>>();
+    /** The submitted parts, which the monitor may cancel concurrently. */
+    private final List<Future<PartETag>> futures = Collections.synchronizedList(new ArrayList<Future<PartETag>>());
     private final ProgressListenerChain listener;
     private final TransferProgress transferProgress;
 
@@ -78,6 +91,32 @@ public class UploadCallable implements Callable<UploadResult> {
 
     private CountDownLatch latch;
 
+    /**
+     * True if an input stream that would otherwise be uploaded in parts
+     * concurrently has turned out to fit in a single part, and has therefore
+     * been uploaded in one chunk.
+     */
+    private volatile boolean streamUploadedInOneChunk;
+
+    /**
+     * True if the submission of parts has been interrupted, such as when the
+     * upload is being paused or aborted by the {@link UploadMonitor}.
+     */
+    private volatile boolean submissionInterrupted;
+
+    /**
+     * True once the parts have been cancelled by the {@link UploadMonitor},
+     * after which no further part may be submitted.
+     */
+    @GuardedBy("futures")
+    private boolean partsCanceled;
+
+    /**
+     * Index of the first of the parts submitted in parallel that may not have
+     * been started yet. Only used by the submitting thread.
+     */
+    private int nextUnstartedPart;
+
     public UploadCallable(TransferManager transferManager,
             ExecutorService threadPool, UploadImpl upload,
             PutObjectRequest putObjectRequest,
@@ -115,12 +154,21 @@ public class UploadCallable implements Callable<UploadResult> {
      * @return True if this UploadCallable is processing a multipart upload.
      */
     public boolean isMultipartUpload() {
+        if (isStreamUploadParallelizable())
+            return !streamUploadedInOneChunk;
         return TransferManagerUtils.shouldUseMultipartUpload(putObjectRequest, configuration);
     }
 
+    private boolean isStreamUploadParallelizable() {
+        return TransferManagerUtils.isStreamUploadParallelizable(
+                putObjectRequest, configuration, s3 instanceof AmazonS3Encryption);
+    }
+
     public UploadResult call() throws Exception {
         upload.setState(TransferState.InProgress);
-        if ( isMultipartUpload() ) {
+        if (isStreamUploadParallelizable()) {
+            return uploadStreamInParts();
+        } else if ( isMultipartUpload() ) {
             publishProgress(listener, ProgressEventType.TRANSFER_STARTED_EVENT);
             return uploadInParts();
         } else {
@@ -175,17 +223,25 @@ public class UploadCallable implements Callable<UploadResult> {
      */
     private UploadResult uploadInParts() throws Exception {
         boolean isUsingEncryption = s3 instanceof AmazonS3Encryption;
+        boolean isEncryptingInParallel = isUsingEncryption
+                && isParallelPartEncryptionSupported();
         long optimalPartSize = getOptimalPartSize(isUsingEncryption);
+        transferProgress.setPartSize(optimalPartSize);
 
         if (multipartUploadId == null) {
             multipartUploadId = initiateMultipartUpload(putObjectRequest,
-                    isUsingEncryption);
+                    isUsingEncryption, isEncryptingInParallel);
         }
 
         try {
             UploadPartRequestFactory requestFactory = new UploadPartRequestFactory(putObjectRequest, multipartUploadId, optimalPartSize);
 
-            if (TransferManagerUtils.isUploadParallelizable(putObjectRequest, isUsingEncryption)) {
+            if (isEncryptingInParallel) {
+                // The encryption context is held in memory by the client, so
+                // the upload cannot be resumed by another client
+                uploadPartsInParallel(requestFactory, multipartUploadId);
+                return null;
+            } else if (TransferManagerUtils.isUploadParallelizable(putObjectRequest, isUsingEncryption)) {
                 captureUploadStateIfPossible();
                 uploadPartsInParallel(requestFactory, multipartUploadId);
                 return null;
@@ -194,7 +250,10 @@ public class UploadCallable implements Callable<UploadResult> {
             }
         } catch (Exception e) {
             publishProgress(listener, ProgressEventType.TRANSFER_FAILED_EVENT);
-            performAbortMultipartUpload();
+            // A paused upload must be left for resumption, whereas an aborted
+            // upload is aborted by the monitor
+            if (!submissionInterrupted)
+                performAbortMultipartUpload();
             throw e;
         } finally {
             if (putObjectRequest.getInputStream() != null) {
@@ -223,6 +282,16 @@ public class UploadCallable implements Callable<UploadResult> {
         }
     }
 
+    /**
+     * Returns true if the file of the request can be encrypted and uploaded
+     * in parts concurrently by the encryption client; false otherwise.
+     */
+    private boolean isParallelPartEncryptionSupported() {
+        return s3 instanceof AmazonS3EncryptionClient
+            && ((AmazonS3EncryptionClient) s3).isParallelPartUploadSupported()
+            && TransferManagerUtils.getRequestFile(putObjectRequest) != null;
+    }
+
     /**
      * Computes and returns the optimal part size for the upload.
      */
@@ -281,6 +350,10 @@ public class UploadCallable implements Callable<UploadResult> {
 
         latch = new CountDownLatch(requestFactory.getTotalNumberOfParts());
 
+        final AdaptivePartLimiter limiter = configuration.isAdaptiveMultipartTuning()
+            ? new AdaptivePartLimiter(TransferManagerUtils.getMaxThreads(threadPool), transferProgress)
+            : null;
+        final List<FutureTask<PartETag>> tasks = new ArrayList<FutureTask<PartETag>>();
         while (requestFactory.hasMoreRequests()) {
             if (threadPool.isShutdown()) throw new CancellationException("TransferManager has been shutdown");
             UploadPartRequest request = requestFactory.getNextUploadPartRequest();
@@ -292,11 +365,259 @@ public class UploadCallable implements Callable<UploadResult> {
                 latch.countDown();
                 continue;
             }
-            futures.add(threadPool.submit(new UploadPartCallable(s3, request,
-                    latch)));
+            Callable<PartETag> callable = new UploadPartCallable(s3, request, latch);
+            if (limiter != null) {
+                acquirePart(limiter, tasks);
+                callable = limiter.wrap(callable, request.getPartSize());
+            }
+            FutureTask<PartETag> task = new FutureTask<PartETag>(callable);
+            execute(task);
+            if (limiter != null)
+                tasks.add(task);
+        }
+        // The monitor is about to wait for the parts still queued
+        while (nextUnstartedPart < tasks.size())
+            tasks.get(nextUnstartedPart++).run();
+    }
+
+    /**
+     * Waits until the given limiter allows another part to be in flight.
+     * While waiting, the current thread uploads any of the given parts that
+     * has yet to be started by the thread pool, so that it never waits on
+     * parts queued behind threads of the same pool, including its own. If
+     * interrupted, such as when the upload is being paused or aborted, the
+     * parts already submitted are cancelled.
+     */
+    private void acquirePart(AdaptivePartLimiter limiter,
+            List<FutureTask<PartETag>> tasks) {
+        try {
+            boolean acquired = limiter.tryAcquire();
+            while (!acquired && nextUnstartedPart < tasks.size()) {
+                // no-op if already started by the thread pool
+                tasks.get(nextUnstartedPart++).run();
+                acquired = limiter.tryAcquire();
+            }
+            // Any part still in flight is being uploaded by another thread
+            if (!acquired)
+                limiter.acquire();
+        } catch (InterruptedException e) {
+            submissionInterrupted = true;
+            cancelParts();
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Upload interrupted");
+        }
+    }
+
+    /**
+     * Executes the given part in the thread pool and records its future,
+     * unless the parts have been cancelled.
+     */
+    private void execute(FutureTask<PartETag> task) {
+        synchronized (futures) {
+            if (partsCanceled)
+                throw new CancellationException("Upload canceled");
+            threadPool.execute(task);
+            futures.add(task);
+        }
+    }
+
+    /**
+     * Cancels the parts submitted so far, and prevents any further part from
+     * being submitted.
+     */
+    void cancelParts() {
+        submissionInterrupted = true;
+        synchronized (futures) {
+            partsCanceled = true;
+            for (Future<PartETag> f : futures)
+                f.cancel(true);
+            futures.clear();
+        }
+    }
+
+    /**
+     * Uploads the input stream of the request in parts concurrently, then
+     * completes the upload and returns the result. The input stream is read
+     * into the buffers of a bounded pool, and each filled buffer is uploaded
+     * as a part by the thread pool. When all the buffers are in use, reading
+     * is suspended until a part has been uploaded. An input stream that fits
+     * in a single part is uploaded in one chunk instead.
+     */
+    private UploadResult uploadStreamInParts() throws Exception {
+        final InputStream input = putObjectRequest.getInputStream();
+        final long partSize = Math.min(getOptimalPartSize(false), Integer.MAX_VALUE);
+        transferProgress.setPartSize(partSize);
+        final PartBufferPool pool = new PartBufferPool(
+                configuration.getStreamUploadBufferCount(), (int) partSize,
+                configuration.isDirectStreamUploadBuffers());
+        final ReadableByteChannel channel = Channels.newChannel(input);
+        final List<FutureTask<PartETag>> tasks = new ArrayList<FutureTask<PartETag>>();
+        final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        try {
+            ByteBuffer buffer = pool.acquire();
+            boolean eof = fill(channel, buffer);
+            if (eof) {
+                streamUploadedInOneChunk = true;
+                return uploadBufferInOneChunk(buffer);
+            }
+            publishProgress(listener, ProgressEventType.TRANSFER_STARTED_EVENT);
+            if (multipartUploadId == null)
+                multipartUploadId = initiateMultipartUpload(putObjectRequest, false, false);
+            int partNumber = 0;
+            while (true) {
+                if (++partNumber > Constants.MAXIMUM_UPLOAD_PARTS) {
+                    throw new AmazonClientException(
+                        "Unable to upload input stream in at most "
+                        + Constants.MAXIMUM_UPLOAD_PARTS + " parts of "
+                        + partSize + " bytes");
+                }
+                buffer.flip();
+                tasks.add(submitPart(pool, buffer, partNumber, eof, failure));
+                if (eof)
+                    break;
+                buffer = acquireBuffer(pool, tasks, failure);
+                eof = fill(channel, buffer);
+                if (eof && buffer.position() == 0) {
+                    pool.release(buffer);
+                    break;
+                }
+            }
+            final List<PartETag> partETags = new ArrayList<PartETag>(tasks.size());
+            for (FutureTask<PartETag> task : tasks) {
+                task.run(); // no-op unless the part has yet to be started
+                try {
+                    partETags.add(task.get());
+                } catch (ExecutionException e) {
+                    throw new AmazonClientException("Unable to upload part: "
+                            + e.getCause().getMessage(), e.getCause());
+                }
+            }
+            CompleteMultipartUploadResult completeMultipartUploadResult = s3
+                    .completeMultipartUpload(new CompleteMultipartUploadRequest(putObjectRequest.getBucketName(),
+                            putObjectRequest.getKey(), multipartUploadId, partETags));
+
+            UploadResult uploadResult = new UploadResult();
+            uploadResult.setBucketName(completeMultipartUploadResult.getBucketName());
+            uploadResult.setKey(completeMultipartUploadResult.getKey());
+            uploadResult.setETag(completeMultipartUploadResult.getETag());
+            uploadResult.setVersionId(completeMultipartUploadResult.getVersionId());
+            return uploadResult;
+        } catch (Exception e) {
+            for (FutureTask<PartETag> task : tasks)
+                task.cancel(true);
+            if (multipartUploadId != null) {
+                publishProgress(listener, ProgressEventType.TRANSFER_FAILED_EVENT);
+                performAbortMultipartUpload();
+            }
+            throw e;
+        } finally {
+            try {input.close(); } catch (Exception e) {
+                log.warn("Unable to cleanly close input stream: " + e.getMessage(), e);
+            }
         }
     }
 
+    /**
+     * Reads from the given channel until either the given buffer is full or
+     * the end of stream is reached. Returns true if the end of stream has been
+     * reached; false otherwise.
+     */
+    private static boolean fill(ReadableByteChannel channel, ByteBuffer buffer)
+            throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) == -1)
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns a part buffer from the given pool. If all the buffers are in
+     * use, the current thread uploads any part that has yet to be started by
+     * the thread pool before blocking, so that reading never waits on parts
+     * queued behind threads that are themselves waiting for a buffer.
+     */
+    private ByteBuffer acquireBuffer(PartBufferPool pool,
+            List<FutureTask<PartETag>> tasks,
+            AtomicReference<Throwable> failure) throws InterruptedException {
+        ByteBuffer buffer = pool.tryAcquire();
+        for (int i = 0; buffer == null && i < tasks.size(); i++) {
+            FutureTask<PartETag> task = tasks.get(i);
+            if (!task.isDone()) {
+                task.run(); // no-op if already started by the thread pool
+                buffer = pool.tryAcquire();
+            }
+        }
+        if (buffer == null)
+            buffer = pool.acquire();
+        Throwable t = failure.get();
+        if (t != null) {
+            pool.release(buffer);
+            throw new AmazonClientException("Unable to upload part: "
+                    + t.getMessage(), t);
+        }
+        return buffer;
+    }
+
+    /**
+     * Submits the upload of the given buffer as a part to the thread pool.
+     * The buffer is returned to the pool once the part upload has completed.
+     */
+    private FutureTask<PartETag> submitPart(final PartBufferPool pool,
+            final ByteBuffer buffer, int partNumber, boolean isLastPart,
+            final AtomicReference<Throwable> failure) {
+        if (threadPool.isShutdown()) throw new CancellationException("TransferManager has been shutdown");
+        final UploadPartRequest request = new UploadPartRequest()
+            .withBucketName(putObjectRequest.getBucketName())
+            .withKey(putObjectRequest.getKey())
+            .withUploadId(multipartUploadId)
+            .withInputStream(new ByteBufferInputStream(buffer))
+            .withPartNumber(partNumber)
+            .withPartSize(buffer.remaining());
+        TransferManager.appendMultipartUserAgent(request);
+        if (putObjectRequest.getSSECustomerKey() != null)
+            request.setSSECustomerKey(putObjectRequest.getSSECustomerKey());
+        request.setLastPart(isLastPart);
+        request.setGeneralProgressListener(putObjectRequest.getGeneralProgressListener());
+
+        FutureTask<PartETag> task = new FutureTask<PartETag>(new Callable<PartETag>() {
+            @Override
+            public PartETag call() throws Exception {
+                try {
+                    return s3.uploadPart(request).getPartETag();
+                } catch (Exception e) {
+                    failure.compareAndSet(null, e);
+                    throw e;
+                } finally {
+                    pool.release(buffer);
+                }
+            }
+        });
+        execute(task);
+        return task;
+    }
+
+    /**
+     * Uploads the content of the given buffer, being the entire content of
+     * the input stream of the request, in a single chunk.
+     */
+    private UploadResult uploadBufferInOneChunk(ByteBuffer buffer) {
+        buffer.flip();
+        PutObjectRequest req = putObjectRequest.clone()
+            .withInputStream(new ByteBufferInputStream(buffer));
+        if (putObjectRequest.getSSEAwsKeyManagementParams() != null)
+            req.setSSEAwsKeyManagementParams(putObjectRequest.getSSEAwsKeyManagementParams());
+        req.getMetadata().setContentLength(buffer.remaining());
+        PutObjectResult putObjectResult = s3.putObject(req);
+
+        UploadResult uploadResult = new UploadResult();
+        uploadResult.setBucketName(putObjectRequest.getBucketName());
+        uploadResult.setKey(putObjectRequest.getKey());
+        uploadResult.setETag(putObjectResult.getETag());
+        uploadResult.setVersionId(putObjectResult.getVersionId());
+        return uploadResult;
+    }
+
     private Map<Integer, PartSummary> identifyExistingPartsForResume(
             String uploadId) {
         Map<Integer, PartSummary> partNumbers = new HashMap<Integer, PartSummary>();
@@ -323,16 +644,26 @@ public class UploadCallable implements Callable<UploadResult> {
     /**
      * Initiates a multipart upload and returns the upload id
      * @param isUsingEncryption
+     * @param isEncryptingInParallel
+     *            true if the parts are to be encrypted independently so they
+     *            can be uploaded in parallel
      */
-    private String initiateMultipartUpload(PutObjectRequest putObjectRequest, boolean isUsingEncryption) {
+    private String initiateMultipartUpload(PutObjectRequest putObjectRequest,
+            boolean isUsingEncryption, boolean isEncryptingInParallel) {
 
         InitiateMultipartUploadRequest initiateMultipartUploadRequest = null;
-        if (isUsingEncryption && putObjectRequest instanceof EncryptedPutObjectRequest) {
-            initiateMultipartUploadRequest = new EncryptedInitiateMultipartUploadRequest(
-                    putObjectRequest.getBucketName(), putObjectRequest.getKey()).withCannedACL(
-                    putObjectRequest.getCannedAcl()).withObjectMetadata(putObjectRequest.getMetadata());
-            ((EncryptedInitiateMultipartUploadRequest) initiateMultipartUploadRequest)
-                    .setMaterialsDescription(((EncryptedPutObjectRequest) putObjectRequest).getMaterialsDescription());
+        if (isUsingEncryption && (isEncryptingInParallel
+                || putObjectRequest instanceof EncryptedPutObjectRequest)) {
+            EncryptedInitiateMultipartUploadRequest req = new EncryptedInitiateMultipartUploadRequest(
+                    putObjectRequest.getBucketName(), putObjectRequest.getKey())
+                    .withParallelPartUploads(isEncryptingInParallel);
+            req.withCannedACL(putObjectRequest.getCannedAcl())
+                    .withObjectMetadata(putObjectRequest.getMetadata());
+            if (putObjectRequest instanceof EncryptedPutObjectRequest) {
+                req.setMaterialsDescription(((EncryptedPutObjectRequest) putObjectRequest)
+                        .getMaterialsDescription());
+            }
+            initiateMultipartUploadRequest = req;
         } else {
             initiateMultipartUploadRequest = new InitiateMultipartUploadRequest(putObjectRequest.getBucketName(), putObjectRequest.getKey())
                 .withCannedACL(putObjectRequest.getCannedAcl())
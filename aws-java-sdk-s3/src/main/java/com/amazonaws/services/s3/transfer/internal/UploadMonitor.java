@@ -17,6 +17,7 @@ package com.amazonaws.services.s3.transfer.internal;
 import static com.amazonaws.event.SDKProgressPublisher.publishProgress;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CancellationException;
@@ -60,7 +61,8 @@ public class UploadMonitor implements Callable<UploadResult>, TransferMonitor {
      * State for tracking the upload's progress
      */
     private String uploadId;
-    private final List<Future<PartETag>> futures = new ArrayList<Future<PartETag>>();
+    /** The submitted parts, which may be cancelled concurrently. */
+    private final List<Future<PartETag>> futures = Collections.synchronizedList(new ArrayList<Future<PartETag>>());
 
     /*
      * State for clients wishing to poll for completion
@@ -162,13 +164,14 @@ public class UploadMonitor implements Callable<UploadResult>, TransferMonitor {
 
         while (!(latch.await(latchWaitTime, TimeUnit.MILLISECONDS))) {
 
-            for ( Future<PartETag> f : futures ) {
+            List<Future<PartETag>> parts = snapshotFutures();
+            for ( Future<PartETag> f : parts ) {
                 if ( !f.isDone() ) {
                     continue;
                 }
             }
 
-            for ( Future<PartETag> f : futures ) {
+            for ( Future<PartETag> f : parts ) {
                 if ( f.isCancelled() ) {
                     throw new CancellationException();
                 }
@@ -205,7 +208,7 @@ public class UploadMonitor implements Callable<UploadResult>, TransferMonitor {
 
         final List<PartETag> partETags = new ArrayList<PartETag>();
         partETags.addAll(multipartUploadCallable.getETags());
-        for (Future<PartETag> future : futures) {
+        for (Future<PartETag> future : snapshotFutures()) {
             try {
                 partETags.add(future.get());
             } catch (Exception e) {
@@ -246,11 +249,20 @@ public class UploadMonitor implements Callable<UploadResult>, TransferMonitor {
      */
     private void cancelFutures() {
         cancelFuture();
-        for (Future<PartETag> f : futures) {
-            f.cancel(true);
+        // Stops the submission of parts before cancelling them
+        multipartUploadCallable.cancelParts();
+        synchronized (futures) {
+            for (Future<PartETag> f : futures) {
+                f.cancel(true);
+            }
+            futures.clear();
+        }
+    }
+
+    private List<Future<PartETag>> snapshotFutures() {
+        synchronized (futures) {
+            return new ArrayList<Future<PartETag>>(futures);
         }
-        multipartUploadCallable.getFutures().clear();
-        futures.clear();
     }
 
     /**
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2010-2014 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.s3.transfer.internal;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.Set;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.ObjectListing;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+
+/**
+ * Plans the synchronization of a local directory to a virtual directory in
+ * Amazon S3. A file is uploaded if there is no object for it, or if its size
+ * differs from that of the object, or if it has been modified since the
+ * object was last modified.
+ */
+public class UploadSyncPlanner extends DirectorySyncPlanner {
+    private final String keyPrefix;
+    private final boolean includeSubdirectories;
+    private final int startingPosition;
+    /** Local directories yet to be compared, visited depth first. */
+    private final LinkedList<File> directories = new LinkedList<File>();
+
+    /**
+     * @param keyPrefix
+     *            the key prefix of the virtual directory, which must be
+     *            either empty or end with a "/"
+     */
+    public UploadSyncPlanner(AmazonS3 s3, String bucketName, String keyPrefix,
+            File directory, boolean includeSubdirectories,
+            boolean deleteExtraneous) {
+        super(s3, bucketName, deleteExtraneous);
+        this.keyPrefix = keyPrefix;
+        this.includeSubdirectories = includeSubdirectories;
+        String path = directory.getAbsolutePath();
+        this.startingPosition = path.endsWith(File.separator)
+            ? path.length() : path.length() + 1;
+        directories.add(directory);
+    }
+
+    @Override
+    protected boolean planNextDirectory() {
+        if (directories.isEmpty())
+            return false;
+        final File dir = directories.removeFirst();
+        final String path = dir.getAbsolutePath();
+        final String prefix = path.length() < startingPosition
+            ? keyPrefix
+            : keyPrefix + path.substring(startingPosition).replaceAll("\\\\", DELIMITER) + DELIMITER;
+
+        final Map<String, File> files = new HashMap<String, File>();
+        final Set<String> subdirectories = new HashSet<String>();
+        File[] found = dir.listFiles();
+        if (found != null) {
+            for (File f : found) {
+                if (f.isDirectory()) {
+                    if (includeSubdirectories) {
+                        directories.addFirst(f);
+                        subdirectories.add(f.getName());
+                    }
+                } else if (f.isFile()) {
+                    files.put(f.getName(), f);
+                }
+            }
+        }
+        ObjectListing listing = null;
+        do {
+            listing = listObjects(prefix, DELIMITER, listing);
+            for (S3ObjectSummary s : listing.getObjectSummaries()) {
+                final String key = s.getKey();
+                if (key.equals(prefix))
+                    continue;   // virtual directory marker
+                final File f = files.remove(key.substring(prefix.length()));
+                if (f == null) {
+                    if (deleteExtraneous)
+                        deleteObject(key);
+                } else if (f.length() != s.getSize()
+                        || f.lastModified() > s.getLastModified().getTime()) {
+                    addPending(f, key, f.length());
+                } else {
+                    skip();
+                }
+            }
+            if (deleteExtraneous && includeSubdirectories) {
+                for (String commonPrefix : listing.getCommonPrefixes()) {
+                    String name = commonPrefix.substring(prefix.length(),
+                            commonPrefix.length() - DELIMITER.length());
+                    if (!subdirectories.contains(name))
+                        deleteObjectsWithPrefix(commonPrefix);
+                }
+            }
+        } while (listing.isTruncated());
+        // Files without a corresponding object
+        for (Map.Entry<String, File> e : files.entrySet())
+            addPending(e.getValue(), prefix + e.getKey(), e.getValue().length());
+        return true;
+    }
+}